@@ -1,5 +1,11 @@
 package testservice.api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -7,16 +13,23 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.autoconfiguration.XsuaaAutoConfiguration;
 import com.sap.cloud.security.xsuaa.autoconfiguration.XsuaaResourceServerJwkAutoConfiguration;
 import com.sap.cloud.security.xsuaa.test.JwtGenerator;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoder;
 import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoderBuilder;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoderStatistics;
 
 import testservice.api.nohttp.MyEventHandler;
 import testservice.api.nohttp.SecurityConfiguration;
@@ -50,6 +63,11 @@ public class XsuaaJwtDecoderTest {
 				.withPostValidationActions(token -> postActionExecuted = true).build();
 	}
 
+	@After
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
 	@Test
 	public void postValidationActionIsExecutedIfSuccess() {
 		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
@@ -70,4 +88,188 @@ public class XsuaaJwtDecoderTest {
 			Assert.assertFalse(postActionExecuted);
 		}
 	}
+
+	@Test
+	public void trustedTokenIsNotVerifiedAgain() {
+		Jwt trustedJwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("unknown-token-key").getToken();
+		exposeTrustedToken(trustedJwt);
+
+		Jwt jwt = jwtDecoderWithPostAction.decode(trustedJwt.getTokenValue());
+
+		Assert.assertSame(trustedJwt, jwt);
+		Assert.assertTrue(postActionExecuted);
+	}
+
+	@Test
+	public void trustedTokenIsValidated() {
+		Jwt trustedJwt = new JwtGenerator("foreign-client", "subdomain").setJwtHeaderKeyId("unknown-token-key")
+				.getToken();
+		exposeTrustedToken(trustedJwt);
+		try {
+			jwtDecoderWithPostAction.decode(trustedJwt.getTokenValue());
+			Assert.fail();
+		} catch (JwtValidationException e) {
+			Assert.assertFalse(postActionExecuted);
+		}
+	}
+
+	@Test
+	public void otherTokenIsVerifiedEvenIfTrustedTokenIsExposed() {
+		exposeTrustedToken(new JwtGenerator(clientId, "subdomain").deriveAudiences(true).getToken());
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("unknown-token-key").getToken().getTokenValue();
+		try {
+			jwtDecoderWithPostAction.decode(jwt);
+			Assert.fail();
+		} catch (JwtException e) {
+			Assert.assertFalse(postActionExecuted);
+		}
+	}
+
+	@Test
+	public void trustedTokenIsIgnoredForOtherToken() {
+		Jwt trustedJwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").getToken();
+		exposeTrustedToken(trustedJwt);
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setUserName("otheruser").setJwtHeaderKeyId("legacy-token-key").getToken().getTokenValue();
+
+		Jwt verifiedJwt = jwtDecoderWithPostAction.decode(jwt);
+
+		Assert.assertNotSame(trustedJwt, verifiedJwt);
+		Assert.assertEquals(jwt, verifiedJwt.getTokenValue());
+		Assert.assertEquals("otheruser", verifiedJwt.getClaimAsString("user_name"));
+	}
+
+	@Test
+	public void verifiedTokenIsNotVerifiedAgain() throws InterruptedException {
+		JwtDecoder jwtDecoderWithTokenCache = new XsuaaJwtDecoderBuilder(serviceConfiguration)
+				.withVerifiedTokenCacheSize(10)
+				.withDecoderCacheTime(3)
+				.withDecoderCacheRefreshAhead(2)
+				.withPostValidationActions(token -> postActionExecuted = true).build();
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").getToken().getTokenValue();
+
+		Jwt verifiedJwt = jwtDecoderWithTokenCache.decode(jwt);
+		waitUntilDecoderIsDueForRefresh();
+		postActionExecuted = false;
+
+		Assert.assertSame(verifiedJwt, jwtDecoderWithTokenCache.decode(jwt));
+		Assert.assertTrue(postActionExecuted);
+		Assert.assertNotSame(jwtDecoderWithPostAction.decode(jwt), jwtDecoderWithPostAction.decode(jwt));
+	}
+
+	@Test
+	public void decoderIsRefreshedWithRefreshExecutor() throws InterruptedException {
+		List<Runnable> refreshes = new ArrayList<>();
+		XsuaaJwtDecoder jwtDecoder = (XsuaaJwtDecoder) new XsuaaJwtDecoderBuilder(serviceConfiguration)
+				.withDecoderCacheTime(3)
+				.withDecoderCacheRefreshAhead(2)
+				.withDecoderCacheRefreshExecutor(refreshes::add).build();
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").getToken().getTokenValue();
+
+		jwtDecoder.decode(jwt);
+		Assert.assertEquals(0, refreshes.size());
+		waitUntilDecoderIsDueForRefresh();
+		jwtDecoder.decode(jwt);
+		jwtDecoder.decode(jwt);
+
+		Assert.assertEquals(1, refreshes.size());
+		Assert.assertEquals(1, jwtDecoder.getStatistics().getOutstandingRefreshes());
+		refreshes.get(0).run();
+		Assert.assertEquals(0, jwtDecoder.getStatistics().getOutstandingRefreshes());
+	}
+
+	@Test
+	public void rejectedRefreshIsScheduledAgain() throws InterruptedException {
+		List<Runnable> refreshes = new ArrayList<>();
+		AtomicBoolean reject = new AtomicBoolean(true);
+		XsuaaJwtDecoder jwtDecoder = (XsuaaJwtDecoder) new XsuaaJwtDecoderBuilder(serviceConfiguration)
+				.withDecoderCacheTime(3)
+				.withDecoderCacheRefreshAhead(2)
+				.withDecoderCacheRefreshExecutor(refresh -> {
+					if (reject.get()) {
+						throw new RejectedExecutionException("queue is full");
+					}
+					refreshes.add(refresh);
+				}).build();
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").getToken().getTokenValue();
+
+		jwtDecoder.decode(jwt);
+		waitUntilDecoderIsDueForRefresh();
+		jwtDecoder.decode(jwt);
+		Assert.assertEquals(0, jwtDecoder.getStatistics().getOutstandingRefreshes());
+
+		reject.set(false);
+		jwtDecoder.decode(jwt);
+		Assert.assertEquals(1, refreshes.size());
+	}
+
+	@Test
+	public void decoderWithRefreshAheadNotLessThanCacheTimeIsRejected() {
+		XsuaaJwtDecoderBuilder builder = new XsuaaJwtDecoderBuilder(serviceConfiguration)
+				.withDecoderCacheTime(900)
+				.withDecoderCacheRefreshAhead(900);
+
+		try {
+			builder.build();
+			Assert.fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+			Assert.assertTrue(e.getMessage().contains("refresh ahead"));
+		}
+	}
+
+	@Test
+	public void statisticsReportCachedKeys() {
+		XsuaaJwtDecoder jwtDecoder = (XsuaaJwtDecoder) new XsuaaJwtDecoderBuilder(serviceConfiguration)
+				.withVerifiedTokenCacheSize(10).build();
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").getToken().getTokenValue();
+
+		jwtDecoder.decode(jwt);
+		jwtDecoder.decode(jwt);
+
+		XsuaaJwtDecoderStatistics statistics = jwtDecoder.getStatistics();
+		Assert.assertEquals(1, statistics.getCachedKeys().size());
+		Assert.assertEquals("legacy-token-key", statistics.getCachedKeys().get(0).getKid());
+		Assert.assertEquals(0, statistics.getOutstandingRefreshes());
+		Assert.assertEquals(1, statistics.getLastKeyFetchMillis().size());
+		Assert.assertEquals(1, statistics.getVerifiedTokenCache().getHitCount());
+
+		jwtDecoder.evictTenant("othersubdomain");
+		Assert.assertEquals(1, jwtDecoder.getStatistics().getDecoderCache().getSize());
+	}
+
+	@Test
+	public void evictTenantRemovesCachedKeysOfSubdomain() {
+		XsuaaJwtDecoder jwtDecoder = (XsuaaJwtDecoder) new XsuaaJwtDecoderBuilder(serviceConfiguration).build();
+		String jwt = new JwtGenerator(clientId, "subdomain").deriveAudiences(true)
+				.setJwtHeaderKeyId("legacy-token-key").setJku("http://subdomain.localhost:1/token_keys").getToken()
+				.getTokenValue();
+		try {
+			jwtDecoder.decode(jwt);
+		} catch (JwtException e) {
+			// token keys cannot be fetched, but the decoder is cached
+		}
+		Assert.assertEquals("http://subdomain.localhost:1/token_keys",
+				jwtDecoder.getStatistics().getCachedKeys().get(0).getJku());
+
+		jwtDecoder.evictTenant("subdomain");
+		Assert.assertEquals(0, jwtDecoder.getStatistics().getDecoderCache().getSize());
+	}
+
+	private void exposeTrustedToken(Jwt jwt) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(XsuaaJwtDecoder.TRUSTED_JWT_ATTRIBUTE, jwt);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	private static void waitUntilDecoderIsDueForRefresh() throws InterruptedException {
+		// the decoders are due for refresh after cache time - refresh ahead = 1 second
+		Thread.sleep(1100);
+	}
 }
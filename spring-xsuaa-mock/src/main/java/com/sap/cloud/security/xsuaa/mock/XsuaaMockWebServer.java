@@ -62,6 +62,21 @@ public class XsuaaMockWebServer extends PropertySource<MockWebServer> {
 		port = MOCK_XSUAA_DEFAULT_PORT;
 	}
 
+	/**
+	 * Initializes a Mock Web Server object on a given port with the given
+	 * dispatcher, e.g. a {@link XsuaaRequestDispatcher} with latency or error
+	 * injection.
+	 *
+	 * @param port
+	 *            the port the mock server should listen to. Use '0' in case you want to use a random port.
+	 * @param dispatcher
+	 *            the dispatcher to be used
+	 */
+	public XsuaaMockWebServer(int port, Dispatcher dispatcher) {
+		super(MOCK_XSUAA_PROPERTY_SOURCE_NAME, createMockWebServer(dispatcher));
+		this.port = port;
+	}
+
 	private static MockWebServer createMockWebServer(Dispatcher dispatcher) {
 		Assert.notNull(dispatcher, "Dispatcher required");
 		MockWebServer mockWebServer = new MockWebServer();
@@ -1,41 +1,365 @@
 package com.sap.cloud.security.xsuaa.mock;
 
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.io.IOUtils;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.sap.cloud.security.xsuaa.test.JwtGenerator;
 
 import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.RecordedRequest;
 
+/**
+ * Dispatches the requests of the {@link XsuaaMockWebServer}. The token keys
+ * and the resource files are read and prepared once, so that the dispatcher
+ * does not limit the throughput in load tests. The requests are counted per
+ * path.
+ * <p>
+ * In order to benchmark caching and resilience behavior, a latency with jitter
+ * and a rate of failing requests can be configured:
+ *
+ * <pre>
+ * {@code
+ * new XsuaaMockWebServer(new XsuaaRequestDispatcher()
+ * 		.withLatency(Duration.ofMillis(50), Duration.ofMillis(20))
+ * 		.withErrorRate(0.1, HttpStatus.SERVICE_UNAVAILABLE));
+ * }
+ * </pre>
+ *
+ * The latency and errors are applied to the requests that are dispatched by
+ * {@link #dispatch(RecordedRequest)} of this class.
+ * <p>
+ * The {@code /oauth/token} endpoint supports the {@code client_credentials},
+ * {@code password}, {@code refresh_token} and {@code user_token} grants. The
+ * access tokens are signed with the key of the {@link JwtGenerator}, so that
+ * they can be verified with the token keys of this mock server. The client is
+ * authenticated by the {@code client_id} and {@code client_secret} parameters
+ * or by a basic authorization header. The subdomain of the tokens is taken
+ * from the path, e.g. {@code /mytenant/oauth/token}, or from the host, e.g.
+ * {@code mytenant.localhost}. The validity of the tokens can be configured with
+ * {@link #withTokenValidity(Duration)}.
+ */
 public class XsuaaRequestDispatcher extends Dispatcher {
 	protected static final String RESPONSE_404 = "Xsuaa mock authorization server does not support this request";
 	protected static final String RESPONSE_401 = "Xsuaa mock authorization server can't authenticate client/user";
 	protected static final String RESPONSE_500 = "Xsuaa mock authorization server can't process request";
 	protected static final String PATH_TOKEN_KEYS_TEMPLATE = "/mock/token_keys_template.json";
 	protected static final String PATH_PUBLIC_KEY = "/mock/publicKey.txt";
+	protected static final String GRANT_TYPE_JWT_BEARER = "urn:ietf:params:oauth:grant-type:jwt-bearer";
+	protected static final String GRANT_TYPE_CLIENT_CREDENTIALS = "client_credentials";
+	protected static final String GRANT_TYPE_PASSWORD = "password";
+	protected static final String GRANT_TYPE_REFRESH_TOKEN = "refresh_token";
+	protected static final String GRANT_TYPE_USER_TOKEN = "user_token";
+	private static final String REFRESH_TOKEN_SUFFIX = "-r";
 	protected final Logger logger = LoggerFactory.getLogger(XsuaaRequestDispatcher.class);
-	private static int callCount = 0;
+	private static final AtomicInteger callCount = new AtomicInteger();
+
+	private final ConcurrentMap<String, String> resources = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, String> tokenKeys = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+	private volatile long latencyMillis;
+	private volatile long jitterMillis;
+	private volatile double errorRate;
+	private volatile HttpStatus errorStatus = HttpStatus.SERVICE_UNAVAILABLE;
+	private volatile long tokenValiditySeconds = 43199;
+
+	public XsuaaRequestDispatcher() {
+		getTokenKeyForKeyId(PATH_TOKEN_KEYS_TEMPLATE, "legacy-token-key");
+		getTokenKeyForKeyId(PATH_TOKEN_KEYS_TEMPLATE, "legacy-token-key-testdomain");
+	}
+
+	/**
+	 * Delays the responses by the given latency plus a random jitter.
+	 *
+	 * @param latency
+	 *            the minimal delay of a response.
+	 * @param jitter
+	 *            the maximal random delay, which is added to the latency.
+	 * @return this dispatcher.
+	 */
+	public XsuaaRequestDispatcher withLatency(Duration latency, Duration jitter) {
+		Assert.isTrue(!latency.isNegative() && !jitter.isNegative(), "latency and jitter must not be negative");
+		this.latencyMillis = latency.toMillis();
+		this.jitterMillis = jitter.toMillis();
+		return this;
+	}
+
+	/**
+	 * Answers the given ratio of the requests with an error.
+	 *
+	 * @param errorRate
+	 *            the ratio of failing requests between 0 and 1.
+	 * @param errorStatus
+	 *            the status code of the failing requests, e.g.
+	 *            {@link HttpStatus#SERVICE_UNAVAILABLE}.
+	 * @return this dispatcher.
+	 */
+	public XsuaaRequestDispatcher withErrorRate(double errorRate, HttpStatus errorStatus) {
+		Assert.isTrue(errorRate >= 0 && errorRate <= 1, "errorRate must be between 0 and 1");
+		Assert.notNull(errorStatus, "errorStatus is required");
+		this.errorStatus = errorStatus;
+		this.errorRate = errorRate;
+		return this;
+	}
+
+	/**
+	 * Configures the validity of the issued access tokens, i.e. the
+	 * {@code expires_in} value of the token responses and the {@code exp} claim of
+	 * the tokens. Defaults to 12 hours.
+	 *
+	 * @param tokenValidity
+	 *            the validity of the issued tokens.
+	 * @return this dispatcher.
+	 */
+	public XsuaaRequestDispatcher withTokenValidity(Duration tokenValidity) {
+		Assert.isTrue(tokenValidity.getSeconds() > 0, "tokenValidity must be at least one second");
+		this.tokenValiditySeconds = tokenValidity.getSeconds();
+		return this;
+	}
 
 	@Override
 	public MockResponse dispatch(RecordedRequest request) {
-		callCount++;
-		if ("/testdomain/token_keys".equals(request.getPath())) {
+		callCount.incrementAndGet();
+		String path = stripQuery(request.getPath());
+		requestCounts.computeIfAbsent(path, key -> new LongAdder()).increment();
+		return delay(errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate
+				? getResponse(RESPONSE_500, errorStatus)
+				: route(request, path));
+	}
+
+	private MockResponse route(RecordedRequest request, String path) {
+		if ("/testdomain/token_keys".equals(path)) {
 			String subdomain = "testdomain";
 			return getTokenKeyForKeyId(PATH_TOKEN_KEYS_TEMPLATE, "legacy-token-key-" + subdomain);
 		}
-		if (request.getPath().endsWith("/token_keys")) {
+		if (path.endsWith("/token_keys")) {
 			return getTokenKeyForKeyId(PATH_TOKEN_KEYS_TEMPLATE, "legacy-token-key");
 		}
+		if ("POST".equals(request.getMethod()) && path.endsWith("/oauth/token")) {
+			Map<String, String> parameters = getFormParameters(request);
+			if (GRANT_TYPE_JWT_BEARER.equals(parameters.get("grant_type"))) {
+				return getJwtBearerTokenResponse(parameters);
+			}
+			return getTokenResponse(request, path, parameters);
+		}
 		return getResponse(RESPONSE_404, HttpStatus.NOT_FOUND);
 	}
 
+	private MockResponse delay(MockResponse response) {
+		long delayMillis = latencyMillis;
+		if (jitterMillis > 0) {
+			delayMillis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+		}
+		if (delayMillis > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(delayMillis); // the mock web server serves each connection by a thread
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return response;
+	}
+
+	private static String stripQuery(String path) {
+		int queryIndex = path.indexOf('?');
+		return queryIndex < 0 ? path : path.substring(0, queryIndex);
+	}
+
+	/**
+	 * Answers a token request with the
+	 * {@code urn:ietf:params:oauth:grant-type:jwt-bearer} grant. The returned
+	 * access token is the assertion of the request, so that tests can verify,
+	 * which token was exchanged.
+	 */
+	protected MockResponse getJwtBearerTokenResponse(Map<String, String> parameters) {
+		if (parameters.getOrDefault("client_id", "").isEmpty()
+				|| parameters.getOrDefault("client_secret", "").isEmpty()) {
+			return getResponse(RESPONSE_401, HttpStatus.UNAUTHORIZED);
+		}
+		String assertion = parameters.get("assertion");
+		if (assertion == null) {
+			return getResponse("{\"error\":\"invalid_request\"}", HttpStatus.BAD_REQUEST);
+		}
+		Map<String, Object> body = new HashMap<>();
+		body.put("access_token", assertion);
+		body.put("token_type", "bearer");
+		body.put("expires_in", tokenValiditySeconds);
+		return getResponse(new JSONObject(body).toString(), HttpStatus.OK);
+	}
+
+	/**
+	 * Answers a token request with the {@code client_credentials},
+	 * {@code password}, {@code refresh_token} or {@code user_token} grant with an
+	 * access token that is signed by the {@link JwtGenerator}. The refresh token
+	 * encodes the user name, so that the refresh token grant issues a token for
+	 * the same user.
+	 */
+	protected MockResponse getTokenResponse(RecordedRequest request, String path, Map<String, String> parameters) {
+		String grantType = parameters.getOrDefault("grant_type", "");
+		String clientId = getClientId(request, parameters, GRANT_TYPE_USER_TOKEN.equals(grantType));
+		if (clientId == null) {
+			return getResponse(RESPONSE_401, HttpStatus.UNAUTHORIZED);
+		}
+		String userName;
+		switch (grantType) {
+		case GRANT_TYPE_CLIENT_CREDENTIALS:
+			userName = null;
+			break;
+		case GRANT_TYPE_PASSWORD:
+			userName = parameters.get("username");
+			if (parameters.getOrDefault("password", "").isEmpty()) {
+				userName = null;
+			}
+			break;
+		case GRANT_TYPE_REFRESH_TOKEN:
+			userName = decodeRefreshToken(parameters.get("refresh_token"));
+			break;
+		case GRANT_TYPE_USER_TOKEN:
+			userName = getUserName(request.getHeader(HttpHeaders.AUTHORIZATION));
+			break;
+		default:
+			return getResponse("{\"error\":\"unsupported_grant_type\"}", HttpStatus.BAD_REQUEST);
+		}
+		if (userName == null && !GRANT_TYPE_CLIENT_CREDENTIALS.equals(grantType)) {
+			return getResponse(RESPONSE_401, HttpStatus.UNAUTHORIZED);
+		}
+		long expiresIn = tokenValiditySeconds;
+		Map<String, Object> body = new HashMap<>();
+		body.put("access_token", createAccessToken(request, path, grantType, clientId, userName, expiresIn));
+		body.put("token_type", "bearer");
+		body.put("expires_in", expiresIn);
+		if (userName != null) {
+			body.put("refresh_token", encodeRefreshToken(userName));
+		}
+		return getResponse(new JSONObject(body).toString(), HttpStatus.OK);
+	}
+
+	private String createAccessToken(RecordedRequest request, String path, String grantType, String clientId,
+			String userName, long expiresIn) {
+		String subdomain = getSubdomain(request, path);
+		JwtGenerator jwtGenerator = new JwtGenerator(clientId, subdomain)
+				.setJku("http://localhost:" + request.getRequestUrl().port()
+						+ (subdomain.isEmpty() ? "" : "/" + subdomain) + "/token_keys")
+				.setJwtHeaderKeyId("testdomain".equals(subdomain) ? "legacy-token-key-testdomain" : "legacy-token-key");
+		JWTClaimsSet.Builder claimsSetBuilder = jwtGenerator.getBasicClaimSet()
+				.expirationTime(new Date(System.currentTimeMillis() + expiresIn * 1000))
+				.claim("client_id", clientId)
+				.claim("grant_type", grantType)
+				.claim("user_name", userName)
+				.claim("email", userName == null ? null : userName + "@test.org")
+				.claim("scope", userName == null ? Arrays.asList("uaa.resource") : Arrays.asList("openid", "uaa.user"));
+		return JwtGenerator.createFromClaims(claimsSetBuilder.build(), jwtGenerator.getBasicHeaders()).getTokenValue();
+	}
+
+	private String getClientId(RecordedRequest request, Map<String, String> parameters, boolean isSecretOptional) {
+		String clientId = parameters.getOrDefault("client_id", "");
+		String clientSecret = parameters.getOrDefault("client_secret", "");
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (clientId.isEmpty() && authorization != null && authorization.startsWith("Basic ")) {
+			String credentials;
+			try {
+				credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+						StandardCharsets.UTF_8);
+			} catch (IllegalArgumentException e) {
+				return null; // malformed basic authentication
+			}
+			int index = credentials.indexOf(':');
+			clientId = index < 0 ? "" : credentials.substring(0, index);
+			clientSecret = index < 0 ? "" : credentials.substring(index + 1);
+		}
+		if (clientId.isEmpty() || (clientSecret.isEmpty() && !isSecretOptional)) {
+			return null;
+		}
+		return clientId;
+	}
+
+	private static String getSubdomain(RecordedRequest request, String path) {
+		int index = path.indexOf("/oauth/token");
+		if (index > 1) {
+			return path.substring(1, index);
+		}
+		String host = request.getHeader("Host");
+		if (host != null && host.indexOf('.') > 0 && !Character.isDigit(host.charAt(0))) {
+			return host.substring(0, host.indexOf('.'));
+		}
+		return "";
+	}
+
+	private static String getUserName(String authorization) {
+		if (authorization == null || !authorization.startsWith("Bearer ")) {
+			return null;
+		}
+		try {
+			return JWTParser.parse(authorization.substring(7).trim()).getJWTClaimsSet().getStringClaim("user_name");
+		} catch (ParseException e) {
+			return null;
+		}
+	}
+
+	private static String encodeRefreshToken(String userName) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(userName.getBytes(StandardCharsets.UTF_8))
+				+ REFRESH_TOKEN_SUFFIX;
+	}
+
+	private static String decodeRefreshToken(String refreshToken) {
+		if (refreshToken == null || !refreshToken.endsWith(REFRESH_TOKEN_SUFFIX)) {
+			return null;
+		}
+		try {
+			return new String(Base64.getUrlDecoder()
+					.decode(refreshToken.substring(0, refreshToken.length() - REFRESH_TOKEN_SUFFIX.length())),
+					StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	protected Map<String, String> getFormParameters(RecordedRequest request) {
+		Map<String, String> parameters = new HashMap<>();
+		String body = request.getBody().readString(StandardCharsets.UTF_8);
+		for (String parameter : body.split("&")) {
+			int index = parameter.indexOf('=');
+			if (index > 0) {
+				parameters.put(decode(parameter.substring(0, index)), decode(parameter.substring(index + 1)));
+			}
+		}
+		return parameters;
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
 	protected MockResponse getResponseFromFile(String path, HttpStatus status) {
 		try {
 			String body = readFromFile(path);
@@ -53,19 +377,32 @@ public class XsuaaRequestDispatcher extends Dispatcher {
 	}
 
 	protected MockResponse getTokenKeyForKeyId(String pathToTemplate, String keyId) {
-		try {
-			String publicKey = readFromFile(PATH_PUBLIC_KEY);
-			String body = readFromFile(pathToTemplate)
-					.replace("$kid", keyId)
-					.replace("$public_key", publicKey);
-			return getResponse(body, HttpStatus.OK);
-		} catch (Exception e) {
-			return getInternalErrorResponse(e.getMessage());
+		String cacheKey = pathToTemplate + '#' + keyId;
+		String body = tokenKeys.get(cacheKey);
+		if (body == null) {
+			try {
+				String publicKey = readFromFile(PATH_PUBLIC_KEY);
+				body = readFromFile(pathToTemplate)
+						.replace("$kid", keyId)
+						.replace("$public_key", publicKey);
+				tokenKeys.putIfAbsent(cacheKey, body);
+			} catch (Exception e) {
+				return getInternalErrorResponse(e.getMessage());
+			}
 		}
+		return getResponse(body, HttpStatus.OK);
 	}
 
+	/**
+	 * Reads a classpath resource, which is read only once.
+	 */
 	protected String readFromFile(String path) throws IOException {
-		return IOUtils.resourceToString(path, StandardCharsets.UTF_8);
+		String content = resources.get(path);
+		if (content == null) {
+			content = IOUtils.resourceToString(path, StandardCharsets.UTF_8);
+			resources.putIfAbsent(path, content);
+		}
+		return content;
 	}
 
 	protected MockResponse getInternalErrorResponse(String message) {
@@ -73,7 +410,31 @@ public class XsuaaRequestDispatcher extends Dispatcher {
 		return getResponse(RESPONSE_500 + ": " + message, HttpStatus.INTERNAL_SERVER_ERROR);
 	}
 
+	/**
+	 * Returns the number of requests that were dispatched by all dispatchers.
+	 *
+	 * @return the number of requests.
+	 */
 	public static int getCallCount() {
-		return callCount;
+		return callCount.get();
+	}
+
+	/**
+	 * Returns the number of requests of this dispatcher to the given path.
+	 *
+	 * @param path
+	 *            the request path without query, e.g. {@code /token_keys}.
+	 * @return the number of requests.
+	 */
+	public long getRequestCount(String path) {
+		LongAdder requestCount = requestCounts.get(path);
+		return requestCount == null ? 0 : requestCount.sum();
+	}
+
+	/**
+	 * Resets the request counts of this dispatcher.
+	 */
+	public void resetRequestCounts() {
+		requestCounts.clear();
 	}
 }
@@ -0,0 +1,195 @@
+package com.sap.cloud.security.xsuaa.mock;
+
+import static com.sap.cloud.security.xsuaa.mock.XsuaaMockWebServer.MOCK_XSUAA_PROPERTY_SOURCE_NAME;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoderJwkSupport;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTParser;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.XsuaaOAuth2TokenService;
+
+public class XsuaaRequestDispatcherTest {
+	XsuaaRequestDispatcher dispatcher;
+	XsuaaMockWebServer mockServer;
+	String mockServerUrl;
+	OAuth2TokenService tokenService;
+	URI tokenEndpoint;
+	RestTemplate restTemplate = new RestTemplate();
+
+	@Before
+	public void setup() {
+		dispatcher = new XsuaaRequestDispatcher();
+		mockServer = new XsuaaMockWebServer(0, dispatcher);
+		mockServerUrl = mockServer.getProperty(MOCK_XSUAA_PROPERTY_SOURCE_NAME).toString();
+		tokenEndpoint = URI.create(mockServerUrl + "/oauth/token");
+		tokenService = new XsuaaOAuth2TokenService(restTemplate);
+	}
+
+	@After
+	public void shutdownServer() throws Exception {
+		mockServer.destroy();
+	}
+
+	@Test
+	public void jwtBearerTokenGrant() throws OAuth2ServiceException {
+		OAuth2TokenResponse tokenResponse = tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint,
+				new ClientCredentials("sb-clientId!t0815", "secret"), "user.token", null, null);
+
+		Assert.assertThat(tokenResponse.getAccessToken(), equalTo("user.token"));
+		Assert.assertThat(tokenResponse.getExpiredAt(), notNullValue());
+	}
+
+	@Test
+	public void jwtBearerTokenGrant_expiresWithTokenValidity() throws OAuth2ServiceException {
+		dispatcher.withTokenValidity(Duration.ofSeconds(60));
+
+		OAuth2TokenResponse tokenResponse = tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint,
+				new ClientCredentials("sb-clientId!t0815", "secret"), "user.token", null, null);
+
+		Assert.assertThat(tokenResponse.getExpiredAt().getEpochSecond() - Instant.now().getEpochSecond(),
+				lessThanOrEqualTo(60L));
+	}
+
+	@Test(expected = OAuth2ServiceException.class)
+	public void jwtBearerTokenGrant_unauthorizedWithoutClientSecret() throws OAuth2ServiceException {
+		tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint,
+				new ClientCredentials("sb-clientId!t0815", ""), "user.token", null, null);
+	}
+
+	@Test
+	public void clientCredentialsTokenGrant_issuesSignedToken() throws OAuth2ServiceException {
+		dispatcher.withTokenValidity(Duration.ofSeconds(60));
+
+		OAuth2TokenResponse tokenResponse = tokenService.retrieveAccessTokenViaClientCredentialsGrant(
+				URI.create(mockServerUrl + "/mytenant/oauth/token"),
+				new ClientCredentials("sb-clientId!t0815", "secret"), null, null);
+
+		Jwt jwt = decode(tokenResponse.getAccessToken());
+		Assert.assertThat(jwt.getClaimAsString("cid"), equalTo("sb-clientId!t0815"));
+		Assert.assertThat(jwt.getClaimAsString("zdn"), equalTo("mytenant"));
+		Assert.assertThat(jwt.getClaimAsString("grant_type"), equalTo("client_credentials"));
+		Assert.assertThat(jwt.containsClaim("user_name"), equalTo(false));
+		Assert.assertThat(jwt.getExpiresAt().getEpochSecond() - jwt.getIssuedAt().getEpochSecond(),
+				lessThanOrEqualTo(61L));
+		Assert.assertThat(tokenResponse.getRefreshToken(), equalTo(null));
+		Assert.assertThat(dispatcher.getRequestCount("/mytenant/oauth/token"), equalTo(1L));
+	}
+
+	@Test(expected = OAuth2ServiceException.class)
+	public void clientCredentialsTokenGrant_unauthorizedWithoutClientSecret() throws OAuth2ServiceException {
+		tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint,
+				new ClientCredentials("sb-clientId!t0815", ""), null, null);
+	}
+
+	@Test
+	public void tokenRequest_unauthorizedWithMalformedBasicAuthorization() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.AUTHORIZATION, "Basic %%%");
+		headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+		MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+		parameters.add("grant_type", "client_credentials");
+		try {
+			restTemplate.postForObject(tokenEndpoint, new HttpEntity<>(parameters, headers), String.class);
+			Assert.fail();
+		} catch (HttpClientErrorException e) {
+			Assert.assertThat(e.getStatusCode(), equalTo(HttpStatus.UNAUTHORIZED));
+		}
+	}
+
+	@Test
+	public void passwordTokenGrant_issuesRefreshableUserToken() throws OAuth2ServiceException {
+		ClientCredentials clientCredentials = new ClientCredentials("sb-clientId!t0815", "secret");
+		OAuth2TokenResponse tokenResponse = tokenService.retrieveAccessTokenViaPasswordGrant(tokenEndpoint,
+				clientCredentials, "myuser", "mypassword", null, null);
+
+		Assert.assertThat(decode(tokenResponse.getAccessToken()).getClaimAsString("user_name"), equalTo("myuser"));
+
+		OAuth2TokenResponse refreshedTokenResponse = tokenService.retrieveAccessTokenViaRefreshToken(tokenEndpoint,
+				clientCredentials, tokenResponse.getRefreshToken(), null);
+
+		Jwt jwt = decode(refreshedTokenResponse.getAccessToken());
+		Assert.assertThat(jwt.getClaimAsString("user_name"), equalTo("myuser"));
+		Assert.assertThat(jwt.getClaimAsString("grant_type"), equalTo("refresh_token"));
+	}
+
+	@Test
+	public void userTokenGrant_issuesTokenOfUser() throws OAuth2ServiceException {
+		ClientCredentials clientCredentials = new ClientCredentials("sb-clientId!t0815", "secret");
+		String userToken = tokenService.retrieveAccessTokenViaPasswordGrant(tokenEndpoint, clientCredentials,
+				"myuser", "mypassword", null, null).getAccessToken();
+
+		OAuth2TokenResponse tokenResponse = tokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint,
+				new ClientCredentials("sb-otherClientId!t0815", "secret"), userToken, null, null);
+
+		Jwt jwt = decode(tokenResponse.getAccessToken());
+		Assert.assertThat(jwt.getClaimAsString("user_name"), equalTo("myuser"));
+		Assert.assertThat(jwt.getClaimAsString("cid"), equalTo("sb-otherClientId!t0815"));
+		Assert.assertThat(tokenResponse.getRefreshToken(), notNullValue());
+	}
+
+	@Test
+	public void tokenKeys_areCountedPerPath() {
+		String tokenKeys = restTemplate.getForObject(mockServerUrl + "/token_keys?zid=1", String.class);
+		restTemplate.getForObject(mockServerUrl + "/token_keys", String.class);
+
+		Assert.assertThat(tokenKeys, containsString("\"kid\": \"legacy-token-key\""));
+		Assert.assertThat(dispatcher.getRequestCount("/token_keys"), equalTo(2L));
+		Assert.assertThat(dispatcher.getRequestCount("/testdomain/token_keys"), equalTo(0L));
+	}
+
+	@Test
+	public void errorRate_failsDelayedRequests() {
+		dispatcher.withLatency(Duration.ofMillis(50), Duration.ofMillis(10))
+				.withErrorRate(1.0, HttpStatus.SERVICE_UNAVAILABLE);
+		long startMillis = System.currentTimeMillis();
+		try {
+			restTemplate.getForObject(mockServerUrl + "/token_keys", String.class);
+			Assert.fail();
+		} catch (HttpServerErrorException e) {
+			Assert.assertThat(e.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+		}
+		Assert.assertThat(System.currentTimeMillis() - startMillis, greaterThanOrEqualTo(50L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void errorRate_mustBeARatio() {
+		new XsuaaRequestDispatcher().withErrorRate(1.5, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	private Jwt decode(String token) {
+		try {
+			String jku = ((JWSHeader) JWTParser.parse(token).getHeader()).getJWKURL().toString();
+			return new NimbusJwtDecoderJwkSupport(jku).decode(token);
+		} catch (ParseException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
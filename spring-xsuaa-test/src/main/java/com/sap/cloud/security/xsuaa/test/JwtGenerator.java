@@ -19,6 +19,9 @@ import com.nimbusds.jwt.JWTParser;
 /**
  * Create tokens with a fixed private/public key and dummy values. The client
  * ID, identity zone, and scopes are configurable.
+ * <p>
+ * In order to generate load, use a {@link JwtTokenPool}, which signs the
+ * tokens in advance.
  */
 public class JwtGenerator {
 
@@ -61,6 +64,7 @@ public class JwtGenerator {
 	private static final String PRIVATE_KEY_FILE = "/privateKey.txt";
 	// see XsuaaToken.GRANTTYPE_SAML2BEARER
 	private static final String GRANT_TYPE = "urn:ietf:params:oauth:grant-type:saml2-bearer";
+	private static volatile RsaSigner signer;
 
 	private final String clientId;
 	private final String identityZoneId;
@@ -269,7 +273,7 @@ public class JwtGenerator {
 		return createFromClaims(claimsSetBuilder.build().toString(), getHeaderMap(jwtHeaderKeyId, jku));
 	}
 
-	private static String createJku(String subdomain, int port) {
+	static String createJku(String subdomain, int port) {
 		String subdomainPart = subdomain != null && !subdomain.equals("") ? "/" + subdomain : "";
 		return "http://localhost:" + port + subdomainPart + "/token_keys";
 	}
@@ -410,8 +414,9 @@ public class JwtGenerator {
 	}
 
 	private static String signAndEncodeToken(String claims, Map<String, String> tokenHeaders) {
-		RsaSigner signer = new RsaSigner(readPrivateKeyFromFile());
-
+		if (signer == null) { // the private key is read and parsed only once
+			signer = new RsaSigner(readPrivateKeyFromFile());
+		}
 		org.springframework.security.jwt.Jwt jwt = JwtHelper.encode(claims, signer, tokenHeaders);
 
 		return jwt.getEncoded();
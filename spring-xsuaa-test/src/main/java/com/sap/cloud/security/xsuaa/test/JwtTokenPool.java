@@ -0,0 +1,325 @@
+package com.sap.cloud.security.xsuaa.test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * A pool of encoded tokens that are signed in advance by the
+ * {@link JwtGenerator}, so that load tests do not spend CPU on claims and RSA
+ * signatures. The tokens are distributed across the configured users,
+ * subdomains and scope sets; every token is distinct by its "jti" claim.
+ *
+ * <pre>
+ * {@code
+ * JwtTokenPool pool = new JwtTokenPool("sb-xsapp!t895")
+ * 		.addUsers("alice", "bob")
+ * 		.addSubdomain("tenant-a", 9)
+ * 		.addSubdomain("tenant-b", 1)
+ * 		.addScopes(1, "xsapp!t895.Read")
+ * 		.generate(10000);
+ *
+ * String token = pool.nextWeighted(); // 90% of the tokens of tenant-a
+ * }
+ * </pre>
+ *
+ * A generated pool can be written to a file with {@link #writeTo(Path)} and be
+ * reused with {@link #readFrom(Path)}. The tokens do not expire.
+ */
+public class JwtTokenPool {
+
+	private final String clientId;
+	private final int port;
+	private final List<Weighted<String>> users = new ArrayList<>();
+	private final List<Weighted<String>> subdomains = new ArrayList<>();
+	private final List<Weighted<String[]>> scopeSets = new ArrayList<>();
+
+	private final AtomicInteger index = new AtomicInteger();
+	private volatile Tokens tokens = new Tokens(new String[0], new long[0]);
+
+	/**
+	 * Creates a pool of tokens of the given client, whose token keys are served
+	 * by the XSUAA mock web server on its default port.
+	 *
+	 * @param clientId
+	 *            the XSUAA client id, e.g. sb-applicationName!t123.
+	 */
+	public JwtTokenPool(String clientId) {
+		this(clientId, 33195);
+	}
+
+	/**
+	 * Creates a pool of tokens of the given client.
+	 *
+	 * @param clientId
+	 *            the XSUAA client id, e.g. sb-applicationName!t123.
+	 * @param port
+	 *            the port that is used to connect to the XSUAA mock web server.
+	 */
+	public JwtTokenPool(String clientId, int port) {
+		this.clientId = clientId;
+		this.port = port;
+	}
+
+	/**
+	 * Adds users with weight 1.
+	 *
+	 * @param userNames
+	 *            the values of the "user_name" claim
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool addUsers(String... userNames) {
+		for (String userName : userNames) {
+			addUser(userName, 1);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a user with a weight relative to the other users.
+	 *
+	 * @param userName
+	 *            the value of the "user_name" claim
+	 * @param weight
+	 *            the weight of the user
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool addUser(String userName, int weight) {
+		users.add(new Weighted<>(userName, weight));
+		return this;
+	}
+
+	/**
+	 * Adds subdomains with weight 1.
+	 *
+	 * @param subdomains
+	 *            the subdomains of the subaccounts, which define the "zdn" and
+	 *            "zid" claims
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool addSubdomains(String... subdomains) {
+		for (String subdomain : subdomains) {
+			addSubdomain(subdomain, 1);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a subdomain with a weight relative to the other subdomains.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the subaccount, which defines the "zdn" and
+	 *            "zid" claims
+	 * @param weight
+	 *            the weight of the subdomain
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool addSubdomain(String subdomain, int weight) {
+		subdomains.add(new Weighted<>(subdomain, weight));
+		return this;
+	}
+
+	/**
+	 * Adds a set of scopes with a weight relative to the other scope sets. The
+	 * audiences are derived from the scopes.
+	 *
+	 * @param weight
+	 *            the weight of the scope set
+	 * @param scopes
+	 *            the scopes that should be part of the token
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool addScopes(int weight, String... scopes) {
+		scopeSets.add(new Weighted<>(scopes, weight));
+		return this;
+	}
+
+	/**
+	 * Signs the given number of tokens in parallel. The tokens cycle through all
+	 * combinations of the configured users, subdomains and scope sets.
+	 *
+	 * @param size
+	 *            the number of tokens
+	 * @return the JwtTokenPool itself
+	 */
+	public JwtTokenPool generate(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("size must be positive");
+		}
+		List<Weighted<String>> userList = orDefault(users, "testuser");
+		List<Weighted<String>> subdomainList = orDefault(subdomains, "");
+		List<Weighted<String[]>> scopeSetList = orDefault(scopeSets, new String[0]);
+		int combinations = userList.size() * subdomainList.size() * scopeSetList.size();
+
+		long[] weights = new long[size];
+		String[] signedTokens = IntStream.range(0, size).parallel().mapToObj(i -> {
+			int combination = i % combinations;
+			Weighted<String> user = userList.get(combination % userList.size());
+			Weighted<String> subdomain = subdomainList.get(combination / userList.size() % subdomainList.size());
+			Weighted<String[]> scopes = scopeSetList.get(combination / userList.size() / subdomainList.size());
+			weights[i] = (long) user.weight * subdomain.weight * scopes.weight;
+			String identityZoneId = subdomain.value.isEmpty() ? JwtGenerator.DEFAULT_IDENTITY_ZONE_ID
+					: subdomain.value + "-id";
+			return new JwtGenerator(clientId, subdomain.value, identityZoneId)
+					.setJku(JwtGenerator.createJku(subdomain.value, port))
+					.setUserName(user.value)
+					.addScopes(scopes.value)
+					.deriveAudiences(true)
+					.addCustomClaims(Collections.singletonMap("jti", UUID.randomUUID().toString()))
+					.getToken().getTokenValue();
+		}).toArray(String[]::new);
+		setTokens(signedTokens, weights);
+		return this;
+	}
+
+	/**
+	 * Returns the tokens of the pool one after the other. After the last token the
+	 * first one is returned again.
+	 *
+	 * @return an encoded token
+	 */
+	public String next() {
+		Tokens current = getNonEmptyTokens();
+		return current.tokens[Math.floorMod(index.getAndIncrement(), current.tokens.length)];
+	}
+
+	/**
+	 * Returns a random token of the pool according to the product of the weights
+	 * of its user, subdomain and scope set.
+	 *
+	 * @return an encoded token
+	 */
+	public String nextWeighted() {
+		Tokens current = getNonEmptyTokens();
+		long[] cumulativeWeights = current.cumulativeWeights;
+		long random = ThreadLocalRandom.current().nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+		int position = Arrays.binarySearch(cumulativeWeights, random + 1);
+		return current.tokens[position < 0 ? -position - 1 : position];
+	}
+
+	/**
+	 * @return the number of tokens of the pool
+	 */
+	public int size() {
+		return tokens.tokens.length;
+	}
+
+	/**
+	 * Writes the tokens with their weights to a file, one token per line.
+	 *
+	 * @param file
+	 *            the file to be written
+	 * @throws IOException
+	 *             in case the file can not be written
+	 */
+	public void writeTo(Path file) throws IOException {
+		Tokens current = tokens;
+		long[] cumulativeWeights = current.cumulativeWeights;
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < current.tokens.length; i++) {
+				long weight = cumulativeWeights[i] - (i == 0 ? 0 : cumulativeWeights[i - 1]);
+				writer.write(weight + " " + current.tokens[i]);
+				writer.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Reads a pool that was written with {@link #writeTo(Path)}.
+	 *
+	 * @param file
+	 *            the file to be read
+	 * @return the pool of tokens
+	 * @throws IOException
+	 *             in case the file can not be read or has an invalid format
+	 */
+	public static JwtTokenPool readFrom(Path file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.trim().isEmpty()) {
+					lines.add(line.trim());
+				}
+			}
+		}
+		String[] tokens = new String[lines.size()];
+		long[] weights = new long[lines.size()];
+		for (int i = 0; i < tokens.length; i++) {
+			String[] parts = lines.get(i).split(" ", 2);
+			try {
+				weights[i] = Long.parseLong(parts[0]);
+			} catch (NumberFormatException e) {
+				throw new IOException("invalid weight in line " + (i + 1) + " of " + file, e);
+			}
+			if (parts.length < 2 || weights[i] <= 0) {
+				throw new IOException("invalid token in line " + (i + 1) + " of " + file);
+			}
+			tokens[i] = parts[1];
+		}
+		JwtTokenPool pool = new JwtTokenPool(null);
+		pool.setTokens(tokens, weights);
+		return pool;
+	}
+
+	private void setTokens(String[] tokens, long[] weights) {
+		long[] cumulative = new long[weights.length];
+		long sum = 0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			cumulative[i] = sum;
+		}
+		this.tokens = new Tokens(tokens, cumulative);
+		this.index.set(0);
+	}
+
+	private Tokens getNonEmptyTokens() {
+		Tokens current = tokens;
+		if (current.tokens.length == 0) {
+			throw new IllegalStateException("the pool contains no tokens, call generate() first");
+		}
+		return current;
+	}
+
+	private static <T> List<Weighted<T>> orDefault(List<Weighted<T>> values, T defaultValue) {
+		return values.isEmpty() ? Collections.singletonList(new Weighted<>(defaultValue, 1)) : values;
+	}
+
+	/**
+	 * The tokens together with their cumulative weights, which are replaced as a
+	 * whole, so that concurrent readers never see arrays of different pools.
+	 */
+	private static class Tokens {
+		final String[] tokens;
+		final long[] cumulativeWeights;
+
+		Tokens(String[] tokens, long[] cumulativeWeights) {
+			this.tokens = tokens;
+			this.cumulativeWeights = cumulativeWeights;
+		}
+	}
+
+	private static class Weighted<T> {
+		final T value;
+		final int weight;
+
+		Weighted(T value, int weight) {
+			if (weight <= 0) {
+				throw new IllegalArgumentException("weight must be positive");
+			}
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.sap.cloud.security.xsuaa.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+public class JwtTokenPoolTest {
+	private static final String MY_CLIENT_ID = "sb-clientId!20";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void generate_distinctTokensOfAllCombinations() {
+		JwtTokenPool pool = new JwtTokenPool(MY_CLIENT_ID)
+				.addUsers("alice", "bob")
+				.addSubdomains("tenant-a", "tenant-b")
+				.addScopes(1, "xsapp.Read")
+				.generate(8);
+
+		Set<String> tokens = new HashSet<>();
+		Set<String> combinations = new HashSet<>();
+		for (int i = 0; i < pool.size(); i++) {
+			Jwt jwt = JwtGenerator.convertTokenToOAuthJwt(pool.next());
+			tokens.add(jwt.getTokenValue());
+			combinations.add(jwt.getClaimAsString("user_name") + "@" + jwt.getClaimAsString("zdn"));
+			assertThat(jwt.getClaimAsString("cid"), equalTo(MY_CLIENT_ID));
+			assertThat(jwt.getClaimAsStringList("scope"), contains("xsapp.Read"));
+			assertThat(jwt.getAudience(), contains("xsapp"));
+			assertThat((String) jwt.getHeaders().get("jku"),
+					equalTo("http://localhost:33195/" + jwt.getClaimAsString("zdn") + "/token_keys"));
+		}
+		assertThat(tokens, hasSize(8));
+		assertThat(combinations, containsInAnyOrder("alice@tenant-a", "bob@tenant-a", "alice@tenant-b",
+				"bob@tenant-b"));
+	}
+
+	@Test
+	public void next_returnsTokensRoundRobin() {
+		JwtTokenPool pool = new JwtTokenPool(MY_CLIENT_ID).generate(3);
+
+		String first = pool.next();
+		pool.next();
+		pool.next();
+
+		assertThat(pool.next(), equalTo(first));
+		assertThat(JwtGenerator.convertTokenToOAuthJwt(first).getClaimAsString("zid"),
+				equalTo(JwtGenerator.DEFAULT_IDENTITY_ZONE_ID));
+	}
+
+	@Test
+	public void nextWeighted_returnsTokensAccordingToWeights() {
+		JwtTokenPool pool = new JwtTokenPool(MY_CLIENT_ID)
+				.addSubdomain("tenant-a", 9)
+				.addSubdomain("tenant-b", 1)
+				.generate(2);
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 10000; i++) {
+			String subdomain = JwtGenerator.convertTokenToOAuthJwt(pool.nextWeighted()).getClaimAsString("zdn");
+			counts.merge(subdomain, 1, Integer::sum);
+		}
+		assertThat(counts.get("tenant-a"), greaterThan(8500));
+		assertThat(counts.get("tenant-b"), greaterThan(500));
+	}
+
+	@Test
+	public void writeTo_poolCanBeReadFromFile() throws IOException {
+		JwtTokenPool pool = new JwtTokenPool(MY_CLIENT_ID)
+				.addSubdomain("tenant-a", 3)
+				.addScopes(1, "xsapp.Read")
+				.addScopes(2, "xsapp.Read", "xsapp.Write")
+				.generate(4);
+		Path file = temporaryFolder.newFile("tokens.txt").toPath();
+
+		pool.writeTo(file);
+		JwtTokenPool readPool = JwtTokenPool.readFrom(file);
+
+		assertThat(readPool.size(), equalTo(4));
+		assertThat(Files.readAllLines(file).get(1), startsWith("6 "));
+		for (int i = 0; i < pool.size(); i++) {
+			assertThat(readPool.next(), equalTo(pool.next()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void readFrom_failsOnInvalidFile() throws IOException {
+		Path file = temporaryFolder.newFile("invalid.txt").toPath();
+		Files.write(file, Arrays.asList("no token"));
+
+		JwtTokenPool.readFrom(file);
+	}
+
+	@Test
+	public void nextWeighted_whileGenerating() throws Exception {
+		JwtTokenPool pool = new JwtTokenPool(MY_CLIENT_ID).addUser("alice", 1).addUser("bob", 1000).generate(2);
+		AtomicBoolean generating = new AtomicBoolean(true);
+		CompletableFuture<Integer> reads = CompletableFuture.supplyAsync(() -> {
+			int count = 0;
+			while (generating.get()) {
+				assertThat(pool.nextWeighted(), notNullValue());
+				assertThat(pool.next(), notNullValue());
+				count++;
+			}
+			return count;
+		});
+
+		for (int i = 0; i < 20; i++) {
+			pool.generate(i % 2 == 0 ? 1 : 2);
+		}
+		generating.set(false);
+
+		assertThat(reads.get(10, TimeUnit.SECONDS), greaterThan(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void next_failsOnEmptyPool() {
+		new JwtTokenPool(MY_CLIENT_ID).next();
+	}
+}
@@ -0,0 +1,290 @@
+package com.sap.cloud.security.xsuaa;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+
+/**
+ * The immutable model of the service bindings in {@code VCAP_SERVICES}. The
+ * bindings are indexed by tag, label and plan. The last parsed
+ * {@code VCAP_SERVICES} document is kept, so that it is parsed only once per
+ * JVM, even though several parsers or application contexts access it.
+ * <p>
+ * An application can be bound to several xsuaa service instances, for example
+ * of plan {@code application} and {@code broker}. In this case
+ * {@link #getXsuaaBinding()} prefers the binding of plan {@code application},
+ * all of them are returned by {@link #getXsuaaBindings()}.
+ */
+public final class XsuaaServiceBindings {
+
+	static final String VCAP_SERVICES = "VCAP_SERVICES";
+	static final String XSUAA_TAG = "xsuaa";
+	static final String APPLICATION_PLAN = "application";
+	private static final XsuaaServiceBindings EMPTY = new XsuaaServiceBindings("", Collections.emptyList());
+
+	private static volatile XsuaaServiceBindings lastParsed = EMPTY;
+
+	private final String vcapServices;
+	private final List<Binding> bindings;
+	private final Map<String, List<Binding>> bindingsByTag;
+	private final Map<String, List<Binding>> bindingsByLabel;
+	private final Map<String, List<Binding>> bindingsByPlan;
+
+	private XsuaaServiceBindings(String vcapServices, List<Binding> bindings) {
+		this.vcapServices = vcapServices;
+		this.bindings = Collections.unmodifiableList(bindings);
+		Map<String, List<Binding>> byTag = new HashMap<>();
+		Map<String, List<Binding>> byLabel = new HashMap<>();
+		Map<String, List<Binding>> byPlan = new HashMap<>();
+		for (Binding binding : bindings) {
+			for (String tag : binding.getTags()) {
+				index(byTag, tag, binding);
+			}
+			index(byLabel, binding.getLabel(), binding);
+			index(byPlan, binding.getPlan(), binding);
+		}
+		this.bindingsByTag = freeze(byTag);
+		this.bindingsByLabel = freeze(byLabel);
+		this.bindingsByPlan = freeze(byPlan);
+	}
+
+	/**
+	 * Returns the service bindings of the {@code VCAP_SERVICES} environment
+	 * variable.
+	 *
+	 * @return the service bindings, which are empty in case the environment
+	 *         variable is not set.
+	 * @throws IOException
+	 *             in case of parse errors.
+	 */
+	public static XsuaaServiceBindings fromEnvironment() throws IOException {
+		return parse(System.getenv(VCAP_SERVICES));
+	}
+
+	/**
+	 * Returns the service bindings of the given {@code VCAP_SERVICES} document.
+	 * In case it is the same document that was parsed last, the bindings are not
+	 * parsed again.
+	 *
+	 * @param vcapServices
+	 *            the {@code VCAP_SERVICES} JSON document.
+	 * @return the service bindings, which are empty in case the document is null
+	 *         or empty.
+	 * @throws IOException
+	 *             in case of parse errors.
+	 */
+	public static XsuaaServiceBindings parse(@Nullable String vcapServices) throws IOException {
+		if (vcapServices == null || vcapServices.isEmpty()) {
+			return EMPTY;
+		}
+		XsuaaServiceBindings serviceBindings = lastParsed;
+		if (!serviceBindings.vcapServices.equals(vcapServices)) {
+			serviceBindings = new XsuaaServiceBindings(vcapServices, parseBindings(vcapServices));
+			lastParsed = serviceBindings;
+		}
+		return serviceBindings;
+	}
+
+	/**
+	 * Returns all service bindings.
+	 *
+	 * @return the service bindings.
+	 */
+	public List<Binding> getBindings() {
+		return bindings;
+	}
+
+	/**
+	 * Returns the service bindings with the given tag.
+	 *
+	 * @param tag
+	 *            the tag, e.g. {@code xsuaa}.
+	 * @return the service bindings, or an empty list.
+	 */
+	public List<Binding> getBindingsByTag(String tag) {
+		return bindingsByTag.getOrDefault(tag, Collections.emptyList());
+	}
+
+	/**
+	 * Returns the service bindings of service offerings with the given label.
+	 *
+	 * @param label
+	 *            the label, e.g. {@code xsuaa}.
+	 * @return the service bindings, or an empty list.
+	 */
+	public List<Binding> getBindingsByLabel(String label) {
+		return bindingsByLabel.getOrDefault(label, Collections.emptyList());
+	}
+
+	/**
+	 * Returns the service bindings of the given service plan.
+	 *
+	 * @param plan
+	 *            the service plan, e.g. {@code application}.
+	 * @return the service bindings, or an empty list.
+	 */
+	public List<Binding> getBindingsByPlan(String plan) {
+		return bindingsByPlan.getOrDefault(plan, Collections.emptyList());
+	}
+
+	/**
+	 * Returns all xsuaa service bindings, i.e. the bindings with tag
+	 * {@code xsuaa}.
+	 *
+	 * @return the xsuaa service bindings, or an empty list.
+	 */
+	public List<Binding> getXsuaaBindings() {
+		return getBindingsByTag(XSUAA_TAG);
+	}
+
+	/**
+	 * Returns the xsuaa service binding the application uses by default. In case
+	 * there are several, this is the binding of plan {@code application}, or the
+	 * first one if none has this plan.
+	 *
+	 * @return the xsuaa service binding, or null if there is none.
+	 */
+	@Nullable
+	public Binding getXsuaaBinding() {
+		List<Binding> xsuaaBindings = getXsuaaBindings();
+		if (xsuaaBindings.size() > 1) {
+			for (Binding binding : xsuaaBindings) {
+				if (APPLICATION_PLAN.equals(binding.getPlan())) {
+					return binding;
+				}
+			}
+		}
+		return xsuaaBindings.isEmpty() ? null : xsuaaBindings.get(0);
+	}
+
+	private static void index(Map<String, List<Binding>> index, @Nullable String key, Binding binding) {
+		if (key != null) {
+			index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(binding);
+		}
+	}
+
+	private static Map<String, List<Binding>> freeze(Map<String, List<Binding>> index) {
+		index.replaceAll((key, indexedBindings) -> Collections.unmodifiableList(indexedBindings));
+		return index;
+	}
+
+	private static List<Binding> parseBindings(String vcapServices) throws IOException {
+		Object vcapServicesJSON;
+		try {
+			vcapServicesJSON = new JSONParser(JSONParser.MODE_PERMISSIVE).parse(vcapServices);
+		} catch (ParseException ex) {
+			throw new IOException("Error while parsing XSUAA credentials from VCAP_SERVICES: {}.", ex);
+		}
+		if (!(vcapServicesJSON instanceof JSONObject)) {
+			throw new IOException("Error while parsing XSUAA credentials from VCAP_SERVICES: no JSON object.");
+		}
+		List<Binding> bindings = new ArrayList<>();
+		for (Object serviceBindings : ((JSONObject) vcapServicesJSON).values()) {
+			if (serviceBindings instanceof JSONArray) {
+				for (Object binding : (JSONArray) serviceBindings) {
+					if (binding instanceof JSONObject) {
+						bindings.add(new Binding((JSONObject) binding));
+					}
+				}
+			}
+		}
+		return bindings;
+	}
+
+	/**
+	 * An immutable service binding of {@code VCAP_SERVICES}.
+	 */
+	public static final class Binding {
+
+		private static final String NAME = "name";
+		private static final String LABEL = "label";
+		private static final String PLAN = "plan";
+		private static final String TAGS = "tags";
+		private static final String CREDENTIALS = "credentials";
+
+		private final String name;
+		private final String label;
+		private final String plan;
+		private final List<String> tags;
+		private final Map<String, String> credentials;
+
+		private Binding(JSONObject binding) {
+			this.name = binding.getAsString(NAME);
+			this.label = binding.getAsString(LABEL);
+			this.plan = binding.getAsString(PLAN);
+
+			List<String> tagList = new ArrayList<>();
+			Object tagArray = binding.get(TAGS);
+			if (tagArray instanceof JSONArray) {
+				for (Object tag : (JSONArray) tagArray) {
+					if (tag != null) {
+						tagList.add(tag.toString());
+					}
+				}
+			}
+			this.tags = Collections.unmodifiableList(tagList);
+
+			Map<String, String> credentialMap = new LinkedHashMap<>();
+			Object credentialsObject = binding.get(CREDENTIALS);
+			if (credentialsObject instanceof JSONObject) {
+				for (Map.Entry<String, Object> credential : ((JSONObject) credentialsObject).entrySet()) {
+					if (credential.getValue() != null) {
+						credentialMap.put(credential.getKey(), credential.getValue().toString());
+					}
+				}
+			}
+			this.credentials = Collections.unmodifiableMap(credentialMap);
+		}
+
+		@Nullable
+		public String getName() {
+			return name;
+		}
+
+		@Nullable
+		public String getLabel() {
+			return label;
+		}
+
+		@Nullable
+		public String getPlan() {
+			return plan;
+		}
+
+		public List<String> getTags() {
+			return tags;
+		}
+
+		/**
+		 * Returns the credentials of this binding.
+		 *
+		 * @return the unmodifiable credentials, or an empty map.
+		 */
+		public Map<String, String> getCredentials() {
+			return credentials;
+		}
+
+		/**
+		 * Returns a copy of the credentials of this binding, which can be modified.
+		 *
+		 * @return the credential properties.
+		 */
+		public Properties getCredentialsAsProperties() {
+			Properties properties = new Properties();
+			properties.putAll(credentials);
+			return properties;
+		}
+	}
+}
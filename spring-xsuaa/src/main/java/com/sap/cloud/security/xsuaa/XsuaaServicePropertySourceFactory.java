@@ -2,8 +2,10 @@ package com.sap.cloud.security.xsuaa;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,9 +43,9 @@ public class XsuaaServicePropertySourceFactory implements PropertySourceFactory
 	public static final String URL = "xsuaa.url";
 	public static final String UAA_DOMAIN = "xsuaa.uaadomain";
 
-	private static final List<String> XSUAA_ATTRIBUTES = Arrays
+	private static final Set<String> XSUAA_ATTRIBUTES = Collections.unmodifiableSet(new HashSet<>(Arrays
 			.asList(new String[] { "clientid", "clientsecret", "identityzoneid",
-					"sburl", "tenantid", "tenantmode", "uaadomain", "url", "verificationkey", "xsappname" });
+					"sburl", "tenantid", "tenantmode", "uaadomain", "url", "verificationkey", "xsappname" })));
 
 	public XsuaaServicePropertySourceFactory() {
 	}
@@ -6,35 +6,30 @@ import javax.annotation.Nullable;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.Set;
 
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import net.minidev.json.JSONArray;
-import net.minidev.json.JSONObject;
-import net.minidev.json.parser.JSONParser;
-import net.minidev.json.parser.ParseException;
-
+/**
+ * Provides the credentials of the xsuaa service binding in
+ * {@code VCAP_SERVICES}. The service bindings are parsed only once into the
+ * shared {@link XsuaaServiceBindings}. In case of several xsuaa bindings the
+ * one of plan {@code application} is used.
+ */
 public class XsuaaServicesParser {
 
 	private static final Logger logger = LoggerFactory.getLogger(XsuaaServicesParser.class);
 
-	private static final String TAGS = "tags";
-	private static final String CREDENTIALS = "credentials";
-	private static final String VCAP_SERVICES = "VCAP_SERVICES";
-	private static final String XSUAA_TAG = "xsuaa";
-
 	private final String vcapServices;
-	private JSONObject credentialsJSON;
+	private Map<String, String> credentials;
 
 	public XsuaaServicesParser() {
-		vcapServices = System.getenv().get(VCAP_SERVICES);
+		vcapServices = System.getenv(XsuaaServiceBindings.VCAP_SERVICES);
 		if (vcapServices == null || vcapServices.isEmpty()) {
 			logger.warn("Cannot extract XSUAA properties from VCAP_SERVICES environment variable.");
 		}
@@ -67,11 +62,11 @@ public class XsuaaServicesParser {
 	 */
 	@Deprecated
 	public Optional<String> getAttribute(String name) throws IOException {
-		if (credentialsJSON == null) {
-			credentialsJSON = parseCredentials(vcapServices);
+		if (credentials == null) {
+			credentials = getCredentials();
 		}
-		if (credentialsJSON != null) {
-			Optional<String> attributeString = Optional.ofNullable(credentialsJSON.getAsString(name));
+		if (credentials != null) {
+			Optional<String> attributeString = Optional.ofNullable(credentials.get(name));
 			if (!attributeString.isPresent()) {
 				logger.info("XSUAA VCAP_SERVICES has no attribute with name '{}'.", name);
 			}
@@ -90,63 +85,31 @@ public class XsuaaServicesParser {
 	 */
 	public Properties parseCredentials() throws IOException {
 		Properties properties = new Properties();
-		JSONObject credentialsJsonObject = parseCredentials(vcapServices);
-		if (credentialsJsonObject != null) {
-			Set<String> keys = credentialsJsonObject.keySet();
-			for (String key : keys) {
-				properties.put(key, credentialsJsonObject.get(key).toString());
-			}
+		Map<String, String> credentialsMap = getCredentials();
+		if (credentialsMap != null) {
+			properties.putAll(credentialsMap);
 		}
 		return properties;
 	}
 
+	/**
+	 * Returns all service bindings of the VCAP_SERVICES.
+	 *
+	 * @return the service bindings.
+	 * @throws IOException
+	 *             in case of parse errors.
+	 */
+	public XsuaaServiceBindings parseServiceBindings() throws IOException {
+		return XsuaaServiceBindings.parse(vcapServices);
+	}
+
 	@Nullable
-	private static JSONObject parseCredentials(String vcapServices) throws IOException {
+	private Map<String, String> getCredentials() throws IOException {
 		if (vcapServices == null || vcapServices.isEmpty()) {
 			logger.warn("VCAP_SERVICES could not be load.");
 			return null;
 		}
-		try {
-			JSONObject vcapServicesJSON = (JSONObject) new JSONParser(JSONParser.MODE_PERMISSIVE).parse(vcapServices);
-			JSONObject xsuaaBinding = searchXsuaaBinding(vcapServicesJSON);
-
-			if (Objects.nonNull(xsuaaBinding) && xsuaaBinding.containsKey(CREDENTIALS)) {
-				return (JSONObject) xsuaaBinding.get(CREDENTIALS);
-			}
-		} catch (ParseException ex) {
-			throw new IOException("Error while parsing XSUAA credentials from VCAP_SERVICES: {}.", ex);
-		}
-		return null;
-	}
-
-	@Nullable
-	private static JSONObject searchXsuaaBinding(final JSONObject jsonObject) {
-		for (String key : jsonObject.keySet()) {
-			JSONObject foundObject = getJSONObjectFromTag((JSONArray) jsonObject.get(key), XSUAA_TAG);
-			if (foundObject != null) {
-				return foundObject;
-			}
-		}
-		return null;
-	}
-
-	private static JSONObject getJSONObjectFromTag(final JSONArray jsonArray, String tag) {
-		JSONObject xsuaaBinding = null;
-		for (int i = 0; i < jsonArray.size(); i++) {
-			JSONObject binding = (JSONObject) jsonArray.get(i);
-			JSONArray tags = (JSONArray) binding.get(TAGS);
-
-			for (int j = 0; j < tags.size(); j++) {
-				if (tags.get(j).equals(tag)) {
-					if (xsuaaBinding == null) {
-						xsuaaBinding = binding;
-					} else {
-						throw new IllegalStateException(
-								"Found more than one xsuaa binding. Please consider unified broker plan.");
-					}
-				}
-			}
-		}
-		return xsuaaBinding;
+		XsuaaServiceBindings.Binding xsuaaBinding = parseServiceBindings().getXsuaaBinding();
+		return xsuaaBinding != null ? xsuaaBinding.getCredentials() : null;
 	}
 }
@@ -0,0 +1,149 @@
+package com.sap.cloud.security.xsuaa.actuate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoder;
+import com.sap.cloud.security.xsuaa.tokenflows.TokenFlowException;
+import com.sap.cloud.security.xsuaa.tokenflows.UserTokenCache;
+import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
+
+/**
+ * {@link Endpoint} that exposes the caches of the {@link XsuaaJwtDecoder} and
+ * the {@link XsuaaTokenFlows} as {@code /actuator/xsuaa}:
+ * <ul>
+ * <li>{@code GET /actuator/xsuaa} reports the cache sizes and hit ratios, the
+ * cached token key URLs and key ids with their age, the duration of the last
+ * token key fetch per host and the outstanding decoder refreshes.</li>
+ * <li>{@code DELETE /actuator/xsuaa/{subdomain}} evicts the cached token keys
+ * and tokens of a tenant.</li>
+ * <li>{@code POST /actuator/xsuaa} with body {@code {"subdomains": [...]}}
+ * pre-warms the caches of the given tenants: it requests a client credentials
+ * token per subdomain and verifies it, so that the token keys of the tenant are
+ * fetched.</li>
+ * </ul>
+ */
+@Endpoint(id = "xsuaa")
+public class XsuaaEndpoint {
+
+	private static final Logger logger = LoggerFactory.getLogger(XsuaaEndpoint.class);
+
+	private final XsuaaJwtDecoder jwtDecoder;
+	private final XsuaaTokenFlows tokenFlows;
+
+	/**
+	 * Creates the endpoint.
+	 *
+	 * @param jwtDecoder
+	 *            the decoder, or null if the application does not use a
+	 *            {@link XsuaaJwtDecoder}.
+	 * @param tokenFlows
+	 *            the token flows, or null if the application does not use
+	 *            {@link XsuaaTokenFlows}.
+	 */
+	public XsuaaEndpoint(@Nullable XsuaaJwtDecoder jwtDecoder, @Nullable XsuaaTokenFlows tokenFlows) {
+		this.jwtDecoder = jwtDecoder;
+		this.tokenFlows = tokenFlows;
+	}
+
+	@ReadOperation
+	public Map<String, Object> caches() {
+		Map<String, Object> caches = new LinkedHashMap<>();
+		if (jwtDecoder != null) {
+			caches.put("jwtDecoder", jwtDecoder.getStatistics());
+		}
+		if (tokenFlows != null) {
+			if (tokenFlows.getOAuth2TokenService() instanceof CachingOAuth2TokenService) {
+				CachingOAuth2TokenService tokenCache = (CachingOAuth2TokenService) tokenFlows.getOAuth2TokenService();
+				caches.put("tokenCache", toCacheStatistics(tokenCache.getCachedTokenCount(),
+						tokenCache.getHitCount(), tokenCache.getMissCount()));
+			}
+			UserTokenCache userTokenCache = tokenFlows.getUserTokenCache();
+			if (userTokenCache != null) {
+				caches.put("userTokenCache", toCacheStatistics(userTokenCache.getCachedTokenCount(),
+						userTokenCache.getHitCount(), userTokenCache.getMissCount()));
+			}
+		}
+		return caches;
+	}
+
+	/**
+	 * Evicts the cached token keys, verified tokens and requested tokens of a
+	 * tenant.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the tenant.
+	 */
+	@DeleteOperation
+	public void evictTenant(@Selector String subdomain) {
+		logger.info("evicts cached token keys and tokens of subdomain '{}'", subdomain);
+		if (jwtDecoder != null) {
+			jwtDecoder.evictTenant(subdomain);
+		}
+		if (tokenFlows != null) {
+			if (tokenFlows.getOAuth2TokenService() instanceof CachingOAuth2TokenService) {
+				((CachingOAuth2TokenService) tokenFlows.getOAuth2TokenService()).clearCache(subdomain);
+			}
+			if (tokenFlows.getUserTokenCache() != null) {
+				tokenFlows.getUserTokenCache().clear(subdomain);
+			}
+		}
+	}
+
+	/**
+	 * Pre-warms the caches of the given tenants by requesting a client
+	 * credentials token of each subdomain, which is then verified by the
+	 * {@link XsuaaJwtDecoder}.
+	 *
+	 * @param subdomains
+	 *            the subdomains of the tenants.
+	 * @return the result per subdomain, which is {@code ok} or the error
+	 *         message.
+	 */
+	@WriteOperation
+	public Map<String, String> prewarm(List<String> subdomains) {
+		Map<String, String> results = new LinkedHashMap<>();
+		if (tokenFlows == null) {
+			subdomains.forEach(subdomain -> results.put(subdomain, "no XsuaaTokenFlows available"));
+			return results;
+		}
+		for (String subdomain : subdomains) {
+			try {
+				OAuth2TokenResponse tokenResponse = tokenFlows.clientCredentialsTokenFlow().subdomain(subdomain)
+						.execute();
+				if (jwtDecoder != null) {
+					jwtDecoder.decode(tokenResponse.getAccessToken());
+				}
+				results.put(subdomain, "ok");
+			} catch (TokenFlowException | JwtException e) {
+				logger.warn("Failed to pre-warm caches of subdomain '{}': {}", subdomain, e.getMessage());
+				results.put(subdomain, e.getMessage());
+			}
+		}
+		return results;
+	}
+
+	private static Map<String, Object> toCacheStatistics(long size, long hitCount, long missCount) {
+		long requestCount = hitCount + missCount;
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("size", size);
+		statistics.put("hitCount", hitCount);
+		statistics.put("missCount", missCount);
+		statistics.put("hitRatio", requestCount == 0 ? 1.0 : (double) hitCount / requestCount);
+		return statistics;
+	}
+}
@@ -1,5 +1,7 @@
 package com.sap.cloud.security.xsuaa.autoconfiguration;
 
+import java.time.Duration;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -7,17 +9,23 @@ import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfigurationDefault;
 import com.sap.cloud.security.xsuaa.XsuaaServicePropertySourceFactory;
+import com.sap.cloud.security.xsuaa.client.DefaultHttpClientFactory;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for default beans used by
@@ -29,13 +37,25 @@ import com.sap.cloud.security.xsuaa.XsuaaServicePropertySourceFactory;
  * can be disabled
  * with @EnableAutoConfiguration(exclude={XsuaaAutoConfiguration.class}) or with
  * property spring.xsuaa.auto = false
+ *
+ * <p>
+ * The http client of the {@link RestOperations} can be configured with the
+ * spring.xsuaa.http.* properties of {@link XsuaaHttpProperties}.
  */
 @Configuration
 @ConditionalOnClass(Jwt.class)
 @ConditionalOnProperty(prefix = "spring.xsuaa", name = "auto", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(XsuaaHttpProperties.class)
 public class XsuaaAutoConfiguration {
 
 	private static final Logger logger = LoggerFactory.getLogger(XsuaaAutoConfiguration.class);
+	private static final String HTTP_CLIENT_CLASS = "org.apache.http.impl.client.CloseableHttpClient";
+
+	private final XsuaaHttpProperties httpProperties;
+
+	public XsuaaAutoConfiguration(XsuaaHttpProperties httpProperties) {
+		this.httpProperties = httpProperties;
+	}
 
 	@Configuration
 	@PropertySource(factory = XsuaaServicePropertySourceFactory.class, value = { "" })
@@ -66,7 +86,9 @@ public class XsuaaAutoConfiguration {
 
 	/**
 	 * Creates a {@link RestOperations} instance if the application has not yet
-	 * defined any yet.
+	 * defined any yet. It is used for token requests as well as for fetching the
+	 * token keys. It executes the requests with the
+	 * {@link #xsuaaClientHttpRequestFactory()}.
 	 *
 	 * @return the {@link RestOperations} instance.
 	 */
@@ -74,7 +96,51 @@ public class XsuaaAutoConfiguration {
 	@ConditionalOnMissingBean
 	public RestOperations xsuaaRestOperations() {
 		logger.info("auto-configures RestOperations for xsuaa requests)");
-		return new RestTemplate();
+		return new RestTemplate(xsuaaClientHttpRequestFactory());
+	}
+
+	/**
+	 * Creates the {@link ClientHttpRequestFactory} of the
+	 * {@link #xsuaaRestOperations()}, configured with the
+	 * {@link XsuaaHttpProperties}.
+	 * <p>
+	 * In case Apache HttpClient is on the classpath the requests are executed by a
+	 * pooled http client, created by {@link DefaultHttpClientFactory}, which is
+	 * closed together with the application context. Otherwise the JDK http client
+	 * is used with the configured timeouts.
+	 *
+	 * @return the {@link ClientHttpRequestFactory} instance.
+	 */
+	@Bean
+	@ConditionalOnMissingBean(name = "xsuaaClientHttpRequestFactory")
+	public ClientHttpRequestFactory xsuaaClientHttpRequestFactory() {
+		if (ClassUtils.isPresent(HTTP_CLIENT_CLASS, XsuaaAutoConfiguration.class.getClassLoader())) {
+			return HttpComponentsRequestFactory.create(httpProperties);
+		}
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(httpProperties.getConnectTimeoutMillis());
+		requestFactory.setReadTimeout(httpProperties.getSocketTimeoutMillis());
+		return requestFactory;
+	}
+
+	/**
+	 * Isolates the references to Apache HttpClient, which is an optional
+	 * dependency.
+	 */
+	private static class HttpComponentsRequestFactory {
+
+		static ClientHttpRequestFactory create(XsuaaHttpProperties httpProperties) {
+			return new HttpComponentsClientHttpRequestFactory(new DefaultHttpClientFactory()
+					.withConnectTimeout(Duration.ofMillis(httpProperties.getConnectTimeoutMillis()))
+					.withSocketTimeout(Duration.ofMillis(httpProperties.getSocketTimeoutMillis()))
+					.withConnectionRequestTimeout(
+							Duration.ofMillis(httpProperties.getConnectionRequestTimeoutMillis()))
+					.withKeepAlive(Duration.ofMillis(httpProperties.getKeepAliveMillis()))
+					.withMaxIdleTime(Duration.ofMillis(httpProperties.getMaxIdleTimeMillis()))
+					.withMaxConnections(httpProperties.getMaxConnections())
+					.withMaxConnectionsPerRoute(httpProperties.getMaxConnectionsPerRoute())
+					.create());
+		}
 	}
 
 
@@ -0,0 +1,131 @@
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoderBuilder;
+
+/**
+ * The {@code spring.xsuaa.decoder.*} properties of the {@code JwtDecoder} and
+ * {@code ReactiveJwtDecoder}, which are auto-configured by
+ * {@link XsuaaResourceServerJwkAutoConfiguration}. As any Spring Boot property
+ * they can be set as environment variables, e.g.
+ * {@code SPRING_XSUAA_DECODER_CACHE_SIZE}.
+ *
+ * @see XsuaaJwtDecoderBuilder
+ */
+@ConfigurationProperties(prefix = "spring.xsuaa.decoder")
+public class XsuaaDecoderProperties {
+
+	private final Cache cache = new Cache();
+	private final VerifiedTokens verifiedTokens = new VerifiedTokens();
+	private Integer connectTimeoutMillis;
+	private Integer readTimeoutMillis;
+
+	public Cache getCache() {
+		return cache;
+	}
+
+	public VerifiedTokens getVerifiedTokens() {
+		return verifiedTokens;
+	}
+
+	public Integer getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * Sets the connect timeout for fetching the token keys. If neither connect
+	 * nor read timeout is set, the token keys are fetched with the
+	 * {@code RestOperations} bean, which is configured with the
+	 * {@code spring.xsuaa.http.*} properties.
+	 *
+	 * @param connectTimeoutMillis
+	 *            the connect timeout in milliseconds.
+	 */
+	public void setConnectTimeoutMillis(Integer connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public Integer getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	/**
+	 * Sets the read timeout for fetching the token keys.
+	 *
+	 * @param readTimeoutMillis
+	 *            the read timeout in milliseconds.
+	 * @see #setConnectTimeoutMillis(Integer)
+	 */
+	public void setReadTimeoutMillis(Integer readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	/**
+	 * The cache of the decoders per token key URL and key id.
+	 */
+	public static class Cache {
+
+		private int size = 100;
+		private int validitySeconds = 900;
+		private int refreshAheadSeconds = 0;
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public int getValiditySeconds() {
+			return validitySeconds;
+		}
+
+		public void setValiditySeconds(int validitySeconds) {
+			this.validitySeconds = validitySeconds;
+		}
+
+		public int getRefreshAheadSeconds() {
+			return refreshAheadSeconds;
+		}
+
+		/**
+		 * Sets the seconds before expiration, within which a used decoder is
+		 * replaced in the background. Only supported by the {@code JwtDecoder}.
+		 *
+		 * @param refreshAheadSeconds
+		 *            the seconds, which must be less than the validity seconds,
+		 *            or 0 to disable the refresh.
+		 */
+		public void setRefreshAheadSeconds(int refreshAheadSeconds) {
+			this.refreshAheadSeconds = refreshAheadSeconds;
+		}
+	}
+
+	/**
+	 * The cache of verified tokens, whose signature is not verified again. Only
+	 * supported by the {@code JwtDecoder}.
+	 */
+	public static class VerifiedTokens {
+
+		private boolean enabled = false;
+		private int size = 1000;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnEnabledEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import com.sap.cloud.security.xsuaa.actuate.XsuaaEndpoint;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoder;
+import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the
+ * {@link XsuaaEndpoint} {@code /actuator/xsuaa}, which exposes the caches of
+ * the {@link XsuaaJwtDecoder} and the {@link XsuaaTokenFlows}.
+ *
+ * <p>
+ * Activates when Spring Boot Actuator is on the classpath. As any actuator
+ * endpoint it needs to be exposed, e.g. with property
+ * management.endpoints.web.exposure.include = xsuaa, and can be disabled with
+ * property management.endpoint.xsuaa.enabled = false
+ */
+@Configuration
+@ConditionalOnClass({ Endpoint.class, Jwt.class })
+@AutoConfigureAfter({ XsuaaResourceServerJwkAutoConfiguration.class, XsuaaTokenFlowAutoConfiguration.class })
+public class XsuaaEndpointAutoConfiguration {
+	private static final Logger logger = LoggerFactory.getLogger(XsuaaEndpointAutoConfiguration.class);
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnEnabledEndpoint
+	public XsuaaEndpoint xsuaaEndpoint(ObjectProvider<JwtDecoder> jwtDecoder,
+			ObjectProvider<XsuaaTokenFlows> tokenFlows) {
+		logger.info("auto-configures XsuaaEndpoint");
+		JwtDecoder decoder = jwtDecoder.getIfUnique();
+		return new XsuaaEndpoint(decoder instanceof XsuaaJwtDecoder ? (XsuaaJwtDecoder) decoder : null,
+				tokenFlows.getIfUnique());
+	}
+}
@@ -0,0 +1,100 @@
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.sap.cloud.security.xsuaa.client.DefaultHttpClientFactory;
+
+/**
+ * The {@code spring.xsuaa.http.*} properties of the http client, which is
+ * auto-configured by {@link XsuaaAutoConfiguration} for token requests and
+ * token key fetches. The pool and keep-alive settings only apply, in case
+ * Apache HttpClient is on the classpath.
+ *
+ * @see DefaultHttpClientFactory
+ */
+@ConfigurationProperties(prefix = "spring.xsuaa.http")
+public class XsuaaHttpProperties {
+
+	private int connectTimeoutMillis = 5000;
+	private int socketTimeoutMillis = 30000;
+	private int connectionRequestTimeoutMillis = 5000;
+	private long keepAliveMillis = 120000;
+	private long maxIdleTimeMillis = 60000;
+	private int maxConnections = 200;
+	private int maxConnectionsPerRoute = 20;
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	public int getConnectionRequestTimeoutMillis() {
+		return connectionRequestTimeoutMillis;
+	}
+
+	/**
+	 * Sets the time to wait for a connection from the pool.
+	 *
+	 * @param connectionRequestTimeoutMillis
+	 *            the timeout in milliseconds.
+	 */
+	public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+		this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	/**
+	 * Sets the time a connection is kept alive, in case the server does not send
+	 * a keep-alive header.
+	 *
+	 * @param keepAliveMillis
+	 *            the keep-alive time in milliseconds.
+	 */
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	public long getMaxIdleTimeMillis() {
+		return maxIdleTimeMillis;
+	}
+
+	/**
+	 * Sets the time after which idle connections are evicted from the pool.
+	 *
+	 * @param maxIdleTimeMillis
+	 *            the idle time in milliseconds.
+	 */
+	public void setMaxIdleTimeMillis(long maxIdleTimeMillis) {
+		this.maxIdleTimeMillis = maxIdleTimeMillis;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+}
@@ -2,8 +2,13 @@ package com.sap.cloud.security.xsuaa.autoconfiguration;
 
 import static org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -11,15 +16,31 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.OAuth2ResourceServerAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.ClassUtils;
 
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoderBuilder;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} that exposes a
@@ -27,6 +48,12 @@ import org.springframework.web.client.RestOperations;
  * well as the XSUAA-specific validators.
  *
  * Activates when there is a bean of type {@link Jwt} configured in the context.
+ * In reactive web applications it exposes a {@link ReactiveJwtDecoder}
+ * instead.
+ *
+ * <p>
+ * The decoders can be configured with the spring.xsuaa.decoder.* properties of
+ * {@link XsuaaDecoderProperties}.
  *
  * <p>
  * can be disabled
@@ -36,19 +63,146 @@ import org.springframework.web.client.RestOperations;
 @Configuration
 @ConditionalOnClass(Jwt.class)
 @ConditionalOnProperty(prefix = "spring.xsuaa", name = "auto", havingValue = "true", matchIfMissing = true)
-@AutoConfigureBefore(OAuth2ResourceServerAutoConfiguration.class) // imports OAuth2ResourceServerJwtConfiguration which
-																	// specifies JwtDecoder
+// imports OAuth2ResourceServerJwtConfiguration and ReactiveOAuth2ResourceServerJwkConfiguration which specify the
+// JwtDecoder and the ReactiveJwtDecoder
+@AutoConfigureBefore({ OAuth2ResourceServerAutoConfiguration.class,
+		ReactiveOAuth2ResourceServerAutoConfiguration.class })
+@EnableConfigurationProperties({ XsuaaDecoderProperties.class, XsuaaHttpProperties.class })
 public class XsuaaResourceServerJwkAutoConfiguration {
-	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private static final Logger logger = LoggerFactory.getLogger(XsuaaResourceServerJwkAutoConfiguration.class);
+	private static final String HTTP_CLIENT_CLASS = "org.apache.http.impl.client.CloseableHttpClient";
 
 	@Bean
 	@ConditionalOnBean({XsuaaServiceConfiguration.class, RestOperations.class })
 	@ConditionalOnWebApplication(type = Type.SERVLET)
 	@ConditionalOnMissingBean
-	public JwtDecoder xsuaaJwtDecoder(XsuaaServiceConfiguration xsuaaServiceConfiguration, RestOperations restOperations) {
+	public JwtDecoder xsuaaJwtDecoder(XsuaaServiceConfiguration xsuaaServiceConfiguration, RestOperations restOperations,
+			XsuaaDecoderProperties decoderProperties, XsuaaHttpProperties httpProperties,
+			@Qualifier("xsuaaClientHttpRequestFactory") ObjectProvider<ClientHttpRequestFactory> requestFactory) {
 		logger.info("auto-configures JwtDecoder");
 		return new XsuaaJwtDecoderBuilder(xsuaaServiceConfiguration)
-				.withRestOperations(restOperations)
+				.withDecoderCacheSize(decoderProperties.getCache().getSize())
+				.withDecoderCacheTime(decoderProperties.getCache().getValiditySeconds())
+				.withDecoderCacheRefreshAhead(decoderProperties.getCache().getRefreshAheadSeconds())
+				.withVerifiedTokenCacheSize(decoderProperties.getVerifiedTokens().isEnabled()
+						? decoderProperties.getVerifiedTokens().getSize()
+						: 0)
+				.withRestOperations(createRestOperations(decoderProperties, httpProperties, restOperations,
+						requestFactory.getIfAvailable()))
 				.build();
 	}
-}
+
+	/**
+	 * Creates the {@link RestOperations} the token keys are fetched with. In case
+	 * timeouts are configured for the decoder, the pooled http client of the
+	 * xsuaaClientHttpRequestFactory is used with these timeouts, otherwise the
+	 * JDK http client with the decoder timeouts, or else the
+	 * {@link XsuaaHttpProperties} timeouts.
+	 */
+	static RestOperations createRestOperations(XsuaaDecoderProperties decoderProperties,
+			XsuaaHttpProperties httpProperties, RestOperations restOperations,
+			@Nullable ClientHttpRequestFactory requestFactory) {
+		Integer connectTimeoutMillis = decoderProperties.getConnectTimeoutMillis();
+		Integer readTimeoutMillis = decoderProperties.getReadTimeoutMillis();
+		if (connectTimeoutMillis == null && readTimeoutMillis == null) {
+			return restOperations;
+		}
+		if (ClassUtils.isPresent(HTTP_CLIENT_CLASS, XsuaaResourceServerJwkAutoConfiguration.class.getClassLoader())
+				&& requestFactory instanceof HttpComponentsClientHttpRequestFactory) {
+			return new RestTemplate(HttpComponentsRequestFactory.create(
+					(HttpComponentsClientHttpRequestFactory) requestFactory, connectTimeoutMillis, readTimeoutMillis));
+		}
+		SimpleClientHttpRequestFactory simpleRequestFactory = new SimpleClientHttpRequestFactory();
+		simpleRequestFactory.setConnectTimeout(
+				Optional.ofNullable(connectTimeoutMillis).orElse(httpProperties.getConnectTimeoutMillis()));
+		simpleRequestFactory.setReadTimeout(
+				Optional.ofNullable(readTimeoutMillis).orElse(httpProperties.getSocketTimeoutMillis()));
+		return new RestTemplate(simpleRequestFactory);
+	}
+
+	/**
+	 * Isolates the references to Apache HttpClient, which is an optional
+	 * dependency.
+	 */
+	private static class HttpComponentsRequestFactory {
+
+		static ClientHttpRequestFactory create(HttpComponentsClientHttpRequestFactory pooledRequestFactory,
+				@Nullable Integer connectTimeoutMillis, @Nullable Integer readTimeoutMillis) {
+			// unset timeouts are taken from the request config of the http client
+			HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+					pooledRequestFactory.getHttpClient());
+			Optional.ofNullable(connectTimeoutMillis).ifPresent(requestFactory::setConnectTimeout);
+			Optional.ofNullable(readTimeoutMillis).ifPresent(requestFactory::setReadTimeout);
+			return requestFactory;
+		}
+	}
+
+	/**
+	 * Configures the {@link ReactiveJwtDecoder} of reactive web applications.
+	 * With Reactor Netty it fetches the token keys with a {@link WebClient} of
+	 * its own connection pool, which is limited by spring.xsuaa.http.max-connections,
+	 * and the timeouts of {@link XsuaaDecoderProperties}, or else of
+	 * {@link XsuaaHttpProperties}. Otherwise it uses the http client of Spring
+	 * Security, which can not be configured.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+	@ConditionalOnWebApplication(type = Type.REACTIVE)
+	public static class ReactiveJwtDecoderConfiguration {
+
+		@Configuration
+		@ConditionalOnClass(name = "reactor.netty.http.client.HttpClient")
+		static class ReactorNettyJwtDecoderConfiguration {
+
+			@Bean(destroyMethod = "dispose")
+			@ConditionalOnBean(XsuaaServiceConfiguration.class)
+			@ConditionalOnMissingBean(ReactiveJwtDecoder.class)
+			public ConnectionProvider xsuaaJwkSetConnectionProvider(XsuaaHttpProperties httpProperties) {
+				return ConnectionProvider.fixed("xsuaa-jwk-set", httpProperties.getMaxConnections(),
+						httpProperties.getConnectionRequestTimeoutMillis());
+			}
+
+			@Bean
+			@ConditionalOnBean(XsuaaServiceConfiguration.class)
+			@ConditionalOnMissingBean
+			public ReactiveJwtDecoder reactiveXsuaaJwtDecoder(XsuaaServiceConfiguration xsuaaServiceConfiguration,
+					XsuaaDecoderProperties decoderProperties, XsuaaHttpProperties httpProperties,
+					@Qualifier("xsuaaJwkSetConnectionProvider") ConnectionProvider connectionProvider) {
+				logger.info("auto-configures ReactiveJwtDecoder");
+				return createReactiveDecoderBuilder(xsuaaServiceConfiguration, decoderProperties)
+						.withWebClient(createWebClient(decoderProperties, httpProperties, connectionProvider))
+						.buildAsReactive();
+			}
+
+			private static WebClient createWebClient(XsuaaDecoderProperties decoderProperties,
+					XsuaaHttpProperties httpProperties, ConnectionProvider connectionProvider) {
+				int connectTimeoutMillis = Optional.ofNullable(decoderProperties.getConnectTimeoutMillis())
+						.orElse(httpProperties.getConnectTimeoutMillis());
+				int readTimeoutMillis = Optional.ofNullable(decoderProperties.getReadTimeoutMillis())
+						.orElse(httpProperties.getSocketTimeoutMillis());
+				HttpClient httpClient = HttpClient.create(connectionProvider)
+						.tcpConfiguration(tcpClient -> tcpClient
+								.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+								.doOnConnected(connection -> connection.addHandlerLast(
+										new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS))));
+				return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+			}
+		}
+
+		@Bean
+		@ConditionalOnBean(XsuaaServiceConfiguration.class)
+		@ConditionalOnMissingBean
+		public ReactiveJwtDecoder reactiveXsuaaJwtDecoder(XsuaaServiceConfiguration xsuaaServiceConfiguration,
+				XsuaaDecoderProperties decoderProperties) {
+			logger.info("auto-configures ReactiveJwtDecoder");
+			return createReactiveDecoderBuilder(xsuaaServiceConfiguration, decoderProperties).buildAsReactive();
+		}
+
+		private static XsuaaJwtDecoderBuilder createReactiveDecoderBuilder(
+				XsuaaServiceConfiguration xsuaaServiceConfiguration, XsuaaDecoderProperties decoderProperties) {
+			return new XsuaaJwtDecoderBuilder(xsuaaServiceConfiguration)
+					.withDecoderCacheSize(decoderProperties.getCache().getSize())
+					.withDecoderCacheTime(decoderProperties.getCache().getValiditySeconds());
+		}
+	}
+}
\ No newline at end of file
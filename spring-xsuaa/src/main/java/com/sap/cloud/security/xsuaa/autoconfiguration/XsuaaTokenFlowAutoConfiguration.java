@@ -1,7 +1,13 @@
 package com.sap.cloud.security.xsuaa.autoconfiguration;
 
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -9,16 +15,30 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
+import com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.MeteredOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ResilienceSettings;
+import com.sap.cloud.security.xsuaa.client.ResilientOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.XsuaaDefaultEndpoints;
 import com.sap.cloud.security.xsuaa.client.XsuaaOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.XsuaaReactiveOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.tokenflows.ReactiveXsuaaTokenFlows;
 import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for default beans used by
  * the XSUAA client library.
@@ -30,6 +50,30 @@ import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
  * can be disabled
  * with @EnableAutoConfiguration(exclude={XsuaaTokenFlowAutoConfiguration.class})
  * or with property spring.xsuaa.flows.auto = false
+ *
+ * <p>
+ * The token responses, including the tokens exchanged by the user token flow,
+ * can be cached by a {@link CachingOAuth2TokenService}, which is enabled with
+ * property spring.xsuaa.flows.cache.enabled = true and can be configured with
+ * the properties spring.xsuaa.flows.cache.expiry-skew-seconds and
+ * spring.xsuaa.flows.cache.size
+ *
+ * <p>
+ * Failed token requests can be retried and guarded by a circuit breaker and a
+ * bulkhead of a {@link ResilientOAuth2TokenService}, which is enabled with
+ * property spring.xsuaa.flows.resilience.enabled = true and can be configured
+ * with the properties spring.xsuaa.flows.resilience.*
+ *
+ * <p>
+ * When Micrometer and a {@code MeterRegistry} bean are available, the token
+ * requests are timed by a {@link MeteredOAuth2TokenService} and the counters of
+ * the caches and the {@link ResilientOAuth2TokenService} are bound to the
+ * registry. This can be disabled with property
+ * spring.xsuaa.flows.metrics.enabled = false
+ *
+ * <p>
+ * When Spring WebFlux is on the classpath, it additionally configures a
+ * {@link ReactiveXsuaaTokenFlows} bean.
  */
 @Configuration
 @ConditionalOnClass(XsuaaTokenFlows.class)
@@ -37,6 +81,8 @@ import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
 public class XsuaaTokenFlowAutoConfiguration {
 
 	private static final Logger logger = LoggerFactory.getLogger(XsuaaTokenFlowAutoConfiguration.class);
+	private static final boolean micrometerPresent = ClassUtils.isPresent(
+			"io.micrometer.core.instrument.MeterRegistry", XsuaaTokenFlowAutoConfiguration.class.getClassLoader());
 
 	/**
 	 * Creates a new {@link XsuaaTokenFlows} bean that applications can auto-wire
@@ -47,19 +93,174 @@ public class XsuaaTokenFlowAutoConfiguration {
 	 * @param serviceConfiguration
 	 *            - the {@link XsuaaServiceConfiguration} to configure the Xsuaa
 	 *            Base Url.
+	 * @param cacheEnabled
+	 *            - whether the token responses are cached (default: false).
+	 * @param cacheExpirySkewSeconds
+	 *            - the seconds before expiration, after which a cached token is
+	 *            renewed.
+	 * @param cacheSize
+	 *            - the maximum number of cached token responses.
+	 * @param resilienceEnabled
+	 *            - whether failed token requests are retried and guarded by a
+	 *            circuit breaker and a bulkhead.
+	 * @param metricsEnabled
+	 *            - whether the token requests and caches are measured, in case a
+	 *            Micrometer {@code MeterRegistry} is available.
+	 * @param environment
+	 *            - the {@link Environment} to read the
+	 *            spring.xsuaa.flows.resilience.* thresholds from.
+	 * @param beanFactory
+	 *            - the {@link BeanFactory} to look up the {@code MeterRegistry}.
 	 * @return the {@link XsuaaTokenFlows} API.
 	 */
 	@Bean
 	@ConditionalOnBean({ XsuaaServiceConfiguration.class, RestOperations.class })
 	@ConditionalOnMissingBean
 	public XsuaaTokenFlows xsuaaTokenFlows(RestOperations restOperations,
-			XsuaaServiceConfiguration serviceConfiguration) {
+			XsuaaServiceConfiguration serviceConfiguration,
+			@Value("${spring.xsuaa.flows.cache.enabled:false}") boolean cacheEnabled,
+			@Value("${spring.xsuaa.flows.cache.expiry-skew-seconds:30}") long cacheExpirySkewSeconds,
+			@Value("${spring.xsuaa.flows.cache.size:1000}") int cacheSize,
+			@Value("${spring.xsuaa.flows.resilience.enabled:false}") boolean resilienceEnabled,
+			@Value("${spring.xsuaa.flows.metrics.enabled:true}") boolean metricsEnabled,
+			Environment environment, BeanFactory beanFactory) {
 
 		logger.info("auto-configures XsuaaTokenFlows");
 		OAuth2ServiceEndpointsProvider endpointsProvider = new XsuaaDefaultEndpoints(serviceConfiguration.getUaaUrl());
 		ClientCredentials clientCredentials = new ClientCredentials(serviceConfiguration.getClientId(),
 				serviceConfiguration.getClientSecret());
+		Object meterRegistry = metricsEnabled && micrometerPresent ? TokenFlowMetrics.getMeterRegistry(beanFactory)
+				: null;
 		OAuth2TokenService oAuth2TokenService = new XsuaaOAuth2TokenService(restOperations);
-		return new XsuaaTokenFlows(oAuth2TokenService, endpointsProvider, clientCredentials);
+		if (meterRegistry != null) {
+			oAuth2TokenService = TokenFlowMetrics.instrument(oAuth2TokenService, meterRegistry);
+		}
+		ResilientOAuth2TokenService resilientTokenService = null;
+		if (resilienceEnabled) {
+			resilientTokenService = new ResilientOAuth2TokenService(oAuth2TokenService,
+					createResilienceSettings(environment));
+			oAuth2TokenService = resilientTokenService;
+		}
+		OAuth2TokenService uncachedTokenService = oAuth2TokenService;
+		CachingOAuth2TokenService cachingTokenService = null;
+		if (cacheEnabled) {
+			cachingTokenService = new CachingOAuth2TokenService(oAuth2TokenService,
+					Duration.ofSeconds(cacheExpirySkewSeconds), cacheSize);
+			oAuth2TokenService = cachingTokenService;
+		}
+		if (meterRegistry != null) {
+			TokenFlowMetrics.bind(meterRegistry, resilientTokenService, cachingTokenService);
+		}
+		return new XsuaaTokenFlows(oAuth2TokenService, new DefaultAsyncOAuth2TokenService(oAuth2TokenService),
+				uncachedTokenService, new DefaultAsyncOAuth2TokenService(uncachedTokenService), endpointsProvider,
+				clientCredentials, null);
+	}
+
+	private static ResilienceSettings createResilienceSettings(Environment environment) {
+		String prefix = "spring.xsuaa.flows.resilience.";
+		return new ResilienceSettings()
+				.withMaxAttempts(environment.getProperty(prefix + "max-attempts", Integer.class,
+						ResilienceSettings.DEFAULT_MAX_ATTEMPTS))
+				.withBackoff(
+						getMillis(environment, prefix + "initial-backoff-millis",
+								ResilienceSettings.DEFAULT_INITIAL_BACKOFF),
+						getMillis(environment, prefix + "max-backoff-millis", ResilienceSettings.DEFAULT_MAX_BACKOFF))
+				.withCircuitBreakerFailureThreshold(environment.getProperty(
+						prefix + "circuit-breaker.failure-threshold", Integer.class,
+						ResilienceSettings.DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD))
+				.withCircuitBreakerOpenDuration(getMillis(environment, prefix + "circuit-breaker.open-duration-millis",
+						ResilienceSettings.DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION))
+				.withBulkhead(
+						environment.getProperty(prefix + "bulkhead.max-concurrent-requests", Integer.class,
+								ResilienceSettings.DEFAULT_MAX_CONCURRENT_REQUESTS_PER_TENANT),
+						getMillis(environment, prefix + "bulkhead.max-wait-millis",
+								ResilienceSettings.DEFAULT_BULKHEAD_MAX_WAIT));
+	}
+
+	private static Duration getMillis(Environment environment, String property, Duration defaultValue) {
+		return Duration.ofMillis(environment.getProperty(property, Long.class, defaultValue.toMillis()));
+	}
+
+	/**
+	 * Binds the token flows to Micrometer. Only loaded when Micrometer is on the
+	 * classpath, hence the registry is passed as {@code Object}.
+	 */
+	private static class TokenFlowMetrics {
+
+		static Object getMeterRegistry(BeanFactory beanFactory) {
+			return beanFactory.getBeanProvider(MeterRegistry.class).getIfUnique();
+		}
+
+		static OAuth2TokenService instrument(OAuth2TokenService tokenService, Object meterRegistry) {
+			logger.info("measures token requests with Micrometer");
+			return new MeteredOAuth2TokenService(tokenService, (MeterRegistry) meterRegistry);
+		}
+
+		static void bind(Object registry, ResilientOAuth2TokenService resilientTokenService,
+				CachingOAuth2TokenService cachingTokenService) {
+			MeterRegistry meterRegistry = (MeterRegistry) registry;
+			if (resilientTokenService != null) {
+				FunctionCounter.builder("xsuaa.token.retries", resilientTokenService,
+						ResilientOAuth2TokenService::getRetryCount).register(meterRegistry);
+				FunctionCounter.builder("xsuaa.token.circuit-breaker.rejections", resilientTokenService,
+						ResilientOAuth2TokenService::getCircuitBreakerRejectionCount).register(meterRegistry);
+				FunctionCounter.builder("xsuaa.token.bulkhead.rejections", resilientTokenService,
+						ResilientOAuth2TokenService::getBulkheadRejectionCount).register(meterRegistry);
+				Gauge.builder("xsuaa.token.circuit-breaker.open", resilientTokenService,
+						ResilientOAuth2TokenService::getOpenCircuitBreakerCount).register(meterRegistry);
+			}
+			if (cachingTokenService != null) {
+				bindCache(meterRegistry, "token", cachingTokenService, CachingOAuth2TokenService::getCachedTokenCount,
+						CachingOAuth2TokenService::getHitCount, CachingOAuth2TokenService::getMissCount);
+			}
+		}
+
+		private static <T> void bindCache(MeterRegistry meterRegistry, String cacheName, T cache,
+				ToDoubleFunction<T> size, ToDoubleFunction<T> hitCount, ToDoubleFunction<T> missCount) {
+			Gauge.builder("xsuaa.token.cache.size", cache, size).tag("cache", cacheName).register(meterRegistry);
+			FunctionCounter.builder("xsuaa.token.cache.hits", cache, hitCount).tag("cache", cacheName)
+					.register(meterRegistry);
+			FunctionCounter.builder("xsuaa.token.cache.misses", cache, missCount).tag("cache", cacheName)
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * Configures the {@link ReactiveXsuaaTokenFlows} when Spring WebFlux is on the
+	 * classpath.
+	 */
+	@Configuration
+	@ConditionalOnClass(name = { "org.springframework.web.reactive.function.client.WebClient",
+			"reactor.core.publisher.Mono" })
+	public static class ReactiveTokenFlowConfiguration {
+
+		/**
+		 * Creates a new {@link ReactiveXsuaaTokenFlows} bean that applications can
+		 * auto-wire into their reactive controllers to perform a programmatic token
+		 * flow exchange.
+		 *
+		 * @param webClientBuilder
+		 *            - the {@link WebClient.Builder} to create the
+		 *            {@link WebClient} for the token flow exchange, if available.
+		 * @param serviceConfiguration
+		 *            - the {@link XsuaaServiceConfiguration} to configure the Xsuaa
+		 *            Base Url.
+		 * @return the {@link ReactiveXsuaaTokenFlows} API.
+		 */
+		@Bean
+		@ConditionalOnBean(XsuaaServiceConfiguration.class)
+		@ConditionalOnMissingBean
+		public ReactiveXsuaaTokenFlows reactiveXsuaaTokenFlows(ObjectProvider<WebClient.Builder> webClientBuilder,
+				XsuaaServiceConfiguration serviceConfiguration) {
+
+			logger.info("auto-configures ReactiveXsuaaTokenFlows");
+			OAuth2ServiceEndpointsProvider endpointsProvider = new XsuaaDefaultEndpoints(
+					serviceConfiguration.getUaaUrl());
+			ClientCredentials clientCredentials = new ClientCredentials(serviceConfiguration.getClientId(),
+					serviceConfiguration.getClientSecret());
+			WebClient webClient = webClientBuilder.getIfAvailable(WebClient::builder).build();
+			return new ReactiveXsuaaTokenFlows(new XsuaaReactiveOAuth2TokenService(webClient), endpointsProvider,
+					clientCredentials);
+		}
 	}
 }
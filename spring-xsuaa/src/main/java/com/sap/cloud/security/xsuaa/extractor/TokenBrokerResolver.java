@@ -5,21 +5,33 @@ import javax.servlet.http.HttpServletRequest;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
+import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
 import org.springframework.util.StringUtils;
 
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTParser;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoder;
 
 /**
  * Analyse authentication header and obtain token from UAA
@@ -28,6 +40,13 @@ import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
  * {@code X-Identity-Zone-Subdomain} must be set or the
  * AuthenticationInformationExtractor needs to be implemented).
  *
+ * Tokens that are obtained from UAA on behalf of the caller (basic or client
+ * credentials) are exposed as already parsed {@link Jwt} in the request
+ * attribute {@link XsuaaJwtDecoder#TRUSTED_JWT_ATTRIBUTE}, so that the
+ * {@link XsuaaJwtDecoder} does not need to verify their signature again.
+ * Tokens that are taken from the token cache are not exposed, as the cache may
+ * be a shared store, so their signature is verified.
+ *
  */
 public class TokenBrokerResolver implements BearerTokenResolver {
 
@@ -39,6 +58,9 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 
 	private static final String BEARER_TYPE = "bearer";
 
+	private final Converter<Map<String, Object>, Map<String, Object>> claimSetConverter = MappedJwtClaimSetConverter
+			.withDefaults(Collections.emptyMap());
+
 	private XsuaaServiceConfiguration configuration;
 
 	private Cache tokenCache;
@@ -121,7 +143,7 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 
 		for (AuthenticationMethod credentialType : authenticationMethods) {
 			Enumeration<String> headers = request.getHeaders(AUTHORIZATION_HEADER);
-			String token = getBrokerToken(credentialType, headers, oauthTokenUrl);
+			String token = getBrokerToken(request, credentialType, headers, oauthTokenUrl);
 			if (!StringUtils.isEmpty(token)) {
 				return token;
 			}
@@ -153,8 +175,8 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 		return oauthTokenUrl;
 	}
 
-	private String getBrokerToken(AuthenticationMethod credentialType, Enumeration<String> headers,
-			String oauthTokenUrl) throws TokenBrokerException {
+	private String getBrokerToken(HttpServletRequest request, AuthenticationMethod credentialType,
+			Enumeration<String> headers, String oauthTokenUrl) throws TokenBrokerException {
 		ClientCredentials clientCredentials = new ClientCredentials(configuration.getClientId(),
 				configuration.getClientSecret());
 		while (headers.hasMoreElements()) {
@@ -179,6 +201,7 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 								clientCredentials.getSecret(), userCredentialsFromHeader.getId(),
 								userCredentialsFromHeader.getSecret());
 						tokenCache.put(cacheKey, token);
+						exposeTrustedToken(request, token);
 						return token;
 					}
 				}
@@ -198,6 +221,7 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 								.getAccessTokenFromClientCredentials(oauthTokenUrl, clientCredentialsFromHeader.getId(),
 										clientCredentialsFromHeader.getSecret());
 						tokenCache.put(cacheKey, token);
+						exposeTrustedToken(request, token);
 						return token;
 					}
 				}
@@ -209,6 +233,24 @@ public class TokenBrokerResolver implements BearerTokenResolver {
 		return null;
 	}
 
+	/**
+	 * Exposes the token, which was just received from UAA, as parsed {@link Jwt}
+	 * to the {@link XsuaaJwtDecoder}. The token was retrieved via TLS from the
+	 * configured UAA, hence its signature does not need to be verified again.
+	 */
+	private void exposeTrustedToken(HttpServletRequest request, String token) {
+		try {
+			JWT parsedJwt = JWTParser.parse(token);
+			Map<String, Object> headers = new LinkedHashMap<>(parsedJwt.getHeader().toJSONObject());
+			Map<String, Object> claims = claimSetConverter.convert(parsedJwt.getJWTClaimsSet().getClaims());
+			Jwt jwt = new Jwt(token, (Instant) claims.get(JwtClaimNames.IAT), (Instant) claims.get(JwtClaimNames.EXP),
+					headers, claims);
+			request.setAttribute(XsuaaJwtDecoder.TRUSTED_JWT_ATTRIBUTE, jwt);
+		} catch (ParseException | RuntimeException e) {
+			logger.debug("Token obtained from UAA can not be parsed, it is going to be verified: {}", e.getMessage());
+		}
+	}
+
 	@Nullable
 	private ClientCredentials getCredentialsFromBasicAuthorizationHeader(@Nullable String basicAuthHeader) {
 		if (basicAuthHeader == null) {
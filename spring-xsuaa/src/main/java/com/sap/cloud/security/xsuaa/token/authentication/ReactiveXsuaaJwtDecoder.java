@@ -4,24 +4,41 @@ import static com.sap.cloud.security.xsuaa.token.TokenClaims.CLAIM_JKU;
 import static com.sap.cloud.security.xsuaa.token.TokenClaims.CLAIM_KID;
 
 import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import com.nimbusds.jwt.proc.JWTProcessor;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 
 import reactor.core.publisher.Mono;
@@ -29,10 +46,14 @@ import reactor.core.publisher.Mono;
 public class ReactiveXsuaaJwtDecoder implements ReactiveJwtDecoder {
 
 	Cache<String, ReactiveJwtDecoder> cache;
+	private final Duration cacheValidity;
 	private List<OAuth2TokenValidator<Jwt>> tokenValidators = new ArrayList<>();
 	private Collection<PostValidationAction> postValidationActions;
 	private TokenInfoExtractor tokenInfoExtractor;
+	private WebClient webClient;
 
+	private static final MappedJwtClaimSetConverter CLAIM_SET_CONVERTER = MappedJwtClaimSetConverter
+			.withDefaults(Collections.emptyMap());
 	private static final String EXT_ATTR = "ext_attr";
 	private static final String ZDN = "zdn";
 	private static final String ZID = "zid";
@@ -44,6 +65,7 @@ public class ReactiveXsuaaJwtDecoder implements ReactiveJwtDecoder {
 			OAuth2TokenValidator<Jwt> tokenValidators, Collection<PostValidationAction> postValidationActions) {
 		cache = Caffeine.newBuilder().expireAfterWrite(cacheValidityInSeconds, TimeUnit.SECONDS).maximumSize(cacheSize)
 				.build();
+		cacheValidity = Duration.ofSeconds(cacheValidityInSeconds);
 
 		this.tokenInfoExtractor = new TokenInfoExtractor() {
 			@Override
@@ -76,15 +98,99 @@ public class ReactiveXsuaaJwtDecoder implements ReactiveJwtDecoder {
 			}
 		}).map(jwtToken -> {
 			String cacheKey = tokenInfoExtractor.getJku(jwtToken) + tokenInfoExtractor.getKid(jwtToken);
-			return cache.get(cacheKey, k -> this.getDecoder(tokenInfoExtractor.getJku(jwtToken)));
+			return cache.get(cacheKey,
+					k -> this.getDecoder(tokenInfoExtractor.getJku(jwtToken), tokenInfoExtractor.getKid(jwtToken)));
 		}).flatMap(decoder -> decoder.decode(token))
 				.doOnSuccess(jwt -> postValidationActions.forEach(act -> act.perform(jwt)));
 	}
 
-	private ReactiveJwtDecoder getDecoder(String jku) {
+	/**
+	 * Sets the {@link WebClient} the token keys are fetched with, e.g. with
+	 * timeouts and a connection pool. Otherwise the token keys are fetched with
+	 * the http client of the {@link NimbusReactiveJwtDecoder}, which can not be
+	 * configured.
+	 *
+	 * @param webClient
+	 *            the web client.
+	 */
+	void setWebClient(WebClient webClient) {
+		this.webClient = webClient;
+	}
+
+	private ReactiveJwtDecoder getDecoder(String jku, String kid) {
+		if (webClient != null) {
+			return new WebClientJwkDecoder(jku, kid);
+		}
 		NimbusReactiveJwtDecoder decoder = new NimbusReactiveJwtDecoder(jku);
 		decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(tokenValidators));
 		return decoder;
 	}
 
+	/**
+	 * Creates a decoder for the keys of the given JWK set. The
+	 * {@link NimbusReactiveJwtDecoder} of a single public key can not be used, as
+	 * it rejects tokens with a key id.
+	 */
+	private ReactiveJwtDecoder createDecoder(String jwkSetJson, String kid) {
+		JWKSet jwkSet;
+		try {
+			jwkSet = JWKSet.parse(jwkSetJson);
+		} catch (ParseException e) {
+			throw new JwtException("Error parsing JWK set: " + e.getMessage(), e);
+		}
+		if (kid != null && jwkSet.getKeyByKeyId(kid) == null) {
+			throw new JwtException("JWK set contains no key with key id " + kid);
+		}
+		DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+		jwtProcessor.setJWSKeySelector(
+				new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(jwkSet)));
+		jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+			// the claims are validated by the token validators
+		});
+		OAuth2TokenValidator<Jwt> jwtValidator = new DelegatingOAuth2TokenValidator<>(tokenValidators);
+		return token -> Mono.fromCallable(() -> decode(jwtProcessor, jwtValidator, token));
+	}
+
+	private static Jwt decode(JWTProcessor<SecurityContext> jwtProcessor, OAuth2TokenValidator<Jwt> jwtValidator,
+			String token) {
+		Jwt jwt;
+		try {
+			JWT parsedJwt = JWTParser.parse(token);
+			Map<String, Object> claims = CLAIM_SET_CONVERTER.convert(jwtProcessor.process(parsedJwt, null).getClaims());
+			jwt = new Jwt(token, (Instant) claims.get(JwtClaimNames.IAT), (Instant) claims.get(JwtClaimNames.EXP),
+					parsedJwt.getHeader().toJSONObject(), claims);
+		} catch (ParseException | BadJOSEException | JOSEException e) {
+			throw new JwtException("An error occurred while attempting to decode the Jwt: " + e.getMessage(), e);
+		}
+		OAuth2TokenValidatorResult result = jwtValidator.validate(jwt);
+		if (result.hasErrors()) {
+			String description = result.getErrors().iterator().next().getDescription();
+			throw new JwtValidationException("An error occurred while attempting to decode the Jwt: " + description,
+					result.getErrors());
+		}
+		return jwt;
+	}
+
+	/**
+	 * Fetches the JWK set of a key id once with the {@link WebClient} and
+	 * validates the tokens with it. A failed fetch is not cached, so that the next token
+	 * fetches the key again.
+	 */
+	private class WebClientJwkDecoder implements ReactiveJwtDecoder {
+		private final Mono<ReactiveJwtDecoder> decoder;
+
+		WebClientJwkDecoder(String jku, String kid) {
+			this.decoder = webClient.get().uri(jku).retrieve().bodyToMono(String.class)
+					.map(jwkSet -> createDecoder(jwkSet, kid))
+					.onErrorMap(e -> !(e instanceof JwtException),
+							e -> new JwtException("Error retrieving JWK set from " + jku + ": " + e.getMessage(), e))
+					.cache(validDecoder -> cacheValidity, error -> Duration.ZERO, () -> Duration.ZERO);
+		}
+
+		@Override
+		public Mono<Jwt> decode(String token) throws JwtException {
+			return decoder.flatMap(validDecoder -> validDecoder.decode(token));
+		}
+	}
+
 }
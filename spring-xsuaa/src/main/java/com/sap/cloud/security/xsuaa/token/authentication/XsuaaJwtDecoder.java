@@ -7,29 +7,56 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.security.oauth2.jwt.JwtValidationException;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoderJwkSupport;
 import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import org.springframework.web.client.RestOperations;
 
 public class XsuaaJwtDecoder implements JwtDecoder {
+
+	/**
+	 * Name of the request attribute that holds a {@link Jwt}, which was obtained
+	 * by the application itself from UAA, e.g. by the
+	 * {@link com.sap.cloud.security.xsuaa.extractor.TokenBrokerResolver}. The
+	 * signature of such a token is not verified again, only its claims are
+	 * validated.
+	 */
+	public static final String TRUSTED_JWT_ATTRIBUTE = XsuaaJwtDecoder.class.getName() + ".TRUSTED_JWT";
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
-	Cache<String, JwtDecoder> cache;
+	Cache<String, CachedDecoder> cache;
+	Cache<String, Jwt> verifiedTokenCache;
+	private final Map<String, Long> keyFetchMillisByHost = new ConcurrentHashMap<>();
+	private final long cacheValidityNanos;
+	private long refreshAheadNanos;
+	private Executor refreshExecutor;
 	private OAuth2TokenValidator<Jwt> tokenValidators;
 	private Collection<PostValidationAction> postValidationActions;
 	private TokenInfoExtractor tokenInfoExtractor;
@@ -40,7 +67,9 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 
 		this.cache = Caffeine.newBuilder().expireAfterWrite(cacheValidityInSeconds, TimeUnit.SECONDS)
 				.maximumSize(cacheSize)
+				.recordStats()
 				.build();
+		this.cacheValidityNanos = TimeUnit.SECONDS.toNanos(cacheValidityInSeconds);
 		this.tokenValidators = tokenValidators;
 
 		this.tokenInfoExtractor = new TokenInfoExtractor() {
@@ -66,6 +95,21 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 	@Override
 	public Jwt decode(String token) throws JwtException {
 		Assert.notNull(token, "token is required");
+
+		Jwt trustedToken = getTrustedToken(token);
+		if (trustedToken != null) {
+			validateClaims(trustedToken);
+			postValidationActions.forEach(act -> act.perform(trustedToken));
+			return trustedToken;
+		}
+
+		Jwt cachedToken = verifiedTokenCache != null ? verifiedTokenCache.getIfPresent(token) : null;
+		if (cachedToken != null) {
+			validateClaims(cachedToken);
+			postValidationActions.forEach(act -> act.perform(cachedToken));
+			return cachedToken;
+		}
+
 		JWT jwt;
 
 		try {
@@ -82,6 +126,9 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 			canVerifyWithOnlineKey(jku, kid, uaaDomain);
 			validateJKU(jku, uaaDomain);
 			Jwt verifiedToken = verifyWithOnlineKey(token, jku, kid);
+			if (verifiedTokenCache != null) {
+				verifiedTokenCache.put(token, verifiedToken);
+			}
 
 			postValidationActions.forEach(act -> act.perform(verifiedToken));
 
@@ -93,6 +140,28 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 		}
 	}
 
+	private Jwt getTrustedToken(String token) {
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes == null) {
+			return null;
+		}
+		Object trustedToken = requestAttributes.getAttribute(TRUSTED_JWT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (trustedToken instanceof Jwt && token.equals(((Jwt) trustedToken).getTokenValue())) {
+			return (Jwt) trustedToken;
+		}
+		return null;
+	}
+
+	private void validateClaims(Jwt jwt) {
+		OAuth2TokenValidatorResult result = tokenValidators.validate(jwt);
+		if (result.hasErrors()) {
+			String description = result.getErrors().iterator().next().getDescription();
+			throw new JwtValidationException(
+					String.format("An error occurred while attempting to decode the Jwt: %s", description),
+					result.getErrors());
+		}
+	}
+
 	private void canVerifyWithOnlineKey(String jku, String kid, String uaadomain) {
 		if (jku != null && kid != null && uaadomain != null) {
 			return;
@@ -126,8 +195,62 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 
 	private Jwt verifyWithOnlineKey(String token, String jku, String kid) {
 		String cacheKey = jku + kid;
-		JwtDecoder decoder = cache.get(cacheKey, k -> this.getDecoder(jku));
-		return decoder.decode(token);
+		CachedDecoder cachedDecoder = cache.get(cacheKey, k -> new CachedDecoder(jku, kid, this.getDecoder(jku)));
+		Jwt verifiedToken;
+		if (cachedDecoder.keysFetched.get()) {
+			verifiedToken = cachedDecoder.decoder.decode(token);
+		} else {
+			verifiedToken = decodeAndRecordKeyFetch(cachedDecoder.decoder, token, jku);
+			cachedDecoder.keysFetched.set(true);
+		}
+		if (refreshAheadNanos > 0 && cachedDecoder.isDueForRefresh(cacheValidityNanos - refreshAheadNanos)
+				&& cachedDecoder.refreshing.compareAndSet(false, true)) {
+			scheduleRefresh(cacheKey, cachedDecoder, token, jku, kid);
+		}
+		return verifiedToken;
+	}
+
+	private void scheduleRefresh(String cacheKey, CachedDecoder cachedDecoder, String token, String jku, String kid) {
+		Executor executor = refreshExecutor != null ? refreshExecutor : RefreshExecutorHolder.EXECUTOR;
+		try {
+			executor.execute(() -> refreshDecoder(cacheKey, cachedDecoder, token, jku, kid));
+		} catch (RejectedExecutionException e) {
+			logger.debug("Skipped refresh of decoder of jku '{}': {}", jku, e.getMessage());
+			cachedDecoder.refreshing.set(false);
+		}
+	}
+
+	/**
+	 * Decodes the token with a new decoder, which fetches the token keys, and
+	 * records the duration per token key host.
+	 */
+	private Jwt decodeAndRecordKeyFetch(JwtDecoder decoder, String token, String jku) {
+		long startNanos = System.nanoTime();
+		try {
+			return decoder.decode(token);
+		} finally {
+			keyFetchMillisByHost.put(URI.create(jku).getHost(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		}
+	}
+
+	/**
+	 * Replaces a cached decoder, which is about to expire, with a new one. The
+	 * new decoder fetches the token keys by verifying the token, which was
+	 * just verified by the cached decoder, so that subsequent requests do not
+	 * need to wait for the token keys.
+	 */
+	private void refreshDecoder(String cacheKey, CachedDecoder cachedDecoder, String token, String jku, String kid) {
+		try {
+			JwtDecoder decoder = getDecoder(jku);
+			decodeAndRecordKeyFetch(decoder, token, jku);
+			CachedDecoder refreshedDecoder = new CachedDecoder(jku, kid, decoder);
+			refreshedDecoder.keysFetched.set(true);
+			cache.asMap().replace(cacheKey, cachedDecoder, refreshedDecoder);
+		} catch (JwtException e) {
+			logger.debug("Failed to refresh decoder of jku '{}': {}", jku, e.getMessage());
+			cachedDecoder.refreshing.set(false);
+		}
 	}
 
 	// TODO extract into separate class / bean
@@ -145,4 +268,133 @@ public class XsuaaJwtDecoder implements JwtDecoder {
 	public void setRestOperations(RestOperations restOperations) {
 		this.restOperations = restOperations;
 	}
+
+	/**
+	 * Replaces cached decoders in the background, when they expire within the
+	 * given time and are used.
+	 *
+	 * @param refreshAheadSeconds
+	 *            the seconds before expiration, or 0 to disable the refresh.
+	 */
+	void setDecoderCacheRefreshAhead(int refreshAheadSeconds) {
+		this.refreshAheadNanos = TimeUnit.SECONDS.toNanos(refreshAheadSeconds);
+	}
+
+	/**
+	 * Sets the executor, which replaces the cached decoders in the background. By
+	 * default a small pool of daemon threads with a bounded queue is shared by all
+	 * decoders; refreshes that are rejected are retried with the next token.
+	 *
+	 * @param refreshExecutor
+	 *            the executor, or null for the default executor.
+	 */
+	void setDecoderCacheRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Caches the verified tokens, so that the signature of a token is verified
+	 * only once within the cache validity of the decoders. The claims of a cached
+	 * token are validated on every decode.
+	 *
+	 * @param cacheSize
+	 *            the maximum number of cached tokens, or 0 to disable the cache.
+	 */
+	void setVerifiedTokenCacheSize(int cacheSize) {
+		this.verifiedTokenCache = cacheSize > 0 ? Caffeine.newBuilder()
+				.expireAfterWrite(cacheValidityNanos, TimeUnit.NANOSECONDS)
+				.maximumSize(cacheSize)
+				.recordStats()
+				.build() : null;
+	}
+
+	/**
+	 * Returns a snapshot of the cached decoders and verified tokens.
+	 *
+	 * @return the statistics.
+	 */
+	public XsuaaJwtDecoderStatistics getStatistics() {
+		long nowNanos = System.nanoTime();
+		List<XsuaaJwtDecoderStatistics.CachedKey> cachedKeys = new ArrayList<>();
+		for (CachedDecoder cachedDecoder : cache.asMap().values()) {
+			cachedKeys.add(new XsuaaJwtDecoderStatistics.CachedKey(cachedDecoder.jku, cachedDecoder.kid,
+					TimeUnit.NANOSECONDS.toSeconds(nowNanos - cachedDecoder.createdAtNanos),
+					cachedDecoder.refreshing.get()));
+		}
+		return new XsuaaJwtDecoderStatistics(getCacheStatistics(cache),
+				verifiedTokenCache != null ? getCacheStatistics(verifiedTokenCache) : null,
+				cachedKeys, new HashMap<>(keyFetchMillisByHost));
+	}
+
+	private static XsuaaJwtDecoderStatistics.CacheStatistics getCacheStatistics(Cache<?, ?> cache) {
+		CacheStats stats = cache.stats();
+		return new XsuaaJwtDecoderStatistics.CacheStatistics(cache.estimatedSize(), stats.hitCount(),
+				stats.missCount());
+	}
+
+	/**
+	 * Removes the cached decoders and verified tokens of a tenant, i.e. of the
+	 * token key URLs of its subdomain. The token keys of the tenant are fetched
+	 * again with its next token.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the tenant.
+	 */
+	public void evictTenant(String subdomain) {
+		Assert.hasText(subdomain, "'subdomain' is required");
+		cache.asMap().values().removeIf(cachedDecoder -> isOfSubdomain(cachedDecoder.jku, subdomain));
+		if (verifiedTokenCache != null) {
+			verifiedTokenCache.asMap().values()
+					.removeIf(jwt -> isOfSubdomain((String) jwt.getHeaders().get(CLAIM_JKU), subdomain));
+		}
+	}
+
+	private static boolean isOfSubdomain(String jku, String subdomain) {
+		if (jku == null) {
+			return false;
+		}
+		String host = URI.create(jku).getHost();
+		return host != null && host.startsWith(subdomain + ".");
+	}
+
+	private static class RefreshExecutorHolder {
+		private static final Executor EXECUTOR = createExecutor();
+
+		private static Executor createExecutor() {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<>(100), new RefreshThreadFactory());
+			executor.allowCoreThreadTimeOut(true);
+			return executor;
+		}
+	}
+
+	private static class RefreshThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "xsuaa-decoder-refresh-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	static class CachedDecoder {
+		final String jku;
+		final String kid;
+		final JwtDecoder decoder;
+		final long createdAtNanos = System.nanoTime();
+		final AtomicBoolean refreshing = new AtomicBoolean();
+		final AtomicBoolean keysFetched = new AtomicBoolean();
+
+		CachedDecoder(String jku, String kid, JwtDecoder decoder) {
+			this.jku = jku;
+			this.kid = kid;
+			this.decoder = decoder;
+		}
+
+		boolean isDueForRefresh(long refreshAfterNanos) {
+			return System.nanoTime() - createdAtNanos >= refreshAfterNanos;
+		}
+	}
 }
@@ -3,6 +3,7 @@ package com.sap.cloud.security.xsuaa.token.authentication;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.core.OAuth2TokenValidator;
@@ -13,16 +14,21 @@ import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.reactive.function.client.WebClient;
 
 public class XsuaaJwtDecoderBuilder {
 
 	private XsuaaServiceConfiguration configuration;
 	int decoderCacheValidity; // in seconds
 	int decoderCacheSize;
+	int decoderCacheRefreshAhead; // in seconds
+	private Executor decoderCacheRefreshExecutor;
+	int verifiedTokenCacheSize;
 	OAuth2TokenValidator<Jwt> xsuaaTokenValidators;
 	OAuth2TokenValidator<Jwt> defaultTokenValidators;
 	Collection<PostValidationAction> postValidationActions;
 	private RestOperations restOperations;
+	private WebClient webClient;
 
 	/**
 	 * Utility for building a JWT decoder configuration
@@ -42,14 +48,24 @@ public class XsuaaJwtDecoderBuilder {
 	 * Assembles a JwtDecoder
 	 *
 	 * @return JwtDecoder
+	 * @throws IllegalArgumentException
+	 *             in case the refresh ahead time is not less than the cache time
 	 */
 	public JwtDecoder build() {
+		if (decoderCacheRefreshAhead > 0 && decoderCacheRefreshAhead >= decoderCacheValidity) {
+			throw new IllegalArgumentException(String.format("decoder cache refresh ahead time (%d seconds) "
+					+ "must be less than the decoder cache time (%d seconds)", decoderCacheRefreshAhead,
+					decoderCacheValidity));
+		}
 		DelegatingOAuth2TokenValidator<Jwt> combinedTokenValidators = new DelegatingOAuth2TokenValidator<>(
 				defaultTokenValidators,
 				xsuaaTokenValidators);
 		XsuaaJwtDecoder jwtDecoder = new XsuaaJwtDecoder(configuration, decoderCacheValidity, decoderCacheSize,
 				combinedTokenValidators, postValidationActions);
 		Optional.ofNullable(restOperations).ifPresent(jwtDecoder::setRestOperations);
+		jwtDecoder.setDecoderCacheRefreshAhead(decoderCacheRefreshAhead);
+		jwtDecoder.setDecoderCacheRefreshExecutor(decoderCacheRefreshExecutor);
+		jwtDecoder.setVerifiedTokenCacheSize(verifiedTokenCacheSize);
 		return jwtDecoder;
 	}
 
@@ -62,8 +78,12 @@ public class XsuaaJwtDecoderBuilder {
 		DelegatingOAuth2TokenValidator<Jwt> combinedTokenValidators = new DelegatingOAuth2TokenValidator<>(
 				defaultTokenValidators,
 				xsuaaTokenValidators);
-		return new ReactiveXsuaaJwtDecoder(configuration, decoderCacheValidity, decoderCacheSize,
-				combinedTokenValidators, postValidationActions);
+		ReactiveXsuaaJwtDecoder decoder = new ReactiveXsuaaJwtDecoder(configuration, decoderCacheValidity,
+				decoderCacheSize, combinedTokenValidators, postValidationActions);
+		if (webClient != null) {
+			decoder.setWebClient(webClient);
+		}
+		return decoder;
 	}
 
 	/**
@@ -92,6 +112,51 @@ public class XsuaaJwtDecoderBuilder {
 		return this;
 	}
 
+	/**
+	 * Replaces cached decoders in the background, when they are used within the
+	 * given time before they expire, so that requests do not wait for the token
+	 * keys to be fetched again (default: 0, disabled). This does not effect the
+	 * {@link ReactiveJwtDecoder}.
+	 *
+	 * @param timeInSeconds
+	 *            time before expiration of the cached decoders, which must be
+	 *            less than the cache time
+	 * @return this
+	 */
+	public XsuaaJwtDecoderBuilder withDecoderCacheRefreshAhead(int timeInSeconds) {
+		this.decoderCacheRefreshAhead = timeInSeconds;
+		return this;
+	}
+
+	/**
+	 * Sets the executor that replaces the cached decoders in the background, see
+	 * {@link #withDecoderCacheRefreshAhead(int)}. By default the decoders share a
+	 * pool of two daemon threads with a bounded queue.
+	 *
+	 * @param executor
+	 *            the executor of the decoder refreshes
+	 * @return this
+	 */
+	public XsuaaJwtDecoderBuilder withDecoderCacheRefreshExecutor(Executor executor) {
+		this.decoderCacheRefreshExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Caches up to the given number of verified tokens, so that the signature of
+	 * a token, which is sent with several requests, is verified only once. Its
+	 * claims are validated with every request (default: 0, disabled). This does
+	 * not effect the {@link ReactiveJwtDecoder}.
+	 *
+	 * @param size
+	 *            number of cached tokens
+	 * @return this
+	 */
+	public XsuaaJwtDecoderBuilder withVerifiedTokenCacheSize(int size) {
+		this.verifiedTokenCacheSize = size;
+		return this;
+	}
+
 	/**
 	 * Sets the PostValidationActions that are executed after successful
 	 * verification and validation of the token.
@@ -135,6 +200,21 @@ public class XsuaaJwtDecoderBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets the {@link WebClient} instance which is used by the
+	 * {@link ReactiveJwtDecoder} that is constructed with
+	 * {@link #buildAsReactive()} to fetch the token keys, e.g. with timeouts and
+	 * a connection pool. This does not effect the JwtDecoder.
+	 *
+	 * @param webClient
+	 *            the {@link WebClient} instance.
+	 * @return the builder itself.
+	 */
+	public XsuaaJwtDecoderBuilder withWebClient(WebClient webClient) {
+		this.webClient = webClient;
+		return this;
+	}
+
 	XsuaaJwtDecoderBuilder withDefaultValidators(OAuth2TokenValidator<Jwt>... defaultTokenValidators) {
 		this.defaultTokenValidators = new DelegatingOAuth2TokenValidator<>(defaultTokenValidators);
 		return this;
@@ -0,0 +1,149 @@
+package com.sap.cloud.security.xsuaa.token.authentication;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A snapshot of the caches of a {@link XsuaaJwtDecoder}, as returned by
+ * {@link XsuaaJwtDecoder#getStatistics()}.
+ */
+public final class XsuaaJwtDecoderStatistics {
+
+	private final CacheStatistics decoderCache;
+	private final CacheStatistics verifiedTokenCache;
+	private final List<CachedKey> cachedKeys;
+	private final Map<String, Long> lastKeyFetchMillis;
+
+	XsuaaJwtDecoderStatistics(CacheStatistics decoderCache, @Nullable CacheStatistics verifiedTokenCache,
+			List<CachedKey> cachedKeys, Map<String, Long> lastKeyFetchMillis) {
+		this.decoderCache = decoderCache;
+		this.verifiedTokenCache = verifiedTokenCache;
+		this.cachedKeys = Collections.unmodifiableList(cachedKeys);
+		this.lastKeyFetchMillis = Collections.unmodifiableMap(lastKeyFetchMillis);
+	}
+
+	/**
+	 * Returns the statistics of the cache of the decoders per token key URL and
+	 * key id.
+	 *
+	 * @return the cache statistics.
+	 */
+	public CacheStatistics getDecoderCache() {
+		return decoderCache;
+	}
+
+	/**
+	 * Returns the statistics of the cache of the verified tokens.
+	 *
+	 * @return the cache statistics, or null if the verified tokens are not
+	 *         cached.
+	 */
+	@Nullable
+	public CacheStatistics getVerifiedTokenCache() {
+		return verifiedTokenCache;
+	}
+
+	/**
+	 * Returns the token key URLs and key ids of the cached decoders.
+	 *
+	 * @return the cached keys.
+	 */
+	public List<CachedKey> getCachedKeys() {
+		return cachedKeys;
+	}
+
+	/**
+	 * Returns the number of cached decoders, which are refreshed in the
+	 * background.
+	 *
+	 * @return the number of outstanding refreshes.
+	 */
+	public long getOutstandingRefreshes() {
+		return cachedKeys.stream().filter(CachedKey::isRefreshing).count();
+	}
+
+	/**
+	 * Returns the duration of the last verification per token key host, which
+	 * fetched the token keys.
+	 *
+	 * @return the milliseconds per host.
+	 */
+	public Map<String, Long> getLastKeyFetchMillis() {
+		return lastKeyFetchMillis;
+	}
+
+	/**
+	 * The size and hit statistics of a cache.
+	 */
+	public static final class CacheStatistics {
+
+		private final long size;
+		private final long hitCount;
+		private final long missCount;
+
+		CacheStatistics(long size, long hitCount, long missCount) {
+			this.size = size;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * Returns the ratio of the lookups, which were served from the cache.
+		 *
+		 * @return the hit ratio, or 1.0 if there were no lookups.
+		 */
+		public double getHitRatio() {
+			long requestCount = hitCount + missCount;
+			return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+		}
+	}
+
+	/**
+	 * A cached decoder of a token key URL and key id.
+	 */
+	public static final class CachedKey {
+
+		private final String jku;
+		private final String kid;
+		private final long ageSeconds;
+		private final boolean refreshing;
+
+		CachedKey(String jku, String kid, long ageSeconds, boolean refreshing) {
+			this.jku = jku;
+			this.kid = kid;
+			this.ageSeconds = ageSeconds;
+			this.refreshing = refreshing;
+		}
+
+		public String getJku() {
+			return jku;
+		}
+
+		public String getKid() {
+			return kid;
+		}
+
+		public long getAgeSeconds() {
+			return ageSeconds;
+		}
+
+		public boolean isRefreshing() {
+			return refreshing;
+		}
+	}
+}
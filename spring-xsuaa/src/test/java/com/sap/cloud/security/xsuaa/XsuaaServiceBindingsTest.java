@@ -0,0 +1,99 @@
+package com.sap.cloud.security.xsuaa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class XsuaaServiceBindingsTest {
+
+	private static final String MULTIPLE_BINDINGS = "{"
+			+ "\"xsuaa\":["
+			+ "{\"name\":\"xsuaa-broker\",\"label\":\"xsuaa\",\"plan\":\"broker\",\"tags\":[\"xsuaa\"],"
+			+ "\"credentials\":{\"clientid\":\"sb-broker\",\"xsappname\":\"broker!b4\"}},"
+			+ "{\"name\":\"xsuaa-app\",\"label\":\"xsuaa\",\"plan\":\"application\",\"tags\":[\"xsuaa\"],"
+			+ "\"credentials\":{\"clientid\":\"sb-app\",\"xsappname\":\"app!t4\"}}],"
+			+ "\"destination\":["
+			+ "{\"name\":\"destination\",\"label\":\"destination\",\"plan\":\"lite\",\"tags\":[\"destination\",\"conn\"],"
+			+ "\"credentials\":{\"clientid\":\"sb-destination\"}}]"
+			+ "}";
+
+	@Test
+	public void parse_indexesBindingsByTagLabelAndPlan() throws IOException {
+		XsuaaServiceBindings cut = XsuaaServiceBindings.parse(MULTIPLE_BINDINGS);
+
+		assertThat(cut.getBindings()).hasSize(3);
+		assertThat(cut.getXsuaaBindings()).extracting(XsuaaServiceBindings.Binding::getName)
+				.containsExactly("xsuaa-broker", "xsuaa-app");
+		assertThat(cut.getBindingsByLabel("destination")).extracting(XsuaaServiceBindings.Binding::getName)
+				.containsExactly("destination");
+		assertThat(cut.getBindingsByTag("conn")).isEqualTo(cut.getBindingsByLabel("destination"));
+		assertThat(cut.getBindingsByPlan("broker")).extracting(XsuaaServiceBindings.Binding::getName)
+				.containsExactly("xsuaa-broker");
+		assertThat(cut.getBindingsByPlan("unknown")).isEmpty();
+	}
+
+	@Test
+	public void getXsuaaBinding_prefersApplicationPlan() throws IOException {
+		XsuaaServiceBindings.Binding binding = XsuaaServiceBindings.parse(MULTIPLE_BINDINGS).getXsuaaBinding();
+
+		assertThat(binding.getPlan()).isEqualTo("application");
+		assertThat(binding.getCredentials()).containsEntry("clientid", "sb-app");
+	}
+
+	@Test
+	public void parse_returnsCachedBindingsOfSameDocument() throws IOException {
+		XsuaaServiceBindings cut = XsuaaServiceBindings.parse(MULTIPLE_BINDINGS);
+
+		assertThat(XsuaaServiceBindings.parse(new String(MULTIPLE_BINDINGS))).isSameAs(cut);
+		assertThat(new XsuaaServicesParser(MULTIPLE_BINDINGS).parseServiceBindings()).isSameAs(cut);
+	}
+
+	@Test
+	public void parse_returnsEmptyBindings() throws IOException {
+		assertThat(XsuaaServiceBindings.parse(null).getBindings()).isEmpty();
+		assertThat(XsuaaServiceBindings.parse("").getXsuaaBinding()).isNull();
+		assertThat(XsuaaServiceBindings.parse("{}").getXsuaaBindings()).isEmpty();
+	}
+
+	@Test
+	public void parse_throwsOnInvalidJson() {
+		assertThatThrownBy(() -> XsuaaServiceBindings.parse("[\"xsuaa\"]")).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> XsuaaServiceBindings.parse("{\"xsuaa\":[{")).isInstanceOf(IOException.class);
+	}
+
+	@Test
+	public void credentials_areImmutable() throws IOException {
+		XsuaaServiceBindings.Binding binding = XsuaaServiceBindings.parse(MULTIPLE_BINDINGS).getXsuaaBinding();
+
+		assertThatThrownBy(() -> binding.getCredentials().put("clientid", "other"))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> binding.getTags().clear()).isInstanceOf(UnsupportedOperationException.class);
+
+		Properties properties = binding.getCredentialsAsProperties();
+		properties.put("clientid", "other");
+		assertThat(binding.getCredentials()).containsEntry("clientid", "sb-app");
+	}
+
+	@Test
+	public void xsuaaServicesParser_supportsMultipleBindings() throws IOException {
+		Properties properties = new XsuaaServicesParser(MULTIPLE_BINDINGS).parseCredentials();
+
+		assertThat(properties.getProperty("clientid")).isEqualTo("sb-app");
+		assertThat(properties.getProperty("xsappname")).isEqualTo("app!t4");
+	}
+
+	@Test
+	public void xsuaaServicesParser_parsesVcapJson() throws IOException {
+		try (InputStream vcapJson = XsuaaServiceBindingsTest.class.getResourceAsStream("/vcap.json")) {
+			Properties properties = new XsuaaServicesParser(vcapJson).parseCredentials();
+
+			assertThat(properties.getProperty("clientid")).isEqualTo("xs2.usertoken");
+			assertThat(properties.getProperty("uaadomain")).isEqualTo("auth.com");
+		}
+	}
+}
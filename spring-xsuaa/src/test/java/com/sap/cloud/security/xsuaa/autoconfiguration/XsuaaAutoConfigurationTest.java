@@ -1,12 +1,19 @@
 package com.sap.cloud.security.xsuaa.autoconfiguration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.Configurable;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +24,7 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestOperations;
@@ -53,6 +61,38 @@ public class XsuaaAutoConfigurationTest {
 		assertThat(context.getBean(RestOperations.class)).isNotNull();
 	}
 
+	@Test
+	public void configures_xsuaaRestTemplate_withPooledHttpClient() {
+		contextRunner.withPropertyValues("spring.xsuaa.http.connect-timeout-millis:1000",
+				"spring.xsuaa.http.socket-timeout-millis:2000",
+				"spring.xsuaa.http.max-idle-time-millis:10000").run((context) -> {
+					RestTemplate restTemplate = context.getBean("xsuaaRestOperations", RestTemplate.class);
+					assertThat(restTemplate.getRequestFactory())
+							.isInstanceOf(HttpComponentsClientHttpRequestFactory.class);
+
+					HttpClient httpClient = ((HttpComponentsClientHttpRequestFactory) restTemplate
+							.getRequestFactory()).getHttpClient();
+					RequestConfig requestConfig = ((Configurable) httpClient).getConfig();
+					assertThat(requestConfig.getConnectTimeout()).isEqualTo(1000);
+					assertThat(requestConfig.getSocketTimeout()).isEqualTo(2000);
+				});
+	}
+
+	@Test
+	public void closes_pooledHttpClient_withContext() {
+		AtomicReference<HttpClient> httpClient = new AtomicReference<>();
+		contextRunner.run((context) -> {
+			HttpComponentsClientHttpRequestFactory requestFactory = context.getBean("xsuaaClientHttpRequestFactory",
+					HttpComponentsClientHttpRequestFactory.class);
+			assertThat(context.getBean("xsuaaRestOperations", RestTemplate.class).getRequestFactory())
+					.isSameAs(requestFactory);
+			httpClient.set(requestFactory.getHttpClient());
+		});
+
+		assertThatThrownBy(() -> httpClient.get().execute(new HttpGet("http://localhost:1")))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
 	@Test
 	public void configures_xsuaaServiceConfiguration_withProperties() {
 		contextRunner
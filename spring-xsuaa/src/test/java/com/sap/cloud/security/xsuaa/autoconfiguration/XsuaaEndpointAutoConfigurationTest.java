@@ -0,0 +1,75 @@
+package com.sap.cloud.security.xsuaa.autoconfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import com.sap.cloud.security.xsuaa.actuate.XsuaaEndpoint;
+import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoderStatistics;
+
+public class XsuaaEndpointAutoConfigurationTest {
+
+	private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(XsuaaAutoConfiguration.class,
+					XsuaaResourceServerJwkAutoConfiguration.class, XsuaaTokenFlowAutoConfiguration.class,
+					XsuaaEndpointAutoConfiguration.class));
+
+	@Test
+	public void configures_xsuaaEndpoint_withCaches() {
+		contextRunner.withPropertyValues("spring.xsuaa.flows.cache.enabled:true").run((context) -> {
+			assertThat(context).hasSingleBean(XsuaaEndpoint.class);
+
+			XsuaaEndpoint endpoint = context.getBean(XsuaaEndpoint.class);
+			Map<String, Object> caches = endpoint.caches();
+			assertThat(caches).containsOnlyKeys("jwtDecoder", "tokenCache");
+			XsuaaJwtDecoderStatistics decoderStatistics = (XsuaaJwtDecoderStatistics) caches.get("jwtDecoder");
+			assertThat(decoderStatistics.getCachedKeys()).isEmpty();
+			assertThat(decoderStatistics.getVerifiedTokenCache()).isNull();
+			assertThat(decoderStatistics.getDecoderCache().getHitRatio()).isEqualTo(1.0);
+
+			endpoint.evictTenant("subdomain");
+		});
+	}
+
+	@Test
+	public void xsuaaEndpoint_withoutCachingTokenService() {
+		contextRunner.withPropertyValues("spring.xsuaa.decoder.verified-tokens.enabled:true").run((context) -> {
+					Map<String, Object> caches = context.getBean(XsuaaEndpoint.class).caches();
+
+					assertThat(caches).containsOnlyKeys("jwtDecoder");
+					assertThat(((XsuaaJwtDecoderStatistics) caches.get("jwtDecoder")).getVerifiedTokenCache())
+							.isNotNull();
+				});
+	}
+
+	@Test
+	public void prewarm_reportsFailurePerSubdomain() {
+		contextRunner.withPropertyValues("spring.xsuaa.flows.auto:false").run((context) -> {
+			Map<String, String> results = context.getBean(XsuaaEndpoint.class)
+					.prewarm(Collections.singletonList("subdomain"));
+
+			assertThat(results).containsEntry("subdomain", "no XsuaaTokenFlows available");
+		});
+	}
+
+	@Test
+	public void autoConfigurationDisabledByProperty() {
+		contextRunner.withPropertyValues("management.endpoint.xsuaa.enabled:false").run((context) -> {
+			assertThat(context).doesNotHaveBean(XsuaaEndpoint.class);
+		});
+	}
+
+	@Test
+	public void autoConfigurationWithoutActuatorOnClasspath() {
+		contextRunner.withClassLoader(new FilteredClassLoader(Endpoint.class)).run((context) -> {
+			assertThat(context).doesNotHaveBean(XsuaaEndpoint.class);
+		});
+	}
+}
@@ -18,11 +18,19 @@ import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoderJwkSupport;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
 
+import com.sap.cloud.security.xsuaa.token.authentication.ReactiveXsuaaJwtDecoder;
 import com.sap.cloud.security.xsuaa.token.authentication.XsuaaJwtDecoder;
 
 @RunWith(SpringRunner.class)
@@ -64,6 +72,73 @@ public class XsuaaResourceServerJwkAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void autoConfigurationBindsDecoderProperties() {
+		contextRunner
+				.withPropertyValues("spring.xsuaa.decoder.cache.size:10",
+						"spring.xsuaa.decoder.cache.validity-seconds:60",
+						"spring.xsuaa.decoder.cache.refresh-ahead-seconds:10",
+						"spring.xsuaa.decoder.verified-tokens.enabled:true",
+						"spring.xsuaa.decoder.connect-timeout-millis:1000")
+				.run((context) -> {
+					XsuaaDecoderProperties decoderProperties = context.getBean(XsuaaDecoderProperties.class);
+					assertThat(decoderProperties.getCache().getSize(), is(10));
+					assertThat(decoderProperties.getCache().getValiditySeconds(), is(60));
+					assertThat(decoderProperties.getCache().getRefreshAheadSeconds(), is(10));
+					assertThat(decoderProperties.getVerifiedTokens().isEnabled(), is(true));
+					assertThat(decoderProperties.getVerifiedTokens().getSize(), is(1000));
+					assertThat(decoderProperties.getConnectTimeoutMillis(), is(1000));
+					assertThat(decoderProperties.getReadTimeoutMillis(), is(nullValue()));
+					assertThat(context.getBean(JwtDecoder.class), instanceOf(XsuaaJwtDecoder.class));
+				});
+	}
+
+	@Test
+	public void autoConfigurationFailsWhenRefreshAheadIsNotLessThanCacheValidity() {
+		contextRunner
+				.withPropertyValues("spring.xsuaa.decoder.cache.validity-seconds:60",
+						"spring.xsuaa.decoder.cache.refresh-ahead-seconds:60")
+				.run((context) -> {
+					assertThat(context.getStartupFailure(), is(not(nullValue())));
+					assertThat(NestedExceptionUtils.getMostSpecificCause(context.getStartupFailure()),
+							instanceOf(IllegalArgumentException.class));
+				});
+	}
+
+	@Test
+	public void createRestOperations_withoutDecoderTimeouts_returnsRestOperations() {
+		RestOperations restOperations = new RestTemplate();
+
+		assertThat(XsuaaResourceServerJwkAutoConfiguration.createRestOperations(new XsuaaDecoderProperties(),
+				new XsuaaHttpProperties(), restOperations, new HttpComponentsClientHttpRequestFactory()),
+				is(restOperations));
+	}
+
+	@Test
+	public void createRestOperations_withDecoderTimeouts_usesPooledHttpClient() {
+		HttpComponentsClientHttpRequestFactory pooledRequestFactory = new HttpComponentsClientHttpRequestFactory();
+		XsuaaDecoderProperties decoderProperties = new XsuaaDecoderProperties();
+		decoderProperties.setReadTimeoutMillis(1000);
+
+		RestTemplate restTemplate = (RestTemplate) XsuaaResourceServerJwkAutoConfiguration.createRestOperations(
+				decoderProperties, new XsuaaHttpProperties(), new RestTemplate(), pooledRequestFactory);
+
+		assertThat(restTemplate.getRequestFactory(), instanceOf(HttpComponentsClientHttpRequestFactory.class));
+		assertThat(((HttpComponentsClientHttpRequestFactory) restTemplate.getRequestFactory()).getHttpClient(),
+				is(pooledRequestFactory.getHttpClient()));
+	}
+
+	@Test
+	public void createRestOperations_withDecoderTimeoutsAndWithoutPooledHttpClient() {
+		XsuaaDecoderProperties decoderProperties = new XsuaaDecoderProperties();
+		decoderProperties.setConnectTimeoutMillis(1000);
+
+		RestTemplate restTemplate = (RestTemplate) XsuaaResourceServerJwkAutoConfiguration.createRestOperations(
+				decoderProperties, new XsuaaHttpProperties(), new RestTemplate(), null);
+
+		assertThat(restTemplate.getRequestFactory(), instanceOf(SimpleClientHttpRequestFactory.class));
+	}
+
 	@Test
 	public void autoConfigurationDisabledByProperty() {
 		contextRunner.withPropertyValues("spring.xsuaa.auto:false").run((context) -> {
@@ -103,6 +178,64 @@ public class XsuaaResourceServerJwkAutoConfigurationTest {
 		});
 	}
 
+	@Test
+	public void reactiveAutoConfigurationActiveWhenSpringReactorIsActive() {
+		ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+				.withConfiguration(
+						AutoConfigurations.of(XsuaaResourceServerJwkAutoConfiguration.class,
+								XsuaaAutoConfiguration.class));
+
+		contextRunner.withPropertyValues("spring.xsuaa.decoder.cache.size:10",
+				"spring.xsuaa.decoder.cache.validity-seconds:60").run((context) -> {
+					assertThat(context.containsBean("reactiveXsuaaJwtDecoder"), is(true));
+					assertThat(context.getBean(ReactiveJwtDecoder.class), instanceOf(ReactiveXsuaaJwtDecoder.class));
+					assertThat(context.containsBean("xsuaaJwkSetConnectionProvider"), is(true));
+				});
+	}
+
+	@Test
+	public void reactiveAutoConfigurationWithoutReactorNetty() {
+		ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+				.withConfiguration(
+						AutoConfigurations.of(XsuaaResourceServerJwkAutoConfiguration.class,
+								XsuaaAutoConfiguration.class));
+
+		contextRunner.withClassLoader(new FilteredClassLoader("reactor.netty")).run((context) -> {
+			assertThat(context.getBean(ReactiveJwtDecoder.class), instanceOf(ReactiveXsuaaJwtDecoder.class));
+			assertThat(context.containsBean("xsuaaJwkSetConnectionProvider"), is(false));
+		});
+	}
+
+	@Test
+	public void reactiveAutoConfigurationDisabledInServletApplication() {
+		contextRunner.run((context) -> {
+			assertThat(context.containsBean("reactiveXsuaaJwtDecoder"), is(false));
+		});
+	}
+
+	@Test
+	public void userConfigurationCanOverrideReactiveDecoder() {
+		ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+				.withConfiguration(
+						AutoConfigurations.of(XsuaaResourceServerJwkAutoConfiguration.class,
+								XsuaaAutoConfiguration.class));
+
+		contextRunner.withUserConfiguration(ReactiveUserConfiguration.class).run((context) -> {
+			assertThat(context.containsBean("reactiveXsuaaJwtDecoder"), is(false));
+			assertThat(context.getBean(ReactiveJwtDecoder.class), instanceOf(NimbusReactiveJwtDecoder.class));
+			assertThat(context.containsBean("xsuaaJwkSetConnectionProvider"), is(false));
+		});
+	}
+
+	@Configuration
+	public static class ReactiveUserConfiguration {
+
+		@Bean
+		public ReactiveJwtDecoder customReactiveJwtDecoder() {
+			return new NimbusReactiveJwtDecoder("http://localhost:8080/uaa/oauth/token_keys");
+		}
+	}
+
 	@Configuration
 	public static class UserConfiguration {
 
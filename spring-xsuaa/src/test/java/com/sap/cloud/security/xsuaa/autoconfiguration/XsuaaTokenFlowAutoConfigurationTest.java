@@ -14,14 +14,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.reactive.function.client.WebClient;
 
 import com.sap.cloud.security.xsuaa.DummyXsuaaServiceConfiguration;
 import com.sap.cloud.security.xsuaa.XsuaaServiceConfiguration;
+import com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ResilientOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
 import com.sap.cloud.security.xsuaa.client.XsuaaDefaultEndpoints;
 import com.sap.cloud.security.xsuaa.client.XsuaaOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.tokenflows.ReactiveXsuaaTokenFlows;
 import com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlows;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = { XsuaaAutoConfiguration.class, XsuaaTokenFlowAutoConfiguration.class,
 		DummyXsuaaServiceConfiguration.class })
@@ -44,6 +51,53 @@ public class XsuaaTokenFlowAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void configures_xsuaaTokenFlows_withCacheProperties() {
+		contextRunner
+				.withPropertyValues("spring.xsuaa.flows.cache.enabled:true",
+						"spring.xsuaa.flows.cache.expiry-skew-seconds:60", "spring.xsuaa.flows.cache.size:10")
+				.run((context) -> {
+					assertThat(context.getBean(XsuaaTokenFlows.class).getOAuth2TokenService())
+							.isInstanceOf(CachingOAuth2TokenService.class);
+				});
+	}
+
+	@Test
+	public void configures_xsuaaTokenFlows_withoutCacheByDefault() {
+		contextRunner.run((context) -> {
+			assertThat(context.getBean(XsuaaTokenFlows.class).getOAuth2TokenService())
+					.isNotInstanceOf(CachingOAuth2TokenService.class);
+		});
+	}
+
+	@Test
+	public void configures_xsuaaTokenFlows_withoutResilienceByDefault() {
+		contextRunner.run((context) -> {
+			assertThat(context.getBean(XsuaaTokenFlows.class).getOAuth2TokenService())
+					.isNotInstanceOf(ResilientOAuth2TokenService.class);
+		});
+	}
+
+	@Test
+	public void configures_xsuaaTokenFlows_withResilienceProperties() {
+		contextRunner
+				.withPropertyValues("spring.xsuaa.flows.resilience.enabled:true",
+						"spring.xsuaa.flows.resilience.max-attempts:5",
+						"spring.xsuaa.flows.resilience.circuit-breaker.open-duration-millis:1000",
+						"spring.xsuaa.flows.resilience.bulkhead.max-concurrent-requests:2")
+				.run((context) -> {
+					assertThat(context.getBean(XsuaaTokenFlows.class).getOAuth2TokenService())
+							.isInstanceOf(ResilientOAuth2TokenService.class);
+				});
+		contextRunner
+				.withPropertyValues("spring.xsuaa.flows.resilience.enabled:true",
+						"spring.xsuaa.flows.resilience.max-attempts:0")
+				.run((context) -> {
+					assertThat(context).hasFailed();
+					assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalArgumentException.class);
+				});
+	}
+
 	@Test
 	public void autoConfigurationDisabledByProperty() {
 		contextRunner.withPropertyValues("spring.xsuaa.flows.auto:false").run((context) -> {
@@ -77,6 +131,29 @@ public class XsuaaTokenFlowAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void configures_reactiveXsuaaTokenFlows() {
+		contextRunner.run((context) -> {
+			assertThat(context).hasSingleBean(ReactiveXsuaaTokenFlows.class);
+		});
+	}
+
+	@Test
+	public void reactiveXsuaaTokenFlowsSkipped_without_WebClient() {
+		contextRunner.withClassLoader(new FilteredClassLoader(WebClient.class))
+				.run((context) -> {
+					assertThat(context).hasSingleBean(XsuaaTokenFlows.class);
+					assertThat(context).doesNotHaveBean(ReactiveXsuaaTokenFlows.class);
+				});
+	}
+
+	@Test
+	public void reactiveXsuaaTokenFlowsDisabledByProperty() {
+		contextRunner.withPropertyValues("spring.xsuaa.flows.auto:false").run((context) -> {
+			assertThat(context).doesNotHaveBean(ReactiveXsuaaTokenFlows.class);
+		});
+	}
+
 	@Test
 	public void userConfigurationCanOverrideDefaultBeans() {
 		contextRunner.withUserConfiguration(XsuaaTokenFlowAutoConfigurationTest.UserConfiguration.class)
@@ -87,6 +164,47 @@ public class XsuaaTokenFlowAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	public void configures_xsuaaTokenFlows_withMetrics() {
+		contextRunner.withUserConfiguration(MeterRegistryConfiguration.class)
+				.withPropertyValues("spring.xsuaa.flows.cache.enabled:true",
+						"spring.xsuaa.flows.resilience.enabled:true")
+				.run((context) -> {
+					MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+					assertThat(context.getBean(XsuaaTokenFlows.class).getOAuth2TokenService())
+							.isInstanceOf(CachingOAuth2TokenService.class);
+					assertThat(meterRegistry.find("xsuaa.token.requests.active").gauge()).isNotNull();
+					assertThat(meterRegistry.find("xsuaa.token.retries").functionCounter()).isNotNull();
+					assertThat(meterRegistry.find("xsuaa.token.cache.hits").tag("cache", "token").functionCounter())
+							.isNotNull();
+				});
+	}
+
+	@Test
+	public void metricsDisabledByProperty() {
+		contextRunner.withUserConfiguration(MeterRegistryConfiguration.class)
+				.withPropertyValues("spring.xsuaa.flows.metrics.enabled:false").run((context) -> {
+					assertThat(context).hasSingleBean(XsuaaTokenFlows.class);
+					assertThat(context.getBean(MeterRegistry.class).getMeters()).isEmpty();
+				});
+	}
+
+	@Test
+	public void metricsSkipped_without_Micrometer() {
+		contextRunner.withClassLoader(new FilteredClassLoader(MeterRegistry.class)).run((context) -> {
+			assertThat(context).hasSingleBean(XsuaaTokenFlows.class);
+		});
+	}
+
+	@Configuration
+	public static class MeterRegistryConfiguration {
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
 	@Configuration
 	public static class UserConfiguration {
 		@Bean
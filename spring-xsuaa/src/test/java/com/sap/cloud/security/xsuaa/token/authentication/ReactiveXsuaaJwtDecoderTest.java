@@ -0,0 +1,94 @@
+package com.sap.cloud.security.xsuaa.token.authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.SignedJWT;
+import com.sap.cloud.security.xsuaa.DummyXsuaaServiceConfiguration;
+import com.sap.cloud.security.xsuaa.test.JwtGenerator;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+public class ReactiveXsuaaJwtDecoderTest {
+
+	private static final String CLIENT_ID = "sb-clientId!t0";
+	private static final String KEY_ID = "key-id-1";
+
+	private final AtomicInteger tokenKeysRequestCount = new AtomicInteger();
+	private PrivateKey privateKey;
+	private DisposableServer server;
+	private ReactiveJwtDecoder cut;
+
+	@Before
+	public void setup() throws Exception {
+		KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+		keyPairGenerator.initialize(2048);
+		KeyPair keyPair = keyPairGenerator.generateKeyPair();
+		privateKey = keyPair.getPrivate();
+		String tokenKeys = new JWKSet(new RSAKey.Builder((RSAPublicKey) keyPair.getPublic()).keyID(KEY_ID).build())
+				.toString();
+		server = HttpServer.create().port(0)
+				.route(routes -> routes.get("/token_keys", (request, response) -> {
+					tokenKeysRequestCount.incrementAndGet();
+					return response.sendString(Mono.just(tokenKeys));
+				})).bindNow();
+		cut = new XsuaaJwtDecoderBuilder(new DummyXsuaaServiceConfiguration(CLIENT_ID, "appId"))
+				.withWebClient(WebClient.create())
+				.buildAsReactive();
+	}
+
+	@After
+	public void tearDown() {
+		server.disposeNow();
+	}
+
+	@Test
+	public void decode_withWebClient_fetchesTokenKeysOnce() throws JOSEException {
+		String token = createToken(KEY_ID);
+
+		Jwt jwt = cut.decode(token).block();
+		cut.decode(token).block();
+
+		assertThat(jwt.getClaimAsString("cid")).isEqualTo(CLIENT_ID);
+		assertThat(tokenKeysRequestCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void decode_withWebClient_failsForUnknownKeyId() throws JOSEException {
+		String token = createToken("unknown-key");
+
+		assertThatThrownBy(() -> cut.decode(token).block()).isInstanceOf(JwtException.class)
+				.hasMessageContaining("unknown-key");
+	}
+
+	private String createToken(String keyId) throws JOSEException {
+		JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId)
+				.jwkURL(URI.create("http://localhost:" + server.port() + "/token_keys")).build();
+		SignedJWT signedJwt = new SignedJWT(header, new JwtGenerator(CLIENT_ID).getBasicClaimSet().build());
+		signedJwt.sign(new RSASSASigner(privateKey));
+		return signedJwt.serialize();
+	}
+}
@@ -62,6 +62,27 @@ public abstract class AbstractOAuth2TokenService implements OAuth2TokenService {
 		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
 	}
 
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaJwtBearerTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters)
+			throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_JWT_BEARER)
+				.withClientCredentials(clientCredentials)
+				.withAssertion(token)
+				.withOptionalParameters(optionalParameters)
+				.buildAsMap();
+
+		HttpHeaders headers = httpHeadersFactory.createWithoutAuthorizationHeader();
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
+	}
+
 	@Override
 	public OAuth2TokenResponse retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
 			@Nonnull ClientCredentials clientCredentials,
@@ -0,0 +1,250 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.client.TokenResponseCache.CacheKey;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
+
+/**
+ * Decorates an {@link OAuth2TokenService} and caches the token responses until
+ * they are about to expire. Concurrent requests for the same token are
+ * coalesced, so that only one of them is sent to the OAuth server.
+ *
+ * The cache key consists of the token endpoint, the grant type, the client id,
+ * the subdomain, a hash of the secrets (client secret, user token, refresh
+ * token or user password) and the optional parameters.
+ *
+ * <pre>
+ * {@code
+ * OAuth2TokenService tokenService = new CachingOAuth2TokenService(new DefaultOAuth2TokenService());
+ * XsuaaTokenFlows tokenFlows = new XsuaaTokenFlows(tokenService, endpointsProvider, clientCredentials);
+ * }
+ * </pre>
+ */
+public class CachingOAuth2TokenService implements OAuth2TokenService {
+
+	public static final Duration DEFAULT_EXPIRY_SKEW = Duration.ofSeconds(30);
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final OAuth2TokenService tokenService;
+	private final TokenResponseCache cache;
+
+	/**
+	 * Creates a caching token service with the default expiry skew of
+	 * {@link #DEFAULT_EXPIRY_SKEW} and a cache size of
+	 * {@link #DEFAULT_CACHE_SIZE}.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 */
+	public CachingOAuth2TokenService(@Nonnull OAuth2TokenService tokenService) {
+		this(tokenService, DEFAULT_EXPIRY_SKEW, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a caching token service.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 * @param expirySkew
+	 *            the time before the actual expiration of a token, after which
+	 *            the token is not taken from the cache anymore.
+	 * @param cacheSize
+	 *            the maximum number of cached token responses.
+	 */
+	public CachingOAuth2TokenService(@Nonnull OAuth2TokenService tokenService, @Nonnull Duration expirySkew,
+			int cacheSize) {
+		this(tokenService, expirySkew, cacheSize, Clock.systemUTC());
+	}
+
+	CachingOAuth2TokenService(OAuth2TokenService tokenService, Duration expirySkew, int cacheSize, Clock clock) {
+		Assertions.assertNotNull(tokenService, "tokenService is required");
+		this.tokenService = tokenService;
+		this.cache = new TokenResponseCache(expirySkew, cacheSize, clock);
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaClientCredentialsGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+
+		CacheKey key = createKey(tokenEndpointUri, GRANT_TYPE_CLIENT_CREDENTIALS, clientCredentials, subdomain,
+				optionalParameters);
+		return getOrRequest(key, () -> tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri,
+				clientCredentials, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaUserTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		CacheKey key = createKey(tokenEndpointUri, GRANT_TYPE_USER_TOKEN, clientCredentials, subdomain,
+				optionalParameters, token);
+		return getOrRequest(key, () -> tokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpointUri,
+				clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaJwtBearerTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		CacheKey key = createKey(tokenEndpointUri, GRANT_TYPE_JWT_BEARER, clientCredentials, subdomain,
+				optionalParameters, token);
+		return getOrRequest(key, () -> tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpointUri,
+				clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String refreshToken, @Nullable String subdomain)
+			throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(refreshToken, "refreshToken is required");
+
+		CacheKey key = createKey(tokenEndpointUri, GRANT_TYPE_REFRESH_TOKEN, clientCredentials, subdomain, null,
+				refreshToken);
+		return getOrRequest(key, () -> tokenService.retrieveAccessTokenViaRefreshToken(tokenEndpointUri,
+				clientCredentials, refreshToken, subdomain));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaPasswordGrant(@Nonnull URI tokenEndpoint,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String username, @Nonnull String password,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters)
+			throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpoint, "tokenEndpoint is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials are required");
+		Assertions.assertNotNull(username, "username is required");
+		Assertions.assertNotNull(password, "password is required");
+
+		CacheKey key = createKey(tokenEndpoint, GRANT_TYPE_PASSWORD, clientCredentials, subdomain,
+				optionalParameters, username, password);
+		return getOrRequest(key, () -> tokenService.retrieveAccessTokenViaPasswordGrant(tokenEndpoint,
+				clientCredentials, username, password, subdomain, optionalParameters));
+	}
+
+	/**
+	 * Returns the token service that executes the requests, which are not served
+	 * from the cache.
+	 *
+	 * @return the token service.
+	 */
+	public OAuth2TokenService getTokenService() {
+		return tokenService;
+	}
+
+	/**
+	 * Removes all cached token responses.
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * Removes the cached token responses of the given subdomain.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the tenant, or null for the token responses
+	 *            that were requested without subdomain.
+	 */
+	public void clearCache(@Nullable String subdomain) {
+		cache.clear(subdomain);
+	}
+
+	/**
+	 * Returns the number of cached token responses, including the requests in
+	 * progress.
+	 *
+	 * @return the number of cached token responses.
+	 */
+	public int getCachedTokenCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the number of token requests that were served from the cache, or
+	 * that waited for the same request in progress.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return cache.getHitCount();
+	}
+
+	/**
+	 * Returns the number of token requests that were sent to the token service.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return cache.getMissCount();
+	}
+
+	private OAuth2TokenResponse getOrRequest(CacheKey key, TokenRequest tokenRequest)
+			throws OAuth2ServiceException {
+		return await(cache.getOrRequest(key, () -> {
+			CompletableFuture<OAuth2TokenResponse> tokenResponse = new CompletableFuture<>();
+			try {
+				tokenResponse.complete(tokenRequest.execute());
+			} catch (OAuth2ServiceException e) {
+				tokenResponse.completeExceptionally(e);
+			}
+			return tokenResponse;
+		}));
+	}
+
+	private OAuth2TokenResponse await(CompletableFuture<OAuth2TokenResponse> response)
+			throws OAuth2ServiceException {
+		try {
+			return response.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OAuth2ServiceException("Interrupted while waiting for token response: " + e.getMessage());
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OAuth2ServiceException) {
+				throw (OAuth2ServiceException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new OAuth2ServiceException("Unexpected error retrieving JWT token: " + e.getCause().getMessage());
+		}
+	}
+
+	@FunctionalInterface
+	private interface TokenRequest {
+		OAuth2TokenResponse execute() throws OAuth2ServiceException;
+	}
+
+	private static CacheKey createKey(URI tokenEndpointUri, String grantType, ClientCredentials clientCredentials,
+			String subdomain, Map<String, String> optionalParameters, String... secrets) {
+		String[] clientSecretAndSecrets = new String[secrets.length + 1];
+		clientSecretAndSecrets[0] = clientCredentials.getSecret();
+		System.arraycopy(secrets, 0, clientSecretAndSecrets, 1, secrets.length);
+		return new CacheKey(tokenEndpointUri, grantType, clientCredentials.getId(), subdomain, optionalParameters,
+				clientSecretAndSecrets);
+	}
+}
@@ -0,0 +1,171 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the requests of a (synchronous) {@link OAuth2TokenService} on a
+ * dedicated {@link Executor}, so that the calling thread, e.g. a request
+ * thread of the application server, is not blocked while waiting for the OAuth
+ * server.
+ *
+ * Connection reuse and timeouts are configured on the HTTP client of the given
+ * {@link OAuth2TokenService}.
+ *
+ * <pre>
+ * {@code
+ * AsyncOAuth2TokenService tokenService = new DefaultAsyncOAuth2TokenService(new DefaultOAuth2TokenService());
+ * tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientCredentials, null, null)
+ * 		.thenAccept(tokenResponse -> ...);
+ * }
+ * </pre>
+ */
+public class DefaultAsyncOAuth2TokenService implements AsyncOAuth2TokenService {
+
+	/**
+	 * The number of threads of the executor that is shared by all instances that
+	 * are created without an explicit {@link Executor}.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 10;
+
+	private final OAuth2TokenService tokenService;
+	private final Executor executor;
+
+	public DefaultAsyncOAuth2TokenService() {
+		this(new DefaultOAuth2TokenService());
+	}
+
+	/**
+	 * Creates an asynchronous token service that executes the requests on a shared
+	 * pool of {@link #DEFAULT_POOL_SIZE} daemon threads.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 */
+	public DefaultAsyncOAuth2TokenService(@Nonnull OAuth2TokenService tokenService) {
+		this(tokenService, DefaultExecutorHolder.EXECUTOR);
+	}
+
+	/**
+	 * Creates an asynchronous token service.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 * @param executor
+	 *            the executor the requests are executed on.
+	 */
+	public DefaultAsyncOAuth2TokenService(@Nonnull OAuth2TokenService tokenService, @Nonnull Executor executor) {
+		Assertions.assertNotNull(tokenService, "tokenService is required");
+		Assertions.assertNotNull(executor, "executor is required");
+		this.tokenService = tokenService;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaClientCredentialsGrant(
+			@Nonnull URI tokenEndpointUri, @Nonnull ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+
+		return executeAsync(() -> tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri,
+				clientCredentials, subdomain, optionalParameters));
+	}
+
+	@Override
+	public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaUserTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		return executeAsync(() -> tokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpointUri,
+				clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaJwtBearerTokenGrant(
+			@Nonnull URI tokenEndpointUri, @Nonnull ClientCredentials clientCredentials, @Nonnull String token,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		return executeAsync(() -> tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpointUri,
+				clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String refreshToken, @Nullable String subdomain) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(refreshToken, "refreshToken is required");
+
+		return executeAsync(() -> tokenService.retrieveAccessTokenViaRefreshToken(tokenEndpointUri,
+				clientCredentials, refreshToken, subdomain));
+	}
+
+	@Override
+	public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaPasswordGrant(@Nonnull URI tokenEndpoint,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String username, @Nonnull String password,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpoint, "tokenEndpoint is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials are required");
+		Assertions.assertNotNull(username, "username is required");
+		Assertions.assertNotNull(password, "password is required");
+
+		return executeAsync(() -> tokenService.retrieveAccessTokenViaPasswordGrant(tokenEndpoint,
+				clientCredentials, username, password, subdomain, optionalParameters));
+	}
+
+	private CompletableFuture<OAuth2TokenResponse> executeAsync(TokenRequest tokenRequest) {
+		CompletableFuture<OAuth2TokenResponse> tokenResponse = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					tokenResponse.complete(tokenRequest.execute());
+				} catch (OAuth2ServiceException | RuntimeException e) {
+					tokenResponse.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			tokenResponse.completeExceptionally(
+					new OAuth2ServiceException("Token request was rejected by executor: " + e.getMessage()));
+		}
+		return tokenResponse;
+	}
+
+	@FunctionalInterface
+	private interface TokenRequest {
+		OAuth2TokenResponse execute() throws OAuth2ServiceException;
+	}
+
+	private static class DefaultExecutorHolder {
+		private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(DEFAULT_POOL_SIZE,
+				new DaemonThreadFactory());
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "xsuaa-token-client-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+
+import javax.annotation.Nonnull;
+import javax.net.ssl.SSLContext;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates Apache {@link CloseableHttpClient} instances that are tuned for
+ * requests against the XSUAA token and token key endpoints. In contrast to
+ * {@code HttpClients.createDefault()} the created clients
+ * <ul>
+ * <li>pool connections per route, i.e. per tenant host,</li>
+ * <li>keep idle connections alive and evict them in the background,</li>
+ * <li>share a single {@link SSLContext} so that TLS sessions are resumed,</li>
+ * <li>have explicit connect, socket and connection request timeouts.</li>
+ * </ul>
+ *
+ * <pre>
+ * {@code
+ * CloseableHttpClient httpClient = new DefaultHttpClientFactory()
+ * 		.withConnectTimeout(Duration.ofSeconds(2))
+ * 		.withMaxConnectionsPerRoute(50)
+ * 		.create();
+ * OAuth2TokenService tokenService = new DefaultOAuth2TokenService(httpClient);
+ * }
+ * </pre>
+ */
+public class DefaultHttpClientFactory {
+
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+	public static final Duration DEFAULT_SOCKET_TIMEOUT = Duration.ofSeconds(30);
+	public static final Duration DEFAULT_CONNECTION_REQUEST_TIMEOUT = Duration.ofSeconds(5);
+	public static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(2);
+	public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofSeconds(60);
+	public static final int DEFAULT_MAX_CONNECTIONS = 200;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+	private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+	private Duration socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+	private Duration connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+	private Duration keepAlive = DEFAULT_KEEP_ALIVE;
+	private Duration maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private SSLContext sslContext;
+
+	/**
+	 * @param connectTimeout
+	 *            the time until a connection with the server is established.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withConnectTimeout(@Nonnull Duration connectTimeout) {
+		this.connectTimeout = assertNotNegative(connectTimeout, "connectTimeout");
+		return this;
+	}
+
+	/**
+	 * @param socketTimeout
+	 *            the maximum period of inactivity between two data packets.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withSocketTimeout(@Nonnull Duration socketTimeout) {
+		this.socketTimeout = assertNotNegative(socketTimeout, "socketTimeout");
+		return this;
+	}
+
+	/**
+	 * @param connectionRequestTimeout
+	 *            the time to wait for a connection from the pool.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withConnectionRequestTimeout(@Nonnull Duration connectionRequestTimeout) {
+		this.connectionRequestTimeout = assertNotNegative(connectionRequestTimeout, "connectionRequestTimeout");
+		return this;
+	}
+
+	/**
+	 * @param keepAlive
+	 *            the maximum time a connection is kept alive, if the server does
+	 *            not send a shorter keep-alive timeout.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withKeepAlive(@Nonnull Duration keepAlive) {
+		this.keepAlive = assertNotNegative(keepAlive, "keepAlive");
+		return this;
+	}
+
+	/**
+	 * @param maxIdleTime
+	 *            the time after which idle connections are evicted from the pool.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withMaxIdleTime(@Nonnull Duration maxIdleTime) {
+		this.maxIdleTime = assertNotNegative(maxIdleTime, "maxIdleTime");
+		return this;
+	}
+
+	/**
+	 * @param maxConnections
+	 *            the maximum number of pooled connections in total.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withMaxConnections(int maxConnections) {
+		assertPositive(maxConnections, "maxConnections");
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
+	/**
+	 * @param maxConnectionsPerRoute
+	 *            the maximum number of pooled connections per host.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		assertPositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		return this;
+	}
+
+	/**
+	 * @param sslContext
+	 *            the ssl context to be used, e.g. for client certificates.
+	 *            Defaults to the system default context.
+	 * @return this factory.
+	 */
+	public DefaultHttpClientFactory withSslContext(@Nonnull SSLContext sslContext) {
+		Assertions.assertNotNull(sslContext, "sslContext is required");
+		this.sslContext = sslContext;
+		return this;
+	}
+
+	/**
+	 * Creates a new http client with its own connection pool. The client should
+	 * be shared and closed when it is no longer needed.
+	 *
+	 * @return the http client.
+	 */
+	public CloseableHttpClient create() {
+		SSLContext context = sslContext != null ? sslContext : SSLContexts.createSystemDefault();
+		Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
+				.register("http", PlainConnectionSocketFactory.getSocketFactory())
+				.register("https", new SSLConnectionSocketFactory(context))
+				.build();
+
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+				socketFactoryRegistry);
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(toMillis(connectTimeout))
+				.setSocketTimeout(toMillis(socketTimeout))
+				.setConnectionRequestTimeout(toMillis(connectionRequestTimeout))
+				.build();
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy(createKeepAliveStrategy(keepAlive.toMillis()))
+				.evictExpiredConnections()
+				.evictIdleConnections(maxIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+				// connections are not bound to a user, so they can be reused across requests
+				.disableConnectionState()
+				.build();
+	}
+
+	Duration getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	Duration getSocketTimeout() {
+		return socketTimeout;
+	}
+
+	int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	private static ConnectionKeepAliveStrategy createKeepAliveStrategy(long maxKeepAliveMillis) {
+		return (response, context) -> {
+			long keepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			return keepAliveMillis > 0 ? Math.min(keepAliveMillis, maxKeepAliveMillis) : maxKeepAliveMillis;
+		};
+	}
+
+	private static int toMillis(Duration duration) {
+		return (int) Math.min(duration.toMillis(), Integer.MAX_VALUE);
+	}
+
+	private static Duration assertNotNegative(Duration duration, String name) {
+		Assertions.assertNotNull(duration, name + " is required");
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException(name + " must not be negative");
+		}
+		return duration;
+	}
+
+	private static void assertPositive(int value, String name) {
+		if (value <= 0) {
+			throw new IllegalArgumentException(name + " must be greater than 0");
+		}
+	}
+}
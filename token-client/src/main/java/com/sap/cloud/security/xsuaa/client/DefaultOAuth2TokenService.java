@@ -1,37 +1,49 @@
 package com.sap.cloud.security.xsuaa.client;
 
 import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
-import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
-import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
 
 public class DefaultOAuth2TokenService extends AbstractOAuth2TokenService {
 
-	private static final Logger logger = LoggerFactory.getLogger(DefaultOAuth2TokenService.class);
+	static final int MAX_REQUEST_TEMPLATES = 100;
 
 	private final CloseableHttpClient httpClient;
-
+	private final Map<List<String>, TokenRequestTemplate> requestTemplates = Collections
+			.synchronizedMap(new LinkedHashMap<List<String>, TokenRequestTemplate>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<List<String>, TokenRequestTemplate> eldest) {
+					return size() > MAX_REQUEST_TEMPLATES;
+				}
+			});
+	private volatile ConvertedHeaders convertedHeaders;
+
+	/**
+	 * Creates a token service that uses a pooled http client with the defaults of
+	 * {@link DefaultHttpClientFactory}. The http client, its connection pool and
+	 * idle connection evictor are shared by all instances that are created with
+	 * this constructor, so that no resources need to be closed.
+	 */
 	public DefaultOAuth2TokenService() {
-		this.httpClient = HttpClients.createDefault();
+		this.httpClient = DefaultHttpClientHolder.HTTP_CLIENT;
 	}
 
 	public DefaultOAuth2TokenService(CloseableHttpClient client) {
@@ -54,61 +66,92 @@ public class DefaultOAuth2TokenService extends AbstractOAuth2TokenService {
 				String message = String.format(
 						"Error retrieving JWT token. Received status code %s. Call to XSUAA was not successful: %s",
 						response.getStatusLine().getStatusCode(), responseBody);
-				throw new OAuth2ServiceException(message);
+				throw new OAuth2ServiceException(message, response.getStatusLine().getStatusCode());
 			}
+		} catch (OAuth2ServiceException e) {
+			throw e;
 		} catch (IOException e) {
-			throw new OAuth2ServiceException("Unexpected error retrieving JWT token: " + e.getMessage());
+			throw new OAuth2ServiceException("Unexpected error retrieving JWT token: " + e.getMessage(), e);
 		}
 	}
 
 	private OAuth2TokenResponse handleResponse(HttpResponse response) throws IOException {
-		String responseBody = convertToString(response);
-		Map<String, Object> accessTokenMap = new JSONObject(responseBody).toMap();
-		logger.debug("Request Access Token: {}", accessTokenMap);
-		return convertToOAuth2TokenResponse(accessTokenMap);
+		return OAuth2TokenResponseParser.parse(response.getEntity().getContent());
 	}
 
 	private String convertToString(HttpResponse response) throws IOException {
-		return new BufferedReader(new InputStreamReader(response.getEntity().getContent()))
-				.lines().collect(Collectors.joining(System.lineSeparator()));
+		return EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
 	}
 
-	private OAuth2TokenResponse convertToOAuth2TokenResponse(Map<String, Object> accessTokenMap)
+	private HttpPost createHttpPost(URI uri, HttpHeaders headers, Map<String, String> parameters)
 			throws OAuth2ServiceException {
-		String accessToken = getParameter(accessTokenMap, ACCESS_TOKEN);
-		String refreshToken = getParameter(accessTokenMap, REFRESH_TOKEN);
-		String expiresIn = getParameter(accessTokenMap, EXPIRES_IN);
+		HttpPost httpPost = new HttpPost(uri);
+		httpPost.setHeaders(convertHeaders(headers));
+		byte[] body = getRequestTemplate(parameters).createBody(parameters);
+		httpPost.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_FORM_URLENCODED));
+		return httpPost;
+	}
 
-		return new OAuth2TokenResponse(accessToken, convertExpiresInToLong(expiresIn),
-				refreshToken);
+	/**
+	 * Converts the given headers to Apache headers. The headers without
+	 * authorization header are the same instance for all token requests of a
+	 * token service, so they are converted only once. Headers with authorization
+	 * header are converted per request and not kept.
+	 */
+	private Header[] convertHeaders(HttpHeaders headers) {
+		ConvertedHeaders converted = convertedHeaders;
+		if (converted != null && converted.source == headers) {
+			return converted.headers;
+		}
+		converted = new ConvertedHeaders(headers);
+		if (!converted.hasAuthorization) {
+			convertedHeaders = converted;
+		}
+		return converted.headers;
 	}
 
-	private Long convertExpiresInToLong(String expiresIn) throws OAuth2ServiceException {
-		try {
-			return Long.parseLong(expiresIn);
-		} catch (NumberFormatException e) {
-			throw new OAuth2ServiceException(
-					String.format("Cannot convert expires_in from response (%s) to long", expiresIn));
+	/**
+	 * Returns the prepared request of the client and grant type of the given
+	 * parameters. The templates are kept in a bounded cache, which evicts the
+	 * least recently used template. A template of another client secret is
+	 * replaced.
+	 */
+	private TokenRequestTemplate getRequestTemplate(Map<String, String> parameters)
+			throws OAuth2ServiceException {
+		List<String> key = TokenRequestTemplate.getKey(parameters);
+		TokenRequestTemplate requestTemplate = requestTemplates.get(key);
+		if (requestTemplate == null || !requestTemplate.matches(parameters)) {
+			requestTemplate = TokenRequestTemplate.create(parameters);
+			requestTemplates.put(key, requestTemplate);
 		}
+		return requestTemplate;
 	}
 
-	private String getParameter(Map<String, Object> accessTokenMap, String key) {
-		return String.valueOf(accessTokenMap.get(key));
+	int getRequestTemplateCount() {
+		return requestTemplates.size();
 	}
 
-	private HttpPost createHttpPost(URI uri, HttpHeaders headers, Map<String, String> parameters)
-			throws OAuth2ServiceException {
-		HttpPost httpPost = new HttpPost(uri);
-		headers.getHeaders().forEach((header) -> httpPost.setHeader(header.getName(), header.getValue()));
-		try {
-			List<BasicNameValuePair> basicNameValuePairs = parameters.entrySet().stream()
-					.map(entry -> new BasicNameValuePair(entry.getKey(), entry.getValue()))
-					.collect(Collectors.toList());
-			httpPost.setEntity(new UrlEncodedFormEntity(basicNameValuePairs));
-		} catch (UnsupportedEncodingException e) {
-			throw new OAuth2ServiceException("Unexpected error parsing URI: " + e.getMessage());
+	CloseableHttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	private static class ConvertedHeaders {
+		private final HttpHeaders source;
+		private final Header[] headers;
+		private final boolean hasAuthorization;
+
+		ConvertedHeaders(HttpHeaders source) {
+			this.source = source;
+			this.headers = source.getHeaders().stream()
+					.map(header -> new BasicHeader(header.getName(), header.getValue()))
+					.toArray(Header[]::new);
+			this.hasAuthorization = source.getHeaders().stream()
+					.anyMatch(header -> HttpHeaders.AUTHORIZATION.equalsIgnoreCase(header.getName()));
 		}
-		return httpPost;
+	}
+
+	private static class DefaultHttpClientHolder {
+		private static final CloseableHttpClient HTTP_CLIENT = new DefaultHttpClientFactory().create();
 	}
 
 }
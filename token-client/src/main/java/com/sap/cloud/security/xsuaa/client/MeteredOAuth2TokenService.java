@@ -0,0 +1,170 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.util.UriUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
+
+/**
+ * Decorates an {@link OAuth2TokenService} to record Micrometer metrics of the
+ * token requests:
+ * <ul>
+ * <li>{@code xsuaa.token.requests}: a timer per grant type, token endpoint
+ * host, i.e. tenant, and outcome ({@code SUCCESS}, {@code CLIENT_ERROR},
+ * {@code SERVER_ERROR} or {@code UNKNOWN}).</li>
+ * <li>{@code xsuaa.token.requests.active}: a gauge of the requests in
+ * flight.</li>
+ * <li>{@code xsuaa.token.response.size}: a histogram per grant type of the size
+ * of the issued access and refresh tokens in bytes.</li>
+ * </ul>
+ * Decorate the token service that sends the HTTP requests, so that every
+ * request is recorded, including retries and excluding cached tokens.
+ *
+ * <pre>
+ * {@code
+ * OAuth2TokenService tokenService = new CachingOAuth2TokenService(
+ * 		new MeteredOAuth2TokenService(new XsuaaOAuth2TokenService(restOperations), meterRegistry));
+ * }
+ * </pre>
+ */
+public class MeteredOAuth2TokenService implements OAuth2TokenService {
+
+	static final String REQUESTS = "xsuaa.token.requests";
+	static final String ACTIVE_REQUESTS = "xsuaa.token.requests.active";
+	static final String RESPONSE_SIZE = "xsuaa.token.response.size";
+
+	private final OAuth2TokenService tokenService;
+	private final MeterRegistry meterRegistry;
+	private final AtomicInteger activeRequests;
+
+	/**
+	 * Creates a metered token service.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 * @param meterRegistry
+	 *            the registry of the meters.
+	 */
+	public MeteredOAuth2TokenService(@Nonnull OAuth2TokenService tokenService,
+			@Nonnull MeterRegistry meterRegistry) {
+		Assertions.assertNotNull(tokenService, "tokenService is required");
+		Assertions.assertNotNull(meterRegistry, "meterRegistry is required");
+		this.tokenService = tokenService;
+		this.meterRegistry = meterRegistry;
+		this.activeRequests = meterRegistry.gauge(ACTIVE_REQUESTS, new AtomicInteger());
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaClientCredentialsGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		return record(GRANT_TYPE_CLIENT_CREDENTIALS, tokenEndpointUri, subdomain,
+				() -> tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials,
+						subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaUserTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		return record(GRANT_TYPE_USER_TOKEN, tokenEndpointUri, subdomain,
+				() -> tokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpointUri, clientCredentials, token,
+						subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaJwtBearerTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		return record(GRANT_TYPE_JWT_BEARER, tokenEndpointUri, subdomain,
+				() -> tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpointUri, clientCredentials,
+						token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String refreshToken, @Nullable String subdomain)
+			throws OAuth2ServiceException {
+		return record(GRANT_TYPE_REFRESH_TOKEN, tokenEndpointUri, subdomain,
+				() -> tokenService.retrieveAccessTokenViaRefreshToken(tokenEndpointUri, clientCredentials,
+						refreshToken, subdomain));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaPasswordGrant(@Nonnull URI tokenEndpoint,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String username, @Nonnull String password,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters)
+			throws OAuth2ServiceException {
+		return record(GRANT_TYPE_PASSWORD, tokenEndpoint, subdomain,
+				() -> tokenService.retrieveAccessTokenViaPasswordGrant(tokenEndpoint, clientCredentials, username,
+						password, subdomain, optionalParameters));
+	}
+
+	private OAuth2TokenResponse record(String grantType, URI tokenEndpointUri, String subdomain,
+			TokenRequest tokenRequest) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		String host = UriUtil.replaceSubdomain(tokenEndpointUri, subdomain).getHost();
+		String outcome = "UNKNOWN";
+		long startNanos = System.nanoTime();
+		activeRequests.incrementAndGet();
+		try {
+			OAuth2TokenResponse tokenResponse = tokenRequest.execute();
+			outcome = "SUCCESS";
+			DistributionSummary.builder(RESPONSE_SIZE)
+					.baseUnit("bytes")
+					.tag("grant_type", grantType)
+					.publishPercentileHistogram()
+					.register(meterRegistry)
+					.record(getTokenSize(tokenResponse));
+			return tokenResponse;
+		} catch (OAuth2ServiceException e) {
+			outcome = getOutcome(e.getHttpStatusCode());
+			throw e;
+		} finally {
+			activeRequests.decrementAndGet();
+			Timer.builder(REQUESTS)
+					.tag("grant_type", grantType)
+					.tag("host", host == null ? "none" : host)
+					.tag("outcome", outcome)
+					.register(meterRegistry)
+					.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static String getOutcome(@Nullable Integer httpStatusCode) {
+		if (httpStatusCode == null) {
+			return "UNKNOWN";
+		}
+		if (httpStatusCode >= 500) {
+			return "SERVER_ERROR";
+		}
+		return httpStatusCode >= 400 ? "CLIENT_ERROR" : "UNKNOWN";
+	}
+
+	private static long getTokenSize(OAuth2TokenResponse tokenResponse) {
+		long size = 0;
+		if (tokenResponse.getAccessToken() != null) {
+			size += tokenResponse.getAccessToken().getBytes(StandardCharsets.UTF_8).length;
+		}
+		if (tokenResponse.getRefreshToken() != null) {
+			size += tokenResponse.getRefreshToken().getBytes(StandardCharsets.UTF_8).length;
+		}
+		return size;
+	}
+
+	@FunctionalInterface
+	private interface TokenRequest {
+		OAuth2TokenResponse execute() throws OAuth2ServiceException;
+	}
+}
@@ -1,5 +1,6 @@
 package com.sap.cloud.security.xsuaa.client;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 
 /**
@@ -9,7 +10,41 @@ public class OAuth2ServiceException extends IOException {
 
 	private static final long serialVersionUID = 1L;
 
+	private final Integer httpStatusCode;
+
 	public OAuth2ServiceException(String message) {
 		super(message);
+		this.httpStatusCode = null;
+	}
+
+	/**
+	 * @param message
+	 *            the detail message.
+	 * @param httpStatusCode
+	 *            the status code the OAuth2 service responded with.
+	 */
+	public OAuth2ServiceException(String message, int httpStatusCode) {
+		super(message);
+		this.httpStatusCode = httpStatusCode;
+	}
+
+	/**
+	 * @param message
+	 *            the detail message.
+	 * @param cause
+	 *            the cause, e.g. the {@link IOException} of a failed connection.
+	 */
+	public OAuth2ServiceException(String message, Throwable cause) {
+		super(message, cause);
+		this.httpStatusCode = null;
+	}
+
+	/**
+	 * @return the status code the OAuth2 service responded with or null, if the
+	 *         request failed without a response.
+	 */
+	@Nullable
+	public Integer getHttpStatusCode() {
+		return httpStatusCode;
 	}
-}
\ No newline at end of file
+}
@@ -12,6 +12,7 @@ public class OAuth2TokenResponse {
 	private String refreshToken;
 	private String accessToken;
 	private long expiredTimeMillis;
+	private DecodedJwt decodedAccessToken;
 
 	public OAuth2TokenResponse(@Nullable String accessToken, long expiredInSeconds, @Nullable String refreshToken) {
 		this.accessToken = accessToken;
@@ -31,7 +32,8 @@ public class OAuth2TokenResponse {
 	}
 
 	/**
-	 * A decoded OAuth2 access token.
+	 * A decoded OAuth2 access token. The access token is decoded once, its header
+	 * and payload are decoded when they are accessed for the first time.
 	 *
 	 * @return the decoded access token
 	 */
@@ -40,7 +42,10 @@ public class OAuth2TokenResponse {
 		if (accessToken == null) {
 			return null;
 		}
-		return new Base64JwtDecoder().decode(accessToken);
+		if (decodedAccessToken == null) {
+			decodedAccessToken = new Base64JwtDecoder().decode(accessToken);
+		}
+		return decodedAccessToken;
 	}
 
 	/**
@@ -0,0 +1,127 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.util.JsonScanner;
+import com.sap.cloud.security.xsuaa.util.JsonScanner.MalformedJsonException;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
+
+/**
+ * Parses the JSON response of the OAuth2 token endpoint into an
+ * {@link OAuth2TokenResponse}.
+ * <p>
+ * The response is read as UTF-8 directly from the stream. Only the
+ * {@code access_token}, {@code refresh_token} and {@code expires_in} members of
+ * the top level object are extracted, all other members are skipped without
+ * creating any objects for them. Reading stops as soon as all three members were
+ * found.
+ * <p>
+ * Like the {@code org.json} parser it accepts single quoted and unquoted names
+ * and values, see {@link JsonScanner}.
+ */
+final class OAuth2TokenResponseParser {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private final JsonScanner scanner;
+
+	private String accessToken;
+	private String refreshToken;
+	private String expiresIn;
+
+	private OAuth2TokenResponseParser(Reader reader) {
+		this.scanner = new JsonScanner(reader, "response", BUFFER_SIZE);
+	}
+
+	/**
+	 * Parses the token response from the given stream. The stream is closed
+	 * afterwards.
+	 *
+	 * @param inputStream
+	 *            the UTF-8 encoded response body.
+	 * @return the token response.
+	 * @throws OAuth2ServiceException
+	 *             in case the response can not be read or is malformed.
+	 */
+	static OAuth2TokenResponse parse(InputStream inputStream) throws OAuth2ServiceException {
+		try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+			return new OAuth2TokenResponseParser(reader).parseTokenResponse();
+		} catch (OAuth2ServiceException e) {
+			throw e;
+		} catch (MalformedJsonException e) {
+			throw malformed(e.getMessage());
+		} catch (IOException e) {
+			throw new OAuth2ServiceException("Cannot read token response: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Parses the token response from the given body.
+	 *
+	 * @param body
+	 *            the UTF-8 encoded response body.
+	 * @return the token response.
+	 * @throws OAuth2ServiceException
+	 *             in case the response is malformed.
+	 */
+	static OAuth2TokenResponse parse(@Nullable byte[] body) throws OAuth2ServiceException {
+		return parse(new ByteArrayInputStream(body != null ? body : new byte[0]));
+	}
+
+	private OAuth2TokenResponse parseTokenResponse() throws IOException {
+		parseObject();
+		Long expiresInSeconds = convertExpiresInToLong();
+		if (accessToken == null) {
+			throw malformed("missing " + ACCESS_TOKEN);
+		}
+		return new OAuth2TokenResponse(accessToken, expiresInSeconds, refreshToken);
+	}
+
+	private void parseObject() throws IOException {
+		if (!scanner.beginObject()) {
+			return;
+		}
+		do {
+			readMember(scanner.nextName());
+			if (accessToken != null && refreshToken != null && expiresIn != null) {
+				return; // all members of interest found, skip the rest of the response
+			}
+		} while (scanner.nextSeparator('}'));
+	}
+
+	private void readMember(String name) throws IOException {
+		switch (name) {
+		case ACCESS_TOKEN:
+			accessToken = scanner.nextScalar();
+			break;
+		case REFRESH_TOKEN:
+			refreshToken = scanner.nextScalar();
+			break;
+		case EXPIRES_IN:
+			expiresIn = scanner.nextScalar();
+			break;
+		default:
+			scanner.skipValue();
+		}
+	}
+
+	private Long convertExpiresInToLong() throws OAuth2ServiceException {
+		try {
+			return Long.parseLong(expiresIn);
+		} catch (NumberFormatException e) {
+			throw new OAuth2ServiceException(
+					String.format("Cannot convert expires_in from response (%s) to long", expiresIn));
+		}
+	}
+
+	private static OAuth2ServiceException malformed(String reason) {
+		return new OAuth2ServiceException("Cannot parse token response: " + reason);
+	}
+}
@@ -0,0 +1,126 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Retrieves OAuth2 Access Tokens reactively as documented here:
+ * https://docs.cloudfoundry.org/api/uaa/version/4.31.0/index.html#token
+ *
+ * The returned {@link Mono} emits an {@link OAuth2ServiceException} in case of
+ * an error during the http request.
+ *
+ * @see OAuth2TokenService
+ */
+public interface ReactiveOAuth2TokenService {
+
+	/**
+	 * Requests access token from OAuth Server with client credentials.
+	 *
+	 * @param tokenEndpointUri
+	 *            the token endpoint URI.
+	 * @param clientCredentials
+	 *            the client id and secret of the OAuth client, the recipient of the
+	 *            token.
+	 * @param subdomain
+	 *            optionally indicates what Identity Zone this request goes to by
+	 *            supplying a subdomain (tenant).
+	 * @param optionalParameters
+	 *            optional request parameters, can be null.
+	 * @return the OAuth2AccessToken.
+	 */
+	Mono<OAuth2TokenResponse> retrieveAccessTokenViaClientCredentialsGrant(URI tokenEndpointUri,
+			ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters);
+
+	/**
+	 * Exchanges user access token from OAuth Server with user access token. This
+	 * endpoint returns only opaque access token, so that another call using {link
+	 * #retrieveAccessTokenViaRefreshToken} is required.
+	 *
+	 * @param tokenEndpointUri
+	 *            the token endpoint URI.
+	 * @param clientCredentials
+	 *            the client id and secret of the OAuth client, the recipient of the
+	 *            token.
+	 * @param token
+	 *            the user bearer token, that represents an authenticated user that
+	 *            must have uaa.user scope.
+	 * @param subdomain
+	 *            optionally indicates what Identity Zone this request goes to by
+	 *            supplying a subdomain (tenant).
+	 * @param optionalParameters
+	 *            optional request parameters, can be null.
+	 * @return the OAuth2AccessToken.
+	 */
+	Mono<OAuth2TokenResponse> retrieveAccessTokenViaUserTokenGrant(URI tokenEndpointUri,
+			ClientCredentials clientCredentials, String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters);
+
+	/**
+	 * Exchanges a user access token for an access token of the given OAuth client
+	 * with the {@code urn:ietf:params:oauth:grant-type:jwt-bearer} grant. Unlike
+	 * the user token grant, this requires only a single request.
+	 *
+	 * @param tokenEndpointUri
+	 *            the token endpoint URI.
+	 * @param clientCredentials
+	 *            the client id and secret of the OAuth client, the recipient of the
+	 *            token.
+	 * @param token
+	 *            the user bearer token, that represents an authenticated user.
+	 * @param subdomain
+	 *            optionally indicates what Identity Zone this request goes to by
+	 *            supplying a subdomain (tenant).
+	 * @param optionalParameters
+	 *            optional request parameters, can be null.
+	 * @return the OAuth2AccessToken.
+	 */
+	Mono<OAuth2TokenResponse> retrieveAccessTokenViaJwtBearerTokenGrant(URI tokenEndpointUri,
+			ClientCredentials clientCredentials, String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters);
+
+	/**
+	 * Requests access token from OAuth Server with refresh-token
+	 *
+	 * @param tokenEndpointUri
+	 *            the token endpoint URI.
+	 * @param clientCredentials
+	 *            the client id and secret of the OAuth client, the recipient of the
+	 *            token.
+	 * @param refreshToken
+	 *            the refresh token that was returned along with the access token
+	 *            {link #OAuth2AccessToken}.
+	 * @param subdomain
+	 *            optionally indicates what Identity Zone this request goes to by
+	 *            supplying a subdomain (tenant).
+	 * @return the OAuth2AccessToken
+	 */
+	Mono<OAuth2TokenResponse> retrieveAccessTokenViaRefreshToken(URI tokenEndpointUri,
+			ClientCredentials clientCredentials, String refreshToken, @Nullable String subdomain);
+
+	/**
+	 * @param tokenEndpointUri
+	 *            the token endpoint URI.
+	 * @param clientCredentials
+	 *            the client id and secret of the OAuth client, the recipient of the
+	 *            token.
+	 * @param username
+	 *            the username for the user trying to get a token
+	 * @param password
+	 *            the password for the user trying to get a token
+	 * @param subdomain
+	 *            optionally indicates what Identity Zone this request goes to by
+	 *            supplying a subdomain (tenant).
+	 * @param optionalParameters
+	 *            optional request parameters, can be null.
+	 * @return the OAuth2AccessToken
+	 */
+	Mono<OAuth2TokenResponse> retrieveAccessTokenViaPasswordGrant(URI tokenEndpointUri,
+			ClientCredentials clientCredentials, String username, String password, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters);
+
+}
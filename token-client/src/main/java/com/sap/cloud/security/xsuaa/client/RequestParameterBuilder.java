@@ -48,6 +48,11 @@ public class RequestParameterBuilder {
 		return this;
 	}
 
+	public RequestParameterBuilder withAssertion(String token) {
+		parameters.put(ASSERTION, token);
+		return this;
+	}
+
 	public Map<String, String> buildAsMap() {
 		return parameters;
 	}
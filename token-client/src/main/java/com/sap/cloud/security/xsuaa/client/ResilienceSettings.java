@@ -0,0 +1,151 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Thresholds of the {@link ResilientOAuth2TokenService}.
+ *
+ * <pre>
+ * {@code
+ * ResilienceSettings settings = new ResilienceSettings()
+ * 		.withMaxAttempts(5)
+ * 		.withCircuitBreakerFailureThreshold(10);
+ * }
+ * </pre>
+ */
+public class ResilienceSettings {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+	public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(2);
+	public static final int DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+	public static final Duration DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_TENANT = 10;
+	public static final Duration DEFAULT_BULKHEAD_MAX_WAIT = Duration.ofSeconds(5);
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+	private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+	private int circuitBreakerFailureThreshold = DEFAULT_CIRCUIT_BREAKER_FAILURE_THRESHOLD;
+	private Duration circuitBreakerOpenDuration = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION;
+	private int maxConcurrentRequestsPerTenant = DEFAULT_MAX_CONCURRENT_REQUESTS_PER_TENANT;
+	private Duration bulkheadMaxWait = DEFAULT_BULKHEAD_MAX_WAIT;
+
+	/**
+	 * @param maxAttempts
+	 *            the maximum number of attempts per token request, including the
+	 *            first one. Use 1 to disable retries.
+	 * @return these settings.
+	 */
+	public ResilienceSettings withMaxAttempts(int maxAttempts) {
+		this.maxAttempts = assertPositive(maxAttempts, "maxAttempts");
+		return this;
+	}
+
+	/**
+	 * @param initialBackoff
+	 *            the backoff before the first retry, which is doubled for every
+	 *            further retry.
+	 * @param maxBackoff
+	 *            the upper limit of the backoff.
+	 * @return these settings.
+	 */
+	public ResilienceSettings withBackoff(@Nonnull Duration initialBackoff, @Nonnull Duration maxBackoff) {
+		this.initialBackoff = assertNotNegative(initialBackoff, "initialBackoff");
+		this.maxBackoff = assertNotNegative(maxBackoff, "maxBackoff");
+		return this;
+	}
+
+	/**
+	 * @param circuitBreakerFailureThreshold
+	 *            the number of consecutive failed requests to a host, after which
+	 *            the circuit breaker opens.
+	 * @return these settings.
+	 */
+	public ResilienceSettings withCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+		this.circuitBreakerFailureThreshold = assertPositive(circuitBreakerFailureThreshold,
+				"circuitBreakerFailureThreshold");
+		return this;
+	}
+
+	/**
+	 * @param circuitBreakerOpenDuration
+	 *            the time an open circuit breaker rejects requests, before it lets
+	 *            a single trial request pass.
+	 * @return these settings.
+	 */
+	public ResilienceSettings withCircuitBreakerOpenDuration(@Nonnull Duration circuitBreakerOpenDuration) {
+		this.circuitBreakerOpenDuration = assertNotNegative(circuitBreakerOpenDuration,
+				"circuitBreakerOpenDuration");
+		return this;
+	}
+
+	/**
+	 * @param maxConcurrentRequestsPerTenant
+	 *            the maximum number of token requests in flight per tenant.
+	 * @param bulkheadMaxWait
+	 *            the time to wait for a free slot, before the request is rejected.
+	 * @return these settings.
+	 */
+	public ResilienceSettings withBulkhead(int maxConcurrentRequestsPerTenant, @Nonnull Duration bulkheadMaxWait) {
+		this.maxConcurrentRequestsPerTenant = assertPositive(maxConcurrentRequestsPerTenant,
+				"maxConcurrentRequestsPerTenant");
+		this.bulkheadMaxWait = assertNotNegative(bulkheadMaxWait, "bulkheadMaxWait");
+		return this;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public Duration getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public int getCircuitBreakerFailureThreshold() {
+		return circuitBreakerFailureThreshold;
+	}
+
+	public Duration getCircuitBreakerOpenDuration() {
+		return circuitBreakerOpenDuration;
+	}
+
+	public int getMaxConcurrentRequestsPerTenant() {
+		return maxConcurrentRequestsPerTenant;
+	}
+
+	public Duration getBulkheadMaxWait() {
+		return bulkheadMaxWait;
+	}
+
+	ResilienceSettings copy() {
+		return new ResilienceSettings()
+				.withMaxAttempts(maxAttempts)
+				.withBackoff(initialBackoff, maxBackoff)
+				.withCircuitBreakerFailureThreshold(circuitBreakerFailureThreshold)
+				.withCircuitBreakerOpenDuration(circuitBreakerOpenDuration)
+				.withBulkhead(maxConcurrentRequestsPerTenant, bulkheadMaxWait);
+	}
+
+	private static Duration assertNotNegative(Duration duration, String name) {
+		Assertions.assertNotNull(duration, name + " is required");
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException(name + " must not be negative");
+		}
+		return duration;
+	}
+
+	private static int assertPositive(int value, String name) {
+		if (value <= 0) {
+			throw new IllegalArgumentException(name + " must be greater than 0");
+		}
+		return value;
+	}
+}
@@ -0,0 +1,467 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.util.UriUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorates an {@link OAuth2TokenService} to protect the OAuth server and its
+ * callers from cascading failures:
+ * <ul>
+ * <li>Requests that failed with status code 429 or a 5xx status code are
+ * retried with an exponential backoff with jitter, so that callers do not
+ * retry all at once. Requests that failed with an I/O error are retried for
+ * the client credentials and refresh token grants. Requests of the other
+ * grants, which are not idempotent, are only retried, when the connection
+ * could not be established.</li>
+ * <li>A circuit breaker per UAA domain, i.e. per token endpoint host without
+ * its subdomain, fails fast after a number of consecutive failures, so that an
+ * outage of the OAuth server is detected across all tenants. After a while a
+ * single trial request is let through, which closes the circuit breaker again
+ * if it succeeds.</li>
+ * <li>A bulkhead limits the number of concurrent requests per tenant, i.e. per
+ * token endpoint host, so that a slow tenant does not occupy all connections.
+ * A request holds its slot only while it is sent, not while it waits for its
+ * next attempt.</li>
+ * </ul>
+ * The state of idle hosts and domains is removed, as soon as more than
+ * {@link #MAX_ENDPOINT_STATES} of them are tracked.
+ * The thresholds are configured with {@link ResilienceSettings}, the counters
+ * are exposed for monitoring.
+ *
+ * <pre>
+ * {@code
+ * OAuth2TokenService tokenService = new ResilientOAuth2TokenService(new DefaultOAuth2TokenService(),
+ * 		new ResilienceSettings().withMaxAttempts(5));
+ * }
+ * </pre>
+ */
+public class ResilientOAuth2TokenService implements OAuth2TokenService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResilientOAuth2TokenService.class);
+	private static final int TOO_MANY_REQUESTS = 429;
+	private static final int INTERNAL_SERVER_ERROR = 500;
+	// Apache HttpClient is an optional dependency
+	private static final String CONNECT_TIMEOUT_EXCEPTION = "org.apache.http.conn.ConnectTimeoutException";
+
+	/**
+	 * The number of token endpoint hosts or UAA domains, above which the state of
+	 * idle ones is removed.
+	 */
+	public static final int MAX_ENDPOINT_STATES = 1000;
+
+	/**
+	 * The state of the circuit breaker of a UAA domain.
+	 */
+	public enum CircuitBreakerState {
+		/** Requests are sent. */
+		CLOSED,
+		/** Requests are rejected. */
+		OPEN,
+		/** A single trial request is sent. */
+		HALF_OPEN
+	}
+
+	private final OAuth2TokenService tokenService;
+	private final ResilienceSettings settings;
+	private final Clock clock;
+	private final Sleeper sleeper;
+	private final ConcurrentMap<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+	private final LongAdder retryCount = new LongAdder();
+	private final LongAdder circuitBreakerRejectionCount = new LongAdder();
+	private final LongAdder bulkheadRejectionCount = new LongAdder();
+
+	/**
+	 * Creates a resilient token service with the default
+	 * {@link ResilienceSettings}.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 */
+	public ResilientOAuth2TokenService(@Nonnull OAuth2TokenService tokenService) {
+		this(tokenService, new ResilienceSettings());
+	}
+
+	/**
+	 * Creates a resilient token service.
+	 *
+	 * @param tokenService
+	 *            the token service that executes the requests.
+	 * @param settings
+	 *            the thresholds. Later changes to the settings have no effect.
+	 */
+	public ResilientOAuth2TokenService(@Nonnull OAuth2TokenService tokenService,
+			@Nonnull ResilienceSettings settings) {
+		this(tokenService, settings, Clock.systemUTC(), ResilientOAuth2TokenService::sleep);
+	}
+
+	ResilientOAuth2TokenService(OAuth2TokenService tokenService, ResilienceSettings settings, Clock clock,
+			Sleeper sleeper) {
+		Assertions.assertNotNull(tokenService, "tokenService is required");
+		Assertions.assertNotNull(settings, "settings are required");
+		this.tokenService = tokenService;
+		this.settings = settings.copy();
+		this.clock = clock;
+		this.sleeper = sleeper;
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaClientCredentialsGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+
+		return execute(tokenEndpointUri, subdomain, true,
+				() -> tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials,
+						subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaUserTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+
+		return execute(tokenEndpointUri, subdomain, false, () -> tokenService.retrieveAccessTokenViaUserTokenGrant(
+				tokenEndpointUri, clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaJwtBearerTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+
+		return execute(tokenEndpointUri, subdomain, false, () -> tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(
+				tokenEndpointUri, clientCredentials, token, subdomain, optionalParameters));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String refreshToken, @Nullable String subdomain)
+			throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+
+		return execute(tokenEndpointUri, subdomain, true, () -> tokenService.retrieveAccessTokenViaRefreshToken(
+				tokenEndpointUri, clientCredentials, refreshToken, subdomain));
+	}
+
+	@Override
+	public OAuth2TokenResponse retrieveAccessTokenViaPasswordGrant(@Nonnull URI tokenEndpoint,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String username, @Nonnull String password,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters)
+			throws OAuth2ServiceException {
+		Assertions.assertNotNull(tokenEndpoint, "tokenEndpoint is required");
+
+		return execute(tokenEndpoint, subdomain, false, () -> tokenService.retrieveAccessTokenViaPasswordGrant(
+				tokenEndpoint, clientCredentials, username, password, subdomain, optionalParameters));
+	}
+
+	/**
+	 * @return the thresholds of this token service.
+	 */
+	public ResilienceSettings getSettings() {
+		return settings.copy();
+	}
+
+	/**
+	 * @return the total number of retried token requests.
+	 */
+	public long getRetryCount() {
+		return retryCount.sum();
+	}
+
+	/**
+	 * @return the total number of token requests rejected by an open circuit
+	 *         breaker.
+	 */
+	public long getCircuitBreakerRejectionCount() {
+		return circuitBreakerRejectionCount.sum();
+	}
+
+	/**
+	 * @return the total number of token requests rejected because too many
+	 *         requests of the same tenant were in flight.
+	 */
+	public long getBulkheadRejectionCount() {
+		return bulkheadRejectionCount.sum();
+	}
+
+	/**
+	 * @return the number of UAA domains whose circuit breaker is not closed.
+	 */
+	public long getOpenCircuitBreakerCount() {
+		Instant now = clock.instant();
+		return circuitBreakers.values().stream()
+				.filter(circuitBreaker -> circuitBreaker.getState(now) != CircuitBreakerState.CLOSED)
+				.count();
+	}
+
+	/**
+	 * @param host
+	 *            the host of the token endpoint, e.g.
+	 *            {@code subdomain.authentication.sap.hana.ondemand.com}.
+	 * @return the state of the circuit breaker of the UAA domain of the given
+	 *         host, e.g. {@code authentication.sap.hana.ondemand.com}.
+	 */
+	public CircuitBreakerState getCircuitBreakerState(String host) {
+		CircuitBreaker circuitBreaker = circuitBreakers.get(getUaaDomain(host));
+		return circuitBreaker == null ? CircuitBreakerState.CLOSED : circuitBreaker.getState(clock.instant());
+	}
+
+	/**
+	 * @return the number of token requests that are currently in flight.
+	 */
+	public int getInFlightRequestCount() {
+		return bulkheads.values().stream()
+				.mapToInt(bulkhead -> settings.getMaxConcurrentRequestsPerTenant() - bulkhead.availablePermits())
+				.sum();
+	}
+
+	private OAuth2TokenResponse execute(URI tokenEndpointUri, String subdomain, boolean idempotent,
+			TokenRequest tokenRequest) throws OAuth2ServiceException {
+		String host = subdomain == null ? tokenEndpointUri.getHost()
+				: UriUtil.replaceSubdomain(tokenEndpointUri, subdomain).getHost();
+		Semaphore bulkhead = getBulkhead(host);
+		CircuitBreaker circuitBreaker = getCircuitBreaker(getUaaDomain(host));
+		for (int attempt = 1;; attempt++) {
+			try {
+				return executeAttempt(bulkhead, circuitBreaker, host, tokenRequest);
+			} catch (OAuth2ServiceException e) {
+				if (!isRetryable(e, idempotent) || attempt >= settings.getMaxAttempts()) {
+					throw e;
+				}
+				Duration backoff = calculateBackoff(attempt);
+				logger.debug("Token request to {} failed ({}), retries in {} ms.", host, e.getMessage(),
+						backoff.toMillis());
+				retryCount.increment();
+				backoff(backoff); // the bulkhead slot is released meanwhile
+			}
+		}
+	}
+
+	private OAuth2TokenResponse executeAttempt(Semaphore bulkhead, CircuitBreaker circuitBreaker, String host,
+			TokenRequest tokenRequest) throws OAuth2ServiceException {
+		acquireBulkhead(bulkhead, host);
+		try {
+			if (!circuitBreaker.tryAcquirePermission(clock.instant())) {
+				circuitBreakerRejectionCount.increment();
+				throw new OAuth2ServiceException(String.format(
+						"Circuit breaker for %s is open, token request was not sent to the OAuth server",
+						getUaaDomain(host)));
+			}
+			try {
+				OAuth2TokenResponse tokenResponse = tokenRequest.execute();
+				circuitBreaker.onSuccess();
+				return tokenResponse;
+			} catch (OAuth2ServiceException e) {
+				if (isRetryable(e, true)) {
+					circuitBreaker.onFailure(clock.instant());
+				} else {
+					circuitBreaker.onSuccess(); // the OAuth server is available
+				}
+				throw e;
+			} catch (RuntimeException e) {
+				circuitBreaker.onIgnoredResult();
+				throw e;
+			}
+		} finally {
+			bulkhead.release();
+		}
+	}
+
+	private Semaphore getBulkhead(String host) {
+		Semaphore bulkhead = bulkheads.get(host);
+		if (bulkhead == null) {
+			if (bulkheads.size() >= MAX_ENDPOINT_STATES) {
+				// removes bulkheads without requests in flight, which would be created the same way again
+				bulkheads.values().removeIf(
+						idle -> idle.availablePermits() == settings.getMaxConcurrentRequestsPerTenant());
+			}
+			bulkhead = bulkheads.computeIfAbsent(host,
+					key -> new Semaphore(settings.getMaxConcurrentRequestsPerTenant()));
+		}
+		return bulkhead;
+	}
+
+	private CircuitBreaker getCircuitBreaker(String uaaDomain) {
+		CircuitBreaker circuitBreaker = circuitBreakers.get(uaaDomain);
+		if (circuitBreaker == null) {
+			if (circuitBreakers.size() >= MAX_ENDPOINT_STATES) {
+				// removes closed circuit breakers, which would be created the same way again
+				Instant now = clock.instant();
+				circuitBreakers.values().removeIf(idle -> idle.getState(now) == CircuitBreakerState.CLOSED);
+			}
+			circuitBreaker = circuitBreakers.computeIfAbsent(uaaDomain, key -> new CircuitBreaker());
+		}
+		return circuitBreaker;
+	}
+
+	/**
+	 * Returns the UAA domain of a token endpoint host, i.e. the host without its
+	 * first label, which is the subdomain of the tenant.
+	 */
+	static String getUaaDomain(String host) {
+		int index = host.indexOf('.');
+		return index < 0 ? host : host.substring(index + 1);
+	}
+
+	int getEndpointStateCount() {
+		return bulkheads.size();
+	}
+
+	private void acquireBulkhead(Semaphore bulkhead, String host) throws OAuth2ServiceException {
+		boolean acquired;
+		try {
+			acquired = bulkhead.tryAcquire(settings.getBulkheadMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OAuth2ServiceException("Interrupted while waiting for token request slot: " + e.getMessage());
+		}
+		if (!acquired) {
+			bulkheadRejectionCount.increment();
+			throw new OAuth2ServiceException(String.format(
+					"Too many concurrent token requests for %s, maximum is %d", host,
+					settings.getMaxConcurrentRequestsPerTenant()));
+		}
+	}
+
+	private void backoff(Duration backoff) throws OAuth2ServiceException {
+		try {
+			sleeper.sleep(backoff);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OAuth2ServiceException("Interrupted while waiting to retry token request: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Calculates an exponential backoff, of which a random part of up to one half
+	 * is subtracted, so that concurrent callers are spread.
+	 */
+	Duration calculateBackoff(int attempt) {
+		long initialMillis = settings.getInitialBackoff().toMillis();
+		long maxMillis = settings.getMaxBackoff().toMillis();
+		long exponentialMillis = attempt > 30 ? maxMillis : Math.min(maxMillis, initialMillis << (attempt - 1));
+		long jitterMillis = exponentialMillis / 2 == 0 ? 0
+				: ThreadLocalRandom.current().nextLong(exponentialMillis / 2 + 1);
+		return Duration.ofMillis(exponentialMillis - jitterMillis);
+	}
+
+	/**
+	 * Checks whether a failed request can be sent again. Requests of grants that
+	 * are not idempotent are only retried, when the OAuth server answered with a
+	 * retryable status code or the connection could not be established, so that
+	 * the request was not processed. A read timeout does not tell, whether the
+	 * request was processed.
+	 */
+	static boolean isRetryable(OAuth2ServiceException exception, boolean idempotent) {
+		Integer statusCode = exception.getHttpStatusCode();
+		if (statusCode != null) {
+			return statusCode == TOO_MANY_REQUESTS || statusCode >= INTERNAL_SERVER_ERROR;
+		}
+		Throwable cause = exception.getCause();
+		if (cause instanceof OAuth2ServiceException) {
+			return false;
+		}
+		return idempotent ? cause instanceof IOException : isConnectFailure(cause);
+	}
+
+	private static boolean isConnectFailure(Throwable cause) {
+		for (Throwable throwable = cause; throwable != null; throwable = throwable.getCause()) {
+			if (throwable instanceof ConnectException || throwable instanceof NoRouteToHostException
+					|| throwable instanceof UnknownHostException
+					|| CONNECT_TIMEOUT_EXCEPTION.equals(throwable.getClass().getName())) {
+				return true;
+			}
+			if (throwable.getCause() == throwable) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	private static void sleep(Duration duration) throws InterruptedException {
+		Thread.sleep(duration.toMillis());
+	}
+
+	@FunctionalInterface
+	private interface TokenRequest {
+		OAuth2TokenResponse execute() throws OAuth2ServiceException;
+	}
+
+	@FunctionalInterface
+	interface Sleeper {
+		void sleep(Duration duration) throws InterruptedException;
+	}
+
+	private class CircuitBreaker {
+		private final AtomicInteger consecutiveFailures = new AtomicInteger();
+		private final AtomicBoolean trialInFlight = new AtomicBoolean();
+		private volatile Instant openUntil;
+
+		boolean tryAcquirePermission(Instant now) {
+			Instant until = openUntil;
+			if (until == null) {
+				return true;
+			}
+			if (now.isBefore(until)) {
+				return false;
+			}
+			return trialInFlight.compareAndSet(false, true);
+		}
+
+		void onSuccess() {
+			consecutiveFailures.set(0);
+			openUntil = null;
+			trialInFlight.set(false);
+		}
+
+		void onFailure(Instant now) {
+			if (openUntil != null || consecutiveFailures.incrementAndGet() >= settings
+					.getCircuitBreakerFailureThreshold()) {
+				if (openUntil == null) {
+					logger.warn("Opens circuit breaker after {} consecutive failed token requests.",
+							consecutiveFailures.get());
+				}
+				openUntil = now.plus(settings.getCircuitBreakerOpenDuration());
+			}
+			trialInFlight.set(false);
+		}
+
+		void onIgnoredResult() {
+			trialInFlight.set(false);
+		}
+
+		CircuitBreakerState getState(Instant now) {
+			Instant until = openUntil;
+			if (until == null) {
+				return CircuitBreakerState.CLOSED;
+			}
+			return now.isBefore(until) ? CircuitBreakerState.OPEN : CircuitBreakerState.HALF_OPEN;
+		}
+	}
+}
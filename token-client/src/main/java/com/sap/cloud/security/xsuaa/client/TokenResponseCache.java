@@ -0,0 +1,275 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches token responses until they are about to expire. Concurrent requests
+ * for the same key are coalesced, so that only one of them is sent to the OAuth
+ * server.
+ * <p>
+ * This class is shared by the {@link CachingOAuth2TokenService} and the
+ * {@link com.sap.cloud.security.xsuaa.tokenflows.UserTokenCache} and is not
+ * meant to be used by applications directly.
+ */
+public final class TokenResponseCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(TokenResponseCache.class);
+
+	private final Duration expirySkew;
+	private final int cacheSize;
+	private final Clock clock;
+	private final ConcurrentMap<CacheKey, CompletableFuture<OAuth2TokenResponse>> cache = new ConcurrentHashMap<>();
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param expirySkew
+	 *            the time before the actual expiration of a token, after which
+	 *            the token is not taken from the cache anymore.
+	 * @param cacheSize
+	 *            the maximum number of cached token responses.
+	 * @param clock
+	 *            the clock the expiration is checked with.
+	 */
+	public TokenResponseCache(Duration expirySkew, int cacheSize, Clock clock) {
+		Assertions.assertNotNull(expirySkew, "expirySkew is required");
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("cacheSize must be greater than 0");
+		}
+		this.expirySkew = expirySkew;
+		this.cacheSize = cacheSize;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the cached token response or the request that is in progress for
+	 * the same key, otherwise starts the given request. The returned future is a
+	 * copy of the cached one, so that completing or cancelling it does not
+	 * affect the other callers.
+	 *
+	 * @param key
+	 *            the cache key.
+	 * @param request
+	 *            the token request, which is started, when the token response is
+	 *            not cached.
+	 * @return the future token response.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> getOrRequest(CacheKey key,
+			Supplier<CompletableFuture<OAuth2TokenResponse>> request) {
+		while (true) {
+			CompletableFuture<OAuth2TokenResponse> cachedResponse = cache.get(key);
+			if (cachedResponse != null && !isExpired(cachedResponse)) {
+				hitCount.increment();
+				return copyOf(cachedResponse);
+			}
+			CompletableFuture<OAuth2TokenResponse> pendingResponse = new CompletableFuture<>();
+			boolean isOwner = cachedResponse == null
+					? cache.putIfAbsent(key, pendingResponse) == null
+					: cache.replace(key, cachedResponse, pendingResponse);
+			if (isOwner) {
+				missCount.increment();
+				request(key, pendingResponse, request);
+				return copyOf(pendingResponse);
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached token responses.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Removes the cached token responses of the given subdomain.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the tenant, or null for the token responses
+	 *            that were requested without subdomain.
+	 */
+	public void clear(@Nullable String subdomain) {
+		cache.keySet().removeIf(key -> Objects.equals(key.subdomain, subdomain));
+	}
+
+	/**
+	 * @return the number of cached token responses, including the requests in
+	 *         progress.
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return the number of requests that were served from the cache, or that
+	 *         waited for the same request in progress.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * @return the number of requests that were started.
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	private void request(CacheKey key, CompletableFuture<OAuth2TokenResponse> pendingResponse,
+			Supplier<CompletableFuture<OAuth2TokenResponse>> request) {
+		CompletableFuture<OAuth2TokenResponse> tokenResponse;
+		try {
+			tokenResponse = request.get();
+		} catch (RuntimeException | Error e) {
+			tokenResponse = new CompletableFuture<>();
+			tokenResponse.completeExceptionally(e);
+		}
+		tokenResponse.whenComplete((response, exception) -> {
+			if (exception != null) {
+				cache.remove(key, pendingResponse);
+				pendingResponse.completeExceptionally(unwrap(exception));
+			} else {
+				pendingResponse.complete(response);
+				evictIfFull();
+			}
+		});
+	}
+
+	private static CompletableFuture<OAuth2TokenResponse> copyOf(CompletableFuture<OAuth2TokenResponse> response) {
+		CompletableFuture<OAuth2TokenResponse> copy = new CompletableFuture<>();
+		response.whenComplete((tokenResponse, exception) -> {
+			if (exception != null) {
+				copy.completeExceptionally(unwrap(exception));
+			} else {
+				copy.complete(tokenResponse);
+			}
+		});
+		return copy;
+	}
+
+	private static Throwable unwrap(Throwable exception) {
+		return exception instanceof CompletionException && exception.getCause() != null ? exception.getCause()
+				: exception;
+	}
+
+	private boolean isExpired(CompletableFuture<OAuth2TokenResponse> response) {
+		if (!response.isDone()) {
+			return false; // request is in progress
+		}
+		if (response.isCompletedExceptionally()) {
+			return true;
+		}
+		return !response.join().getExpiredAt().minus(expirySkew).isAfter(clock.instant());
+	}
+
+	private void evictIfFull() {
+		if (cache.size() <= cacheSize) {
+			return;
+		}
+		cache.entrySet().removeIf(entry -> isExpired(entry.getValue()));
+		if (cache.size() > cacheSize) {
+			logger.debug("Token cache exceeds maximum size of {} entries, evicts token responses.", cacheSize);
+			cache.entrySet().removeIf(entry -> entry.getValue().isDone() && cache.size() > cacheSize);
+		}
+	}
+
+	/**
+	 * The key of a cached token response. It consists of the token endpoint, the
+	 * grant type, the client id, the subdomain, a hash of the secrets (e.g.
+	 * client secret, user token, refresh token or user password) and the
+	 * optional parameters.
+	 */
+	public static final class CacheKey {
+		private final URI tokenEndpointUri;
+		private final String grantType;
+		private final String clientId;
+		private final String subdomain;
+		private final String secretsHash;
+		private final Map<String, String> optionalParameters;
+
+		/**
+		 * Creates a cache key.
+		 *
+		 * @param tokenEndpointUri
+		 *            the token endpoint.
+		 * @param grantType
+		 *            the grant type.
+		 * @param clientId
+		 *            the client id.
+		 * @param subdomain
+		 *            the subdomain of the tenant or null.
+		 * @param optionalParameters
+		 *            the optional parameters of the request or null.
+		 * @param secrets
+		 *            the secrets of the request, which are stored only as a hash.
+		 */
+		public CacheKey(URI tokenEndpointUri, String grantType, String clientId, @Nullable String subdomain,
+				@Nullable Map<String, String> optionalParameters, String... secrets) {
+			this.tokenEndpointUri = tokenEndpointUri;
+			this.grantType = grantType;
+			this.clientId = clientId;
+			this.subdomain = subdomain;
+			this.secretsHash = createSecureHash(secrets);
+			this.optionalParameters = optionalParameters == null ? Collections.emptyMap()
+					: new HashMap<>(optionalParameters);
+		}
+
+		private static String createSecureHash(String... secrets) {
+			try {
+				MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+				for (int i = 0; i < secrets.length; i++) {
+					if (i > 0) {
+						messageDigest.update((byte) 0);
+					}
+					messageDigest.update(secrets[i].getBytes(StandardCharsets.UTF_8));
+				}
+				return Base64.getEncoder().encodeToString(messageDigest.digest());
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException("No such Algorithm", e);
+			}
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+			CacheKey that = (CacheKey) o;
+			return Objects.equals(tokenEndpointUri, that.tokenEndpointUri) &&
+					Objects.equals(grantType, that.grantType) &&
+					Objects.equals(clientId, that.clientId) &&
+					Objects.equals(subdomain, that.subdomain) &&
+					Objects.equals(secretsHash, that.secretsHash) &&
+					Objects.equals(optionalParameters, that.optionalParameters);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(tokenEndpointUri, grantType, clientId, subdomain, secretsHash, optionalParameters);
+		}
+	}
+}
@@ -7,6 +7,9 @@ import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
 
 public class XsuaaDefaultEndpoints implements OAuth2ServiceEndpointsProvider {
 	private final URI baseUri;
+	private final URI tokenEndpoint;
+	private final URI authorizeEndpoint;
+	private final URI jwksUri;
 	private static final String TOKEN_ENDPOINT = "/oauth/token";
 	private static final String AUTHORIZE_ENDPOINT = "/oauth/authorize";
 	private static final String KEYSET_ENDPOINT = "/token_keys";
@@ -16,11 +19,14 @@ public class XsuaaDefaultEndpoints implements OAuth2ServiceEndpointsProvider {
 	 *
 	 * @param baseUri
 	 *            - the base URI of XSUAA. Based on the base URI the tokenEndpoint,
-	 *            authorize and key set URI (JWKS) will be derived.
+	 *            authorize and key set URI (JWKS) will be derived once.
 	 */
 	public XsuaaDefaultEndpoints(URI baseUri) {
 		assertNotNull(baseUri, "XSUAA base URI must not be null.");
 		this.baseUri = baseUri;
+		this.tokenEndpoint = getUriWithPathAppended(TOKEN_ENDPOINT);
+		this.authorizeEndpoint = getUriWithPathAppended(AUTHORIZE_ENDPOINT);
+		this.jwksUri = getUriWithPathAppended(KEYSET_ENDPOINT);
 	}
 
 	/**
@@ -36,17 +42,17 @@ public class XsuaaDefaultEndpoints implements OAuth2ServiceEndpointsProvider {
 
 	@Override
 	public URI getTokenEndpoint() {
-		return getUriWithPathAppended(TOKEN_ENDPOINT);
+		return tokenEndpoint;
 	}
 
 	@Override
 	public URI getAuthorizeEndpoint() {
-		return getUriWithPathAppended(AUTHORIZE_ENDPOINT);
+		return authorizeEndpoint;
 	}
 
 	@Override
 	public URI getJwksUri() {
-		return getUriWithPathAppended(KEYSET_ENDPOINT);
+		return jwksUri;
 	}
 
 	private URI getUriWithPathAppended(String pathToAppend) {
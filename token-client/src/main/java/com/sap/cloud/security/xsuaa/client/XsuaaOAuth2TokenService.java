@@ -11,6 +11,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -18,8 +19,6 @@ import javax.annotation.Nonnull;
 import java.net.URI;
 import java.util.Map;
 
-import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
-
 public class XsuaaOAuth2TokenService extends AbstractOAuth2TokenService {
 
 	private final RestOperations restOperations;
@@ -44,30 +43,23 @@ public class XsuaaOAuth2TokenService extends AbstractOAuth2TokenService {
 		// Create entity
 		HttpEntity<MultiValueMap<String, String>> requestEntity = new HttpEntity<>(copyIntoForm(parameters),
 				springHeaders);
-		@SuppressWarnings("rawtypes")
-		ResponseEntity<Map> responseEntity = null;
+		ResponseEntity<byte[]> responseEntity = null;
 		try {
-			responseEntity = restOperations.postForEntity(requestUri, requestEntity, Map.class);
+			responseEntity = restOperations.postForEntity(requestUri, requestEntity, byte[].class);
 		} catch (HttpClientErrorException ex) {
 			String warningMsg = String.format(
 					"Error retrieving JWT token. Received status code %s. Call to XSUAA was not successful: %s",
 					ex.getStatusCode(), ex.getResponseBodyAsString());
-			throw new OAuth2ServiceException(warningMsg);
+			throw new OAuth2ServiceException(warningMsg, ex.getRawStatusCode());
 		} catch (HttpServerErrorException ex) {
 			String warningMsg = String.format("Server error while obtaining access token from XSUAA (%s): %s",
 					ex.getStatusCode(), ex.getResponseBodyAsString());
 			logger.error(warningMsg, ex);
-			throw new OAuth2ServiceException(warningMsg);
+			throw new OAuth2ServiceException(warningMsg, ex.getRawStatusCode());
+		} catch (ResourceAccessException ex) {
+			throw new OAuth2ServiceException("Unexpected error retrieving JWT token: " + ex.getMessage(), ex);
 		}
-
-		@SuppressWarnings("unchecked")
-		Map<String, String> accessTokenMap = responseEntity.getBody();
-		logger.debug("Request Access Token: {}", responseEntity.getBody());
-
-		String accessToken = accessTokenMap.get(ACCESS_TOKEN);
-		long expiresIn = Long.parseLong(String.valueOf(accessTokenMap.get(EXPIRES_IN)));
-		String refreshToken = accessTokenMap.get(REFRESH_TOKEN);
-		return new OAuth2TokenResponse(accessToken, expiresIn, refreshToken);
+		return OAuth2TokenResponseParser.parse(responseEntity.getBody());
 	}
 
 	/**
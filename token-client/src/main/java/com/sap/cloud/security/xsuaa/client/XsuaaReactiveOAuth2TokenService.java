@@ -0,0 +1,190 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.http.HttpHeaders;
+import com.sap.cloud.security.xsuaa.http.HttpHeadersFactory;
+import com.sap.cloud.security.xsuaa.util.UriUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.*;
+
+/**
+ * Implementation of {@link ReactiveOAuth2TokenService} that uses Spring's
+ * non-blocking {@link WebClient} to perform the requests to the OAuth server.
+ *
+ * <pre>
+ * {@code
+ * ReactiveOAuth2TokenService tokenService = new XsuaaReactiveOAuth2TokenService(WebClient.create());
+ * }
+ * </pre>
+ */
+public class XsuaaReactiveOAuth2TokenService implements ReactiveOAuth2TokenService {
+
+	private static final Logger logger = LoggerFactory.getLogger(XsuaaReactiveOAuth2TokenService.class);
+
+	private final WebClient webClient;
+
+	public XsuaaReactiveOAuth2TokenService(@Nonnull WebClient webClient) {
+		Assertions.assertNotNull(webClient, "webClient is required");
+		this.webClient = webClient;
+	}
+
+	@Override
+	public Mono<OAuth2TokenResponse> retrieveAccessTokenViaClientCredentialsGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_CLIENT_CREDENTIALS)
+				.withClientCredentials(clientCredentials)
+				.withOptionalParameters(optionalParameters)
+				.buildAsMap();
+
+		HttpHeaders headers = new HttpHeadersFactory().createWithoutAuthorizationHeader();
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
+	}
+
+	@Override
+	public Mono<OAuth2TokenResponse> retrieveAccessTokenViaUserTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_USER_TOKEN)
+				.withClientId(clientCredentials.getId())
+				.withOptionalParameters(optionalParameters)
+				.buildAsMap();
+
+		HttpHeaders headers = new HttpHeadersFactory().createWithAuthorizationBearerHeader(token);
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
+	}
+
+	@Override
+	public Mono<OAuth2TokenResponse> retrieveAccessTokenViaJwtBearerTokenGrant(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String token, @Nullable String subdomain,
+			@Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(token, "token is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_JWT_BEARER)
+				.withClientCredentials(clientCredentials)
+				.withAssertion(token)
+				.withOptionalParameters(optionalParameters)
+				.buildAsMap();
+
+		HttpHeaders headers = new HttpHeadersFactory().createWithoutAuthorizationHeader();
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
+	}
+
+	@Override
+	public Mono<OAuth2TokenResponse> retrieveAccessTokenViaRefreshToken(@Nonnull URI tokenEndpointUri,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String refreshToken, @Nullable String subdomain) {
+		Assertions.assertNotNull(tokenEndpointUri, "tokenEndpointUri is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials is required");
+		Assertions.assertNotNull(refreshToken, "refreshToken is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_REFRESH_TOKEN)
+				.withRefreshToken(refreshToken)
+				.withClientCredentials(clientCredentials)
+				.buildAsMap();
+
+		HttpHeaders headers = new HttpHeadersFactory().createWithoutAuthorizationHeader();
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpointUri, subdomain), headers, parameters);
+	}
+
+	@Override
+	public Mono<OAuth2TokenResponse> retrieveAccessTokenViaPasswordGrant(@Nonnull URI tokenEndpoint,
+			@Nonnull ClientCredentials clientCredentials, @Nonnull String username, @Nonnull String password,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters) {
+		Assertions.assertNotNull(tokenEndpoint, "tokenEndpoint is required");
+		Assertions.assertNotNull(clientCredentials, "clientCredentials are required");
+		Assertions.assertNotNull(username, "username is required");
+		Assertions.assertNotNull(password, "password is required");
+
+		Map<String, String> parameters = new RequestParameterBuilder()
+				.withGrantType(GRANT_TYPE_PASSWORD)
+				.withUsername(username)
+				.withPassword(password)
+				.withClientCredentials(clientCredentials)
+				.withOptionalParameters(optionalParameters)
+				.buildAsMap();
+
+		HttpHeaders headers = new HttpHeadersFactory().createWithoutAuthorizationHeader();
+
+		return requestAccessToken(UriUtil.replaceSubdomain(tokenEndpoint, subdomain), headers, parameters);
+	}
+
+	private Mono<OAuth2TokenResponse> requestAccessToken(URI tokenEndpointUri, HttpHeaders headers,
+			Map<String, String> parameters) {
+		return webClient.post()
+				.uri(tokenEndpointUri)
+				.headers(springHeaders -> headers.getHeaders()
+						.forEach(header -> springHeaders.add(header.getName(), header.getValue())))
+				.body(BodyInserters.fromFormData(copyIntoForm(parameters)))
+				.exchange()
+				.flatMap(response -> response.bodyToMono(byte[].class)
+						.defaultIfEmpty(new byte[0])
+						.flatMap(responseBody -> handleResponse(response.statusCode(), responseBody)))
+				.onErrorMap(e -> !(e instanceof OAuth2ServiceException),
+						e -> new OAuth2ServiceException("Unexpected error retrieving JWT token: " + e.getMessage(), e));
+	}
+
+	private Mono<OAuth2TokenResponse> handleResponse(HttpStatus statusCode, byte[] responseBody) {
+		if (statusCode.is5xxServerError()) {
+			String warningMsg = String.format("Server error while obtaining access token from XSUAA (%s): %s",
+					statusCode, new String(responseBody, StandardCharsets.UTF_8));
+			logger.error(warningMsg);
+			return Mono.error(new OAuth2ServiceException(warningMsg, statusCode.value()));
+		}
+		if (!statusCode.is2xxSuccessful()) {
+			return Mono.error(new OAuth2ServiceException(String.format(
+					"Error retrieving JWT token. Received status code %s. Call to XSUAA was not successful: %s",
+					statusCode, new String(responseBody, StandardCharsets.UTF_8)), statusCode.value()));
+		}
+		try {
+			return Mono.just(OAuth2TokenResponseParser.parse(responseBody));
+		} catch (OAuth2ServiceException e) {
+			return Mono.error(e);
+		}
+	}
+
+	/**
+	 * Creates a copy of the given map or an new empty map of type MultiValueMap.
+	 *
+	 * @return a new @link{MultiValueMap} that contains all entries of the optional
+	 *         map.
+	 */
+	private MultiValueMap<String, String> copyIntoForm(Map<String, String> parameters) {
+		MultiValueMap<String, String> formData = new LinkedMultiValueMap<>();
+		if (parameters != null) {
+			parameters.forEach(formData::add);
+		}
+		return formData;
+	}
+
+}
@@ -1,49 +1,51 @@
 package com.sap.cloud.security.xsuaa.http;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Creates the HTTP headers of token requests. The factory is immutable and can
+ * be shared, the headers without authorization header are created only once.
+ */
 public class HttpHeadersFactory {
 
-	private final Map<String, String> headers;
+	private static final String AUTHORIZATION_BEARER_TOKEN_FORMAT = "Bearer %s";
+
+	private final List<HttpHeader> headers;
+	private final HttpHeaders headersWithoutAuthorization;
 
 	public HttpHeadersFactory() {
-		headers = new HashMap<>();
-		headers.put(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON.value());
-		headers.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED.value());
+		headers = Collections.unmodifiableList(Arrays.asList(
+				new HttpHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON.value()),
+				new HttpHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED.value())));
+		headersWithoutAuthorization = new HttpHeaders(headers);
 	}
 
 	/**
-	 * Adds the {@code  Authorization: Bearer <token>} header to the set of headers.
+	 * Creates the set of HTTP headers with the
+	 * {@code  Authorization: Bearer <token>} header.
 	 *
 	 * @param token
 	 *            - the token which should be part of the header.
-	 * @return the builder instance.
+	 * @return the HTTP headers.
 	 */
 	public HttpHeaders createWithAuthorizationBearerHeader(String token) {
-		final String AUTHORIZATION_BEARER_TOKEN_FORMAT = "Bearer %s";
-		headers.put(HttpHeaders.AUTHORIZATION, String.format(AUTHORIZATION_BEARER_TOKEN_FORMAT, token));
-		return createFromHeaders();
+		List<HttpHeader> httpHeaders = new ArrayList<>(headers.size() + 1);
+		httpHeaders.addAll(headers);
+		httpHeaders.add(new HttpHeader(HttpHeaders.AUTHORIZATION,
+				String.format(AUTHORIZATION_BEARER_TOKEN_FORMAT, token)));
+		return new HttpHeaders(Collections.unmodifiableList(httpHeaders));
 	}
 
 	/**
-	 * Creates the set of HTTP headers with client-credentials basic authentication
-	 * header.
+	 * Creates the set of HTTP headers without authorization header.
 	 *
 	 * @return the HTTP headers.
 	 */
 	public HttpHeaders createWithoutAuthorizationHeader() {
-		return createFromHeaders();
-	}
-
-	private HttpHeaders createFromHeaders() {
-		List<HttpHeader> httpHeaders = this.headers.entrySet()
-				.stream()
-				.map(header -> new HttpHeader(header.getKey(), header.getValue()))
-				.collect(Collectors.toList());
-		return new HttpHeaders(httpHeaders);
+		return headersWithoutAuthorization;
 	}
 
 }
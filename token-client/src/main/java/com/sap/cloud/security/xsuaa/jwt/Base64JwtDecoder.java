@@ -3,54 +3,151 @@ package com.sap.cloud.security.xsuaa.jwt;
 import com.sap.cloud.security.xsuaa.Assertions;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Decodes the header and payload of a JWT. The segments of the JWT are located
+ * when it is decoded, but each segment is only Base64 decoded when it is
+ * accessed for the first time. JWTs are encoded with the URL safe Base64
+ * alphabet, for compatibility the standard alphabet is accepted as well.
+ * <p>
+ * The typed accessors of the returned {@link DecodedJwt} read the top level
+ * members of header and payload once, when they are called for the first time,
+ * and keep the scopes and the expiration time. Nested objects are skipped, as
+ * none of the accessors returns them.
+ */
 public final class Base64JwtDecoder {
 
+	/**
+	 * Decodes the given JWT.
+	 *
+	 * @param jwt
+	 *            the encoded JWT.
+	 * @return the decoded JWT.
+	 * @throws IllegalArgumentException
+	 *             in case the JWT does not consist of exactly three segments.
+	 *             Invalid Base64 segments are reported when they are accessed.
+	 */
 	public DecodedJwt decode(String jwt) {
 		Assertions.assertNotNull(jwt, "JWT must not be null");
 
-		String[] parts = jwt.split("\\.");
-		if (parts.length != 3) {
+		int headerEnd = jwt.indexOf('.');
+		int payloadEnd = headerEnd >= 0 ? jwt.indexOf('.', headerEnd + 1) : -1;
+		if (payloadEnd < 0 || jwt.indexOf('.', payloadEnd + 1) >= 0) {
 			throw new IllegalArgumentException("Failed to split JWT into exactly 3 parts");
 		}
-		String header = base64Decode(parts[0]);
-		String payload = base64Decode(parts[1]);
-		String signature = parts[2];
-
-		return new DecodedJwtImpl(header, payload, signature);
+		return new DecodedJwtImpl(jwt, headerEnd, payloadEnd);
 	}
 
-	private String base64Decode(String encoded) {
-		byte[] decodedBytes = Base64.getDecoder().decode(encoded);
+	private static String base64Decode(String jwt, int start, int end) {
+		byte[] encodedBytes = new byte[end - start];
+		for (int i = 0; i < encodedBytes.length; i++) {
+			char c = jwt.charAt(start + i);
+			encodedBytes[i] = (byte) (c == '+' ? '-' : c == '/' ? '_' : c);
+		}
+		byte[] decodedBytes = Base64.getUrlDecoder().decode(encodedBytes);
 		return new String(decodedBytes, StandardCharsets.UTF_8);
 	}
 
 	static class DecodedJwtImpl implements DecodedJwt {
 
+		private final String jwt;
+		private final int headerEnd;
+		private final int payloadEnd;
 		private String header;
 		private String payload;
 		private String signature;
+		private volatile Map<String, Object> headerClaims;
+		private volatile Map<String, Object> payloadClaims;
+		private volatile List<String> scopes;
+		private volatile Instant expiration;
 
-		DecodedJwtImpl(String header, String payload, String signature) {
-			this.header = header;
-			this.payload = payload;
-			this.signature = signature;
+		DecodedJwtImpl(String jwt, int headerEnd, int payloadEnd) {
+			this.jwt = jwt;
+			this.headerEnd = headerEnd;
+			this.payloadEnd = payloadEnd;
 		}
 
 		@Override
 		public String getHeader() {
+			if (header == null) {
+				header = base64Decode(jwt, 0, headerEnd);
+			}
 			return header;
 		}
 
 		@Override
 		public String getPayload() {
+			if (payload == null) {
+				payload = base64Decode(jwt, headerEnd + 1, payloadEnd);
+			}
 			return payload;
 		}
 
 		@Override
 		public String getSignature() {
+			if (signature == null) {
+				signature = jwt.substring(payloadEnd + 1);
+			}
 			return signature;
 		}
+
+		@Override
+		public String getHeaderValue(String headerName) {
+			if (headerClaims == null) {
+				headerClaims = JwtClaimExtractor.getClaims(getHeader(), JwtClaimExtractor.HEADER);
+			}
+			return toScalar(headerClaims.get(headerName));
+		}
+
+		@Override
+		public String getClaimAsString(String claimName) {
+			return toScalar(getPayloadClaims().get(claimName));
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public List<String> getClaimAsStringList(String claimName) {
+			Object value = getPayloadClaims().get(claimName);
+			if (value instanceof List) {
+				return (List<String>) value;
+			}
+			return value != null ? Collections.singletonList((String) value) : null;
+		}
+
+		@Override
+		public Instant getExpiration() {
+			if (expiration == null) {
+				expiration = DecodedJwt.super.getExpiration();
+			}
+			return expiration;
+		}
+
+		@Override
+		public List<String> getScopes() {
+			if (scopes == null) {
+				scopes = DecodedJwt.super.getScopes();
+			}
+			return scopes;
+		}
+
+		private Map<String, Object> getPayloadClaims() {
+			if (payloadClaims == null) {
+				Map<String, Object> claims = JwtClaimExtractor.getClaims(getPayload(), JwtClaimExtractor.PAYLOAD);
+				claims.replaceAll((name, value) -> value instanceof List
+						? Collections.unmodifiableList((List<?>) value)
+						: value);
+				payloadClaims = claims;
+			}
+			return payloadClaims;
+		}
+
+		private static String toScalar(Object value) {
+			return value instanceof String ? (String) value : null;
+		}
 	}
 }
@@ -1,5 +1,16 @@
 package com.sap.cloud.security.xsuaa.jwt;
 
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A JWT, whose header and payload are Base64 decoded. The typed accessors of
+ * the claims have default implementations, which scan the decoded header or
+ * payload on every call, see {@link JwtClaimExtractor}. {@link Base64JwtDecoder}
+ * reads the claims only once.
+ */
 public interface DecodedJwt {
 
 	String getHeader();
@@ -7,4 +18,84 @@ public interface DecodedJwt {
 	String getPayload();
 
 	String getSignature();
+
+	/**
+	 * Returns the value of the given header parameter as string.
+	 *
+	 * @param headerName
+	 *            the name of the header parameter, e.g. {@code kid}.
+	 * @return the value or null, if the header does not contain the parameter.
+	 * @throws IllegalArgumentException
+	 *             in case the header is malformed.
+	 */
+	@Nullable
+	default String getHeaderValue(String headerName) {
+		return JwtClaimExtractor.getClaimAsString(getHeader(), JwtClaimExtractor.HEADER, headerName);
+	}
+
+	/**
+	 * Returns the value of the given claim as string.
+	 *
+	 * @param claimName
+	 *            the name of the claim, e.g. {@code zid}.
+	 * @return the string, number or boolean value of the claim as string or null,
+	 *         if the claim does not exist, is null or is a JSON object or array.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	@Nullable
+	default String getClaimAsString(String claimName) {
+		return JwtClaimExtractor.getClaimAsString(getPayload(), JwtClaimExtractor.PAYLOAD, claimName);
+	}
+
+	/**
+	 * Returns the value of the given claim as list of strings.
+	 *
+	 * @param claimName
+	 *            the name of the claim, e.g. {@code aud}.
+	 * @return the elements of the array or a list with the single value of the
+	 *         claim or null, if the claim does not exist or is null. Elements
+	 *         that are JSON objects or arrays are skipped.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	@Nullable
+	default List<String> getClaimAsStringList(String claimName) {
+		return JwtClaimExtractor.getClaimAsStringList(getPayload(), JwtClaimExtractor.PAYLOAD, claimName);
+	}
+
+	/**
+	 * Returns the expiration time of the token, as given by the {@code exp}
+	 * claim.
+	 *
+	 * @return the expiration time or null, if the token has no {@code exp}
+	 *         claim.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	@Nullable
+	default Instant getExpiration() {
+		String exp = getClaimAsString("exp");
+		if (exp == null) {
+			return null;
+		}
+		try {
+			return Instant.ofEpochSecond(Long.parseLong(exp));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Cannot convert exp claim (" + exp + ") to long", e);
+		}
+	}
+
+	/**
+	 * Returns the scopes of the token, as given by the {@code scope} claim.
+	 *
+	 * @return the scopes, which is empty, if the token has no {@code scope}
+	 *         claim.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	default List<String> getScopes() {
+		List<String> scopes = getClaimAsStringList("scope");
+		return scopes != null ? scopes : Collections.emptyList();
+	}
 }
@@ -0,0 +1,351 @@
+package com.sap.cloud.security.xsuaa.jwt;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.util.JsonScanner;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts single claims from the payload of a JWT without parsing the whole
+ * payload into a JSON object.
+ * <p>
+ * The payload of an encoded JWT is Base64 decoded while it is read and reading
+ * stops as soon as the requested claim was found. Only the claims of the top
+ * level object are considered, all other values are skipped without creating
+ * any objects for them. In case the caller already has a {@link DecodedJwt}, its
+ * claim accessors are used instead, which decode the payload only once.
+ *
+ * <pre>
+ * {@code
+ * boolean isUserToken = JwtClaimExtractor.containsClaimValue(token, "scope", "uaa.user");
+ * }
+ * </pre>
+ */
+public final class JwtClaimExtractor {
+
+	static final String HEADER = "header";
+	static final String PAYLOAD = "payload";
+
+	private JwtClaimExtractor() {
+	}
+
+	/**
+	 * Checks whether the given claim of the JWT is the given string or a string
+	 * list that contains it.
+	 *
+	 * @param jwt
+	 *            the encoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @param value
+	 *            the value to look for.
+	 * @return true, if the claim contains the value.
+	 * @throws IllegalArgumentException
+	 *             in case the JWT is malformed.
+	 */
+	public static boolean containsClaimValue(String jwt, String claimName, String value) {
+		return new ClaimReader(payloadReader(jwt), PAYLOAD).containsValue(claimName, value);
+	}
+
+	/**
+	 * Checks whether the given claim of the decoded JWT is the given string or a
+	 * string list that contains it.
+	 *
+	 * @param decodedJwt
+	 *            the decoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @param value
+	 *            the value to look for.
+	 * @return true, if the claim contains the value.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	public static boolean containsClaimValue(DecodedJwt decodedJwt, String claimName, String value) {
+		Assertions.assertNotNull(decodedJwt, "decodedJwt must not be null");
+		List<String> values = decodedJwt.getClaimAsStringList(claimName);
+		return values != null && values.contains(value);
+	}
+
+	/**
+	 * Returns the value of the given claim of the JWT as string.
+	 *
+	 * @param jwt
+	 *            the encoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @return the string, number or boolean value of the claim as string or null,
+	 *         if the claim does not exist, is null or is a JSON object or array.
+	 * @throws IllegalArgumentException
+	 *             in case the JWT is malformed.
+	 */
+	@Nullable
+	public static String getClaimAsString(String jwt, String claimName) {
+		return new ClaimReader(payloadReader(jwt), PAYLOAD).getString(claimName);
+	}
+
+	/**
+	 * Returns the value of the given claim of the decoded JWT as string.
+	 *
+	 * @param decodedJwt
+	 *            the decoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @return the string, number or boolean value of the claim as string or null,
+	 *         if the claim does not exist, is null or is a JSON object or array.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	@Nullable
+	public static String getClaimAsString(DecodedJwt decodedJwt, String claimName) {
+		Assertions.assertNotNull(decodedJwt, "decodedJwt must not be null");
+		return decodedJwt.getClaimAsString(claimName);
+	}
+
+	/**
+	 * Returns the value of the given claim of the JWT as list of strings.
+	 *
+	 * @param jwt
+	 *            the encoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @return the elements of the array or a list with the single value of the
+	 *         claim or null, if the claim does not exist or is null. Elements
+	 *         that are JSON objects or arrays are skipped.
+	 * @throws IllegalArgumentException
+	 *             in case the JWT is malformed.
+	 */
+	@Nullable
+	public static List<String> getClaimAsStringList(String jwt, String claimName) {
+		return new ClaimReader(payloadReader(jwt), PAYLOAD).getStringList(claimName);
+	}
+
+	/**
+	 * Returns the value of the given claim of the decoded JWT as list of strings.
+	 *
+	 * @param decodedJwt
+	 *            the decoded JWT.
+	 * @param claimName
+	 *            the name of the claim.
+	 * @return the elements of the array or a list with the single value of the
+	 *         claim or null, if the claim does not exist or is null. Elements
+	 *         that are JSON objects or arrays are skipped.
+	 * @throws IllegalArgumentException
+	 *             in case the payload is malformed.
+	 */
+	@Nullable
+	public static List<String> getClaimAsStringList(DecodedJwt decodedJwt, String claimName) {
+		Assertions.assertNotNull(decodedJwt, "decodedJwt must not be null");
+		return decodedJwt.getClaimAsStringList(claimName);
+	}
+
+	/**
+	 * Returns the value of the given member of the decoded JSON segment of a JWT
+	 * as string, see {@link #getClaimAsString(String, String)}.
+	 */
+	@Nullable
+	static String getClaimAsString(String json, String segment, String claimName) {
+		return new ClaimReader(new StringReader(json), segment).getString(claimName);
+	}
+
+	/**
+	 * Returns the value of the given member of the decoded JSON segment of a JWT
+	 * as list of strings, see {@link #getClaimAsStringList(String, String)}.
+	 */
+	@Nullable
+	static List<String> getClaimAsStringList(String json, String segment, String claimName) {
+		return new ClaimReader(new StringReader(json), segment).getStringList(claimName);
+	}
+
+	/**
+	 * Reads all members of the decoded JSON segment of a JWT at once. The values
+	 * are either strings or lists of strings, null values, objects and the objects
+	 * within arrays are omitted.
+	 */
+	static Map<String, Object> getClaims(String json, String segment) {
+		return new ClaimReader(new StringReader(json), segment).getClaims();
+	}
+
+	private static Reader payloadReader(String jwt) {
+		Assertions.assertNotNull(jwt, "JWT must not be null");
+
+		int payloadStart = jwt.indexOf('.') + 1;
+		int payloadEnd = payloadStart > 0 ? jwt.indexOf('.', payloadStart) : -1;
+		if (payloadEnd < 0 || jwt.indexOf('.', payloadEnd + 1) >= 0) {
+			throw new IllegalArgumentException("Failed to split JWT into exactly 3 parts");
+		}
+		InputStream payload = Base64.getUrlDecoder().wrap(new SegmentInputStream(jwt, payloadStart, payloadEnd));
+		return new InputStreamReader(payload, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the ASCII characters of a Base64 encoded segment of the JWT as bytes,
+	 * whereby characters of the standard Base64 alphabet are mapped to the URL
+	 * safe one.
+	 */
+	private static final class SegmentInputStream extends InputStream {
+		private final String jwt;
+		private final int end;
+		private int position;
+
+		SegmentInputStream(String jwt, int start, int end) {
+			this.jwt = jwt;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() {
+			if (position >= end) {
+				return -1;
+			}
+			char c = jwt.charAt(position++);
+			if (c == '+') {
+				return '-';
+			}
+			if (c == '/') {
+				return '_';
+			}
+			return c;
+		}
+	}
+
+	private static final class ClaimReader {
+		private static final int BUFFER_SIZE = 256;
+
+		private final JsonScanner scanner;
+		private final String segment;
+
+		ClaimReader(Reader reader, String segment) {
+			this.scanner = new JsonScanner(reader, segment, BUFFER_SIZE);
+			this.segment = segment;
+		}
+
+		boolean containsValue(String claimName, String value) {
+			try {
+				if (!findClaim(claimName)) {
+					return false;
+				}
+				if (!scanner.isArrayNext()) {
+					return value.equals(readScalar());
+				}
+				if (!scanner.beginArray()) {
+					return false;
+				}
+				do {
+					if (value.equals(readScalar())) {
+						return true; // skip the rest of the payload
+					}
+				} while (scanner.nextSeparator(']'));
+				return false;
+			} catch (IOException e) {
+				throw malformed(e);
+			}
+		}
+
+		String getString(String claimName) {
+			try {
+				return findClaim(claimName) ? readScalar() : null;
+			} catch (IOException e) {
+				throw malformed(e);
+			}
+		}
+
+		List<String> getStringList(String claimName) {
+			try {
+				if (!findClaim(claimName)) {
+					return null;
+				}
+				if (!scanner.isArrayNext()) {
+					String value = readScalar();
+					return value != null ? Collections.singletonList(value) : null;
+				}
+				return readList();
+			} catch (IOException e) {
+				throw malformed(e);
+			}
+		}
+
+		Map<String, Object> getClaims() {
+			try {
+				Map<String, Object> claims = new HashMap<>();
+				if (!scanner.beginObject()) {
+					return claims;
+				}
+				do {
+					String name = scanner.nextName();
+					Object value = scanner.isArrayNext() ? readList() : readScalar();
+					if (value != null) {
+						claims.put(name, value);
+					}
+				} while (scanner.nextSeparator('}'));
+				return claims;
+			} catch (IOException e) {
+				throw malformed(e);
+			}
+		}
+
+		/**
+		 * Reads the top level object up to the value of the given claim.
+		 *
+		 * @return true, if the claim was found, false if the end of the object was
+		 *         reached.
+		 */
+		private boolean findClaim(String claimName) throws IOException {
+			if (!scanner.beginObject()) {
+				return false;
+			}
+			do {
+				if (claimName.equals(scanner.nextName())) {
+					return true;
+				}
+				scanner.skipValue();
+			} while (scanner.nextSeparator('}'));
+			return false;
+		}
+
+		private List<String> readList() throws IOException {
+			List<String> values = new ArrayList<>();
+			if (!scanner.beginArray()) {
+				return values;
+			}
+			do {
+				String value = readScalar();
+				if (value != null) {
+					values.add(value);
+				}
+			} while (scanner.nextSeparator(']'));
+			return values;
+		}
+
+		/**
+		 * Reads a string, number, boolean or null value. JSON objects and arrays
+		 * are skipped.
+		 *
+		 * @return the value or null, in case of null values, objects or arrays.
+		 */
+		private String readScalar() throws IOException {
+			if (scanner.isStructureNext()) {
+				scanner.skipValue();
+				return null;
+			}
+			return scanner.nextScalar();
+		}
+
+		private IllegalArgumentException malformed(IOException e) {
+			return new IllegalArgumentException("Cannot parse JWT " + segment + ": " + e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,218 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+
+/**
+ * A builder for client credentials flows of many tenants (subdomains).
+ * Applications retrieve an instance of this builder from
+ * {@link XsuaaTokenFlows} and then create the flow request using a builder
+ * pattern.
+ * <p>
+ * The tokens are requested concurrently with the {@link AsyncOAuth2TokenService}
+ * of the {@link XsuaaTokenFlows}, so that the http client and the token cache of
+ * the underlying {@link OAuth2TokenService} are reused. At most
+ * {@link #maxParallelism(int)} requests are in flight at the same time. A
+ * failed request does not affect the requests of the other tenants.
+ * <p>
+ * The parallelism is also limited by the executor of the
+ * {@link AsyncOAuth2TokenService}. The shared executor of the
+ * {@link DefaultAsyncOAuth2TokenService} has
+ * {@link DefaultAsyncOAuth2TokenService#DEFAULT_POOL_SIZE} threads, further
+ * requests wait in its queue. Configure an {@link AsyncOAuth2TokenService} with
+ * a larger executor or give an {@link #executor(Executor)} for a higher
+ * parallelism.
+ *
+ * <pre>
+ * {@code
+ * Map<String, TokenFlowResult> tokens = tokenFlows.clientCredentialsBatchTokenFlow()
+ * 		.subdomains(subscribedSubdomains)
+ * 		.execute();
+ * }
+ * </pre>
+ */
+public class ClientCredentialsBatchTokenFlow {
+
+	/**
+	 * The default number of concurrent token requests.
+	 */
+	public static final int DEFAULT_MAX_PARALLELISM = DefaultAsyncOAuth2TokenService.DEFAULT_POOL_SIZE;
+
+	private final OAuth2TokenService tokenService;
+	private final AsyncOAuth2TokenService asyncTokenService;
+	private final OAuth2ServiceEndpointsProvider endpointsProvider;
+	private final ClientCredentials clientCredentials;
+
+	private Set<String> subdomains = new LinkedHashSet<>();
+	private Map<String, String> additionalAuthorizationAttributes;
+	private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+	private Executor executor;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the
+	 *            requests concurrently.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ClientCredentialsBatchTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "OAuth2TokenService must not be null.");
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.asyncTokenService = asyncTokenService;
+		this.endpointsProvider = endpointsProvider;
+		this.clientCredentials = clientCredentials;
+	}
+
+	/**
+	 * Sets the subdomains (tenants) the tokens are requested for. Duplicates are
+	 * requested only once.
+	 *
+	 * @param subdomains
+	 *            - the subdomains.
+	 * @return this builder.
+	 */
+	public ClientCredentialsBatchTokenFlow subdomains(Collection<String> subdomains) {
+		assertNotNull(subdomains, "subdomains must not be null.");
+		if (subdomains.contains(null)) {
+			throw new IllegalArgumentException("subdomains must not contain null.");
+		}
+		this.subdomains = new LinkedHashSet<>(subdomains);
+		return this;
+	}
+
+	/**
+	 * Adds additional authorization attributes to all requests. <br>
+	 * Clients can use this to request additional attributes in the
+	 * {@code 'az_attr'} claim of the returned tokens.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return this builder.
+	 */
+	public ClientCredentialsBatchTokenFlow attributes(Map<String, String> additionalAuthorizationAttributes) {
+		this.additionalAuthorizationAttributes = additionalAuthorizationAttributes;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of token requests that are in flight at the same
+	 * time. Defaults to {@link #DEFAULT_MAX_PARALLELISM}.
+	 *
+	 * @param maxParallelism
+	 *            - the maximum number of concurrent requests.
+	 * @return this builder.
+	 */
+	public ClientCredentialsBatchTokenFlow maxParallelism(int maxParallelism) {
+		if (maxParallelism <= 0) {
+			throw new IllegalArgumentException("maxParallelism must be greater than 0.");
+		}
+		this.maxParallelism = maxParallelism;
+		return this;
+	}
+
+	/**
+	 * Sets the executor the token requests of this batch are executed on. It
+	 * needs to be able to run {@link #maxParallelism(int)} requests concurrently.
+	 *
+	 * @param executor
+	 *            - the executor.
+	 * @return this builder.
+	 */
+	public ClientCredentialsBatchTokenFlow executor(Executor executor) {
+		assertNotNull(executor, "executor must not be null.");
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * Executes the client credentials flows of all subdomains and waits until all
+	 * of them are completed.
+	 *
+	 * @return the results by subdomain, in the order the subdomains were given.
+	 *         Each result contains either the token response or the
+	 *         {@link TokenFlowException} of the failed flow.
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 * @throws TokenFlowException
+	 *             - in case the calling thread was interrupted while waiting for
+	 *             the results.
+	 */
+	public Map<String, TokenFlowResult> execute() throws IllegalArgumentException, TokenFlowException {
+		return execute(executor == null ? asyncTokenService
+				: new DefaultAsyncOAuth2TokenService(tokenService, executor));
+	}
+
+	private Map<String, TokenFlowResult> execute(AsyncOAuth2TokenService asyncService)
+			throws TokenFlowException {
+		Semaphore permits = new Semaphore(maxParallelism);
+		Map<String, CompletableFuture<OAuth2TokenResponse>> pendingResponses = new LinkedHashMap<>();
+		try {
+			for (String subdomain : subdomains) {
+				permits.acquire();
+				CompletableFuture<OAuth2TokenResponse> response = createFlow(asyncService, subdomain)
+						.executeAsync();
+				response.whenComplete((tokenResponse, exception) -> permits.release());
+				pendingResponses.put(subdomain, response);
+			}
+			Map<String, TokenFlowResult> results = new LinkedHashMap<>();
+			for (Map.Entry<String, CompletableFuture<OAuth2TokenResponse>> response : pendingResponses.entrySet()) {
+				results.put(response.getKey(), await(response.getValue()));
+			}
+			return results;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pendingResponses.values().forEach(response -> response.cancel(false));
+			throw new TokenFlowException("Interrupted while requesting client credentials tokens.", e);
+		}
+	}
+
+	private ClientCredentialsTokenFlow createFlow(AsyncOAuth2TokenService asyncService, String subdomain) {
+		ClientCredentialsTokenFlow flow = new ClientCredentialsTokenFlow(tokenService, asyncService,
+				endpointsProvider, clientCredentials).subdomain(subdomain);
+		if (additionalAuthorizationAttributes != null) {
+			flow.attributes(additionalAuthorizationAttributes);
+		}
+		return flow;
+	}
+
+	private static TokenFlowResult await(CompletableFuture<OAuth2TokenResponse> response)
+			throws InterruptedException {
+		try {
+			return TokenFlowResult.success(response.get());
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			return TokenFlowResult.failure(cause instanceof TokenFlowException ? (TokenFlowException) cause
+					: new TokenFlowException("Error requesting client credentials token: " + cause.getMessage(),
+							cause));
+		}
+	}
+}
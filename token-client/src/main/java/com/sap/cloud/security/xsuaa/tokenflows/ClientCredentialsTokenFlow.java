@@ -2,11 +2,15 @@ package com.sap.cloud.security.xsuaa.tokenflows;
 
 import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
 import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
@@ -26,6 +30,7 @@ public class ClientCredentialsTokenFlow {
 
 	private XsuaaTokenFlowRequest request;
 	private OAuth2TokenService tokenService;
+	private AsyncOAuth2TokenService asyncTokenService;
 
 	/**
 	 * Creates a new instance.
@@ -45,11 +50,34 @@ public class ClientCredentialsTokenFlow {
 		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
 
 		this.tokenService = tokenService;
+		this.asyncTokenService = new DefaultAsyncOAuth2TokenService(tokenService);
 		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
 		this.request.setClientId(clientCredentials.getId());
 		this.request.setClientSecret(clientCredentials.getSecret());
 	}
 
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the final
+	 *            request asynchronously.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ClientCredentialsTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		this(tokenService, endpointsProvider, clientCredentials);
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+
+		this.asyncTokenService = asyncTokenService;
+	}
+
 	/**
 	 * Adds additional authorization attributes to the request. <br>
 	 * Clients can use this to request additional attributes in the
@@ -93,6 +121,26 @@ public class ClientCredentialsTokenFlow {
 		return requestTechnicalUserToken(request);
 	}
 
+	/**
+	 * Executes the token flow asynchronously and returns a JWT token from XSUAA.
+	 *
+	 * @return the future encoded OAuth access token returned by XSUAA, which
+	 *         completes exceptionally with a {@link TokenFlowException} in case of
+	 *         an error during the flow.
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync() throws IllegalArgumentException {
+		checkRequest(request);
+
+		return mapToTokenFlowException(asyncTokenService
+				.retrieveAccessTokenViaClientCredentialsGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()),
+						request.getSubdomain(), buildRequestParameter(request)),
+				"Error requesting user token with grant_type 'client_credentials': %s");
+	}
+
 	/**
 	 * Checks if the built request is valid. Throws an exception if not all
 	 * mandatory fields are filled.
@@ -120,19 +168,11 @@ public class ClientCredentialsTokenFlow {
 	 */
 	@Nullable
 	private OAuth2TokenResponse requestTechnicalUserToken(XsuaaTokenFlowRequest request) throws TokenFlowException {
-		Map requestParameter = null;
-		String authorities = buildAuthorities(request);
-
-		if (authorities != null) {
-			requestParameter = new HashMap();
-			requestParameter.put(AUTHORITIES, authorities); // places JSON inside the URI
-		}
-
 		try {
 			OAuth2TokenResponse accessToken = tokenService
 					.retrieveAccessTokenViaClientCredentialsGrant(request.getTokenEndpoint(),
 							new ClientCredentials(request.getClientId(), request.getClientSecret()),
-							request.getSubdomain(), requestParameter);
+							request.getSubdomain(), buildRequestParameter(request));
 			return accessToken;
 		} catch (OAuth2ServiceException e) {
 			throw new TokenFlowException(
@@ -141,4 +181,16 @@ public class ClientCredentialsTokenFlow {
 					e);
 		}
 	}
+
+	@Nullable
+	private Map<String, String> buildRequestParameter(XsuaaTokenFlowRequest request) {
+		Map<String, String> requestParameter = null;
+		String authorities = buildAuthorities(request);
+
+		if (authorities != null) {
+			requestParameter = new HashMap<>();
+			requestParameter.put(AUTHORITIES, authorities); // places JSON inside the URI
+		}
+		return requestParameter;
+	}
 }
@@ -0,0 +1,149 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAdditionalAuthoritiesJson;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+
+/**
+ * An immutable client credentials token flow, which is configured once and can
+ * be executed many times and concurrently. Unlike the
+ * {@link ClientCredentialsTokenFlow} builder, every configuration method
+ * returns a new template and leaves this one unchanged. <br>
+ * Applications retrieve an instance from {@link XsuaaTokenFlows}.
+ *
+ * <pre>
+ * {@code
+ * ClientCredentialsTokenFlowTemplate tenantFlow = tokenFlows.clientCredentialsTokenFlowTemplate()
+ * 		.subdomain("tenant");
+ *
+ * OAuth2TokenResponse token = tenantFlow.execute(); // from any thread
+ * }
+ * </pre>
+ */
+public final class ClientCredentialsTokenFlowTemplate {
+
+	private static final String AUTHORITIES = "authorities";
+	private static final String ERROR_MESSAGE = "Error requesting user token with grant_type 'client_credentials': %s";
+
+	private final OAuth2TokenService tokenService;
+	private final AsyncOAuth2TokenService asyncTokenService;
+	private final URI tokenEndpoint;
+	private final ClientCredentials clientCredentials;
+	private final String subdomain;
+	private final Map<String, String> optionalParameters;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the request
+	 *            asynchronously.
+	 * @param tokenEndpoint
+	 *            - the token endpoint
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ClientCredentialsTokenFlowTemplate(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			URI tokenEndpoint, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "OAuth2TokenService must not be null.");
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+		assertNotNull(tokenEndpoint, "Token endpoint must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.asyncTokenService = asyncTokenService;
+		this.tokenEndpoint = tokenEndpoint;
+		this.clientCredentials = clientCredentials;
+		this.subdomain = null;
+		this.optionalParameters = null;
+	}
+
+	private ClientCredentialsTokenFlowTemplate(ClientCredentialsTokenFlowTemplate template,
+			@Nullable String subdomain, @Nullable Map<String, String> optionalParameters) {
+		this.tokenService = template.tokenService;
+		this.asyncTokenService = template.asyncTokenService;
+		this.tokenEndpoint = template.tokenEndpoint;
+		this.clientCredentials = template.clientCredentials;
+		this.subdomain = subdomain;
+		this.optionalParameters = optionalParameters;
+	}
+
+	/**
+	 * Returns a template, which requests tokens of the given subdomain (tenant).
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return the new template.
+	 */
+	public ClientCredentialsTokenFlowTemplate subdomain(@Nullable String subdomain) {
+		return new ClientCredentialsTokenFlowTemplate(this, subdomain, optionalParameters);
+	}
+
+	/**
+	 * Returns a template, which requests tokens with the given additional
+	 * authorization attributes in the {@code 'az_attr'} claim.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return the new template.
+	 */
+	public ClientCredentialsTokenFlowTemplate attributes(
+			@Nullable Map<String, String> additionalAuthorizationAttributes) {
+		return new ClientCredentialsTokenFlowTemplate(this, subdomain,
+				buildOptionalParameters(additionalAuthorizationAttributes));
+	}
+
+	/**
+	 * Executes this flow against the XSUAA endpoint.
+	 *
+	 * @return the JWT instance returned by XSUAA.
+	 * @throws TokenFlowException
+	 *             - in case of an error during the flow.
+	 */
+	public OAuth2TokenResponse execute() throws TokenFlowException {
+		try {
+			return tokenService.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientCredentials,
+					subdomain, optionalParameters);
+		} catch (OAuth2ServiceException e) {
+			throw new TokenFlowException(String.format(ERROR_MESSAGE, e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Executes this flow asynchronously against the XSUAA endpoint.
+	 *
+	 * @return the future JWT instance returned by XSUAA, which completes
+	 *         exceptionally with a {@link TokenFlowException} in case of an error
+	 *         during the flow.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync() {
+		return mapToTokenFlowException(asyncTokenService.retrieveAccessTokenViaClientCredentialsGrant(
+				tokenEndpoint, clientCredentials, subdomain, optionalParameters), ERROR_MESSAGE);
+	}
+
+	@Nullable
+	static Map<String, String> buildOptionalParameters(@Nullable Map<String, String> attributes) {
+		if (attributes == null) {
+			return null;
+		}
+		Map<String, String> optionalParameters = new HashMap<>();
+		optionalParameters.put(AUTHORITIES, buildAdditionalAuthoritiesJson(attributes));
+		return Collections.unmodifiableMap(optionalParameters);
+	}
+}
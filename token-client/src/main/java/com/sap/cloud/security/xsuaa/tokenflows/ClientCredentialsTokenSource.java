@@ -0,0 +1,368 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
+
+/**
+ * Keeps a valid client credentials token per subdomain (tenant) and additional
+ * authorization attributes. The tokens are requested with the
+ * {@link ClientCredentialsTokenFlow} of the given {@link XsuaaTokenFlows} and
+ * refreshed in the background, after a fraction ({@link #DEFAULT_REFRESH_RATIO}
+ * by default) of their lifetime, as given by their {@code exp} claim, has
+ * passed. Hence {@link #get(String, Map)} only waits for the OAuth server on the
+ * first use of a subdomain, or in case the token has expired because the
+ * background refreshes failed.
+ * <p>
+ * The tokens are requested with the uncached token services the
+ * {@link XsuaaTokenFlows} were created with, as a
+ * {@link com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService} would
+ * otherwise return the same token on a refresh.
+ * <p>
+ * Tokens that were not requested for longer than the idle timeout are not
+ * refreshed anymore but removed on their next refresh.
+ *
+ * <pre>
+ * {@code
+ * ClientCredentialsTokenSource tokenSource = new ClientCredentialsTokenSource(tokenFlows);
+ * OAuth2TokenResponse clientCredentialsToken = tokenSource.get(jwtToken.getSubdomain());
+ * ...
+ * tokenSource.close();
+ * }
+ * </pre>
+ */
+public class ClientCredentialsTokenSource implements AutoCloseable {
+
+	public static final double DEFAULT_REFRESH_RATIO = 0.75;
+	public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+	static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+	private static final Logger logger = LoggerFactory.getLogger(ClientCredentialsTokenSource.class);
+
+	private final XsuaaTokenFlows tokenFlows;
+	private final double refreshRatio;
+	private final Duration idleTimeout;
+	private final ScheduledExecutorService scheduler;
+	private final boolean ownsScheduler;
+	private final Clock clock;
+	private final Base64JwtDecoder jwtDecoder = new Base64JwtDecoder();
+	private final ConcurrentMap<TokenKey, ManagedToken> tokens = new ConcurrentHashMap<>();
+	private volatile boolean closed;
+
+	/**
+	 * Creates a token source that refreshes the tokens after
+	 * {@link #DEFAULT_REFRESH_RATIO} of their lifetime and removes tokens that were
+	 * not requested for {@link #DEFAULT_IDLE_TIMEOUT}.
+	 *
+	 * @param tokenFlows
+	 *            the token flows used to request the tokens.
+	 */
+	public ClientCredentialsTokenSource(@Nonnull XsuaaTokenFlows tokenFlows) {
+		this(tokenFlows, DEFAULT_REFRESH_RATIO, DEFAULT_IDLE_TIMEOUT);
+	}
+
+	/**
+	 * Creates a token source, which refreshes the tokens on a dedicated daemon
+	 * thread, that is stopped with {@link #close()}.
+	 *
+	 * @param tokenFlows
+	 *            the token flows used to request the tokens.
+	 * @param refreshRatio
+	 *            the fraction of the lifetime ({@code exp}) of a token,
+	 *            after which it is refreshed. Must be greater than 0 and less than
+	 *            1.
+	 * @param idleTimeout
+	 *            the time after which a token that was not requested anymore is
+	 *            removed.
+	 */
+	public ClientCredentialsTokenSource(@Nonnull XsuaaTokenFlows tokenFlows, double refreshRatio,
+			@Nonnull Duration idleTimeout) {
+		this(tokenFlows, refreshRatio, idleTimeout, Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "xsuaa-token-refresh");
+			thread.setDaemon(true);
+			return thread;
+		}), true, Clock.systemUTC());
+	}
+
+	/**
+	 * Creates a token source, which refreshes the tokens on the given scheduler.
+	 * The scheduler is not shut down by {@link #close()}.
+	 *
+	 * @param tokenFlows
+	 *            the token flows used to request the tokens.
+	 * @param refreshRatio
+	 *            the fraction of the lifetime ({@code exp}) of a token,
+	 *            after which it is refreshed. Must be greater than 0 and less than
+	 *            1.
+	 * @param idleTimeout
+	 *            the time after which a token that was not requested anymore is
+	 *            removed.
+	 * @param scheduler
+	 *            the scheduler the refreshes are executed on.
+	 */
+	public ClientCredentialsTokenSource(@Nonnull XsuaaTokenFlows tokenFlows, double refreshRatio,
+			@Nonnull Duration idleTimeout, @Nonnull ScheduledExecutorService scheduler) {
+		this(tokenFlows, refreshRatio, idleTimeout, scheduler, false, Clock.systemUTC());
+	}
+
+	ClientCredentialsTokenSource(XsuaaTokenFlows tokenFlows, double refreshRatio, Duration idleTimeout,
+			ScheduledExecutorService scheduler, boolean ownsScheduler, Clock clock) {
+		assertNotNull(tokenFlows, "tokenFlows is required");
+		assertNotNull(idleTimeout, "idleTimeout is required");
+		assertNotNull(scheduler, "scheduler is required");
+		if (!(refreshRatio > 0 && refreshRatio < 1)) {
+			throw new IllegalArgumentException("refreshRatio must be greater than 0 and less than 1");
+		}
+		if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+			throw new IllegalArgumentException("idleTimeout must be greater than 0");
+		}
+		this.tokenFlows = tokenFlows;
+		this.refreshRatio = refreshRatio;
+		this.idleTimeout = idleTimeout;
+		this.scheduler = scheduler;
+		this.ownsScheduler = ownsScheduler;
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the client credentials token of the given subdomain.
+	 *
+	 * @param subdomain
+	 *            the subdomain (tenant) or null for the subdomain of the token
+	 *            endpoint.
+	 * @return the client credentials token.
+	 * @throws TokenFlowException
+	 *             in case the token cannot be requested.
+	 */
+	public OAuth2TokenResponse get(@Nullable String subdomain) throws TokenFlowException {
+		return get(subdomain, null);
+	}
+
+	/**
+	 * Returns the client credentials token of the given subdomain and additional
+	 * authorization attributes.
+	 *
+	 * @param subdomain
+	 *            the subdomain (tenant) or null for the subdomain of the token
+	 *            endpoint.
+	 * @param additionalAuthorizationAttributes
+	 *            the additional attributes or null.
+	 * @return the client credentials token.
+	 * @throws TokenFlowException
+	 *             in case the token cannot be requested.
+	 */
+	public OAuth2TokenResponse get(@Nullable String subdomain,
+			@Nullable Map<String, String> additionalAuthorizationAttributes) throws TokenFlowException {
+		if (closed) {
+			throw new IllegalStateException("ClientCredentialsTokenSource is closed");
+		}
+		TokenKey key = new TokenKey(subdomain, additionalAuthorizationAttributes);
+		ManagedToken token = tokens.get(key);
+		if (token == null) {
+			token = tokens.computeIfAbsent(key, ManagedToken::new);
+		}
+		return token.get();
+	}
+
+	/**
+	 * Stops refreshing and removes all tokens. A scheduler that was created by
+	 * this token source is shut down.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		tokens.values().forEach(ManagedToken::cancelRefresh);
+		tokens.clear();
+		if (ownsScheduler) {
+			scheduler.shutdownNow();
+		}
+	}
+
+	int getTokenCount() {
+		return tokens.size();
+	}
+
+	private class ManagedToken {
+		private final TokenKey key;
+		private final AtomicReference<CompletableFuture<OAuth2TokenResponse>> current = new AtomicReference<>();
+		private volatile Instant lastAccess;
+		private ScheduledFuture<?> scheduledRefresh;
+
+		ManagedToken(TokenKey key) {
+			this.key = key;
+			this.lastAccess = clock.instant();
+		}
+
+		OAuth2TokenResponse get() throws TokenFlowException {
+			lastAccess = clock.instant();
+			CompletableFuture<OAuth2TokenResponse> response = current.get();
+			if (response == null || isUnusable(response)) {
+				response = load(response);
+			}
+			return await(response);
+		}
+
+		private CompletableFuture<OAuth2TokenResponse> load(CompletableFuture<OAuth2TokenResponse> expected) {
+			CompletableFuture<OAuth2TokenResponse> pendingResponse = new CompletableFuture<>();
+			if (!current.compareAndSet(expected, pendingResponse)) {
+				return current.get(); // loaded by another thread
+			}
+			try {
+				OAuth2TokenResponse tokenResponse = request();
+				pendingResponse.complete(tokenResponse);
+				scheduleRefresh(tokenResponse);
+			} catch (TokenFlowException | RuntimeException e) {
+				tokens.remove(key, this);
+				cancelRefresh();
+				pendingResponse.completeExceptionally(e);
+			}
+			return pendingResponse;
+		}
+
+		private void refresh() {
+			if (closed) {
+				return;
+			}
+			if (lastAccess.plus(idleTimeout).isBefore(clock.instant())) {
+				logger.debug("Removes idle client credentials token of subdomain {}.", key.subdomain);
+				tokens.remove(key, this);
+				return;
+			}
+			try {
+				OAuth2TokenResponse tokenResponse = request();
+				current.set(CompletableFuture.completedFuture(tokenResponse));
+				scheduleRefresh(tokenResponse);
+			} catch (TokenFlowException | RuntimeException e) {
+				logger.warn("Cannot refresh client credentials token of subdomain {}, retries in {} ms: {}",
+						key.subdomain, RETRY_DELAY.toMillis(), e.getMessage());
+				schedule(RETRY_DELAY);
+			}
+		}
+
+		private OAuth2TokenResponse request() throws TokenFlowException {
+			ClientCredentialsTokenFlow flow = tokenFlows.uncachedClientCredentialsTokenFlow().subdomain(key.subdomain);
+			if (key.attributes != null) {
+				flow.attributes(key.attributes);
+			}
+			return flow.execute();
+		}
+
+		private void scheduleRefresh(OAuth2TokenResponse tokenResponse) {
+			long expiresInMillis = Math.max(0,
+					getExpiration(tokenResponse).toEpochMilli() - clock.instant().toEpochMilli());
+			schedule(Duration.ofMillis((long) (expiresInMillis * refreshRatio)));
+		}
+
+		private synchronized void schedule(Duration delay) {
+			if (closed) {
+				return;
+			}
+			cancelRefresh();
+			try {
+				scheduledRefresh = scheduler.schedule(this::refresh, delay.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				logger.warn("Cannot schedule refresh of client credentials token of subdomain {}: {}",
+						key.subdomain, e.getMessage());
+			}
+		}
+
+		synchronized void cancelRefresh() {
+			if (scheduledRefresh != null) {
+				scheduledRefresh.cancel(false);
+				scheduledRefresh = null;
+			}
+		}
+
+		private Instant getExpiration(OAuth2TokenResponse tokenResponse) {
+			try {
+				Instant expiration = jwtDecoder.decode(tokenResponse.getAccessToken()).getExpiration();
+				if (expiration != null) {
+					return expiration;
+				}
+			} catch (IllegalArgumentException e) {
+				logger.debug("Cannot read exp claim of client credentials token, uses expires_in: {}",
+						e.getMessage());
+			}
+			return tokenResponse.getExpiredAt();
+		}
+
+		private boolean isUnusable(CompletableFuture<OAuth2TokenResponse> response) {
+			if (!response.isDone()) {
+				return false; // first request is in flight
+			}
+			return response.isCompletedExceptionally()
+					|| !response.join().getExpiredAt().isAfter(clock.instant());
+		}
+
+		private OAuth2TokenResponse await(CompletableFuture<OAuth2TokenResponse> response)
+				throws TokenFlowException {
+			try {
+				return response.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new TokenFlowException("Interrupted while waiting for client credentials token.", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof TokenFlowException) {
+					throw (TokenFlowException) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new TokenFlowException("Error requesting client credentials token: " + e.getCause().getMessage(),
+						e.getCause());
+			}
+		}
+	}
+
+	private static class TokenKey {
+		private final String subdomain;
+		private final Map<String, String> attributes;
+
+		TokenKey(String subdomain, Map<String, String> attributes) {
+			this.subdomain = subdomain;
+			this.attributes = attributes == null ? null : Collections.unmodifiableMap(new HashMap<>(attributes));
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (other == null || getClass() != other.getClass()) {
+				return false;
+			}
+			TokenKey that = (TokenKey) other;
+			return Objects.equals(subdomain, that.subdomain) && Objects.equals(attributes, that.attributes);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(subdomain, attributes);
+		}
+	}
+}
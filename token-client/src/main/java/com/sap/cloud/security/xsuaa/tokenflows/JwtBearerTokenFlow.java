@@ -0,0 +1,183 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.GRANT_TYPE_JWT_BEARER;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+
+/**
+ * A jwt bearer token flow builder class. It exchanges a user token for a token
+ * of the OAuth client of the {@link XsuaaTokenFlows} with a single request
+ * using the {@code urn:ietf:params:oauth:grant-type:jwt-bearer} grant, whereas
+ * the {@link UserTokenFlow} requires two requests. <br>
+ * Applications retrieve an instance of this builder from
+ * {@link XsuaaTokenFlows} and then create the flow request using a builder
+ * pattern.
+ */
+public class JwtBearerTokenFlow {
+
+	private static final String AUTHORITIES = "authorities";
+	private static final String ERROR_MESSAGE = "Error requesting token with grant_type '"
+			+ GRANT_TYPE_JWT_BEARER + "': %s";
+
+	private XsuaaTokenFlowRequest request;
+	private String token;
+	private OAuth2TokenService tokenService;
+	private AsyncOAuth2TokenService asyncTokenService;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the final
+	 *            request asynchronously.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	JwtBearerTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "OAuth2TokenService must not be null.");
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.asyncTokenService = asyncTokenService;
+		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
+		this.request.setClientId(clientCredentials.getId());
+		this.request.setClientSecret(clientCredentials.getSecret());
+	}
+
+	/**
+	 * Sets the JWT token that should be exchanged for another JWT token.
+	 *
+	 * @param token
+	 *            - the JWT token.
+	 * @return this builder object.
+	 */
+	public JwtBearerTokenFlow token(String token) {
+		assertNotNull(token, "Token must not be null.");
+		this.token = token;
+		return this;
+	}
+
+	/**
+	 * Adds additional authorization attributes to the request. <br>
+	 * Clients can use this to request additional attributes in the
+	 * {@code 'az_attr'} claim of the returned token.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return this builder.
+	 */
+	public JwtBearerTokenFlow attributes(Map<String, String> additionalAuthorizationAttributes) {
+		this.request.setAdditionalAuthorizationAttributes(additionalAuthorizationAttributes);
+		return this;
+	}
+
+	/**
+	 * Sets the subdomain (tenant) the token is requested for.<br>
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public JwtBearerTokenFlow subdomain(String subdomain) {
+		this.request.setSubdomain(subdomain);
+		return this;
+	}
+
+	/**
+	 * Executes this flow against the XSUAA endpoint. As a result the exchanged JWT
+	 * token is returned.
+	 *
+	 * @return the JWT instance returned by XSUAA.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 * @throws TokenFlowException
+	 *             - in case of an error during the flow.
+	 */
+	public OAuth2TokenResponse execute() throws TokenFlowException {
+		checkRequest();
+
+		try {
+			return tokenService.retrieveAccessTokenViaJwtBearerTokenGrant(request.getTokenEndpoint(),
+					new ClientCredentials(request.getClientId(), request.getClientSecret()), token,
+					request.getSubdomain(), buildOptionalParameter(request));
+		} catch (OAuth2ServiceException e) {
+			throw new TokenFlowException(String.format(ERROR_MESSAGE, e.getMessage()), e);
+		}
+	}
+
+	/**
+	 * Executes this flow asynchronously against the XSUAA endpoint. As a result
+	 * the exchanged JWT token is returned.
+	 *
+	 * @return the future JWT instance returned by XSUAA, which completes
+	 *         exceptionally with a {@link TokenFlowException} in case of an error
+	 *         during the flow.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync() {
+		checkRequest();
+
+		return mapToTokenFlowException(asyncTokenService
+				.retrieveAccessTokenViaJwtBearerTokenGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()), token,
+						request.getSubdomain(), buildOptionalParameter(request)),
+				ERROR_MESSAGE);
+	}
+
+	/**
+	 * Checks that all mandatory fields of the token flow request have been set.
+	 *
+	 * @throws IllegalStateException
+	 *             - in case the token has not been set.
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	private void checkRequest() {
+		if (token == null) {
+			throw new IllegalStateException(
+					"User token not set. Make sure to have called the token() method on JwtBearerTokenFlow builder.");
+		}
+		if (!request.isValid()) {
+			throw new IllegalArgumentException(
+					"Jwt bearer token flow request is not valid. Make sure all mandatory fields are set.");
+		}
+	}
+
+	@Nullable
+	private Map<String, String> buildOptionalParameter(XsuaaTokenFlowRequest request) {
+		Map<String, String> optionalParameter = null;
+		String authorities = buildAuthorities(request);
+
+		if (authorities != null) {
+			optionalParameter = new HashMap<>();
+			optionalParameter.put(AUTHORITIES, authorities);
+		}
+		return optionalParameter;
+	}
+}
@@ -5,9 +5,13 @@ import com.sap.cloud.security.xsuaa.client.*;
 
 import javax.annotation.Nonnull;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
 
 public class PasswordTokenFlow {
 	private final OAuth2TokenService tokenService;
+	private final AsyncOAuth2TokenService asyncTokenService;
 	private final OAuth2ServiceEndpointsProvider endpointsProvider;
 	private final ClientCredentials clientCredentials;
 	private String username;
@@ -18,10 +22,20 @@ public class PasswordTokenFlow {
 	public PasswordTokenFlow(@Nonnull OAuth2TokenService tokenService,
 			@Nonnull OAuth2ServiceEndpointsProvider endpointsProvider,
 			@Nonnull ClientCredentials clientCredentials) {
+		this(tokenService, tokenService == null ? null : new DefaultAsyncOAuth2TokenService(tokenService),
+				endpointsProvider, clientCredentials);
+	}
+
+	public PasswordTokenFlow(@Nonnull OAuth2TokenService tokenService,
+			@Nonnull AsyncOAuth2TokenService asyncTokenService,
+			@Nonnull OAuth2ServiceEndpointsProvider endpointsProvider,
+			@Nonnull ClientCredentials clientCredentials) {
 		Assertions.assertNotNull(tokenService, "OAuth2TokenService must not be null!");
+		Assertions.assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null!");
 		Assertions.assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null!");
 		Assertions.assertNotNull(clientCredentials, "ClientCredentials must not be null!");
 		this.tokenService = tokenService;
+		this.asyncTokenService = asyncTokenService;
 		this.endpointsProvider = endpointsProvider;
 		this.clientCredentials = clientCredentials;
 	}
@@ -53,6 +67,26 @@ public class PasswordTokenFlow {
 		}
 	}
 
+	/**
+	 * Executes this flow asynchronously against the XSUAA endpoint. As a result
+	 * the exchanged JWT token is returned.
+	 *
+	 * @return the future JWT instance returned by XSUAA, which completes
+	 *         exceptionally with a {@link TokenFlowException} in case of an error
+	 *         during the flow, or when the token cannot be obtained.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync() {
+		checkParameter(username, "Username must be set!");
+		checkParameter(password, "Password must be set!");
+		return mapToTokenFlowException(asyncTokenService
+				.retrieveAccessTokenViaPasswordGrant(endpointsProvider.getTokenEndpoint(), clientCredentials,
+						username, password, subdomain, optionalParameters),
+				"Error requesting user token with grant_type 'password': %s");
+	}
+
 	/**
 	 * The password for the user trying to get a token. This is a required
 	 * parameter.
@@ -0,0 +1,109 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A reactive client credentials flow builder class. Applications retrieve an
+ * instance of this builder from {@link ReactiveXsuaaTokenFlows} and then create
+ * the flow request using a builder pattern.
+ */
+public class ReactiveClientCredentialsTokenFlow {
+
+	private static final String AUTHORITIES = "authorities";
+
+	private XsuaaTokenFlowRequest request;
+	private ReactiveOAuth2TokenService tokenService;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link ReactiveOAuth2TokenService} used to execute the
+	 *            final request.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ReactiveClientCredentialsTokenFlow(ReactiveOAuth2TokenService tokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
+		this.request.setClientId(clientCredentials.getId());
+		this.request.setClientSecret(clientCredentials.getSecret());
+	}
+
+	/**
+	 * Adds additional authorization attributes to the request. <br>
+	 * Clients can use this to request additional attributes in the
+	 * {@code 'az_attr'} claim of the returned token.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return this builder.
+	 */
+	public ReactiveClientCredentialsTokenFlow attributes(Map<String, String> additionalAuthorizationAttributes) {
+		request.setAdditionalAuthorizationAttributes(additionalAuthorizationAttributes);
+		return this;
+	}
+
+	/**
+	 * Sets the subdomain (tenant) the token is requested for.<br>
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public ReactiveClientCredentialsTokenFlow subdomain(String subdomain) {
+		request.setSubdomain(subdomain);
+		return this;
+	}
+
+	/**
+	 * Executes the token flow and returns a JWT token from XSUAA.
+	 *
+	 * @return the encoded OAuth access token returned by XSUAA, or a
+	 *         {@link TokenFlowException} in case of an error during the flow.
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public Mono<OAuth2TokenResponse> execute() throws IllegalArgumentException {
+		if (!request.isValid()) {
+			throw new IllegalArgumentException(
+					"Client credentials flow request is not valid. Make sure all mandatory fields are set.");
+		}
+
+		Map<String, String> requestParameter = null;
+		String authorities = buildAuthorities(request);
+		if (authorities != null) {
+			requestParameter = new HashMap<>();
+			requestParameter.put(AUTHORITIES, authorities); // places JSON inside the URI
+		}
+
+		return tokenService
+				.retrieveAccessTokenViaClientCredentialsGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()),
+						request.getSubdomain(), requestParameter)
+				.onErrorMap(OAuth2ServiceException.class, e -> new TokenFlowException(
+						String.format("Error requesting user token with grant_type 'client_credentials': %s",
+								e.getMessage()),
+						e));
+	}
+}
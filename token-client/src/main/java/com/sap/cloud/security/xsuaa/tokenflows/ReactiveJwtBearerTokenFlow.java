@@ -0,0 +1,133 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.GRANT_TYPE_JWT_BEARER;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A reactive jwt bearer token flow builder class, the reactive counterpart of
+ * {@link JwtBearerTokenFlow}. <br>
+ * Applications retrieve an instance of this builder from
+ * {@link ReactiveXsuaaTokenFlows} and then create the flow request using a
+ * builder pattern.
+ */
+public class ReactiveJwtBearerTokenFlow {
+
+	private static final String AUTHORITIES = "authorities";
+
+	private XsuaaTokenFlowRequest request;
+	private String token;
+	private ReactiveOAuth2TokenService tokenService;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link ReactiveOAuth2TokenService} used to execute the
+	 *            final request.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ReactiveJwtBearerTokenFlow(ReactiveOAuth2TokenService tokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
+		this.request.setClientId(clientCredentials.getId());
+		this.request.setClientSecret(clientCredentials.getSecret());
+	}
+
+	/**
+	 * Sets the JWT token that should be exchanged for another JWT token.
+	 *
+	 * @param token
+	 *            - the JWT token.
+	 * @return this builder object.
+	 */
+	public ReactiveJwtBearerTokenFlow token(String token) {
+		assertNotNull(token, "Token must not be null.");
+		this.token = token;
+		return this;
+	}
+
+	/**
+	 * Adds additional authorization attributes to the request. <br>
+	 * Clients can use this to request additional attributes in the
+	 * {@code 'az_attr'} claim of the returned token.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return this builder.
+	 */
+	public ReactiveJwtBearerTokenFlow attributes(Map<String, String> additionalAuthorizationAttributes) {
+		this.request.setAdditionalAuthorizationAttributes(additionalAuthorizationAttributes);
+		return this;
+	}
+
+	/**
+	 * Sets the subdomain (tenant) the token is requested for.<br>
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public ReactiveJwtBearerTokenFlow subdomain(String subdomain) {
+		this.request.setSubdomain(subdomain);
+		return this;
+	}
+
+	/**
+	 * Executes this flow against the XSUAA endpoint. As a result the exchanged JWT
+	 * token is returned.
+	 *
+	 * @return the JWT instance returned by XSUAA, or a {@link TokenFlowException}
+	 *         in case of an error during the flow.
+	 * @throws IllegalStateException
+	 *             - in case the user token has not been set.
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public Mono<OAuth2TokenResponse> execute() throws IllegalStateException, IllegalArgumentException {
+		if (token == null) {
+			throw new IllegalStateException(
+					"User token not set. Make sure to have called the token() method on ReactiveJwtBearerTokenFlow builder.");
+		}
+		if (!request.isValid()) {
+			throw new IllegalArgumentException(
+					"Jwt bearer token flow request is not valid. Make sure all mandatory fields are set.");
+		}
+
+		Map<String, String> optionalParameter = null;
+		String authorities = buildAuthorities(request);
+		if (authorities != null) {
+			optionalParameter = new HashMap<>();
+			optionalParameter.put(AUTHORITIES, authorities);
+		}
+
+		return tokenService
+				.retrieveAccessTokenViaJwtBearerTokenGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()),
+						token, request.getSubdomain(), optionalParameter)
+				.onErrorMap(OAuth2ServiceException.class, e -> new TokenFlowException(
+						String.format("Error requesting token with grant_type '%s': %s", GRANT_TYPE_JWT_BEARER,
+								e.getMessage()),
+						e));
+	}
+}
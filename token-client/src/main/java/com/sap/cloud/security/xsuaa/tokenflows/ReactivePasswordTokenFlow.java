@@ -0,0 +1,111 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import com.sap.cloud.security.xsuaa.Assertions;
+import com.sap.cloud.security.xsuaa.client.*;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * A reactive password token flow builder class. Applications retrieve an
+ * instance of this builder from {@link ReactiveXsuaaTokenFlows}.
+ */
+public class ReactivePasswordTokenFlow {
+	private final ReactiveOAuth2TokenService tokenService;
+	private final OAuth2ServiceEndpointsProvider endpointsProvider;
+	private final ClientCredentials clientCredentials;
+	private String username;
+	private String password;
+	private String subdomain;
+	private Map<String, String> optionalParameters;
+
+	public ReactivePasswordTokenFlow(@Nonnull ReactiveOAuth2TokenService tokenService,
+			@Nonnull OAuth2ServiceEndpointsProvider endpointsProvider,
+			@Nonnull ClientCredentials clientCredentials) {
+		Assertions.assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null!");
+		Assertions.assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null!");
+		Assertions.assertNotNull(clientCredentials, "ClientCredentials must not be null!");
+		this.tokenService = tokenService;
+		this.endpointsProvider = endpointsProvider;
+		this.clientCredentials = clientCredentials;
+	}
+
+	/**
+	 * Executes this flow against the XSUAA endpoint. As a result the exchanged JWT
+	 * token is returned.
+	 *
+	 * @return the JWT instance returned by XSUAA, or a {@link TokenFlowException}
+	 *         in case of an error during the flow, or when the token cannot be
+	 *         obtained.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public Mono<OAuth2TokenResponse> execute() {
+		checkParameter(username, "Username must be set!");
+		checkParameter(password, "Password must be set!");
+		return tokenService
+				.retrieveAccessTokenViaPasswordGrant(endpointsProvider.getTokenEndpoint(), clientCredentials,
+						username, password, subdomain, optionalParameters)
+				.onErrorMap(OAuth2ServiceException.class, e -> new TokenFlowException(
+						String.format("Error requesting user token with grant_type 'password': %s", e.getMessage()),
+						e));
+	}
+
+	/**
+	 * The password for the user trying to get a token. This is a required
+	 * parameter.
+	 *
+	 * @param password
+	 *            - the password.
+	 * @return this builder.
+	 */
+	public ReactivePasswordTokenFlow password(String password) {
+		this.password = password;
+		return this;
+	}
+
+	/**
+	 * The username for the user trying to get a token. This is a required
+	 * parameter.
+	 *
+	 * @param username
+	 *            - the username.
+	 * @return this builder.
+	 */
+	public ReactivePasswordTokenFlow username(String username) {
+		this.username = username;
+		return this;
+	}
+
+	/**
+	 * Set the Subdomain the token is requested for.
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public ReactivePasswordTokenFlow subdomain(String subdomain) {
+		this.subdomain = subdomain;
+		return this;
+	}
+
+	/**
+	 * Adds additional parameters to the request.
+	 *
+	 * @param optionalParameters
+	 *            - the additional parameters.
+	 * @return this builder.
+	 */
+	public ReactivePasswordTokenFlow optionalParameters(Map<String, String> optionalParameters) {
+		this.optionalParameters = optionalParameters;
+		return this;
+	}
+
+	private void checkParameter(String parameter, String message) {
+		if (parameter == null) {
+			throw new IllegalStateException(message);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A reactive refresh token flow builder. <br>
+ * Applications can use this flow exchange a given refresh token for a
+ * (refreshed) JWT token.
+ */
+public class ReactiveRefreshTokenFlow {
+
+	private XsuaaTokenFlowRequest request;
+	private String refreshToken;
+	private ReactiveOAuth2TokenService tokenService;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link ReactiveOAuth2TokenService} used to execute the
+	 *            final request.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ReactiveRefreshTokenFlow(ReactiveOAuth2TokenService tokenService, OAuth2ServiceEndpointsProvider endpointsProvider,
+			ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
+		this.request.setClientId(clientCredentials.getId());
+		this.request.setClientSecret(clientCredentials.getSecret());
+	}
+
+	/**
+	 * Sets the subdomain (tenant) the token is requested for.<br>
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public ReactiveRefreshTokenFlow subdomain(String subdomain) {
+		request.setSubdomain(subdomain);
+		return this;
+	}
+
+	/**
+	 * Sets the mandatory refresh token to be exchanged for a (refreshed) JWT.
+	 *
+	 * @param refreshToken
+	 *            - the refresh token to be exchanged for a JWT.
+	 * @return this builder object.
+	 */
+	public ReactiveRefreshTokenFlow refreshToken(String refreshToken) {
+		assertNotNull(refreshToken, "RefreshToken must not be null.");
+		this.refreshToken = refreshToken;
+		return this;
+	}
+
+	/**
+	 * Executes the refresh token flow against XSUAA.
+	 *
+	 * @return the refreshed OAuth access token returned by XSUAA or a
+	 *         {@link TokenFlowException} in case the token could not be
+	 *         refreshed.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 * @throws IllegalArgumentException
+	 *             - in case the refresh token flow request is not valid.
+	 */
+	public Mono<OAuth2TokenResponse> execute() throws IllegalStateException, IllegalArgumentException {
+		if (refreshToken == null) {
+			throw new IllegalStateException(
+					"Refresh token not set. Make sure to have called the refreshToken() method on ReactiveRefreshTokenFlow builder.");
+		}
+		if (!request.isValid()) {
+			throw new IllegalArgumentException(
+					"Refresh token flow request is not valid. Make sure all mandatory fields are set.");
+		}
+
+		return tokenService.retrieveAccessTokenViaRefreshToken(request.getTokenEndpoint(),
+				new ClientCredentials(request.getClientId(), request.getClientSecret()), refreshToken,
+				request.getSubdomain())
+				.onErrorMap(OAuth2ServiceException.class, e -> new TokenFlowException(
+						String.format("Error refreshing token with grant_type 'refresh_token': %s", e.getMessage()),
+						e));
+	}
+}
@@ -0,0 +1,156 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.UAA_USER_SCOPE;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.hasScope;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A reactive user token flow builder class. <br>
+ * Applications retrieve an instance of this builder from
+ * {@link ReactiveXsuaaTokenFlows} and then create the flow request using a
+ * builder pattern.
+ */
+public class ReactiveUserTokenFlow {
+
+	private static final String AUTHORITIES = "authorities";
+
+	private XsuaaTokenFlowRequest request;
+	private String token;
+	private ReactiveRefreshTokenFlow refreshTokenFlow;
+	private ReactiveOAuth2TokenService tokenService;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link ReactiveOAuth2TokenService} used to execute the
+	 *            final request.
+	 * @param refreshTokenFlow
+	 *            - the refresh token flow
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	ReactiveUserTokenFlow(ReactiveOAuth2TokenService tokenService, ReactiveRefreshTokenFlow refreshTokenFlow,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null.");
+		assertNotNull(refreshTokenFlow, "ReactiveRefreshTokenFlow must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.refreshTokenFlow = refreshTokenFlow;
+		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
+		this.request.setClientId(clientCredentials.getId());
+		this.request.setClientSecret(clientCredentials.getSecret());
+	}
+
+	/**
+	 * Sets the JWT token that should be exchanged for another JWT token.
+	 *
+	 * @param token
+	 *            - the JWT token.
+	 * @return this builder object.
+	 */
+	public ReactiveUserTokenFlow token(String token) {
+		assertNotNull(token, "Token must not be null.");
+		this.token = token;
+		return this;
+	}
+
+	/**
+	 * Adds additional authorization attributes to the request. <br>
+	 * Clients can use this to request additional attributes in the
+	 * {@code 'az_attr'} claim of the returned token.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return this builder.
+	 */
+	public ReactiveUserTokenFlow attributes(Map<String, String> additionalAuthorizationAttributes) {
+		this.request.setAdditionalAuthorizationAttributes(additionalAuthorizationAttributes);
+		return this;
+	}
+
+	/**
+	 * Sets the subdomain (tenant) the token is requested for.<br>
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return this builder.
+	 */
+	public ReactiveUserTokenFlow subdomain(String subdomain) {
+		this.request.setSubdomain(subdomain);
+		this.refreshTokenFlow.subdomain(subdomain);
+		return this;
+	}
+
+	/**
+	 * Executes this flow against the XSUAA endpoint. As a result the exchanged JWT
+	 * token is returned. <br>
+	 * Note, that in a standard flow, only the refresh token would be returned.
+	 *
+	 * @return the JWT instance returned by XSUAA, or a {@link TokenFlowException}
+	 *         in case of an error during the flow, or when the token cannot be
+	 *         refreshed.
+	 * @throws IllegalStateException
+	 *             - in case the user token has not been set or does not include
+	 *             scope 'uaa.user'
+	 * @throws IllegalArgumentException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public Mono<OAuth2TokenResponse> execute() throws IllegalStateException, IllegalArgumentException {
+		checkRequest();
+
+		Map<String, String> optionalParameter = null;
+		String authorities = buildAuthorities(request);
+		if (authorities != null) {
+			optionalParameter = new HashMap<>();
+			optionalParameter.put(AUTHORITIES, authorities); // places JSON inside the URI !?!
+		}
+
+		return tokenService
+				.retrieveAccessTokenViaUserTokenGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()),
+						token, request.getSubdomain(), optionalParameter)
+				.onErrorMap(OAuth2ServiceException.class, e -> new TokenFlowException(
+						String.format("Error requesting token with grant_type 'user_token': %s", e.getMessage()), e))
+				.flatMap(accessToken -> {
+					if (accessToken.getRefreshToken() == null) {
+						return Mono.error(new TokenFlowException(
+								"Error requesting token with grant_type 'user_token': response does not provide 'refresh_token'"));
+					}
+					// XSUAA exchanges the refresh-token for a user token, see UserTokenFlow
+					return refreshTokenFlow.refreshToken(accessToken.getRefreshToken()).execute();
+				});
+	}
+
+	private void checkRequest() {
+		if (token == null) {
+			throw new IllegalStateException(
+					"User token not set. Make sure to have called the token() method on ReactiveUserTokenFlow builder.");
+		}
+		if (!hasScope(token, UAA_USER_SCOPE)) {
+			throw new IllegalStateException(
+					"JWT token does not include scope 'uaa.user'. Only user tokens can be exchanged for another user token.");
+		}
+		if (!request.isValid()) {
+			throw new IllegalArgumentException(
+					"User token flow request is not valid. Make sure all mandatory fields are set.");
+		}
+	}
+}
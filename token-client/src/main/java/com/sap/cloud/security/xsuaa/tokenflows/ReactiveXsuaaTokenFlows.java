@@ -0,0 +1,101 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+
+/**
+ * The reactive counterpart of {@link XsuaaTokenFlows}: a bean that can be
+ * {@code @Autowired} by applications to get access to token flow builders,
+ * whose {@code execute()} method returns a {@code Mono} instead of blocking the
+ * calling thread.
+ *
+ * <pre>
+ * {@code
+ * ReactiveOAuth2TokenService tokenService = new XsuaaReactiveOAuth2TokenService(WebClient.create());
+ * ReactiveXsuaaTokenFlows tokenFlows = new ReactiveXsuaaTokenFlows(tokenService, endpointsProvider,
+ * 		clientCredentials);
+ * }
+ * </pre>
+ */
+public class ReactiveXsuaaTokenFlows {
+
+	private final ClientCredentials clientCredentials;
+	private final ReactiveOAuth2TokenService tokenService;
+	private final OAuth2ServiceEndpointsProvider endpointsProvider;
+
+	/**
+	 * Create a new instance of this bean.
+	 *
+	 * @param tokenService
+	 *            the ReactiveOAuth2TokenService that will be used to send the token
+	 *            exchange request.
+	 * @param endpointsProvider
+	 *            the endpoint provider that serves the token endpoint.
+	 * @param clientCredentials
+	 *            the OAuth2.0 client id and secret
+	 */
+	public ReactiveXsuaaTokenFlows(ReactiveOAuth2TokenService tokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		assertNotNull(tokenService, "ReactiveOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.endpointsProvider = endpointsProvider;
+		this.clientCredentials = clientCredentials;
+	}
+
+	/**
+	 * Creates a new User Token Flow builder object. The token passed needs to
+	 * contain the scope {@code uaa.user}, otherwise an exception will be thrown
+	 * when the flow is executed.
+	 *
+	 * @return the {@link ReactiveUserTokenFlow} builder object.
+	 */
+	public ReactiveUserTokenFlow userTokenFlow() {
+		ReactiveRefreshTokenFlow refreshTokenFlow = new ReactiveRefreshTokenFlow(tokenService, endpointsProvider,
+				clientCredentials);
+
+		return new ReactiveUserTokenFlow(tokenService, refreshTokenFlow, endpointsProvider, clientCredentials);
+	}
+
+	/**
+	 * Creates a new Jwt Bearer Token Flow builder object, which exchanges a user
+	 * token for another user token with a single request.
+	 *
+	 * @return the {@link ReactiveJwtBearerTokenFlow} builder object.
+	 */
+	public ReactiveJwtBearerTokenFlow jwtBearerTokenFlow() {
+		return new ReactiveJwtBearerTokenFlow(tokenService, endpointsProvider, clientCredentials);
+	}
+
+	/**
+	 * Creates a new Client Credentials Flow builder object.
+	 *
+	 * @return the {@link ReactiveClientCredentialsTokenFlow} builder object.
+	 */
+	public ReactiveClientCredentialsTokenFlow clientCredentialsTokenFlow() {
+		return new ReactiveClientCredentialsTokenFlow(tokenService, endpointsProvider, clientCredentials);
+	}
+
+	/**
+	 * Creates a new Refresh Token Flow builder object.
+	 *
+	 * @return the {@link ReactiveRefreshTokenFlow} builder object.
+	 */
+	public ReactiveRefreshTokenFlow refreshTokenFlow() {
+		return new ReactiveRefreshTokenFlow(tokenService, endpointsProvider, clientCredentials);
+	}
+
+	/**
+	 * Creates a new Password Token Flow builder object.
+	 *
+	 * @return the {@link ReactivePasswordTokenFlow} builder object.
+	 */
+	public ReactivePasswordTokenFlow passwordTokenFlow() {
+		return new ReactivePasswordTokenFlow(tokenService, endpointsProvider, clientCredentials);
+	}
+}
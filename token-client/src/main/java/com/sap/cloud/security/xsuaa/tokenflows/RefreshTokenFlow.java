@@ -1,13 +1,18 @@
 package com.sap.cloud.security.xsuaa.tokenflows;
 
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
 import com.sap.xsa.security.container.XSTokenRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
 
 /**
  * A refresh token flow builder. <br>
@@ -19,6 +24,7 @@ public class RefreshTokenFlow {
 	private XsuaaTokenFlowRequest request;
 	private String refreshToken;
 	private OAuth2TokenService tokenService;
+	private AsyncOAuth2TokenService asyncTokenService;
 
 	/**
 	 * Creates a new instance.
@@ -38,11 +44,34 @@ public class RefreshTokenFlow {
 		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
 
 		this.tokenService = tokenService;
+		this.asyncTokenService = new DefaultAsyncOAuth2TokenService(tokenService);
 		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
 		this.request.setClientId(clientCredentials.getId());
 		this.request.setClientSecret(clientCredentials.getSecret());
 	}
 
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the final
+	 *            request asynchronously.
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	RefreshTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		this(tokenService, endpointsProvider, clientCredentials);
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+
+		this.asyncTokenService = asyncTokenService;
+	}
+
 	/**
 	 * Sets the subdomain (tenant) the token is requested for.<br>
 	 *
@@ -88,6 +117,28 @@ public class RefreshTokenFlow {
 		return refreshToken(refreshToken, request);
 	}
 
+	/**
+	 * Executes the refresh token flow asynchronously against XSUAA.
+	 *
+	 * @return the future refreshed OAuth access token returned by XSUAA, which
+	 *         completes exceptionally with a {@link TokenFlowException} in case
+	 *         the token could not be refreshed.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 * @throws IllegalArgumentException
+	 *             - in case the refresh token flow request is not valid.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync()
+			throws IllegalStateException, IllegalArgumentException {
+		checkRequest(request);
+
+		return mapToTokenFlowException(asyncTokenService.retrieveAccessTokenViaRefreshToken(
+				request.getTokenEndpoint(),
+				new ClientCredentials(request.getClientId(), request.getClientSecret()), refreshToken,
+				request.getSubdomain()), "Error refreshing token with grant_type 'refresh_token': %s");
+	}
+
 	/**
 	 * Checks that all mandatory fields of the token flow request have been set.
 	 * Otherwise throws an exception.
@@ -0,0 +1,68 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+
+/**
+ * The outcome of a single token flow that was executed as part of a batch, see
+ * {@link ClientCredentialsBatchTokenFlow}. It either holds the token response
+ * or the exception the flow failed with.
+ */
+public class TokenFlowResult {
+
+	private final OAuth2TokenResponse tokenResponse;
+	private final TokenFlowException exception;
+
+	private TokenFlowResult(OAuth2TokenResponse tokenResponse, TokenFlowException exception) {
+		this.tokenResponse = tokenResponse;
+		this.exception = exception;
+	}
+
+	static TokenFlowResult success(OAuth2TokenResponse tokenResponse) {
+		return new TokenFlowResult(tokenResponse, null);
+	}
+
+	static TokenFlowResult failure(TokenFlowException exception) {
+		return new TokenFlowResult(null, exception);
+	}
+
+	/**
+	 * @return {@code true} if the token flow returned a token response.
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	/**
+	 * @return the token response or null, if the token flow failed.
+	 */
+	@Nullable
+	public OAuth2TokenResponse getTokenResponse() {
+		return tokenResponse;
+	}
+
+	/**
+	 * @return the exception the token flow failed with or null, if it was
+	 *         successful.
+	 */
+	@Nullable
+	public TokenFlowException getException() {
+		return exception;
+	}
+
+	/**
+	 * Returns the token response or throws the exception the token flow failed
+	 * with.
+	 *
+	 * @return the token response.
+	 * @throws TokenFlowException
+	 *             in case the token flow failed.
+	 */
+	public OAuth2TokenResponse getTokenResponseOrThrow() throws TokenFlowException {
+		if (exception != null) {
+			throw exception;
+		}
+		return tokenResponse;
+	}
+}
@@ -0,0 +1,130 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.GRANT_TYPE_USER_TOKEN;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.TokenResponseCache;
+import com.sap.cloud.security.xsuaa.client.TokenResponseCache.CacheKey;
+
+/**
+ * Caches the tokens exchanged by the {@link UserTokenFlow} until they are about
+ * to expire, so that a user token that is forwarded to several downstream
+ * services is exchanged only once. Concurrent exchanges of the same token are
+ * coalesced.
+ *
+ * The cache key consists of the token endpoint, the client id, the subdomain, a
+ * hash of the user token and the additional authorization attributes.
+ * <p>
+ * The cache is meant for token flows whose token service does not cache the
+ * token responses itself. A
+ * {@link com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService} caches
+ * the user token and the refresh token grants of the exchange already.
+ *
+ * <pre>
+ * {@code
+ * XsuaaTokenFlows tokenFlows = new XsuaaTokenFlows(tokenService, asyncTokenService, endpointsProvider,
+ * 		clientCredentials, new UserTokenCache(Duration.ofSeconds(30), 1000));
+ * }
+ * </pre>
+ */
+public class UserTokenCache {
+
+	public static final Duration DEFAULT_EXPIRY_SKEW = Duration.ofSeconds(30);
+	public static final int DEFAULT_CACHE_SIZE = 1000;
+
+	private final TokenResponseCache cache;
+
+	/**
+	 * Creates a cache with the default expiry skew of {@link #DEFAULT_EXPIRY_SKEW}
+	 * and a cache size of {@link #DEFAULT_CACHE_SIZE}.
+	 */
+	public UserTokenCache() {
+		this(DEFAULT_EXPIRY_SKEW, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param expirySkew
+	 *            the time before the actual expiration of an exchanged token,
+	 *            after which the token is not taken from the cache anymore.
+	 * @param cacheSize
+	 *            the maximum number of cached tokens.
+	 */
+	public UserTokenCache(@Nonnull Duration expirySkew, int cacheSize) {
+		this(expirySkew, cacheSize, Clock.systemUTC());
+	}
+
+	UserTokenCache(Duration expirySkew, int cacheSize, Clock clock) {
+		this.cache = new TokenResponseCache(expirySkew, cacheSize, clock);
+	}
+
+	/**
+	 * Returns the number of cached tokens, including the exchanges in progress.
+	 *
+	 * @return the number of cached tokens.
+	 */
+	public int getCachedTokenCount() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the number of exchanges that were served from the cache, or that
+	 * waited for the same exchange in progress.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return cache.getHitCount();
+	}
+
+	/**
+	 * Returns the number of exchanges that were sent to the token service.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return cache.getMissCount();
+	}
+
+	/**
+	 * Removes all cached tokens.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Removes the cached tokens of the given subdomain.
+	 *
+	 * @param subdomain
+	 *            the subdomain of the tenant, or null for the tokens that were
+	 *            exchanged without subdomain.
+	 */
+	public void clear(@Nullable String subdomain) {
+		cache.clear(subdomain);
+	}
+
+	/**
+	 * Returns the cached exchanged token or the exchange that is in progress for
+	 * the same key, otherwise starts the given exchange. The returned future is
+	 * a copy, so that completing or cancelling it does not affect the other
+	 * callers.
+	 */
+	CompletableFuture<OAuth2TokenResponse> getOrExchange(URI tokenEndpoint, String clientId,
+			@Nullable String subdomain, String token, @Nullable Map<String, String> attributes,
+			Supplier<CompletableFuture<OAuth2TokenResponse>> exchange) {
+		return cache.getOrRequest(
+				new CacheKey(tokenEndpoint, GRANT_TYPE_USER_TOKEN, clientId, subdomain, attributes, token), exchange);
+	}
+}
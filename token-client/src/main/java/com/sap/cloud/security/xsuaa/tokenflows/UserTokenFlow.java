@@ -1,24 +1,30 @@
 package com.sap.cloud.security.xsuaa.tokenflows;
 
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.awaitTokenResponse;
 import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.buildAuthorities;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.failedTokenResponse;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.hasScope;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.UAA_USER_SCOPE;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
 
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
-import com.sap.cloud.security.xsuaa.jwt.Base64JwtDecoder;
 import com.sap.xsa.security.container.XSTokenRequest;
 
+import javax.annotation.Nullable;
+
 /**
  * A user token flow builder class. <br>
  * Applications retrieve an instance of this builder from
@@ -27,14 +33,15 @@ import com.sap.xsa.security.container.XSTokenRequest;
  */
 public class UserTokenFlow {
 
-	private static final String UAA_USER_SCOPE = "uaa.user";
-	private static final String SCOPE_CLAIM = "scope";
 	private static final String AUTHORITIES = "authorities";
+	private static final String USER_TOKEN_ERROR_MESSAGE = "Error requesting token with grant_type 'user_token': %s";
 
 	private XsuaaTokenFlowRequest request;
 	private String token;
 	private RefreshTokenFlow refreshTokenFlow;
 	private OAuth2TokenService tokenService;
+	private AsyncOAuth2TokenService asyncTokenService;
+	private UserTokenCache userTokenCache;
 
 	/**
 	 * Creates a new instance.
@@ -57,12 +64,65 @@ public class UserTokenFlow {
 		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
 
 		this.tokenService = tokenService;
+		this.asyncTokenService = new DefaultAsyncOAuth2TokenService(tokenService);
 		this.refreshTokenFlow = refreshTokenFlow;
 		this.request = new XsuaaTokenFlowRequest(endpointsProvider.getTokenEndpoint());
 		this.request.setClientId(clientCredentials.getId());
 		this.request.setClientSecret(clientCredentials.getSecret());
 	}
 
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the final
+	 *            request asynchronously.
+	 * @param refreshTokenFlow
+	 *            - the refresh token flow
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 */
+	UserTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			RefreshTokenFlow refreshTokenFlow, OAuth2ServiceEndpointsProvider endpointsProvider,
+			ClientCredentials clientCredentials) {
+		this(tokenService, refreshTokenFlow, endpointsProvider, clientCredentials);
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+
+		this.asyncTokenService = asyncTokenService;
+	}
+
+	/**
+	 * Creates a new instance, which caches the exchanged tokens.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the final
+	 *            request.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the final
+	 *            request asynchronously.
+	 * @param refreshTokenFlow
+	 *            - the refresh token flow
+	 * @param endpointsProvider
+	 *            - the endpoints provider
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 * @param userTokenCache
+	 *            - the cache of the exchanged tokens or null, if the tokens
+	 *            should not be cached.
+	 */
+	UserTokenFlow(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			RefreshTokenFlow refreshTokenFlow, OAuth2ServiceEndpointsProvider endpointsProvider,
+			ClientCredentials clientCredentials, @Nullable UserTokenCache userTokenCache) {
+		this(tokenService, asyncTokenService, refreshTokenFlow, endpointsProvider, clientCredentials);
+
+		this.userTokenCache = userTokenCache;
+	}
+
 	/**
 	 * Sets the JWT token that should be exchanged for another JWT token.
 	 *
@@ -119,7 +179,67 @@ public class UserTokenFlow {
 	public OAuth2TokenResponse execute() throws TokenFlowException {
 		checkRequest(request);
 
-		return requestUserToken(request);
+		if (userTokenCache == null) {
+			return requestUserToken(request);
+		}
+		return awaitTokenResponse(getOrExchange(() -> {
+			try {
+				return CompletableFuture.completedFuture(requestUserToken(request));
+			} catch (TokenFlowException e) {
+				return failedTokenResponse(e);
+			}
+		}), USER_TOKEN_ERROR_MESSAGE);
+	}
+
+	/**
+	 * Executes this flow asynchronously against the XSUAA endpoint. As a result
+	 * the exchanged JWT token is returned.
+	 *
+	 * @return the future JWT instance returned by XSUAA, which completes
+	 *         exceptionally with a {@link TokenFlowException} in case of an error
+	 *         during the flow, or when the token cannot be refreshed.
+	 * @throws IllegalStateException
+	 *             - in case not all mandatory fields of the token flow request have
+	 *             been set.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync() {
+		checkRequest(request);
+
+		if (userTokenCache == null) {
+			return requestUserTokenAsync(request);
+		}
+		return getOrExchange(() -> requestUserTokenAsync(request));
+	}
+
+	/**
+	 * Takes the exchanged token from the cache or exchanges the token, in case
+	 * there is no cached token or exchange in progress.
+	 *
+	 * @param exchange
+	 *            - the token exchange.
+	 * @return the future exchanged token.
+	 */
+	private CompletableFuture<OAuth2TokenResponse> getOrExchange(
+			Supplier<CompletableFuture<OAuth2TokenResponse>> exchange) {
+		return userTokenCache.getOrExchange(request.getTokenEndpoint(), request.getClientId(),
+				request.getSubdomain(), token, request.getAdditionalAuthorizationAttributes(), exchange);
+	}
+
+	private CompletableFuture<OAuth2TokenResponse> requestUserTokenAsync(XsuaaTokenFlowRequest request) {
+		return mapToTokenFlowException(asyncTokenService
+				.retrieveAccessTokenViaUserTokenGrant(request.getTokenEndpoint(),
+						new ClientCredentials(request.getClientId(), request.getClientSecret()),
+						token, request.getSubdomain(), buildOptionalParameter(request)),
+				USER_TOKEN_ERROR_MESSAGE)
+						.thenCompose(accessToken -> {
+							if (accessToken.getRefreshToken() == null) {
+								return failedTokenResponse(new TokenFlowException(
+										"Error requesting token with grant_type 'user_token': response does not provide 'refresh_token'"));
+							}
+							// XSUAA exchanges the refresh-token for a user token, see requestUserToken
+							refreshTokenFlow.refreshToken(accessToken.getRefreshToken());
+							return refreshTokenFlow.executeAsync();
+						});
 	}
 
 	/**
@@ -162,20 +282,12 @@ public class UserTokenFlow {
 	 *             in case of an error during the flow.
 	 */
 	private OAuth2TokenResponse requestUserToken(XsuaaTokenFlowRequest request) throws TokenFlowException {
-		Map<String, String> optionalParameter = null;
-		String authorities = buildAuthorities(request);
-
-		if (authorities != null) {
-			optionalParameter = new HashMap<>();
-			optionalParameter.put(AUTHORITIES, authorities); // places JSON inside the URI !?!
-		}
-
 		String refreshToken = null;
 		try {
 			OAuth2TokenResponse accessToken = tokenService
 					.retrieveAccessTokenViaUserTokenGrant(request.getTokenEndpoint(),
 							new ClientCredentials(request.getClientId(), request.getClientSecret()),
-							token, request.getSubdomain(), optionalParameter);
+							token, request.getSubdomain(), buildOptionalParameter(request));
 
 			if (accessToken.getRefreshToken() != null) {
 				refreshToken = accessToken.getRefreshToken();
@@ -201,31 +313,18 @@ public class UserTokenFlow {
 			}
 		} catch (OAuth2ServiceException e) {
 			throw new TokenFlowException(
-					String.format("Error requesting token with grant_type 'user_token': %s", e.getMessage()), e);
+					String.format(USER_TOKEN_ERROR_MESSAGE, e.getMessage()), e);
 		}
 	}
 
-	/**
-	 * Checks if a given scope is contained inside the given token.
-	 *
-	 * @param token
-	 *            - the token to check the scope for.
-	 * @param scope
-	 *            - the scope to check for.
-	 * @return {@code true} if the scope is contained, {@code false} otherwise.
-	 */
-	private boolean hasScope(String token, String scope) {
-		String claims = new Base64JwtDecoder().decode(token).getPayload();
-		try {
-			JSONObject rootObject = new JSONObject(claims);
-			JSONArray scopesArray = rootObject.getJSONArray(SCOPE_CLAIM);
-			for (Iterator scopes = scopesArray.iterator(); scopes.hasNext();)
-				if (scopes.next().equals(scope)) {
-					return true;
-				}
-		} catch (JSONException e) {
-			return false;
+	private Map<String, String> buildOptionalParameter(XsuaaTokenFlowRequest request) {
+		Map<String, String> optionalParameter = null;
+		String authorities = buildAuthorities(request);
+
+		if (authorities != null) {
+			optionalParameter = new HashMap<>();
+			optionalParameter.put(AUTHORITIES, authorities); // places JSON inside the URI !?!
 		}
-		return false;
+		return optionalParameter;
 	}
 }
@@ -0,0 +1,221 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.Assertions.assertNotNull;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.UAA_USER_SCOPE;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.awaitTokenResponse;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.failedTokenResponse;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.hasScope;
+import static com.sap.cloud.security.xsuaa.tokenflows.XsuaaTokenFlowsUtils.mapToTokenFlowException;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+
+/**
+ * An immutable user token flow, which is configured once and can be executed
+ * many times and concurrently, each time with the user token to be exchanged.
+ * Unlike the {@link UserTokenFlow} builder, every configuration method returns
+ * a new template and leaves this one unchanged. <br>
+ * Applications retrieve an instance from {@link XsuaaTokenFlows}.
+ *
+ * <pre>
+ * {@code
+ * UserTokenFlowTemplate tenantFlow = tokenFlows.userTokenFlowTemplate().subdomain("tenant");
+ *
+ * OAuth2TokenResponse token = tenantFlow.execute(userToken); // from any thread
+ * }
+ * </pre>
+ */
+public final class UserTokenFlowTemplate {
+
+	private static final String USER_TOKEN_ERROR_MESSAGE = "Error requesting token with grant_type 'user_token': %s";
+	private static final String REFRESH_TOKEN_ERROR_MESSAGE = "Error refreshing token with grant_type 'refresh_token': %s";
+
+	private final OAuth2TokenService tokenService;
+	private final AsyncOAuth2TokenService asyncTokenService;
+	private final URI tokenEndpoint;
+	private final ClientCredentials clientCredentials;
+	private final UserTokenCache userTokenCache;
+	private final String subdomain;
+	private final Map<String, String> attributes;
+	private final Map<String, String> optionalParameters;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param tokenService
+	 *            - the {@link OAuth2TokenService} used to execute the requests.
+	 * @param asyncTokenService
+	 *            - the {@link AsyncOAuth2TokenService} used to execute the
+	 *            requests asynchronously.
+	 * @param tokenEndpoint
+	 *            - the token endpoint
+	 * @param clientCredentials
+	 *            - the OAuth client credentials
+	 * @param userTokenCache
+	 *            - the cache of the exchanged tokens or null, if the tokens
+	 *            should not be cached.
+	 */
+	UserTokenFlowTemplate(OAuth2TokenService tokenService, AsyncOAuth2TokenService asyncTokenService,
+			URI tokenEndpoint, ClientCredentials clientCredentials, @Nullable UserTokenCache userTokenCache) {
+		assertNotNull(tokenService, "OAuth2TokenService must not be null.");
+		assertNotNull(asyncTokenService, "AsyncOAuth2TokenService must not be null.");
+		assertNotNull(tokenEndpoint, "Token endpoint must not be null.");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.tokenService = tokenService;
+		this.asyncTokenService = asyncTokenService;
+		this.tokenEndpoint = tokenEndpoint;
+		this.clientCredentials = clientCredentials;
+		this.userTokenCache = userTokenCache;
+		this.subdomain = null;
+		this.attributes = null;
+		this.optionalParameters = null;
+	}
+
+	private UserTokenFlowTemplate(UserTokenFlowTemplate template, @Nullable String subdomain,
+			@Nullable Map<String, String> attributes) {
+		this.tokenService = template.tokenService;
+		this.asyncTokenService = template.asyncTokenService;
+		this.tokenEndpoint = template.tokenEndpoint;
+		this.clientCredentials = template.clientCredentials;
+		this.userTokenCache = template.userTokenCache;
+		this.subdomain = subdomain;
+		this.attributes = attributes;
+		this.optionalParameters = ClientCredentialsTokenFlowTemplate.buildOptionalParameters(attributes);
+	}
+
+	/**
+	 * Returns a template, which exchanges tokens of the given subdomain (tenant).
+	 *
+	 * @param subdomain
+	 *            - the subdomain.
+	 * @return the new template.
+	 */
+	public UserTokenFlowTemplate subdomain(@Nullable String subdomain) {
+		return new UserTokenFlowTemplate(this, subdomain, attributes);
+	}
+
+	/**
+	 * Returns a template, which requests tokens with the given additional
+	 * authorization attributes in the {@code 'az_attr'} claim.
+	 *
+	 * @param additionalAuthorizationAttributes
+	 *            - the additional attributes.
+	 * @return the new template.
+	 */
+	public UserTokenFlowTemplate attributes(@Nullable Map<String, String> additionalAuthorizationAttributes) {
+		return new UserTokenFlowTemplate(this, subdomain, additionalAuthorizationAttributes == null ? null
+				: Collections.unmodifiableMap(new HashMap<>(additionalAuthorizationAttributes)));
+	}
+
+	/**
+	 * Exchanges the given user token against the XSUAA endpoint.
+	 *
+	 * @param token
+	 *            - the user token, which needs to contain the scope
+	 *            {@code uaa.user}.
+	 * @return the exchanged JWT returned by XSUAA.
+	 * @throws IllegalStateException
+	 *             - in case the token does not include scope 'uaa.user'.
+	 * @throws TokenFlowException
+	 *             - in case of an error during the flow, or when the token cannot
+	 *             be refreshed.
+	 */
+	public OAuth2TokenResponse execute(String token) throws TokenFlowException {
+		checkToken(token);
+
+		if (userTokenCache == null) {
+			return requestUserToken(token);
+		}
+		return awaitTokenResponse(getOrExchange(token, () -> {
+			try {
+				return CompletableFuture.completedFuture(requestUserToken(token));
+			} catch (TokenFlowException e) {
+				return failedTokenResponse(e);
+			}
+		}), USER_TOKEN_ERROR_MESSAGE);
+	}
+
+	/**
+	 * Exchanges the given user token asynchronously against the XSUAA endpoint.
+	 *
+	 * @param token
+	 *            - the user token, which needs to contain the scope
+	 *            {@code uaa.user}.
+	 * @return the future exchanged JWT returned by XSUAA, which completes
+	 *         exceptionally with a {@link TokenFlowException} in case of an error
+	 *         during the flow, or when the token cannot be refreshed.
+	 * @throws IllegalStateException
+	 *             - in case the token does not include scope 'uaa.user'.
+	 */
+	public CompletableFuture<OAuth2TokenResponse> executeAsync(String token) {
+		checkToken(token);
+
+		if (userTokenCache == null) {
+			return requestUserTokenAsync(token);
+		}
+		return getOrExchange(token, () -> requestUserTokenAsync(token));
+	}
+
+	private CompletableFuture<OAuth2TokenResponse> getOrExchange(String token,
+			Supplier<CompletableFuture<OAuth2TokenResponse>> exchange) {
+		return userTokenCache.getOrExchange(tokenEndpoint, clientCredentials.getId(), subdomain, token, attributes,
+				exchange);
+	}
+
+	private void checkToken(String token) {
+		assertNotNull(token, "Token must not be null.");
+
+		if (!hasScope(token, UAA_USER_SCOPE)) {
+			throw new IllegalStateException(
+					"JWT token does not include scope 'uaa.user'. Only user tokens can be exchanged for another user token.");
+		}
+	}
+
+	private OAuth2TokenResponse requestUserToken(String token) throws TokenFlowException {
+		OAuth2TokenResponse userTokenResponse;
+		try {
+			userTokenResponse = tokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint, clientCredentials,
+					token, subdomain, optionalParameters);
+		} catch (OAuth2ServiceException e) {
+			throw new TokenFlowException(String.format(USER_TOKEN_ERROR_MESSAGE, e.getMessage()), e);
+		}
+		if (userTokenResponse.getRefreshToken() == null) {
+			throw new TokenFlowException(String.format(USER_TOKEN_ERROR_MESSAGE,
+					"response does not provide 'refresh_token'"));
+		}
+		// XSUAA exchanges the refresh-token for a user token, see UserTokenFlow
+		try {
+			return tokenService.retrieveAccessTokenViaRefreshToken(tokenEndpoint, clientCredentials,
+					userTokenResponse.getRefreshToken(), subdomain);
+		} catch (OAuth2ServiceException e) {
+			throw new TokenFlowException(String.format(REFRESH_TOKEN_ERROR_MESSAGE, e.getMessage()), e);
+		}
+	}
+
+	private CompletableFuture<OAuth2TokenResponse> requestUserTokenAsync(String token) {
+		return mapToTokenFlowException(asyncTokenService.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint,
+				clientCredentials, token, subdomain, optionalParameters), USER_TOKEN_ERROR_MESSAGE)
+						.thenCompose(userTokenResponse -> {
+							if (userTokenResponse.getRefreshToken() == null) {
+								return failedTokenResponse(new TokenFlowException(String.format(
+										USER_TOKEN_ERROR_MESSAGE, "response does not provide 'refresh_token'")));
+							}
+							return mapToTokenFlowException(asyncTokenService.retrieveAccessTokenViaRefreshToken(
+									tokenEndpoint, clientCredentials, userTokenResponse.getRefreshToken(),
+									subdomain), REFRESH_TOKEN_ERROR_MESSAGE);
+						});
+	}
+}
@@ -2,7 +2,12 @@ package com.sap.cloud.security.xsuaa.tokenflows;
 
 import java.io.Serializable;
 
+import javax.annotation.Nullable;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
 
@@ -21,7 +26,11 @@ public class XsuaaTokenFlows implements Serializable {
 
 	private final ClientCredentials clientCredentials;
 	private final OAuth2TokenService oAuth2TokenService;
+	private final AsyncOAuth2TokenService asyncOAuth2TokenService;
+	private final OAuth2TokenService uncachedOAuth2TokenService;
+	private final AsyncOAuth2TokenService uncachedAsyncOAuth2TokenService;
 	private final OAuth2ServiceEndpointsProvider endpointsProvider;
+	private final UserTokenCache userTokenCache;
 
 	/**
 	 * Create a new instance of this bean with the given RestTemplate. Applications
@@ -56,24 +65,151 @@ public class XsuaaTokenFlows implements Serializable {
 		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
 
 		this.oAuth2TokenService = oAuth2TokenService;
+		this.asyncOAuth2TokenService = new DefaultAsyncOAuth2TokenService(oAuth2TokenService);
+		this.uncachedOAuth2TokenService = oAuth2TokenService;
+		this.uncachedAsyncOAuth2TokenService = asyncOAuth2TokenService;
 		this.endpointsProvider = endpointsProvider;
 		this.clientCredentials = clientCredentials;
+		this.userTokenCache = null;
+	}
+
+	/**
+	 * Create a new instance of this bean, which executes the flows with the given
+	 * {@link AsyncOAuth2TokenService}, when they are executed asynchronously.
+	 *
+	 * @param oAuth2TokenService
+	 *            the OAuth2TokenService that will be used to send the token
+	 *            exchange request.
+	 * @param asyncOAuth2TokenService
+	 *            the AsyncOAuth2TokenService that will be used to send the token
+	 *            exchange request with {@code executeAsync()}.
+	 * @param endpointsProvider
+	 *            the endpoint provider that serves the token endpoint.
+	 * @param clientCredentials
+	 *            the OAuth2.0 client id and secret
+	 */
+	public XsuaaTokenFlows(OAuth2TokenService oAuth2TokenService, AsyncOAuth2TokenService asyncOAuth2TokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials) {
+		this(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider, clientCredentials, null);
+	}
+
+	/**
+	 * Create a new instance of this bean, which caches the tokens exchanged by the
+	 * {@link UserTokenFlow} in the given {@link UserTokenCache}. Pass a cache only
+	 * if the given token services do not cache the token responses already, like a
+	 * {@link CachingOAuth2TokenService} does.
+	 *
+	 * @param oAuth2TokenService
+	 *            the OAuth2TokenService that will be used to send the token
+	 *            exchange request.
+	 * @param asyncOAuth2TokenService
+	 *            the AsyncOAuth2TokenService that will be used to send the token
+	 *            exchange request with {@code executeAsync()}.
+	 * @param endpointsProvider
+	 *            the endpoint provider that serves the token endpoint.
+	 * @param clientCredentials
+	 *            the OAuth2.0 client id and secret
+	 * @param userTokenCache
+	 *            the cache of the exchanged user tokens or null, in order to
+	 *            exchange the user token on every execution of the user token
+	 *            flow.
+	 */
+	public XsuaaTokenFlows(OAuth2TokenService oAuth2TokenService, AsyncOAuth2TokenService asyncOAuth2TokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials,
+			@Nullable UserTokenCache userTokenCache) {
+		this(oAuth2TokenService, asyncOAuth2TokenService, oAuth2TokenService, asyncOAuth2TokenService,
+				endpointsProvider, clientCredentials, userTokenCache);
+	}
+
+	/**
+	 * Create a new instance of this bean, whose token services cache the token
+	 * responses, e.g. with a {@link CachingOAuth2TokenService}. The given uncached
+	 * token services are used by the flows that always need to request a new
+	 * token, like the refreshes of a {@link ClientCredentialsTokenSource}.
+	 *
+	 * @param oAuth2TokenService
+	 *            the OAuth2TokenService that will be used to send the token
+	 *            exchange request.
+	 * @param asyncOAuth2TokenService
+	 *            the AsyncOAuth2TokenService that will be used to send the token
+	 *            exchange request with {@code executeAsync()}.
+	 * @param uncachedOAuth2TokenService
+	 *            the OAuth2TokenService that sends the token requests without
+	 *            caching the token responses.
+	 * @param uncachedAsyncOAuth2TokenService
+	 *            the AsyncOAuth2TokenService that sends the token requests without
+	 *            caching the token responses.
+	 * @param endpointsProvider
+	 *            the endpoint provider that serves the token endpoint.
+	 * @param clientCredentials
+	 *            the OAuth2.0 client id and secret
+	 * @param userTokenCache
+	 *            the cache of the exchanged user tokens or null, in order to
+	 *            exchange the user token on every execution of the user token
+	 *            flow.
+	 */
+	public XsuaaTokenFlows(OAuth2TokenService oAuth2TokenService, AsyncOAuth2TokenService asyncOAuth2TokenService,
+			OAuth2TokenService uncachedOAuth2TokenService, AsyncOAuth2TokenService uncachedAsyncOAuth2TokenService,
+			OAuth2ServiceEndpointsProvider endpointsProvider, ClientCredentials clientCredentials,
+			@Nullable UserTokenCache userTokenCache) {
+		assertNotNull(oAuth2TokenService, "OAuth2TokenService must not be null.");
+		assertNotNull(asyncOAuth2TokenService, "AsyncOAuth2TokenService must not be null.");
+		assertNotNull(uncachedOAuth2TokenService, "uncached OAuth2TokenService must not be null.");
+		assertNotNull(uncachedAsyncOAuth2TokenService, "uncached AsyncOAuth2TokenService must not be null.");
+		assertNotNull(endpointsProvider, "OAuth2ServiceEndpointsProvider must not be null");
+		assertNotNull(clientCredentials, "ClientCredentials must not be null.");
+
+		this.oAuth2TokenService = oAuth2TokenService;
+		this.asyncOAuth2TokenService = asyncOAuth2TokenService;
+		this.uncachedOAuth2TokenService = uncachedOAuth2TokenService;
+		this.uncachedAsyncOAuth2TokenService = uncachedAsyncOAuth2TokenService;
+		this.endpointsProvider = endpointsProvider;
+		this.clientCredentials = clientCredentials;
+		this.userTokenCache = userTokenCache;
 	}
 
 	/**
 	 * Creates a new User Token Flow builder object. The token passed needs to
 	 * contain the scope {@code uaa.user}, otherwise an exception will be thrown
-	 * when the flow is executed. <br>
+	 * when the flow is executed. The exchanged tokens are cached, if this
+	 * instance was created with a {@link UserTokenCache}. <br>
 	 * Token, authorize and key set endpoints will be derived relative to the base
 	 * URI.
 	 * 
 	 * @return the {@link UserTokenFlow} builder object.
 	 */
 	public UserTokenFlow userTokenFlow() {
-		RefreshTokenFlow refreshTokenFlow = new RefreshTokenFlow(oAuth2TokenService, endpointsProvider,
-				clientCredentials);
+		RefreshTokenFlow refreshTokenFlow = new RefreshTokenFlow(oAuth2TokenService, asyncOAuth2TokenService,
+				endpointsProvider, clientCredentials);
 
-		return new UserTokenFlow(oAuth2TokenService, refreshTokenFlow, endpointsProvider, clientCredentials);
+		return new UserTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, refreshTokenFlow, endpointsProvider,
+				clientCredentials, userTokenCache);
+	}
+
+	/**
+	 * Creates a new immutable User Token Flow template, which can be configured
+	 * once and executed concurrently with different user tokens. The exchanged
+	 * tokens are cached, if this instance was created with a
+	 * {@link UserTokenCache}.
+	 *
+	 * @return the {@link UserTokenFlowTemplate}.
+	 */
+	public UserTokenFlowTemplate userTokenFlowTemplate() {
+		return new UserTokenFlowTemplate(oAuth2TokenService, asyncOAuth2TokenService,
+				endpointsProvider.getTokenEndpoint(), clientCredentials, userTokenCache);
+	}
+
+	/**
+	 * Creates a new Jwt Bearer Token Flow builder object, which exchanges a user
+	 * token for another user token with a single request. <br>
+	 * Token, authorize and key set endpoints will be derived relative to the base
+	 * URI.
+	 *
+	 * @return the {@link JwtBearerTokenFlow} builder object.
+	 */
+	public JwtBearerTokenFlow jwtBearerTokenFlow() {
+		return new JwtBearerTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider,
+				clientCredentials);
 	}
 
 	/**
@@ -84,18 +220,56 @@ public class XsuaaTokenFlows implements Serializable {
 	 * @return the {@link ClientCredentialsTokenFlow} builder object.
 	 */
 	public ClientCredentialsTokenFlow clientCredentialsTokenFlow() {
-		return new ClientCredentialsTokenFlow(oAuth2TokenService, endpointsProvider, clientCredentials);
+		return new ClientCredentialsTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider,
+				clientCredentials);
+	}
+
+	/**
+	 * Creates a new Client Credentials Flow builder object, which executes the
+	 * requests with the uncached token services, so that the flow always requests
+	 * a new token.
+	 *
+	 * @return the {@link ClientCredentialsTokenFlow} builder object.
+	 */
+	ClientCredentialsTokenFlow uncachedClientCredentialsTokenFlow() {
+		return new ClientCredentialsTokenFlow(uncachedOAuth2TokenService, uncachedAsyncOAuth2TokenService,
+				endpointsProvider, clientCredentials);
+	}
+
+	/**
+	 * Creates a new immutable Client Credentials Flow template, which can be
+	 * configured once and executed concurrently.
+	 *
+	 * @return the {@link ClientCredentialsTokenFlowTemplate}.
+	 */
+	public ClientCredentialsTokenFlowTemplate clientCredentialsTokenFlowTemplate() {
+		return new ClientCredentialsTokenFlowTemplate(oAuth2TokenService, asyncOAuth2TokenService,
+				endpointsProvider.getTokenEndpoint(), clientCredentials);
+	}
+
+	/**
+	 * Creates a new Client Credentials Flow builder object, which requests the
+	 * tokens of many subdomains (tenants) concurrently. <br>
+	 * Token, authorize and key set endpoints will be derived relative to the base
+	 * URI.
+	 *
+	 * @return the {@link ClientCredentialsBatchTokenFlow} builder object.
+	 */
+	public ClientCredentialsBatchTokenFlow clientCredentialsBatchTokenFlow() {
+		return new ClientCredentialsBatchTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider,
+				clientCredentials);
 	}
 
 	/**
 	 * Creates a new Refresh Token Flow builder object.<br>
 	 * Token, authorize and key set endpoints will be derived relative to the base
 	 * URI.
-	 * 
+	 *
 	 * @return the {@link RefreshTokenFlow} builder object.
 	 */
 	public RefreshTokenFlow refreshTokenFlow() {
-		return new RefreshTokenFlow(oAuth2TokenService, endpointsProvider, clientCredentials);
+		return new RefreshTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider,
+				clientCredentials);
 	}
 
 	/**
@@ -106,6 +280,27 @@ public class XsuaaTokenFlows implements Serializable {
 	 * @return the {@link PasswordTokenFlow} builder object.
 	 */
 	public PasswordTokenFlow passwordTokenFlow() {
-		return new PasswordTokenFlow(oAuth2TokenService, endpointsProvider, clientCredentials);
+		return new PasswordTokenFlow(oAuth2TokenService, asyncOAuth2TokenService, endpointsProvider,
+				clientCredentials);
+	}
+
+	/**
+	 * Returns the token service that executes the token requests, e.g. a
+	 * {@link CachingOAuth2TokenService}.
+	 *
+	 * @return the token service.
+	 */
+	public OAuth2TokenService getOAuth2TokenService() {
+		return oAuth2TokenService;
+	}
+
+	/**
+	 * Returns the cache of the tokens exchanged by the {@link UserTokenFlow}.
+	 *
+	 * @return the cache, or null if the exchanged tokens are not cached.
+	 */
+	@Nullable
+	public UserTokenCache getUserTokenCache() {
+		return userTokenCache;
 	}
 }
@@ -2,9 +2,15 @@ package com.sap.cloud.security.xsuaa.tokenflows;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 
 import org.json.JSONObject;
 
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.jwt.JwtClaimExtractor;
 import com.sap.xsa.security.container.XSTokenRequest;
 
 /**
@@ -14,6 +20,8 @@ import com.sap.xsa.security.container.XSTokenRequest;
 class XsuaaTokenFlowsUtils {
 
 	static final String CLAIM_ADDITIONAL_AZ_ATTR = "az_attr";
+	static final String UAA_USER_SCOPE = "uaa.user";
+	private static final String SCOPE_CLAIM = "scope";
 
 	XsuaaTokenFlowsUtils() {
 	}
@@ -49,4 +57,95 @@ class XsuaaTokenFlowsUtils {
 		JSONObject additionalAuthorizationAttributesJson = new JSONObject(additionalAuthorizationAttributes);
 		return additionalAuthorizationAttributesJson.toString();
 	}
+
+	/**
+	 * Checks if a given scope is contained inside the given token. The payload of
+	 * the token is only read up to the scope.
+	 *
+	 * @param token
+	 *            - the token to check the scope for.
+	 * @param scope
+	 *            - the scope to check for.
+	 * @return {@code true} if the scope is contained, {@code false} otherwise.
+	 */
+	static boolean hasScope(String token, String scope) {
+		return JwtClaimExtractor.containsClaimValue(token, SCOPE_CLAIM, scope);
+	}
+
+	/**
+	 * Maps a token response that completes exceptionally with an
+	 * {@link OAuth2ServiceException} to one that completes exceptionally with a
+	 * {@link TokenFlowException}.
+	 *
+	 * @param tokenResponse
+	 *            the token response of the {@code AsyncOAuth2TokenService}.
+	 * @param errorMessageFormat
+	 *            the format of the error message, which takes the message of the
+	 *            {@link OAuth2ServiceException} as argument.
+	 * @return the mapped token response.
+	 */
+	static CompletableFuture<OAuth2TokenResponse> mapToTokenFlowException(
+			CompletableFuture<OAuth2TokenResponse> tokenResponse, String errorMessageFormat) {
+		CompletableFuture<OAuth2TokenResponse> mappedTokenResponse = new CompletableFuture<>();
+		tokenResponse.whenComplete((response, error) -> {
+			if (error == null) {
+				mappedTokenResponse.complete(response);
+				return;
+			}
+			Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+					: error;
+			if (cause instanceof OAuth2ServiceException) {
+				cause = new TokenFlowException(String.format(errorMessageFormat, cause.getMessage()), cause);
+			}
+			mappedTokenResponse.completeExceptionally(cause);
+		});
+		return mappedTokenResponse;
+	}
+
+	/**
+	 * Waits for the given token response.
+	 *
+	 * @param tokenResponse
+	 *            the token response.
+	 * @param errorMessageFormat
+	 *            the format of the error message of checked exceptions other than
+	 *            {@link TokenFlowException}, which takes the message of the
+	 *            exception as argument.
+	 * @return the token response.
+	 * @throws TokenFlowException
+	 *             in case the token response completed exceptionally or the
+	 *             thread was interrupted.
+	 */
+	static OAuth2TokenResponse awaitTokenResponse(CompletableFuture<OAuth2TokenResponse> tokenResponse,
+			String errorMessageFormat) throws TokenFlowException {
+		try {
+			return tokenResponse.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TokenFlowException("Interrupted while waiting for exchanged token.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof TokenFlowException) {
+				throw (TokenFlowException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new TokenFlowException(String.format(errorMessageFormat, e.getCause().getMessage()),
+					e.getCause());
+		}
+	}
+
+	/**
+	 * Creates a token response that is completed exceptionally with the given
+	 * exception.
+	 *
+	 * @param exception
+	 *            the exception.
+	 * @return the failed token response.
+	 */
+	static CompletableFuture<OAuth2TokenResponse> failedTokenResponse(TokenFlowException exception) {
+		CompletableFuture<OAuth2TokenResponse> tokenResponse = new CompletableFuture<>();
+		tokenResponse.completeExceptionally(exception);
+		return tokenResponse;
+	}
 }
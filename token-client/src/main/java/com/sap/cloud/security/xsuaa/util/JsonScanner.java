@@ -0,0 +1,357 @@
+package com.sap.cloud.security.xsuaa.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A minimal pull scanner for JSON, which reads the members of an object one
+ * after the other and skips the values that are not of interest without
+ * creating any objects for them. It is shared by the token response parser and
+ * the JWT claim readers of the token client and not meant to be used by
+ * applications.
+ * <p>
+ * Like the {@code org.json} parser it accepts single quoted and unquoted names
+ * and values. Errors are reported as {@link MalformedJsonException}, whose
+ * message names the reason only, so that the callers can prefix it.
+ */
+public final class JsonScanner {
+
+	private static final int END_OF_INPUT = -1;
+
+	private final Reader reader;
+	private final String inputName;
+	private final char[] buffer;
+	private final StringBuilder stringBuilder = new StringBuilder(64);
+	private int position;
+	private int limit;
+
+	/**
+	 * Creates a scanner.
+	 *
+	 * @param reader
+	 *            the reader of the JSON text.
+	 * @param inputName
+	 *            the name of the input in error messages, e.g. {@code payload}.
+	 * @param bufferSize
+	 *            the number of characters that are read at once.
+	 */
+	public JsonScanner(Reader reader, String inputName, int bufferSize) {
+		this.reader = reader;
+		this.inputName = inputName;
+		this.buffer = new char[bufferSize];
+	}
+
+	/**
+	 * Reads the start of an object.
+	 *
+	 * @return true, if the object has members, false if it is empty.
+	 * @throws IOException
+	 *             in case the input can not be read or is not an object.
+	 */
+	public boolean beginObject() throws IOException {
+		return begin('{', '}');
+	}
+
+	/**
+	 * Reads the start of an array.
+	 *
+	 * @return true, if the array has elements, false if it is empty.
+	 * @throws IOException
+	 *             in case the input can not be read or is not an array.
+	 */
+	public boolean beginArray() throws IOException {
+		return begin('[', ']');
+	}
+
+	/**
+	 * Reads the name of the next member and the following colon.
+	 *
+	 * @return the name.
+	 * @throws IOException
+	 *             in case the input can not be read or is malformed.
+	 */
+	public String nextName() throws IOException {
+		int c = nextNonWhitespace();
+		String name;
+		if (isQuote(c)) {
+			name = readString(c);
+		} else if (isDelimiter(c)) {
+			throw unexpected(c);
+		} else {
+			name = readUnquoted(c);
+		}
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * Reads the separator after a member or an element.
+	 *
+	 * @param end
+	 *            the end of the enclosing structure, <code>'}'</code> or <code>']'</code>.
+	 * @return true, if another member or element follows, false if the structure
+	 *         ended.
+	 * @throws IOException
+	 *             in case the input can not be read or is malformed.
+	 */
+	public boolean nextSeparator(char end) throws IOException {
+		int c = nextNonWhitespace();
+		if (c == ',') {
+			return true;
+		}
+		if (c == end) {
+			return false;
+		}
+		throw unexpected(c);
+	}
+
+	/**
+	 * Checks whether the next value is an object or an array.
+	 *
+	 * @return true, if the next value starts with <code>'{'</code> or <code>'['</code>.
+	 * @throws IOException
+	 *             in case the input can not be read.
+	 */
+	public boolean isStructureNext() throws IOException {
+		int c = peekNonWhitespace();
+		return c == '{' || c == '[';
+	}
+
+	/**
+	 * Checks whether the next value is an array.
+	 *
+	 * @return true, if the next value starts with <code>'['</code>.
+	 * @throws IOException
+	 *             in case the input can not be read.
+	 */
+	public boolean isArrayNext() throws IOException {
+		return peekNonWhitespace() == '[';
+	}
+
+	/**
+	 * Reads a string, number, boolean or null value.
+	 *
+	 * @return the value or null, in case of a null value.
+	 * @throws IOException
+	 *             in case the input can not be read, is malformed or the value is
+	 *             an object or array.
+	 */
+	public String nextScalar() throws IOException {
+		int c = nextNonWhitespace();
+		if (isQuote(c)) {
+			return readString(c);
+		}
+		if (c == '{' || c == '[' || isDelimiter(c)) {
+			throw unexpected(c);
+		}
+		String value = readUnquoted(c);
+		return "null".equals(value) ? null : value;
+	}
+
+	/**
+	 * Skips the next value, including nested objects and arrays.
+	 *
+	 * @throws IOException
+	 *             in case the input can not be read or is malformed.
+	 */
+	public void skipValue() throws IOException {
+		int c = nextNonWhitespace();
+		if (isQuote(c)) {
+			skipString(c);
+		} else if (c == '{' || c == '[') {
+			skipStructure();
+		} else if (!isDelimiter(c)) {
+			while (!isDelimiter(peek())) {
+				position++;
+			}
+		} else {
+			throw unexpected(c);
+		}
+	}
+
+	private boolean begin(char start, char end) throws IOException {
+		expect(start);
+		if (peekNonWhitespace() == end) {
+			position++;
+			return false;
+		}
+		return true;
+	}
+
+	private String readUnquoted(int first) throws IOException {
+		stringBuilder.setLength(0);
+		stringBuilder.append((char) first);
+		int c;
+		while (!isDelimiter(c = peek())) {
+			stringBuilder.append((char) c);
+			position++;
+		}
+		return stringBuilder.toString();
+	}
+
+	private String readString(int quote) throws IOException {
+		stringBuilder.setLength(0);
+		while (true) {
+			int c = read();
+			if (c == quote) {
+				return stringBuilder.toString();
+			}
+			if (c == '\\') {
+				stringBuilder.append(readEscaped());
+			} else if (c == END_OF_INPUT) {
+				throw new MalformedJsonException("unterminated string");
+			} else {
+				stringBuilder.append((char) c);
+			}
+		}
+	}
+
+	private char readEscaped() throws IOException {
+		int c = read();
+		switch (c) {
+		case '"':
+		case '\'':
+		case '\\':
+		case '/':
+			return (char) c;
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			int codePoint = 0;
+			for (int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if (digit < 0) {
+					throw new MalformedJsonException("invalid unicode escape sequence");
+				}
+				codePoint = (codePoint << 4) + digit;
+			}
+			return (char) codePoint;
+		default:
+			throw unexpected(c);
+		}
+	}
+
+	private void skipString(int quote) throws IOException {
+		int c;
+		while ((c = read()) != quote) {
+			if (c == END_OF_INPUT) {
+				throw new MalformedJsonException("unterminated string");
+			}
+			if (c == '\\') {
+				read();
+			}
+		}
+	}
+
+	private void skipStructure() throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			int c = read();
+			if (isQuote(c)) {
+				skipString(c);
+			} else if (c == '{' || c == '[') {
+				depth++;
+			} else if (c == '}' || c == ']') {
+				depth--;
+			} else if (c == END_OF_INPUT) {
+				throw unexpected(c);
+			}
+		}
+	}
+
+	private void expect(char expected) throws IOException {
+		int c = nextNonWhitespace();
+		if (c != expected) {
+			throw unexpected(c);
+		}
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c;
+		do {
+			c = read();
+		} while (isWhitespace(c));
+		return c;
+	}
+
+	private int peekNonWhitespace() throws IOException {
+		int c;
+		while (isWhitespace(c = peek())) {
+			position++;
+		}
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return END_OF_INPUT;
+		}
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return END_OF_INPUT;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException {
+		limit = reader.read(buffer, 0, buffer.length);
+		position = 0;
+		if (limit < 0) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private MalformedJsonException unexpected(int c) {
+		return c == END_OF_INPUT ? new MalformedJsonException("unexpected end of " + inputName)
+				: new MalformedJsonException(String.format("unexpected character '%c'", (char) c));
+	}
+
+	private static boolean isQuote(int c) {
+		return c == '"' || c == '\'';
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private static boolean isDelimiter(int c) {
+		switch (c) {
+		case END_OF_INPUT:
+		case ',':
+		case ':':
+		case '}':
+		case ']':
+		case ' ':
+		case '\t':
+		case '\n':
+		case '\r':
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Signals that the JSON input is malformed.
+	 */
+	public static class MalformedJsonException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		MalformedJsonException(String reason) {
+			super(reason);
+		}
+	}
+}
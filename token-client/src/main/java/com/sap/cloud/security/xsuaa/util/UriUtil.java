@@ -8,15 +8,20 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class UriUtil {
 
+	static final int MAX_CACHED_URIS = 1000;
+
 	private static final Logger logger = LoggerFactory.getLogger(UriUtil.class);
+	private static final Map<TenantUriKey, URI> tenantUris = new ConcurrentHashMap<>();
 
 	/**
 	 * Utility method that replaces the subdomain of the URI with the given
-	 * subdomain.
+	 * subdomain. The replaced URIs are kept in a bounded cache.
 	 *
 	 * @param uri
 	 *            the URI to be replaced.
@@ -27,25 +32,70 @@ public class UriUtil {
 	 */
 	public static URI replaceSubdomain(@Nonnull URI uri, @Nullable String subdomain) {
 		Assertions.assertNotNull(uri, "the uri parameter must not be null");
-		if (hasText(subdomain) && hasSubdomain(uri)) {
-			String newHost = subdomain + uri.getHost().substring(uri.getHost().indexOf('.'));
-			try {
-				return uri.resolve(new URI(uri.getScheme(), uri.getUserInfo(), newHost, uri.getPort(), uri.getPath(),
-						uri.getQuery(), uri.getFragment()));
-			} catch (URISyntaxException e) {
-				logger.error("Could not replace subdomain {} in given uri {}", subdomain, uri);
-				throw new IllegalArgumentException(e);
+		if (!hasText(subdomain)) {
+			return uri;
+		}
+		TenantUriKey key = new TenantUriKey(uri, subdomain);
+		URI tenantUri = tenantUris.get(key);
+		if (tenantUri == null) {
+			tenantUri = createTenantUri(uri, subdomain);
+			if (tenantUris.size() >= MAX_CACHED_URIS) {
+				tenantUris.clear();
 			}
+			tenantUris.put(key, tenantUri);
+		}
+		return tenantUri;
+	}
+
+	static int getCachedUriCount() {
+		return tenantUris.size();
+	}
+
+	private static URI createTenantUri(URI uri, String subdomain) {
+		if (!hasSubdomain(uri)) {
+			logger.warn("the subdomain of the URI '{}' is not replaced by subdomain '{}'", uri, subdomain);
+			return uri;
+		}
+		String newHost = subdomain + uri.getHost().substring(uri.getHost().indexOf('.'));
+		try {
+			return new URI(uri.getScheme(), uri.getUserInfo(), newHost, uri.getPort(), uri.getPath(),
+					uri.getQuery(), uri.getFragment());
+		} catch (URISyntaxException e) {
+			logger.error("Could not replace subdomain {} in given uri {}", subdomain, uri);
+			throw new IllegalArgumentException(e);
 		}
-		logger.warn("the subdomain of the URI '{}' is not replaced by subdomain '{}'", uri, subdomain);
-		return uri;
 	}
 
 	private static boolean hasSubdomain(URI uri) {
-		return uri.getHost().contains(".");
+		return uri.getHost() != null && uri.getHost().contains(".");
 	}
 
 	private static boolean hasText(String string) {
-		return Optional.ofNullable(string).filter(str -> !str.trim().isEmpty()).isPresent();
+		return string != null && !string.trim().isEmpty();
+	}
+
+	private static class TenantUriKey {
+		private final URI uri;
+		private final String subdomain;
+
+		TenantUriKey(URI uri, String subdomain) {
+			this.uri = uri;
+			this.subdomain = subdomain;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+			TenantUriKey that = (TenantUriKey) o;
+			return uri.equals(that.uri) && subdomain.equals(that.subdomain);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(uri, subdomain);
+		}
 	}
 }
@@ -0,0 +1,227 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingOAuth2TokenServiceTest {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://subdomain.myauth.server.com/oauth/token");
+	private static final ClientCredentials CLIENT_CREDENTIALS = new ClientCredentials("clientid", "secret");
+
+	@Mock
+	OAuth2TokenService tokenService;
+
+	MutableClock clock;
+	CachingOAuth2TokenService cut;
+
+	@Before
+	public void setup() {
+		clock = new MutableClock();
+		cut = new CachingOAuth2TokenService(tokenService, Duration.ofSeconds(30), 2, clock);
+	}
+
+	@Test
+	public void initialize_throwsOnInvalidValues() {
+		assertThatThrownBy(() -> new CachingOAuth2TokenService(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenService");
+		assertThatThrownBy(() -> new CachingOAuth2TokenService(tokenService, null, 10))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("expirySkew");
+		assertThatThrownBy(() -> new CachingOAuth2TokenService(tokenService, Duration.ZERO, 0))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("cacheSize");
+	}
+
+	@Test
+	public void clientCredentialsToken_isTakenFromCache() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		OAuth2TokenResponse first = retrieveClientCredentialsToken(null);
+		OAuth2TokenResponse second = retrieveClientCredentialsToken(null);
+
+		assertThat(second).isSameAs(first);
+		verify(tokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, null, null);
+	}
+
+	@Test
+	public void clientCredentialsToken_isCachedPerSubdomain() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS),
+				any(), isNull())).thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		retrieveClientCredentialsToken("tenant1");
+		retrieveClientCredentialsToken("tenant2");
+		retrieveClientCredentialsToken("tenant1");
+
+		verify(tokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "tenant1", null);
+		verify(tokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "tenant2", null);
+	}
+
+	@Test
+	public void clientCredentialsToken_isCachedPerOptionalParameters() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS),
+				isNull(), any())).thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null,
+				Collections.singletonMap("authorities", "{}"));
+		retrieveClientCredentialsToken(null);
+
+		verify(tokenService, times(2)).retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT),
+				eq(CLIENT_CREDENTIALS), isNull(), any());
+	}
+
+	@Test
+	public void token_isRequestedAgainWithinExpirySkew() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		retrieveClientCredentialsToken(null);
+		clock.advance(Duration.ofSeconds(3600 - 31));
+		retrieveClientCredentialsToken(null);
+		clock.advance(Duration.ofSeconds(2));
+		retrieveClientCredentialsToken(null);
+
+		verify(tokenService, times(2)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, null, null);
+	}
+
+	@Test
+	public void userToken_isCachedPerToken() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS), any(),
+				isNull(), isNull())).thenReturn(new OAuth2TokenResponse("token", 3600, "refresh"));
+
+		cut.retrieveAccessTokenViaUserTokenGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "user1", null, null);
+		cut.retrieveAccessTokenViaUserTokenGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "user2", null, null);
+		cut.retrieveAccessTokenViaUserTokenGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "user1", null, null);
+
+		verify(tokenService, times(2)).retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT),
+				eq(CLIENT_CREDENTIALS), any(), isNull(), isNull());
+	}
+
+	@Test
+	public void passwordToken_isCachedPerUserCredentials() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaPasswordGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS), any(),
+				any(), isNull(), isNull())).thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		cut.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "bob", "pwd", null, null);
+		cut.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "bob", "other", null, null);
+		cut.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "bob", "pwd", null, null);
+
+		verify(tokenService, times(2)).retrieveAccessTokenViaPasswordGrant(eq(TOKEN_ENDPOINT),
+				eq(CLIENT_CREDENTIALS), any(), any(), isNull(), isNull());
+	}
+
+	@Test
+	public void failedRequest_isNotCached() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "refresh", null))
+				.thenThrow(new OAuth2ServiceException("error"))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS,
+				"refresh", null)).isInstanceOf(OAuth2ServiceException.class).hasMessage("error");
+		assertThat(cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "refresh", null)
+				.getAccessToken()).isEqualTo("token");
+	}
+
+	@Test
+	public void failedRequestWithError_isNotCached() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "refresh", null))
+				.thenThrow(new StackOverflowError("error"))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS,
+				"refresh", null)).isInstanceOf(StackOverflowError.class);
+		assertThat(cut.getCachedTokenCount()).isZero();
+		assertThat(cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "refresh", null)
+				.getAccessToken()).isEqualTo("token");
+	}
+
+	@Test
+	public void cacheSize_isLimited() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS),
+				any(), isNull())).thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		retrieveClientCredentialsToken("tenant1");
+		retrieveClientCredentialsToken("tenant2");
+		retrieveClientCredentialsToken("tenant3");
+
+		assertThat(cut.getCachedTokenCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void clearCache_ofSubdomain_keepsOtherTenants() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS),
+				any(), isNull())).thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		retrieveClientCredentialsToken("tenant1");
+		retrieveClientCredentialsToken("tenant2");
+		retrieveClientCredentialsToken("tenant2");
+		cut.clearCache("tenant1");
+
+		assertThat(cut.getCachedTokenCount()).isEqualTo(1);
+		assertThat(cut.getHitCount()).isEqualTo(1);
+		assertThat(cut.getMissCount()).isEqualTo(2);
+		retrieveClientCredentialsToken("tenant1");
+		assertThat(cut.getMissCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void concurrentRequests_areCoalesced() throws Exception {
+		CountDownLatch requestStarted = new CountDownLatch(1);
+		CountDownLatch releaseResponse = new CountDownLatch(1);
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null))
+				.thenAnswer(invocation -> {
+					requestStarted.countDown();
+					releaseResponse.await(5, TimeUnit.SECONDS);
+					return new OAuth2TokenResponse("token", 3600, null);
+				});
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<OAuth2TokenResponse>> responses = new ArrayList<>();
+			responses.add(executor.submit(() -> retrieveClientCredentialsToken(null)));
+			requestStarted.await(5, TimeUnit.SECONDS);
+			for (int i = 0; i < 3; i++) {
+				responses.add(executor.submit(() -> retrieveClientCredentialsToken(null)));
+			}
+			releaseResponse.countDown();
+
+			for (Future<OAuth2TokenResponse> response : responses) {
+				assertThat(response.get(5, TimeUnit.SECONDS).getAccessToken()).isEqualTo("token");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(tokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, null, null);
+	}
+
+	private OAuth2TokenResponse retrieveClientCredentialsToken(String subdomain) throws OAuth2ServiceException {
+		return cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, subdomain, null);
+	}
+}
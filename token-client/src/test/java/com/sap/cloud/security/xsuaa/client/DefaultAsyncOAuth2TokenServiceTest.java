@@ -0,0 +1,90 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultAsyncOAuth2TokenServiceTest {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://subdomain.myauth.server.com/oauth/token");
+	private static final ClientCredentials CLIENT_CREDENTIALS = new ClientCredentials("clientid", "secret");
+
+	@Mock
+	OAuth2TokenService tokenService;
+
+	DefaultAsyncOAuth2TokenService cut;
+
+	@Before
+	public void setup() {
+		cut = new DefaultAsyncOAuth2TokenService(tokenService);
+	}
+
+	@Test
+	public void initialize_throwsOnInvalidValues() {
+		assertThatThrownBy(() -> new DefaultAsyncOAuth2TokenService(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenService");
+		assertThatThrownBy(() -> new DefaultAsyncOAuth2TokenService(tokenService, null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("executor");
+	}
+
+	@Test
+	public void retrieveToken_throwsOnNullValues() {
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null,
+				null)).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("refreshToken");
+	}
+
+	@Test
+	public void retrieveToken_isExecutedOnExecutor() throws Exception {
+		String[] executingThread = new String[1];
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null))
+				.thenAnswer(invocation -> {
+					executingThread[0] = Thread.currentThread().getName();
+					return new OAuth2TokenResponse("token", 3600, null);
+				});
+
+		OAuth2TokenResponse tokenResponse = cut
+				.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null).get();
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("token");
+		assertThat(executingThread[0]).startsWith("xsuaa-token-client-");
+	}
+
+	@Test
+	public void retrieveToken_completesExceptionally() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "bob", "pwd", null,
+				null)).thenThrow(new OAuth2ServiceException("error"));
+
+		CompletableFuture<OAuth2TokenResponse> tokenResponse = cut.retrieveAccessTokenViaPasswordGrant(
+				TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "bob", "pwd", null, null);
+
+		assertThatThrownBy(tokenResponse::get).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(OAuth2ServiceException.class);
+	}
+
+	@Test
+	public void retrieveToken_completesExceptionallyWhenRejected() {
+		Executor rejectingExecutor = runnable -> {
+			throw new RejectedExecutionException("queue is full");
+		};
+		cut = new DefaultAsyncOAuth2TokenService(tokenService, rejectingExecutor);
+
+		CompletableFuture<OAuth2TokenResponse> tokenResponse = cut.retrieveAccessTokenViaUserTokenGrant(
+				TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "token", null, null);
+
+		assertThatThrownBy(tokenResponse::get).hasCauseInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("queue is full");
+	}
+}
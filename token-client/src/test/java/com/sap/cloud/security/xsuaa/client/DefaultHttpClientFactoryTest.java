@@ -0,0 +1,89 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DefaultHttpClientFactoryTest {
+
+	private HttpServer server;
+	private final AtomicInteger requestCount = new AtomicInteger();
+
+	@Before
+	public void setup() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", exchange -> {
+			requestCount.incrementAndGet();
+			byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void defaults() {
+		DefaultHttpClientFactory cut = new DefaultHttpClientFactory();
+
+		assertThat(cut.getConnectTimeout()).isEqualTo(DefaultHttpClientFactory.DEFAULT_CONNECT_TIMEOUT);
+		assertThat(cut.getSocketTimeout()).isEqualTo(DefaultHttpClientFactory.DEFAULT_SOCKET_TIMEOUT);
+		assertThat(cut.getMaxConnectionsPerRoute())
+				.isEqualTo(DefaultHttpClientFactory.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+	}
+
+	@Test
+	public void withValues_throwsOnInvalidValues() {
+		DefaultHttpClientFactory cut = new DefaultHttpClientFactory();
+
+		assertThatThrownBy(() -> cut.withConnectTimeout(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("connectTimeout");
+		assertThatThrownBy(() -> cut.withSocketTimeout(Duration.ofSeconds(-1)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("socketTimeout");
+		assertThatThrownBy(() -> cut.withMaxConnections(0))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("maxConnections");
+		assertThatThrownBy(() -> cut.withSslContext(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("sslContext");
+	}
+
+	@Test
+	public void create_returnsPooledClient() throws IOException {
+		URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/oauth/token");
+
+		try (CloseableHttpClient httpClient = new DefaultHttpClientFactory()
+				.withConnectTimeout(Duration.ofSeconds(1))
+				.withSocketTimeout(Duration.ofSeconds(1))
+				.withMaxConnectionsPerRoute(1)
+				.create()) {
+			// with a single connection per route the second request only succeeds if
+			// the first connection was released back to the pool
+			for (int i = 0; i < 2; i++) {
+				try (CloseableHttpResponse response = httpClient.execute(new HttpGet(uri))) {
+					assertThat(response.getStatusLine().getStatusCode()).isEqualTo(200);
+				}
+			}
+		}
+		assertThat(requestCount.get()).isEqualTo(2);
+	}
+}
@@ -9,21 +9,26 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
 import org.apache.http.message.BasicStatusLine;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -44,6 +49,12 @@ public class DefaultOAuth2TokenServiceTest {
 		cut = new DefaultOAuth2TokenService(mockHttpClient);
 	}
 
+	@Test
+	public void defaultConstructor_sharesHttpClient() {
+		assertThat(new DefaultOAuth2TokenService().getHttpClient())
+				.isSameAs(new DefaultOAuth2TokenService().getHttpClient());
+	}
+
 	@Test
 	public void emptyResponse_throwsException() throws IOException {
 		CloseableHttpResponse response = createHttpResponse("{}");
@@ -95,6 +106,96 @@ public class DefaultOAuth2TokenServiceTest {
 				.hasMessageContaining(unauthorizedResponseText);
 	}
 
+	@Test
+	public void requestsAreFormEncodedWithRequestTemplate() throws IOException {
+		when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(invocation -> createHttpResponse(
+				VALID_JSON_RESPONSE));
+		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
+		ClientCredentials clientCredentials = new ClientCredentials("sb-client!t0815", "secret+/=");
+
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials, null, null);
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials, "other",
+				Collections.singletonMap("authorities", "{\"az_attr\":{\"a\":\"b c\"}}"));
+
+		List<HttpPost> requests = captureRequests(2);
+		assertThat(EntityUtils.toString(requests.get(0).getEntity())).isEqualTo(
+				"grant_type=client_credentials&client_id=sb-client%21t0815&client_secret=secret%2B%2F%3D");
+		assertThat(EntityUtils.toString(requests.get(1).getEntity())).isEqualTo(
+				"grant_type=client_credentials&client_id=sb-client%21t0815&client_secret=secret%2B%2F%3D"
+						+ "&authorities=%7B%22az_attr%22%3A%7B%22a%22%3A%22b+c%22%7D%7D");
+		assertThat(requests.get(1).getURI().getHost()).isEqualTo("other.myauth.server.com");
+		assertThat(cut.getRequestTemplateCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestTemplatesAreReplacedWhenClientSecretChanges() throws IOException {
+		when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(invocation -> createHttpResponse(
+				VALID_JSON_RESPONSE));
+		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
+
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, new ClientCredentials("client", "secret"),
+				null, null);
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri,
+				new ClientCredentials("client", "rotated"), null, null);
+
+		List<HttpPost> requests = captureRequests(2);
+		assertThat(EntityUtils.toString(requests.get(0).getEntity())).endsWith("&client_secret=secret");
+		assertThat(EntityUtils.toString(requests.get(1).getEntity())).endsWith("&client_secret=rotated");
+		assertThat(cut.getRequestTemplateCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestTemplatesAreBounded() throws IOException {
+		when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(invocation -> createHttpResponse(
+				VALID_JSON_RESPONSE));
+		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
+
+		for (int i = 0; i <= DefaultOAuth2TokenService.MAX_REQUEST_TEMPLATES; i++) {
+			cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri,
+					new ClientCredentials("client" + i, "secret"), null, null);
+		}
+
+		assertThat(cut.getRequestTemplateCount()).isEqualTo(DefaultOAuth2TokenService.MAX_REQUEST_TEMPLATES);
+	}
+
+	@Test
+	public void headersWithoutAuthorizationAreConvertedOnce() throws IOException {
+		when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(invocation -> createHttpResponse(
+				VALID_JSON_RESPONSE));
+		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
+		ClientCredentials clientCredentials = new ClientCredentials("client", "secret");
+
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials, null, null);
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials, null, null);
+
+		List<HttpPost> requests = captureRequests(2);
+		assertThat(requests.get(1).getFirstHeader(HttpHeaders.ACCEPT))
+				.isSameAs(requests.get(0).getFirstHeader(HttpHeaders.ACCEPT));
+	}
+
+	@Test
+	public void authorizationHeaderIsNotReused() throws IOException {
+		when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(invocation -> createHttpResponse(
+				VALID_JSON_RESPONSE));
+		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
+		ClientCredentials clientCredentials = new ClientCredentials("client", "secret");
+
+		cut.retrieveAccessTokenViaUserTokenGrant(tokenEndpointUri, clientCredentials, "user-token", null, null);
+		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials, null, null);
+
+		List<HttpPost> requests = captureRequests(2);
+		assertThat(requests.get(0).getFirstHeader(HttpHeaders.AUTHORIZATION).getValue())
+				.isEqualTo("Bearer user-token");
+		assertThat(requests.get(1).getFirstHeader(HttpHeaders.AUTHORIZATION)).isNull();
+		assertThat(requests.get(1).getFirstHeader(HttpHeaders.ACCEPT).getValue()).isEqualTo("application/json");
+	}
+
+	private List<HttpPost> captureRequests(int count) throws IOException {
+		ArgumentCaptor<HttpPost> requestCaptor = ArgumentCaptor.forClass(HttpPost.class);
+		verify(mockHttpClient, times(count)).execute(requestCaptor.capture());
+		return requestCaptor.getAllValues();
+	}
+
 	private OAuth2TokenResponse requestAccessToken() throws OAuth2ServiceException {
 		URI tokenEndpointUri = URI.create("https://subdomain.myauth.server.com/oauth/token");
 		HttpHeaders withoutAuthorizationHeader = new HttpHeadersFactory().createWithoutAuthorizationHeader();
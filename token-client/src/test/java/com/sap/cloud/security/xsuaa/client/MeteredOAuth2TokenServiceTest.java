@@ -0,0 +1,76 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.URI;
+
+import static com.sap.cloud.security.xsuaa.client.MeteredOAuth2TokenService.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MeteredOAuth2TokenServiceTest {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://subdomain.myauth.server.com/oauth/token");
+	private static final ClientCredentials CLIENT_CREDENTIALS = new ClientCredentials("clientid", "secret");
+
+	@Mock
+	OAuth2TokenService tokenService;
+
+	MeterRegistry meterRegistry;
+	MeteredOAuth2TokenService cut;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		cut = new MeteredOAuth2TokenService(tokenService, meterRegistry);
+	}
+
+	@Test
+	public void initialize_throwsOnInvalidValues() {
+		assertThatThrownBy(() -> new MeteredOAuth2TokenService(null, meterRegistry))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenService");
+		assertThatThrownBy(() -> new MeteredOAuth2TokenService(tokenService, null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("meterRegistry");
+	}
+
+	@Test
+	public void successfulRequest_isTimedPerGrantTypeAndTenantHost() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS,
+				"tenant", null)).thenReturn(new OAuth2TokenResponse("token", 3600, "refresh"));
+
+		cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "tenant", null);
+
+		assertThat(meterRegistry.get(REQUESTS)
+				.tag("grant_type", "client_credentials")
+				.tag("host", "tenant.myauth.server.com")
+				.tag("outcome", "SUCCESS")
+				.timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get(RESPONSE_SIZE).tag("grant_type", "client_credentials").summary()
+				.totalAmount()).isEqualTo(12);
+		assertThat(meterRegistry.get(ACTIVE_REQUESTS).gauge().value()).isEqualTo(0);
+	}
+
+	@Test
+	public void failedRequest_isTimedWithOutcome() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "refresh", null))
+				.thenThrow(new OAuth2ServiceException("error", 503));
+
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT, CLIENT_CREDENTIALS,
+				"refresh", null)).isInstanceOf(OAuth2ServiceException.class);
+
+		assertThat(meterRegistry.get(REQUESTS)
+				.tag("grant_type", "refresh_token")
+				.tag("host", "subdomain.myauth.server.com")
+				.tag("outcome", "SERVER_ERROR")
+				.timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.find(RESPONSE_SIZE).summary()).isNull();
+	}
+}
@@ -0,0 +1,33 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A {@link Clock} for tests that only moves when it is advanced.
+ */
+public class MutableClock extends Clock {
+	private volatile Instant instant = Instant.now();
+
+	public void advance(Duration duration) {
+		instant = instant.plus(duration);
+	}
+
+	@Override
+	public ZoneOffset getZone() {
+		return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+		return this;
+	}
+
+	@Override
+	public Instant instant() {
+		return instant;
+	}
+}
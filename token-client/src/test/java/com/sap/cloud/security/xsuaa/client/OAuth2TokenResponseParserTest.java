@@ -0,0 +1,104 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class OAuth2TokenResponseParserTest {
+
+	@Test
+	public void parse() throws OAuth2ServiceException {
+		OAuth2TokenResponse tokenResponse = parse(
+				"{\"access_token\":\"eyJhbGciOiJSUzI1NiJ9.e30.c2ln\",\"token_type\":\"bearer\","
+						+ "\"refresh_token\":\"d2faefe7ea834ba895d20730f106128c-r\",\"expires_in\":43199}");
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("eyJhbGciOiJSUzI1NiJ9.e30.c2ln");
+		assertThat(tokenResponse.getRefreshToken()).isEqualTo("d2faefe7ea834ba895d20730f106128c-r");
+		assertThat(tokenResponse.getExpiredAtDate()).isNotNull();
+	}
+
+	@Test
+	public void parse_skipsUnknownMembers() throws OAuth2ServiceException {
+		OAuth2TokenResponse tokenResponse = parse("{ \"scope\" : \"openid uaa.user\",\n"
+				+ "  \"nested\" : { \"access_token\" : \"nested\", \"list\" : [ 1, { \"a\" : \"}]\" } ] },\n"
+				+ "  \"escaped\" : \"quote \\\" and backslash \\\\\",\n"
+				+ "  \"flag\" : true, \"nothing\" : null, \"number\" : -1.5e3,\n"
+				+ "  \"access_token\" : \"token\", \"expires_in\" : \"3600\" }");
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("token");
+		assertThat(tokenResponse.getRefreshToken()).isNull();
+	}
+
+	@Test
+	public void parse_decodesUtf8AndEscapeSequences() throws OAuth2ServiceException {
+		OAuth2TokenResponse tokenResponse = parse(
+				"{\"access_token\":\"t\\u00f6ken\\/\\n\",\"refresh_token\":\"réfresh\",\"expires_in\":1}");
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("töken/\n");
+		assertThat(tokenResponse.getRefreshToken()).isEqualTo("réfresh");
+	}
+
+	@Test
+	public void parse_acceptsUnquotedNamesAndValues() throws OAuth2ServiceException {
+		OAuth2TokenResponse tokenResponse = parse("{expires_in: 1234, access_token: abc123, refresh_token: 'def456'}");
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("abc123");
+		assertThat(tokenResponse.getRefreshToken()).isEqualTo("def456");
+	}
+
+	@Test
+	public void parse_stopsReadingWhenAllMembersWereFound() throws OAuth2ServiceException {
+		InputStream tokenMembers = new ByteArrayInputStream(
+				"{\"access_token\":\"token\",\"refresh_token\":\"refresh\",\"expires_in\":1,"
+						.getBytes(StandardCharsets.UTF_8));
+		InputStream failingRemainder = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				throw new IOException("must not be read");
+			}
+		};
+
+		OAuth2TokenResponse tokenResponse = OAuth2TokenResponseParser
+				.parse(new SequenceInputStream(tokenMembers, failingRemainder));
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("token");
+	}
+
+	@Test
+	public void parse_throwsOnMalformedResponse() {
+		assertThatThrownBy(() -> parse("no json")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageStartingWith("Cannot parse token response");
+		assertThatThrownBy(() -> parse("")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("unexpected end of response");
+		assertThatThrownBy(() -> parse("{\"access_token\":\"token")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("unterminated string");
+		assertThatThrownBy(() -> parse("{\"access_token\":{}}")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("unexpected character '{'");
+		assertThatThrownBy(() -> parse("{\"other\":[1,2}")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("unexpected end of response");
+		assertThatThrownBy(() -> parse("{\"expires_in\":1 \"access_token\":\"token\"}"))
+				.isInstanceOf(OAuth2ServiceException.class).hasMessageContaining("unexpected character '\"'");
+	}
+
+	@Test
+	public void parse_throwsOnMissingOrInvalidMembers() {
+		assertThatThrownBy(() -> parse("{}")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("expires_in");
+		assertThatThrownBy(() -> parse("{\"access_token\":\"token\",\"expires_in\":\"soon\"}"))
+				.isInstanceOf(OAuth2ServiceException.class)
+				.hasMessage("Cannot convert expires_in from response (soon) to long");
+		assertThatThrownBy(() -> parse("{\"expires_in\":1}")).isInstanceOf(OAuth2ServiceException.class)
+				.hasMessageContaining("missing access_token");
+	}
+
+	private static OAuth2TokenResponse parse(String response) throws OAuth2ServiceException {
+		return OAuth2TokenResponseParser.parse(response.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -8,6 +8,8 @@ import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.allOf;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 public class OAuth2TokenResponseTest {
@@ -37,6 +39,16 @@ public class OAuth2TokenResponseTest {
 				OrderingComparison.lessThanOrEqualTo(maxExpireDate)));
 	}
 
+	@Test
+	public void getDecodedAccessTokenIsMemoized() {
+		OAuth2TokenResponse tokenResponse = new OAuth2TokenResponse("e30.e30.signature", 43199, null);
+
+		assertSame(tokenResponse.getDecodedAccessToken(), tokenResponse.getDecodedAccessToken());
+		assertSame(tokenResponse.getDecodedAccessToken().getPayload(),
+				tokenResponse.getDecodedAccessToken().getPayload());
+		assertNull(new OAuth2TokenResponse(null, 43199, null).getDecodedAccessToken());
+	}
+
 	private Instant getCurrentInstant() {
 		return Instant.ofEpochMilli(System.currentTimeMillis());
 	}
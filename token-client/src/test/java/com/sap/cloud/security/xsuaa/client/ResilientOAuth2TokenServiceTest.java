@@ -0,0 +1,252 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.sap.cloud.security.xsuaa.client.ResilientOAuth2TokenService.CircuitBreakerState.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResilientOAuth2TokenServiceTest {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://subdomain.myauth.server.com/oauth/token");
+	private static final String HOST = "subdomain.myauth.server.com";
+	private static final String UAA_DOMAIN = "myauth.server.com";
+	private static final ClientCredentials CLIENT_CREDENTIALS = new ClientCredentials("clientid", "secret");
+	private static final OAuth2TokenResponse TOKEN_RESPONSE = new OAuth2TokenResponse("token", 3600, null);
+
+	@Mock
+	OAuth2TokenService tokenService;
+
+	MutableClock clock;
+	List<Duration> backoffs;
+	ResilienceSettings settings;
+
+	@Before
+	public void setup() {
+		clock = new MutableClock();
+		backoffs = new ArrayList<>();
+		settings = new ResilienceSettings()
+				.withMaxAttempts(3)
+				.withBackoff(Duration.ofMillis(100), Duration.ofMillis(150))
+				.withCircuitBreakerFailureThreshold(3)
+				.withCircuitBreakerOpenDuration(Duration.ofSeconds(30));
+	}
+
+	@Test
+	public void initialize_throwsOnInvalidValues() {
+		assertThatThrownBy(() -> new ResilientOAuth2TokenService(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenService");
+		assertThatThrownBy(() -> new ResilientOAuth2TokenService(tokenService, null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("settings");
+		assertThatThrownBy(() -> new ResilienceSettings().withMaxAttempts(0))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("maxAttempts");
+		assertThatThrownBy(() -> new ResilienceSettings().withBulkhead(1, Duration.ofMillis(-1)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("bulkheadMaxWait");
+	}
+
+	@Test
+	public void retrieveToken_retriesOnServerError() throws OAuth2ServiceException {
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unavailable", 503))
+				.thenThrow(new OAuth2ServiceException("too many requests", 429))
+				.thenReturn(TOKEN_RESPONSE);
+
+		ResilientOAuth2TokenService cut = createCut();
+
+		assertThat(retrieveToken(cut)).isSameAs(TOKEN_RESPONSE);
+		assertThat(cut.getRetryCount()).isEqualTo(2);
+		assertThat(backoffs).hasSize(2);
+		assertThat(backoffs.get(0)).isBetween(Duration.ofMillis(50), Duration.ofMillis(100));
+		assertThat(backoffs.get(1)).isBetween(Duration.ofMillis(75), Duration.ofMillis(150));
+	}
+
+	@Test
+	public void retrieveToken_retriesOnConnectionError() throws OAuth2ServiceException {
+		when(requestToken()).thenThrow(new OAuth2ServiceException("connection refused", new IOException()))
+				.thenReturn(TOKEN_RESPONSE);
+
+		assertThat(retrieveToken(createCut())).isSameAs(TOKEN_RESPONSE);
+	}
+
+	@Test
+	public void retrieveToken_ofPasswordGrant_retriesOnlyWhenNotConnected() throws OAuth2ServiceException {
+		when(requestPasswordToken())
+				.thenThrow(new OAuth2ServiceException("connection refused",
+						new RuntimeException(new ConnectException())))
+				.thenThrow(new OAuth2ServiceException("read timed out", new SocketTimeoutException()))
+				.thenReturn(TOKEN_RESPONSE);
+		ResilientOAuth2TokenService cut = createCut();
+
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "user",
+				"password", null, null)).hasMessage("read timed out");
+		assertThat(cut.getRetryCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void retrieveToken_doesNotRetryClientErrors() throws OAuth2ServiceException {
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unauthorized", 401));
+
+		ResilientOAuth2TokenService cut = createCut();
+
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessage("unauthorized");
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessage("unauthorized");
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessage("unauthorized");
+		verify(tokenService, times(3)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+		assertThat(cut.getRetryCount()).isZero();
+		assertThat(cut.getCircuitBreakerState(HOST)).isEqualTo(CLOSED);
+	}
+
+	@Test
+	public void retrieveToken_throwsAfterMaxAttempts() throws OAuth2ServiceException {
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unavailable", 503));
+
+		assertThatThrownBy(() -> retrieveToken(createCut())).hasMessage("unavailable");
+		verify(tokenService, times(3)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+	}
+
+	@Test
+	public void circuitBreaker_opensAndClosesAgain() throws OAuth2ServiceException {
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unavailable", 503))
+				.thenThrow(new OAuth2ServiceException("unavailable", 503))
+				.thenThrow(new OAuth2ServiceException("unavailable", 503))
+				.thenReturn(TOKEN_RESPONSE);
+		ResilientOAuth2TokenService cut = createCut();
+
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessage("unavailable");
+		assertThat(cut.getCircuitBreakerState(HOST)).isEqualTo(OPEN);
+		assertThat(cut.getOpenCircuitBreakerCount()).isEqualTo(1);
+
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessageContaining("Circuit breaker for " + UAA_DOMAIN);
+		assertThat(cut.getCircuitBreakerRejectionCount()).isEqualTo(1);
+		verify(tokenService, times(3)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+
+		clock.advance(Duration.ofSeconds(31));
+		assertThat(cut.getCircuitBreakerState(HOST)).isEqualTo(HALF_OPEN);
+
+		assertThat(retrieveToken(cut)).isSameAs(TOKEN_RESPONSE);
+		assertThat(cut.getCircuitBreakerState(HOST)).isEqualTo(CLOSED);
+	}
+
+	@Test
+	public void circuitBreaker_isPerUaaDomain() throws OAuth2ServiceException {
+		URI otherDomainEndpoint = URI.create("https://subdomain.otherauth.server.com/oauth/token");
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unavailable", 503));
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(otherDomainEndpoint),
+				eq(CLIENT_CREDENTIALS), isNull(), isNull())).thenReturn(TOKEN_RESPONSE);
+		ResilientOAuth2TokenService cut = createCut();
+
+		assertThatThrownBy(() -> retrieveToken(cut)).hasMessage("unavailable");
+
+		assertThat(cut.getCircuitBreakerState("other.myauth.server.com")).isEqualTo(OPEN);
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "other", null)).hasMessageContaining("Circuit breaker for " + UAA_DOMAIN);
+		assertThat(cut.retrieveAccessTokenViaClientCredentialsGrant(otherDomainEndpoint, CLIENT_CREDENTIALS, null,
+				null)).isSameAs(TOKEN_RESPONSE);
+		assertThat(cut.getCircuitBreakerState("subdomain.otherauth.server.com")).isEqualTo(CLOSED);
+	}
+
+	@Test
+	public void bulkhead_rejectsRequestsAboveLimit() throws Exception {
+		settings.withBulkhead(1, Duration.ZERO);
+		ResilientOAuth2TokenService cut = createCut();
+		CountDownLatch requestStarted = new CountDownLatch(1);
+		CountDownLatch releaseRequest = new CountDownLatch(1);
+		when(requestToken()).thenAnswer(invocation -> {
+			requestStarted.countDown();
+			releaseRequest.await(5, TimeUnit.SECONDS);
+			return TOKEN_RESPONSE;
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<OAuth2TokenResponse> firstRequest = executor.submit(() -> retrieveToken(cut));
+			assertThat(requestStarted.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(cut.getInFlightRequestCount()).isEqualTo(1);
+
+			assertThatThrownBy(() -> retrieveToken(cut)).hasMessageContaining("Too many concurrent token requests");
+			assertThat(cut.getBulkheadRejectionCount()).isEqualTo(1);
+
+			releaseRequest.countDown();
+			assertThat(firstRequest.get(5, TimeUnit.SECONDS)).isSameAs(TOKEN_RESPONSE);
+			assertThat(cut.getInFlightRequestCount()).isZero();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void bulkhead_isReleasedDuringBackoff() throws OAuth2ServiceException {
+		settings.withBulkhead(1, Duration.ZERO);
+		List<Integer> inFlightRequestCounts = new ArrayList<>();
+		ResilientOAuth2TokenService[] cut = new ResilientOAuth2TokenService[1];
+		cut[0] = new ResilientOAuth2TokenService(tokenService, settings, clock,
+				backoff -> inFlightRequestCounts.add(cut[0].getInFlightRequestCount()));
+		when(requestToken()).thenThrow(new OAuth2ServiceException("unavailable", 503))
+				.thenReturn(TOKEN_RESPONSE);
+
+		assertThat(retrieveToken(cut[0])).isSameAs(TOKEN_RESPONSE);
+		assertThat(inFlightRequestCounts).containsExactly(0);
+	}
+
+	@Test
+	public void endpointStates_ofIdleHostsAreRemoved() throws OAuth2ServiceException {
+		when(tokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT), eq(CLIENT_CREDENTIALS),
+				any(), isNull())).thenReturn(TOKEN_RESPONSE);
+		ResilientOAuth2TokenService cut = createCut();
+
+		for (int i = 0; i <= ResilientOAuth2TokenService.MAX_ENDPOINT_STATES; i++) {
+			cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "tenant" + i, null);
+		}
+
+		assertThat(cut.getEndpointStateCount()).isLessThanOrEqualTo(ResilientOAuth2TokenService.MAX_ENDPOINT_STATES);
+	}
+
+	@Test
+	public void settingsAreCopied() {
+		ResilientOAuth2TokenService cut = createCut();
+		settings.withMaxAttempts(7);
+
+		assertThat(cut.getSettings().getMaxAttempts()).isEqualTo(3);
+	}
+
+	private ResilientOAuth2TokenService createCut() {
+		return new ResilientOAuth2TokenService(tokenService, settings, clock, backoffs::add);
+	}
+
+	private OAuth2TokenResponse requestToken() throws OAuth2ServiceException {
+		return tokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null,
+				null);
+	}
+
+	private OAuth2TokenResponse requestPasswordToken() throws OAuth2ServiceException {
+		return tokenService.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "user",
+				"password", null, null);
+	}
+
+	private OAuth2TokenResponse retrieveToken(ResilientOAuth2TokenService cut) throws OAuth2ServiceException {
+		return cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null, null);
+	}
+}
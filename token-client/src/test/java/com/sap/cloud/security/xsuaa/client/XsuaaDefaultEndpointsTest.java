@@ -1,6 +1,7 @@
 package com.sap.cloud.security.xsuaa.client;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import org.junit.Test;
@@ -56,6 +57,14 @@ public class XsuaaDefaultEndpointsTest {
 		assertThat(cut.getJwksUri().toString(), is("http://localhost:8080/uaa/token_keys?abc=123"));
 	}
 
+	@Test
+	public void endpointsAreDerivedOnce() {
+		OAuth2ServiceEndpointsProvider cut = createXsuaaDefaultEndpointProvider("https://subdomain.myauth.com");
+
+		assertThat(cut.getTokenEndpoint(), sameInstance(cut.getTokenEndpoint()));
+		assertThat(cut.getJwksUri(), sameInstance(cut.getJwksUri()));
+	}
+
 	private OAuth2ServiceEndpointsProvider createXsuaaDefaultEndpointProvider(String baseUri) {
 		return new XsuaaDefaultEndpoints(baseUri);
 	}
@@ -13,9 +13,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -68,7 +70,7 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusUnauthorized() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
 		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientCredentials,
 				null, null);
@@ -76,7 +78,7 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusNotOk() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
 		cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint, clientCredentials,
 				null, null);
@@ -92,8 +94,8 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 				.postForEntity(
 						eq(tokenEndpoint),
 						argThat(tokenHttpEntityMatcher),
-						eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+						eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint,
 				clientCredentials,
@@ -116,8 +118,8 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 		Mockito.when(mockRestOperations.postForEntity(
 				eq(tokenEndpoint),
 				argThat(tokenHttpEntityMatcher),
-				eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+				eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpoint,
 				clientCredentials, null,
@@ -134,8 +136,8 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 		Mockito.when(mockRestOperations.postForEntity(
 				eq(tokenEndpoint),
 				argThat(tokenHttpEntityMatcher),
-				eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+				eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		Map<String, String> overwrittenGrantType = new HashMap<>();
 		overwrittenGrantType.put(GRANT_TYPE, "overwrite-obligatory-param");
@@ -146,4 +148,7 @@ public class XsuaaOAuth2TokenServiceClientCredentialsTest {
 		assertThat(accessToken.getAccessToken(), is(responseMap.get(ACCESS_TOKEN)));
 	}
 
-}
\ No newline at end of file
+	private static byte[] toJson(Map<String, String> response) {
+		return new JSONObject(response).toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,125 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.ACCESS_TOKEN;
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.ASSERTION;
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.EXPIRES_IN;
+import static com.sap.cloud.security.xsuaa.client.OAuth2TokenServiceConstants.GRANT_TYPE_JWT_BEARER;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestOperations;
+
+@RunWith(MockitoJUnitRunner.class)
+public class XsuaaOAuth2TokenServiceJwtBearerTest {
+
+	OAuth2TokenService cut;
+	ClientCredentials clientCredentials;
+	URI tokenEndpoint;
+	Map<String, String> responseMap;
+	private static final String userTokenToBeExchanged = "65a84cd45c554c6993ea26cb8f9cf3a2";
+
+	@Mock
+	RestOperations mockRestOperations;
+
+	@Before
+	public void setup() {
+		cut = new XsuaaOAuth2TokenService(mockRestOperations);
+		clientCredentials = new ClientCredentials("clientid", "mysecretpassword");
+		tokenEndpoint = URI.create("https://subdomain.myauth.server.com/oauth/token");
+
+		responseMap = new HashMap<>();
+		responseMap.put(ACCESS_TOKEN, "4d841646fcc340f59b1b7b43df4b050d");
+		responseMap.put(EXPIRES_IN, "43199");
+	}
+
+	@Test
+	public void retrieveToken_throwsOnNullValues() {
+		assertThatThrownBy(() -> {
+			cut.retrieveAccessTokenViaJwtBearerTokenGrant(null, clientCredentials, userTokenToBeExchanged, null,
+					null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenEndpointUri");
+
+		assertThatThrownBy(() -> {
+			cut.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint, null, userTokenToBeExchanged, null, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("clientCredentials");
+
+		assertThatThrownBy(() -> {
+			cut.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint, clientCredentials, null, null, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("token");
+	}
+
+	@Test(expected = OAuth2ServiceException.class)
+	public void retrieveToken_throwsIfHttpStatusUnauthorized() throws OAuth2ServiceException {
+		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(byte[].class)))
+				.thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
+		cut.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint, clientCredentials,
+				userTokenToBeExchanged, null, null);
+	}
+
+	@Test
+	public void retrieveToken() throws OAuth2ServiceException {
+		TokenServiceHttpEntityMatcher tokenHttpEntityMatcher = new TokenServiceHttpEntityMatcher();
+		tokenHttpEntityMatcher.setGrantType(GRANT_TYPE_JWT_BEARER);
+		tokenHttpEntityMatcher.setClientCredentials(clientCredentials);
+		tokenHttpEntityMatcher.addParameter(ASSERTION, userTokenToBeExchanged);
+
+		Mockito.when(mockRestOperations
+				.postForEntity(
+						eq(tokenEndpoint),
+						argThat(tokenHttpEntityMatcher),
+						eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
+
+		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint,
+				clientCredentials, userTokenToBeExchanged, null, null);
+		assertThat(accessToken.getAccessToken(), is(responseMap.get(ACCESS_TOKEN)));
+		assertNotNull(accessToken.getExpiredAtDate());
+	}
+
+	@Test
+	public void retrieveToken_withOptionalParamaters() throws OAuth2ServiceException {
+		Map<String, String> additionalParameters = new HashMap<>();
+		additionalParameters.put("add-param-1", "value1");
+
+		TokenServiceHttpEntityMatcher tokenHttpEntityMatcher = new TokenServiceHttpEntityMatcher();
+		tokenHttpEntityMatcher.setGrantType(GRANT_TYPE_JWT_BEARER);
+		tokenHttpEntityMatcher.setClientCredentials(clientCredentials);
+		tokenHttpEntityMatcher.addParameter(ASSERTION, userTokenToBeExchanged);
+		tokenHttpEntityMatcher.addParameters(additionalParameters);
+
+		Mockito.when(mockRestOperations.postForEntity(
+				eq(URI.create("https://tenant.myauth.server.com/oauth/token")),
+				argThat(tokenHttpEntityMatcher),
+				eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
+
+		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaJwtBearerTokenGrant(tokenEndpoint,
+				clientCredentials, userTokenToBeExchanged, "tenant", additionalParameters);
+		assertThat(accessToken.getAccessToken(), is(responseMap.get(ACCESS_TOKEN)));
+	}
+
+	private static byte[] toJson(Map<String, String> response) {
+		return new JSONObject(response).toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -1,5 +1,6 @@
 package com.sap.cloud.security.xsuaa.client;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -13,6 +14,7 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestOperations;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,7 +50,7 @@ public class XsuaaOAuth2TokenServicePasswordTest {
 		response.putIfAbsent(ACCESS_TOKEN, "f529.dd6e30.d454677322aaabb0");
 		response.putIfAbsent(EXPIRES_IN, "43199");
 		when(mockRestOperations.postForEntity(any(), any(), any()))
-				.thenReturn(ResponseEntity.status(200).body(response));
+				.thenReturn(ResponseEntity.status(200).body(toJson(response)));
 		optionalParameters = new HashMap<>();
 		cut = new XsuaaOAuth2TokenService(mockRestOperations);
 	}
@@ -179,7 +181,7 @@ public class XsuaaOAuth2TokenServicePasswordTest {
 				.postForEntity(
 						eq(tokenEndpoint),
 						requestEntityCaptor.capture(),
-						eq(Map.class));
+						eq(byte[].class));
 		return requestEntityCaptor;
 	}
 
@@ -194,4 +196,7 @@ public class XsuaaOAuth2TokenServicePasswordTest {
 				.thenThrow(new HttpClientErrorException(unauthorized));
 	}
 
-}
\ No newline at end of file
+	private static byte[] toJson(Map<String, String> response) {
+		return new JSONObject(response).toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -13,9 +13,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -75,7 +77,7 @@ public class XsuaaOAuth2TokenServiceRefreshTokenTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusUnauthorized() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(eq(tokenEndpoint), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(eq(tokenEndpoint), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
 		cut.retrieveAccessTokenViaRefreshToken(tokenEndpoint, clientCredentials,
 				refreshToken, null);
@@ -83,7 +85,7 @@ public class XsuaaOAuth2TokenServiceRefreshTokenTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusNotOk() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(eq(tokenEndpoint), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(eq(tokenEndpoint), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
 		cut.retrieveAccessTokenViaRefreshToken(tokenEndpoint, clientCredentials,
 				refreshToken, null);
@@ -100,8 +102,8 @@ public class XsuaaOAuth2TokenServiceRefreshTokenTest {
 				.postForEntity(
 						eq(tokenEndpoint),
 						argThat(tokenHttpEntityMatcher),
-						eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+						eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaRefreshToken(tokenEndpoint, clientCredentials,
 				refreshToken, null);
@@ -109,4 +111,8 @@ public class XsuaaOAuth2TokenServiceRefreshTokenTest {
 		assertThat(accessToken.getAccessToken(), is(responseMap.get(ACCESS_TOKEN)));
 		assertNotNull(accessToken.getExpiredAtDate());
 	}
-}
\ No newline at end of file
+
+	private static byte[] toJson(Map<String, String> response) {
+		return new JSONObject(response).toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
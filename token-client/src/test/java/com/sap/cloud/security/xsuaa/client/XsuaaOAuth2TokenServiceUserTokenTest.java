@@ -12,9 +12,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.json.JSONObject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -74,7 +76,7 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusUnauthorized() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.UNAUTHORIZED));
 		cut.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint, clientCredentials,
 				userTokenToBeExchanged, null, null);
@@ -82,7 +84,7 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 
 	@Test(expected = OAuth2ServiceException.class)
 	public void retrieveToken_throwsIfHttpStatusNotOk() throws OAuth2ServiceException {
-		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(Map.class)))
+		Mockito.when(mockRestOperations.postForEntity(any(URI.class), any(HttpEntity.class), eq(byte[].class)))
 				.thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
 		cut.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint, clientCredentials,
 				userTokenToBeExchanged, null, null);
@@ -103,8 +105,8 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 				.postForEntity(
 						eq(tokenEndpoint),
 						argThat(tokenHttpEntityMatcher),
-						eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+						eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint, clientCredentials,
 				userTokenToBeExchanged, null, null);
@@ -127,8 +129,8 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 		Mockito.when(mockRestOperations.postForEntity(
 				eq(tokenEndpoint),
 				argThat(tokenHttpEntityMatcher),
-				eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+				eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		OAuth2TokenResponse accessToken = cut.retrieveAccessTokenViaUserTokenGrant(tokenEndpoint, clientCredentials,
 				userTokenToBeExchanged, null, additionalParameters);
@@ -145,8 +147,8 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 				mockRestOperations.postForEntity(
 						eq(tokenEndpoint),
 						argThat(tokenHttpEntityMatcher),
-						eq(Map.class)))
-				.thenReturn(new ResponseEntity<>(responseMap, HttpStatus.OK));
+						eq(byte[].class)))
+				.thenReturn(new ResponseEntity<>(toJson(responseMap), HttpStatus.OK));
 
 		Map<String, String> overwrittenGrantType = new HashMap<>();
 		overwrittenGrantType.put(OAuth2TokenServiceConstants.GRANT_TYPE, "overwrite-obligatory-param");
@@ -155,4 +157,8 @@ public class XsuaaOAuth2TokenServiceUserTokenTest {
 				userTokenToBeExchanged, null, overwrittenGrantType);
 		assertThat(accessToken.getRefreshToken(), is(responseMap.get(REFRESH_TOKEN)));
 	}
-}
\ No newline at end of file
+
+	private static byte[] toJson(Map<String, String> response) {
+		return new JSONObject(response).toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,128 @@
+package com.sap.cloud.security.xsuaa.client;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class XsuaaReactiveOAuth2TokenServiceTest {
+
+	private static final URI TOKEN_ENDPOINT = URI.create("https://subdomain.myauth.server.com/oauth/token");
+	private static final ClientCredentials CLIENT_CREDENTIALS = new ClientCredentials("clientid", "secret");
+	private static final String TOKEN_RESPONSE = "{\"access_token\":\"accessToken\",\"expires_in\":43199,\"refresh_token\":\"refreshToken\"}";
+
+	private final List<ClientRequest> requests = new ArrayList<>();
+
+	@Test
+	public void initialize_throwsIfWebClientIsNull() {
+		assertThatThrownBy(() -> new XsuaaReactiveOAuth2TokenService(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("webClient");
+	}
+
+	@Test
+	public void retrieveToken_throwsOnNullValues() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.OK, TOKEN_RESPONSE);
+
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaClientCredentialsGrant(null, CLIENT_CREDENTIALS, null,
+				null)).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenEndpointUri");
+		assertThatThrownBy(() -> cut.retrieveAccessTokenViaUserTokenGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, null,
+				null, null)).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("token");
+	}
+
+	@Test
+	public void retrieveClientCredentialsToken() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.OK, TOKEN_RESPONSE);
+
+		OAuth2TokenResponse tokenResponse = cut
+				.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "other", null)
+				.block();
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("accessToken");
+		assertThat(tokenResponse.getRefreshToken()).isEqualTo("refreshToken");
+		assertThat(requests).hasSize(1);
+		assertThat(requests.get(0).url().toString()).isEqualTo("https://other.myauth.server.com/oauth/token");
+		assertThat(requests.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION)).isNull();
+	}
+
+	@Test
+	public void retrieveUserToken_sendsBearerToken() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.OK, TOKEN_RESPONSE);
+
+		cut.retrieveAccessTokenViaUserTokenGrant(TOKEN_ENDPOINT, CLIENT_CREDENTIALS, "userToken", null, null)
+				.block();
+
+		assertThat(requests.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer userToken");
+	}
+
+	@Test
+	public void retrieveJwtBearerToken_sendsAssertion() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.OK, TOKEN_RESPONSE);
+
+		OAuth2TokenResponse tokenResponse = cut.retrieveAccessTokenViaJwtBearerTokenGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "userToken", null, null).block();
+
+		assertThat(tokenResponse.getAccessToken()).isEqualTo("accessToken");
+		assertThat(requests.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION)).isNull();
+	}
+
+	@Test
+	public void retrieveToken_emitsErrorOnClientError() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.UNAUTHORIZED, "{}");
+
+		Mono<OAuth2TokenResponse> tokenResponse = cut.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "refreshToken", null);
+
+		StepVerifier.create(tokenResponse)
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(OAuth2ServiceException.class)
+						.hasMessageContaining("Received status code 401"))
+				.verify();
+	}
+
+	@Test
+	public void retrieveToken_emitsErrorOnServerError() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.SERVICE_UNAVAILABLE, "unavailable");
+
+		Mono<OAuth2TokenResponse> tokenResponse = cut.retrieveAccessTokenViaPasswordGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, "bob", "pwd", null, null);
+
+		StepVerifier.create(tokenResponse)
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(OAuth2ServiceException.class)
+						.hasMessageContaining("Server error").hasMessageContaining("unavailable"))
+				.verify();
+	}
+
+	@Test
+	public void retrieveToken_emitsErrorOnMalformedResponse() {
+		XsuaaReactiveOAuth2TokenService cut = createTokenService(HttpStatus.OK, "no json");
+
+		Mono<OAuth2TokenResponse> tokenResponse = cut.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT,
+				CLIENT_CREDENTIALS, null, null);
+
+		StepVerifier.create(tokenResponse)
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(OAuth2ServiceException.class)
+						.hasMessageContaining("Cannot parse token response"))
+				.verify();
+	}
+
+	private XsuaaReactiveOAuth2TokenService createTokenService(HttpStatus status, String responseBody) {
+		WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+			requests.add(request);
+			return Mono.just(ClientResponse.create(status)
+					.header(HttpHeaders.CONTENT_TYPE, "application/json")
+					.body(responseBody)
+					.build());
+		}).build();
+		return new XsuaaReactiveOAuth2TokenService(webClient);
+	}
+}
@@ -0,0 +1,59 @@
+package com.sap.cloud.security.xsuaa.http;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HttpHeadersFactoryTest {
+
+	private HttpHeadersFactory cut;
+
+	@Before
+	public void setup() {
+		cut = new HttpHeadersFactory();
+	}
+
+	@Test
+	public void createWithoutAuthorizationHeader() {
+		Map<String, String> headers = toMap(cut.createWithoutAuthorizationHeader());
+
+		assertThat(headers).containsOnlyKeys(HttpHeaders.ACCEPT, HttpHeaders.CONTENT_TYPE);
+		assertThat(headers.get(HttpHeaders.ACCEPT)).isEqualTo(MediaType.APPLICATION_JSON.value());
+		assertThat(headers.get(HttpHeaders.CONTENT_TYPE)).isEqualTo(MediaType.APPLICATION_FORM_URLENCODED.value());
+	}
+
+	@Test
+	public void createWithAuthorizationBearerHeader() {
+		Map<String, String> headers = toMap(cut.createWithAuthorizationBearerHeader("token"));
+
+		assertThat(headers).containsOnlyKeys(HttpHeaders.ACCEPT, HttpHeaders.CONTENT_TYPE, HttpHeaders.AUTHORIZATION);
+		assertThat(headers.get(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer token");
+	}
+
+	@Test
+	public void createWithAuthorizationBearerHeader_doesNotChangeFactory() {
+		cut.createWithAuthorizationBearerHeader("token");
+
+		assertThat(toMap(cut.createWithoutAuthorizationHeader())).doesNotContainKey(HttpHeaders.AUTHORIZATION);
+		assertThat(toMap(cut.createWithAuthorizationBearerHeader("other")).get(HttpHeaders.AUTHORIZATION))
+				.isEqualTo("Bearer other");
+	}
+
+	@Test
+	public void createdHeadersAreImmutable() {
+		List<HttpHeader> headers = cut.createWithoutAuthorizationHeader().getHeaders();
+
+		assertThatThrownBy(() -> headers.add(new HttpHeader(HttpHeaders.AUTHORIZATION, "Bearer token")))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	private static Map<String, String> toMap(HttpHeaders headers) {
+		return headers.getHeaders().stream().collect(Collectors.toMap(HttpHeader::getName, HttpHeader::getValue));
+	}
+}
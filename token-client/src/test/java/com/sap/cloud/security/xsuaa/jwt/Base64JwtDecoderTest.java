@@ -4,7 +4,15 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class Base64JwtDecoderTest {
 
@@ -37,4 +45,96 @@ public class Base64JwtDecoderTest {
 		DecodedJwt decodedJwt = new Base64JwtDecoder().decode("header..signature");
 		assertEquals("", decodedJwt.getPayload());
 	}
+
+	@Test
+	public void itDecodesUrlSafeAndStandardBase64() {
+		String payload = "{\"name\":\"\u00fc?>\"}";
+		String urlSafe = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+		String standard = Base64.getEncoder().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(payload, new Base64JwtDecoder().decode("e30." + urlSafe + ".signature").getPayload());
+		assertEquals(payload, new Base64JwtDecoder().decode("e30." + standard + ".signature").getPayload());
+	}
+
+	@Test
+	public void itDecodesSegmentsLazilyAndOnlyOnce() {
+		DecodedJwt decodedJwt = new Base64JwtDecoder().decode("e30.invalid!.signature");
+
+		assertEquals("{}", decodedJwt.getHeader());
+		assertSame(decodedJwt.getHeader(), decodedJwt.getHeader());
+		assertEquals("signature", decodedJwt.getSignature());
+
+		expectedException.expect(IllegalArgumentException.class);
+		decodedJwt.getPayload();
+	}
+
+	@Test
+	public void itThrowsIfJwtConsistsOfMoreThanThreeSegments() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("Failed to split JWT into exactly 3 parts");
+
+		new Base64JwtDecoder().decode("header.payload.signature.other");
+	}
+
+	@Test
+	public void itProvidesTypedClaimAccess() {
+		DecodedJwt decodedJwt = new Base64JwtDecoder().decode(encodedJwt);
+
+		assertEquals("key-id-1", decodedJwt.getHeaderValue("kid"));
+		assertNull(decodedJwt.getHeaderValue("x5t"));
+		assertEquals("2345", decodedJwt.getClaimAsString("zid"));
+		assertEquals("1564785720", decodedJwt.getClaimAsString("iat"));
+		assertNull(decodedJwt.getClaimAsString("ext_attr"));
+		assertNull(decodedJwt.getClaimAsString("unknown"));
+		assertEquals(Arrays.asList("my-app1", "uaa", "openid"), decodedJwt.getClaimAsStringList("aud"));
+		assertEquals(Collections.singletonList("my-app1"), decodedJwt.getClaimAsStringList("cid"));
+		assertNull(decodedJwt.getClaimAsStringList("unknown"));
+		assertEquals(Instant.ofEpochSecond(1564785721), decodedJwt.getExpiration());
+		assertEquals(Arrays.asList("openid", "uaa.user"), decodedJwt.getScopes());
+		assertSame(decodedJwt.getScopes(), decodedJwt.getScopes());
+	}
+
+	@Test
+	public void itProvidesTypedClaimAccessByDefault() {
+		DecodedJwt decodedJwt = new Base64JwtDecoder().decode(encodedJwt);
+		DecodedJwt customJwt = new DecodedJwt() {
+			@Override
+			public String getHeader() {
+				return decodedJwt.getHeader();
+			}
+
+			@Override
+			public String getPayload() {
+				return decodedJwt.getPayload();
+			}
+
+			@Override
+			public String getSignature() {
+				return decodedJwt.getSignature();
+			}
+		};
+
+		assertEquals("key-id-1", customJwt.getHeaderValue("kid"));
+		assertEquals("2345", customJwt.getClaimAsString("zid"));
+		assertNull(customJwt.getClaimAsString("ext_attr"));
+		assertEquals(decodedJwt.getClaimAsStringList("aud"), customJwt.getClaimAsStringList("aud"));
+		assertEquals(decodedJwt.getExpiration(), customJwt.getExpiration());
+		assertEquals(decodedJwt.getScopes(), customJwt.getScopes());
+	}
+
+	@Test
+	public void itProvidesDefaultsForMissingClaims() {
+		DecodedJwt decodedJwt = new Base64JwtDecoder().decode("e30.e30.signature");
+
+		assertNull(decodedJwt.getExpiration());
+		assertEquals(Collections.emptyList(), decodedJwt.getScopes());
+	}
+
+	@Test
+	public void itThrowsIfPayloadIsMalformed() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("Cannot parse JWT payload");
+
+		new Base64JwtDecoder().decode("e30.eyJ.signature").getScopes();
+	}
 }
@@ -0,0 +1,123 @@
+package com.sap.cloud.security.xsuaa.jwt;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JwtClaimExtractorTest {
+
+	private String encodedJwt = "eyJhbGciOiJIUzI1NiIsImprdSI6Imh0dHBzOi8vYWNtZS1lbnRlcnByaXNlcy5hdXRoZW50aWNhdGlvbi5leGFtcGxlLmNvbS90b2tlbl9rZXlzIiwia2lkIjoia2V5LWlkLTEiLCJ0eXAiOiJKV1QifQ.eyJqdGkiOiJlM2MzMGUyNDc0Y2Q0NjYwOWEyNjJlZGE5ZDlkYzI2ZCIsImV4dF9hdHRyIjp7ImVuaGFuY2VyIjoiWFNVQUEiLCJ6ZG4iOiJhY21lLWVudGVycHJpc2VzIn0sInhzLnN5c3RlbS5hdHRyaWJ1dGVzIjp7InhzLnJvbGVjb2xsZWN0aW9ucyI6W119LCJnaXZlbl9uYW1lIjoiQW5kcmVhIE1hcmlhIiwieHMudXNlci5hdHRyaWJ1dGVzIjp7fSwiZmFtaWx5X25hbWUiOiJNaWxsc2FwIiwic3ViIjoiMTIzNCIsInNjb3BlIjpbIm9wZW5pZCIsInVhYS51c2VyIl0sImNsaWVudF9pZCI6Im15LWFwcDEiLCJjaWQiOiJteS1hcHAxIiwiYXpwIjoibXktYXBwMSIsImdyYW50X3R5cGUiOiJhdXRob3JpemF0aW9uX2NvZGUiLCJ1c2VyX2lkIjoiMTIzNCIsIm9yaWdpbiI6ImxkYXAiLCJ1c2VyX25hbWUiOiJhbS5taWxsc2FwQHNhcC5jb20iLCJlbWFpbCI6ImFtLm1pbGxzYXBAc2FwLmNvbSIsImF1dGhfdGltZSI6MTU2NDc4NTcyMCwicmV2X3NpZyI6Ijg3ZTdjMDE2IiwiaWF0IjoxNTY0Nzg1NzIwLCJleHAiOjE1NjQ3ODU3MjEsImlzcyI6Imh0dHA6Ly9hY21lLWVudGVycHJpc2VzLmV4YW1wbGUuY29tL3VhYS9vYXV0aC90b2tlbiIsInppZCI6IjIzNDUiLCJhdWQiOlsibXktYXBwMSIsInVhYSIsIm9wZW5pZCJdfQ.yqEcFR3EkzVSfVo3tfxsl9kc6KtCSe75-al5cTZbzhk";
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void itFindsValueInStringListClaim() {
+		assertTrue(JwtClaimExtractor.containsClaimValue(encodedJwt, "scope", "uaa.user"));
+		assertTrue(JwtClaimExtractor.containsClaimValue(encodedJwt, "scope", "openid"));
+		assertFalse(JwtClaimExtractor.containsClaimValue(encodedJwt, "scope", "uaa"));
+		assertFalse(JwtClaimExtractor.containsClaimValue(encodedJwt, "scopes", "uaa.user"));
+	}
+
+	@Test
+	public void itFindsValueInStringClaim() {
+		assertTrue(JwtClaimExtractor.containsClaimValue(encodedJwt, "cid", "my-app1"));
+		assertFalse(JwtClaimExtractor.containsClaimValue(encodedJwt, "ext_attr", "XSUAA"));
+	}
+
+	@Test
+	public void itExtractsClaimAsString() {
+		assertEquals("am.millsap@sap.com", JwtClaimExtractor.getClaimAsString(encodedJwt, "user_name"));
+		assertEquals("1564785721", JwtClaimExtractor.getClaimAsString(encodedJwt, "exp"));
+		assertNull(JwtClaimExtractor.getClaimAsString(encodedJwt, "ext_attr"));
+		assertNull(JwtClaimExtractor.getClaimAsString(encodedJwt, "unknown"));
+	}
+
+	@Test
+	public void itExtractsClaimAsStringList() {
+		assertEquals(Arrays.asList("my-app1", "uaa", "openid"),
+				JwtClaimExtractor.getClaimAsStringList(encodedJwt, "aud"));
+		assertEquals(Collections.singletonList("1234"), JwtClaimExtractor.getClaimAsStringList(encodedJwt, "sub"));
+		assertEquals(Collections.emptyList(), JwtClaimExtractor.getClaimAsStringList(jwt("{\"scope\":[]}"), "scope"));
+		assertNull(JwtClaimExtractor.getClaimAsStringList(encodedJwt, "unknown"));
+	}
+
+	@Test
+	public void itReadsPayloadOfDecodedJwt() {
+		DecodedJwt decodedJwt = new Base64JwtDecoder().decode(encodedJwt);
+
+		assertTrue(JwtClaimExtractor.containsClaimValue(decodedJwt, "scope", "uaa.user"));
+		assertEquals("2345", JwtClaimExtractor.getClaimAsString(decodedJwt, "zid"));
+		assertEquals(Arrays.asList("openid", "uaa.user"), JwtClaimExtractor.getClaimAsStringList(decodedJwt, "scope"));
+	}
+
+	@Test
+	public void itUsesClaimAccessorsOfDecodedJwt() {
+		DecodedJwt decodedJwt = mock(DecodedJwt.class);
+		when(decodedJwt.getClaimAsStringList("scope")).thenReturn(Collections.singletonList("uaa.user"));
+
+		assertTrue(JwtClaimExtractor.containsClaimValue(decodedJwt, "scope", "uaa.user"));
+		assertFalse(JwtClaimExtractor.containsClaimValue(decodedJwt, "aud", "uaa"));
+		verify(decodedJwt, never()).getPayload();
+	}
+
+	@Test
+	public void itDecodesUrlSafeAndStandardBase64() {
+		String payload = "{\"name\":\"ü?>\",\"scope\":[\"uaa.user\"]}";
+		String urlSafe = jwt(payload);
+		String standard = urlSafe.replace('-', '+').replace('_', '/');
+
+		assertTrue(urlSafe.matches(".*[-_].*"));
+		assertEquals("ü?>", JwtClaimExtractor.getClaimAsString(urlSafe, "name"));
+		assertEquals("ü?>", JwtClaimExtractor.getClaimAsString(standard, "name"));
+	}
+
+	@Test
+	public void itStopsReadingWhenClaimIsFound() {
+		String truncatedJwt = jwt("{\"scope\":[\"uaa.user\", \"openid\"], \"aud\":[");
+
+		assertTrue(JwtClaimExtractor.containsClaimValue(truncatedJwt, "scope", "uaa.user"));
+	}
+
+	@Test
+	public void itHandlesEscapedCharacters() {
+		String escapedJwt = jwt("{\"a\":\"x\\\"}\",\"b\":{\"c\":[1,\"]\"]},\"name\":\"\\u0041\\n\"}");
+
+		assertEquals("A\n", JwtClaimExtractor.getClaimAsString(escapedJwt, "name"));
+	}
+
+	@Test
+	public void itThrowsIfJwtDoesNotConsistOfThreeSegments() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("Failed to split JWT into exactly 3 parts");
+
+		JwtClaimExtractor.containsClaimValue("header.payload", "scope", "uaa.user");
+	}
+
+	@Test
+	public void itThrowsIfPayloadIsMalformed() {
+		expectedException.expect(IllegalArgumentException.class);
+		expectedException.expectMessage("Cannot parse JWT payload");
+
+		JwtClaimExtractor.containsClaimValue(jwt("{\"aud\":[\"uaa\""), "scope", "uaa.user");
+	}
+
+	private static String jwt(String payload) {
+		return "eyJhbGciOiJSUzI1NiJ9." + Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+	}
+}
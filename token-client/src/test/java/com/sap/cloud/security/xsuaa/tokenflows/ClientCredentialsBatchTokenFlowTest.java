@@ -0,0 +1,205 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNotNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.XsuaaDefaultEndpoints;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientCredentialsBatchTokenFlowTest {
+
+	@Mock
+	private OAuth2TokenService mockTokenService;
+
+	private ClientCredentials clientCredentials;
+	private OAuth2ServiceEndpointsProvider endpointsProvider;
+	private ExecutorService executor;
+	private ClientCredentialsBatchTokenFlow cut;
+
+	@Before
+	public void setup() {
+		this.clientCredentials = new ClientCredentials("clientId", "clientSecret");
+		this.endpointsProvider = new XsuaaDefaultEndpoints(XSUAA_BASE_URI);
+		this.executor = Executors.newFixedThreadPool(8);
+		this.cut = new ClientCredentialsBatchTokenFlow(mockTokenService,
+				new DefaultAsyncOAuth2TokenService(mockTokenService, executor), endpointsProvider, clientCredentials);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void constructor_throwsOnNullValues() {
+		assertThatThrownBy(() -> {
+			new ClientCredentialsBatchTokenFlow(mockTokenService, null, endpointsProvider, clientCredentials);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("AsyncOAuth2TokenService");
+	}
+
+	@Test
+	public void subdomainsAndMaxParallelism_throwOnInvalidValues() {
+		assertThatThrownBy(() -> cut.subdomains(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("subdomains");
+		assertThatThrownBy(() -> cut.subdomains(Arrays.asList("a", null)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("subdomains");
+		assertThatThrownBy(() -> cut.maxParallelism(0))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("maxParallelism");
+	}
+
+	@Test
+	public void execute_returnsResultsInOrderOfSubdomains() throws Exception {
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), any(), any()))
+				.thenAnswer(invocation -> new OAuth2TokenResponse("token-" + invocation.getArgument(2), 3600, null));
+
+		Map<String, TokenFlowResult> results = cut.subdomains(Arrays.asList("c", "a", "b", "a")).execute();
+
+		assertThat(results).containsOnlyKeys("c", "a", "b");
+		assertThat(results.keySet()).containsExactly("c", "a", "b");
+		assertThat(results.get("a").isSuccessful()).isTrue();
+		assertThat(results.get("a").getTokenResponse().getAccessToken()).isEqualTo("token-a");
+		assertThat(results.get("b").getTokenResponseOrThrow().getAccessToken()).isEqualTo("token-b");
+		verify(mockTokenService, times(3)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+	}
+
+	@Test
+	public void execute_isolatesFailuresPerSubdomain() throws Exception {
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), any(), any()))
+				.thenAnswer(invocation -> {
+					if ("broken".equals(invocation.getArgument(2))) {
+						throw new OAuth2ServiceException("exception executed REST call", 500);
+					}
+					return new OAuth2TokenResponse("token", 3600, null);
+				});
+
+		Map<String, TokenFlowResult> results = cut.subdomains(Arrays.asList("ok", "broken")).execute();
+
+		assertThat(results.get("ok").isSuccessful()).isTrue();
+		TokenFlowResult failure = results.get("broken");
+		assertThat(failure.isSuccessful()).isFalse();
+		assertThat(failure.getTokenResponse()).isNull();
+		assertThat(failure.getException()).hasMessageContaining(
+				"Error requesting user token with grant_type 'client_credentials': exception executed REST call");
+		assertThatThrownBy(failure::getTokenResponseOrThrow).isSameAs(failure.getException());
+	}
+
+	@Test
+	public void execute_limitsParallelism() throws Exception {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					Thread.sleep(20);
+					inFlight.decrementAndGet();
+					return new OAuth2TokenResponse("token", 3600, null);
+				});
+
+		Map<String, TokenFlowResult> results = cut
+				.subdomains(Arrays.asList("t1", "t2", "t3", "t4", "t5", "t6", "t7", "t8"))
+				.maxParallelism(2)
+				.execute();
+
+		assertThat(results).hasSize(8);
+		assertThat(maxInFlight.get()).isBetween(1, 2);
+	}
+
+	@Test
+	public void execute_withParallelismAboveDefaultPoolSize_usesAsyncTokenService() throws Exception {
+		int parallelism = DefaultAsyncOAuth2TokenService.DEFAULT_POOL_SIZE + 6;
+		AtomicInteger asyncRequests = new AtomicInteger();
+		AsyncOAuth2TokenService asyncTokenService = new DefaultAsyncOAuth2TokenService(mockTokenService, executor) {
+			@Override
+			public CompletableFuture<OAuth2TokenResponse> retrieveAccessTokenViaClientCredentialsGrant(
+					URI tokenEndpointUri, ClientCredentials clientCredentials, String subdomain,
+					Map<String, String> optionalParameters) {
+				asyncRequests.incrementAndGet();
+				return super.retrieveAccessTokenViaClientCredentialsGrant(tokenEndpointUri, clientCredentials,
+						subdomain, optionalParameters);
+			}
+		};
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any()))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+		List<String> subdomains = new ArrayList<>();
+		for (int i = 0; i < parallelism; i++) {
+			subdomains.add("t" + i);
+		}
+
+		Map<String, TokenFlowResult> results = new ClientCredentialsBatchTokenFlow(mockTokenService,
+				asyncTokenService, endpointsProvider, clientCredentials)
+						.subdomains(subdomains).maxParallelism(parallelism).execute();
+
+		assertThat(results.values()).allMatch(TokenFlowResult::isSuccessful);
+		assertThat(asyncRequests.get()).isEqualTo(parallelism);
+	}
+
+	@Test
+	public void execute_onGivenExecutor() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any()))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		Map<String, TokenFlowResult> results = cut.subdomains(Arrays.asList("t1", "t2"))
+				.executor(runnable -> {
+					executions.incrementAndGet();
+					executor.execute(runnable);
+				}).execute();
+
+		assertThat(results).hasSize(2);
+		assertThat(executions.get()).isEqualTo(2);
+		assertThatThrownBy(() -> cut.executor(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("executor");
+	}
+
+	@Test
+	public void execute_passesAttributes() throws Exception {
+		Mockito.when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), eq("tenant"), isNotNull()))
+				.thenReturn(new OAuth2TokenResponse("token", 3600, null));
+
+		Map<String, TokenFlowResult> results = cut.subdomains(Collections.singleton("tenant"))
+				.attributes(Collections.singletonMap("DummyAttribute", "DummyAttributeValue"))
+				.execute();
+
+		assertThat(results.get("tenant").isSuccessful()).isTrue();
+	}
+
+	@Test
+	public void execute_withoutSubdomains_returnsEmptyResult() throws Exception {
+		assertThat(cut.execute()).isEmpty();
+	}
+}
@@ -0,0 +1,137 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientCredentialsTokenFlowTemplateTest {
+
+	@Mock
+	private OAuth2TokenService mockTokenService;
+
+	private AsyncOAuth2TokenService asyncTokenService;
+	private ClientCredentialsTokenFlowTemplate cut;
+
+	@Before
+	public void setup() {
+		this.asyncTokenService = new DefaultAsyncOAuth2TokenService(mockTokenService, Runnable::run);
+		this.cut = new ClientCredentialsTokenFlowTemplate(mockTokenService, asyncTokenService, TOKEN_ENDPOINT_URI,
+				CLIENT_CREDENTIALS);
+	}
+
+	@Test
+	public void constructor_throwsOnNullValues() {
+		assertThatThrownBy(() -> {
+			new ClientCredentialsTokenFlowTemplate(null, asyncTokenService, TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("OAuth2TokenService");
+
+		assertThatThrownBy(() -> {
+			new ClientCredentialsTokenFlowTemplate(mockTokenService, null, TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("AsyncOAuth2TokenService");
+
+		assertThatThrownBy(() -> {
+			new ClientCredentialsTokenFlowTemplate(mockTokenService, asyncTokenService, null, CLIENT_CREDENTIALS);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Token endpoint");
+
+		assertThatThrownBy(() -> {
+			new ClientCredentialsTokenFlowTemplate(mockTokenService, asyncTokenService, TOKEN_ENDPOINT_URI, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("ClientCredentials");
+	}
+
+	@Test
+	public void configurationMethods_returnNewTemplates() throws TokenFlowException, OAuth2ServiceException {
+		OAuth2TokenResponse providerResponse = new OAuth2TokenResponse(ACCESS_TOKEN, EXPIRED_IN, null);
+		OAuth2TokenResponse tenantResponse = new OAuth2TokenResponse(REFRESH_TOKEN, EXPIRED_IN, null);
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS,
+				null, null)).thenReturn(providerResponse);
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(CLIENT_CREDENTIALS), eq("tenant"), eq(Collections.singletonMap("authorities",
+						"{\"az_attr\":{\"cost-center\":\"0815\"}}"))))
+								.thenReturn(tenantResponse);
+
+		ClientCredentialsTokenFlowTemplate tenantTemplate = cut.subdomain("tenant")
+				.attributes(Collections.singletonMap("cost-center", "0815"));
+
+		assertThat(tenantTemplate).isNotSameAs(cut);
+		assertThat(tenantTemplate.execute()).isSameAs(tenantResponse);
+		assertThat(cut.execute()).isSameAs(providerResponse);
+	}
+
+	@Test
+	public void execute_throwsTokenFlowException() throws OAuth2ServiceException {
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(CLIENT_CREDENTIALS), isNull(), isNull()))
+						.thenThrow(new OAuth2ServiceException("exception executed REST call"));
+
+		assertThatThrownBy(() -> {
+			cut.execute();
+		}).isInstanceOf(TokenFlowException.class)
+				.hasMessageContaining("grant_type 'client_credentials': exception executed REST call");
+	}
+
+	@Test
+	public void executeAsync_completesExceptionallyWithTokenFlowException() throws OAuth2ServiceException {
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(CLIENT_CREDENTIALS), eq("tenant"), isNull()))
+						.thenThrow(new OAuth2ServiceException("exception executed REST call"));
+
+		assertThatThrownBy(() -> {
+			cut.subdomain("tenant").executeAsync().get();
+		}).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TokenFlowException.class);
+	}
+
+	@Test
+	public void execute_concurrently() throws Exception {
+		Map<String, OAuth2TokenResponse> responses = new HashMap<>();
+		for (int i = 0; i < 8; i++) {
+			String subdomain = "tenant" + i;
+			responses.put(subdomain, new OAuth2TokenResponse(ACCESS_TOKEN + i, EXPIRED_IN, null));
+			when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT_URI,
+					CLIENT_CREDENTIALS, subdomain, null)).thenReturn(responses.get(subdomain));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<OAuth2TokenResponse>> results = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				ClientCredentialsTokenFlowTemplate tenantTemplate = cut.subdomain("tenant" + i % 8);
+				results.add(executor.submit(tenantTemplate::execute));
+			}
+			for (int i = 0; i < 64; i++) {
+				assertThat(results.get(i).get()).isSameAs(responses.get("tenant" + i % 8));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		verify(mockTokenService, times(8)).retrieveAccessTokenViaClientCredentialsGrant(TOKEN_ENDPOINT_URI,
+				CLIENT_CREDENTIALS, "tenant0", null);
+	}
+}
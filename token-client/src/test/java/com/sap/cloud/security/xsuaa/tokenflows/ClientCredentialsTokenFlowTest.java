@@ -10,6 +10,7 @@ import static org.mockito.ArgumentMatchers.isNull;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -87,6 +88,35 @@ public class ClientCredentialsTokenFlowTest {
 						"Error requesting user token with grant_type 'client_credentials': exception executed REST call");
 	}
 
+	@Test
+	public void executeAsync() throws Exception {
+		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, null);
+
+		Mockito.when(mockTokenService
+				.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+						isNull(), isNull()))
+				.thenReturn(accessToken);
+
+		OAuth2TokenResponse jwt = cut.executeAsync().get();
+
+		assertThat(jwt.getAccessToken(), is(accessToken.getAccessToken()));
+	}
+
+	@Test
+	public void executeAsync_completesExceptionallyIfServiceRaisesException() throws OAuth2ServiceException {
+		Mockito.when(mockTokenService
+				.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+						isNull(), isNull()))
+				.thenThrow(new OAuth2ServiceException("exception executed REST call"));
+
+		assertThatThrownBy(() -> {
+			cut.executeAsync().get();
+		}).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(TokenFlowException.class)
+				.hasMessageContaining(
+						"Error requesting user token with grant_type 'client_credentials': exception executed REST call");
+	}
+
 	@Test
 	public void execute_withAdditionalAuthorities() throws TokenFlowException, OAuth2ServiceException {
 		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, null);
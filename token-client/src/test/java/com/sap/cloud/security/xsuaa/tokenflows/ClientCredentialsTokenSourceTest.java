@@ -0,0 +1,223 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNotNull;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.sap.cloud.security.xsuaa.client.CachingOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.MeteredOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.MutableClock;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.XsuaaDefaultEndpoints;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientCredentialsTokenSourceTest {
+
+	private static final OAuth2TokenResponse TOKEN = new OAuth2TokenResponse("token", 1000, null);
+	private static final OAuth2TokenResponse REFRESHED_TOKEN = new OAuth2TokenResponse("refreshed", 1000, null);
+
+	@Mock
+	private OAuth2TokenService mockTokenService;
+
+	@Mock
+	private ScheduledExecutorService scheduler;
+
+	private ClientCredentials clientCredentials;
+	private XsuaaTokenFlows tokenFlows;
+	private MutableClock clock;
+	private List<Runnable> scheduledRefreshes;
+	private List<Long> scheduledDelays;
+	private ClientCredentialsTokenSource cut;
+
+	@Before
+	public void setup() {
+		clientCredentials = new ClientCredentials("clientId", "clientSecret");
+		tokenFlows = new XsuaaTokenFlows(mockTokenService, new XsuaaDefaultEndpoints(XSUAA_BASE_URI),
+				clientCredentials);
+		clock = new MutableClock();
+		scheduledRefreshes = new ArrayList<>();
+		scheduledDelays = new ArrayList<>();
+		lenient().when(scheduler.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+				.thenAnswer(invocation -> {
+					scheduledRefreshes.add(invocation.getArgument(0));
+					scheduledDelays.add(invocation.getArgument(1));
+					return mock(ScheduledFuture.class);
+				});
+		cut = new ClientCredentialsTokenSource(tokenFlows, 0.5, Duration.ofMinutes(10), scheduler, false, clock);
+	}
+
+	@Test
+	public void initialize_throwsOnInvalidValues() {
+		assertThatThrownBy(() -> new ClientCredentialsTokenSource(null))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("tokenFlows");
+		assertThatThrownBy(() -> new ClientCredentialsTokenSource(tokenFlows, 1, Duration.ofMinutes(1), scheduler))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("refreshRatio");
+		assertThatThrownBy(() -> new ClientCredentialsTokenSource(tokenFlows, 0.5, Duration.ZERO, scheduler))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("idleTimeout");
+	}
+
+	@Test
+	public void get_requestsTokenOnceAndSchedulesRefresh() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN);
+
+		assertThat(cut.get("tenant")).isSameAs(TOKEN);
+		assertThat(cut.get("tenant")).isSameAs(TOKEN);
+
+		verify(mockTokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+		assertThat(scheduledDelays).hasSize(1);
+		assertThat(scheduledDelays.get(0)).isBetween(490_000L, 500_000L);
+	}
+
+	@Test
+	public void refresh_replacesToken() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN).thenReturn(REFRESHED_TOKEN);
+		cut.get("tenant");
+
+		scheduledRefreshes.get(0).run();
+
+		assertThat(cut.get("tenant")).isSameAs(REFRESHED_TOKEN);
+		verify(mockTokenService, times(2)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+		assertThat(scheduledRefreshes).hasSize(2);
+	}
+
+	@Test
+	public void refresh_bypassesCachingTokenService() throws Exception {
+		OAuth2TokenService cachingTokenService = new MeteredOAuth2TokenService(
+				new CachingOAuth2TokenService(mockTokenService), new SimpleMeterRegistry());
+		XsuaaTokenFlows cachingTokenFlows = new XsuaaTokenFlows(cachingTokenService,
+				new DefaultAsyncOAuth2TokenService(cachingTokenService), mockTokenService,
+				new DefaultAsyncOAuth2TokenService(mockTokenService), new XsuaaDefaultEndpoints(XSUAA_BASE_URI),
+				clientCredentials, null);
+		cut = new ClientCredentialsTokenSource(cachingTokenFlows, 0.5, Duration.ofMinutes(10), scheduler, false,
+				clock);
+		when(requestToken("tenant")).thenReturn(TOKEN).thenReturn(REFRESHED_TOKEN);
+		cut.get("tenant");
+
+		scheduledRefreshes.get(0).run();
+
+		assertThat(cut.get("tenant")).isSameAs(REFRESHED_TOKEN);
+		verify(mockTokenService, times(2)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+		assertThat(scheduledDelays.get(1)).isBetween(490_000L, 500_000L);
+	}
+
+	@Test
+	public void get_schedulesRefreshFromExpClaim() throws Exception {
+		long exp = clock.instant().plusSeconds(200).getEpochSecond();
+		String payload = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(("{\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8));
+		OAuth2TokenResponse jwtToken = new OAuth2TokenResponse("e30." + payload + ".signature", 1000, null);
+		when(requestToken("tenant")).thenReturn(jwtToken);
+
+		cut.get("tenant");
+
+		assertThat(scheduledDelays.get(0)).isBetween(99_000L, 100_000L);
+	}
+
+	@Test
+	public void refresh_keepsTokenAndRetriesOnFailure() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN)
+				.thenThrow(new OAuth2ServiceException("unavailable", 503));
+		cut.get("tenant");
+
+		scheduledRefreshes.get(0).run();
+
+		assertThat(cut.get("tenant")).isSameAs(TOKEN);
+		assertThat(scheduledDelays.get(1)).isEqualTo(ClientCredentialsTokenSource.RETRY_DELAY.toMillis());
+	}
+
+	@Test
+	public void refresh_removesIdleToken() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN);
+		cut.get("tenant");
+
+		clock.advance(Duration.ofMinutes(11));
+		scheduledRefreshes.get(0).run();
+
+		assertThat(cut.getTokenCount()).isZero();
+		assertThat(scheduledRefreshes).hasSize(1);
+		verify(mockTokenService, times(1)).retrieveAccessTokenViaClientCredentialsGrant(any(), any(), any(), any());
+	}
+
+	@Test
+	public void get_requestsExpiredToken() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN).thenReturn(REFRESHED_TOKEN);
+		cut.get("tenant");
+
+		clock.advance(Duration.ofSeconds(1001));
+
+		assertThat(cut.get("tenant")).isSameAs(REFRESHED_TOKEN);
+	}
+
+	@Test
+	public void get_throwsAndForgetsFailedFirstRequest() throws Exception {
+		when(requestToken("tenant")).thenThrow(new OAuth2ServiceException("unauthorized", 401)).thenReturn(TOKEN);
+
+		assertThatThrownBy(() -> cut.get("tenant")).isInstanceOf(TokenFlowException.class)
+				.hasMessageContaining("unauthorized");
+		assertThat(cut.getTokenCount()).isZero();
+
+		assertThat(cut.get("tenant")).isSameAs(TOKEN);
+	}
+
+	@Test
+	public void get_keepsTokenPerSubdomainAndAttributes() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN);
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), isNull(), isNull())).thenReturn(REFRESHED_TOKEN);
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), eq("tenant"), isNotNull())).thenReturn(REFRESHED_TOKEN);
+
+		assertThat(cut.get("tenant")).isSameAs(TOKEN);
+		assertThat(cut.get(null)).isSameAs(REFRESHED_TOKEN);
+		assertThat(cut.get("tenant", Collections.singletonMap("cost-center", "0815"))).isSameAs(REFRESHED_TOKEN);
+		assertThat(cut.getTokenCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void close_removesTokens() throws Exception {
+		when(requestToken("tenant")).thenReturn(TOKEN);
+		cut.get("tenant");
+
+		cut.close();
+
+		assertThat(cut.getTokenCount()).isZero();
+		assertThatThrownBy(() -> cut.get("tenant")).isInstanceOf(IllegalStateException.class);
+	}
+
+	private OAuth2TokenResponse requestToken(String subdomain) throws OAuth2ServiceException {
+		return mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), eq(subdomain), isNull());
+	}
+}
@@ -0,0 +1,126 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.ReactiveOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.XsuaaDefaultEndpoints;
+import com.sap.cloud.security.xsuaa.test.JwtGenerator;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveXsuaaTokenFlowsTest {
+
+	private static final String JWT_ACCESS_TOKEN = "4bfad399ca10490da95c2b5eb4451d53";
+	private static final String REFRESH_TOKEN = "99e2cecfa54f4957a782f07168915b69-r";
+
+	@Mock
+	private ReactiveOAuth2TokenService mockTokenService;
+
+	private ClientCredentials clientCredentials;
+	private ReactiveXsuaaTokenFlows cut;
+
+	@Before
+	public void setup() {
+		this.clientCredentials = new ClientCredentials("clientId", "clientSecret");
+		this.cut = new ReactiveXsuaaTokenFlows(mockTokenService, new XsuaaDefaultEndpoints(XSUAA_BASE_URI),
+				clientCredentials);
+	}
+
+	@Test
+	public void constructor_throwsOnNullValues() {
+		assertThatThrownBy(() -> {
+			new ReactiveXsuaaTokenFlows(null, new XsuaaDefaultEndpoints(XSUAA_BASE_URI), clientCredentials);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("ReactiveOAuth2TokenService");
+	}
+
+	@Test
+	public void clientCredentialsTokenFlow() {
+		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, null);
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), eq("subdomain"), isNull())).thenReturn(Mono.just(accessToken));
+
+		StepVerifier.create(cut.clientCredentialsTokenFlow().subdomain("subdomain").execute())
+				.expectNext(accessToken)
+				.verifyComplete();
+	}
+
+	@Test
+	public void clientCredentialsTokenFlow_emitsTokenFlowException() {
+		when(mockTokenService.retrieveAccessTokenViaClientCredentialsGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), isNull(), isNull()))
+						.thenReturn(Mono.error(new OAuth2ServiceException("exception executed REST call")));
+
+		StepVerifier.create(cut.clientCredentialsTokenFlow().execute())
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(TokenFlowException.class)
+						.hasMessageContaining(
+								"Error requesting user token with grant_type 'client_credentials': exception executed REST call"))
+				.verify();
+	}
+
+	@Test
+	public void jwtBearerTokenFlow() {
+		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, null);
+		when(mockTokenService.retrieveAccessTokenViaJwtBearerTokenGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(clientCredentials), eq("userToken"), eq("subdomain"), isNull())).thenReturn(Mono.just(accessToken));
+
+		StepVerifier.create(cut.jwtBearerTokenFlow().token("userToken").subdomain("subdomain").execute())
+				.expectNext(accessToken)
+				.verifyComplete();
+	}
+
+	@Test
+	public void userTokenFlow_exchangesRefreshToken() {
+		String userToken = new JwtGenerator().addScopes("uaa.user").getToken().getTokenValue();
+		OAuth2TokenResponse exchangedToken = new OAuth2TokenResponse(userToken, 4711, null);
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+				eq(userToken), isNull(), isNull()))
+						.thenReturn(Mono.just(new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN)));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+				eq(REFRESH_TOKEN), isNull())).thenReturn(Mono.just(exchangedToken));
+
+		StepVerifier.create(cut.userTokenFlow().token(userToken).execute())
+				.expectNext(exchangedToken)
+				.verifyComplete();
+	}
+
+	@Test
+	public void userTokenFlow_throwsIfTokenDoesNotContainUaaUserScope() {
+		String token = new JwtGenerator().getToken().getTokenValue();
+
+		assertThatThrownBy(() -> cut.userTokenFlow().token(token).execute())
+				.isInstanceOf(IllegalStateException.class).hasMessageContaining("uaa.user");
+	}
+
+	@Test
+	public void refreshTokenFlow_throwsIfRefreshTokenIsNotSet() {
+		assertThatThrownBy(() -> cut.refreshTokenFlow().execute())
+				.isInstanceOf(IllegalStateException.class).hasMessageStartingWith("Refresh token not set");
+	}
+
+	@Test
+	public void passwordTokenFlow() {
+		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN);
+		when(mockTokenService.retrieveAccessTokenViaPasswordGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+				eq("bob"), eq("pwd"), isNull(), isNull())).thenReturn(Mono.just(accessToken));
+
+		StepVerifier.create(cut.passwordTokenFlow().username("bob").password("pwd").execute())
+				.expectNext(accessToken)
+				.verifyComplete();
+	}
+}
@@ -0,0 +1,149 @@
+package com.sap.cloud.security.xsuaa.tokenflows;
+
+import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sap.cloud.security.xsuaa.client.AsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
+import com.sap.cloud.security.xsuaa.client.OAuth2TokenService;
+import com.sap.cloud.security.xsuaa.test.JwtGenerator;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserTokenFlowTemplateTest {
+
+	@Mock
+	private OAuth2TokenService mockTokenService;
+
+	private String userToken;
+	private AsyncOAuth2TokenService asyncTokenService;
+	private UserTokenFlowTemplate cut;
+
+	@Before
+	public void setup() {
+		this.userToken = new JwtGenerator().addScopes("uaa.user").getToken().getTokenValue();
+		this.asyncTokenService = new DefaultAsyncOAuth2TokenService(mockTokenService, Runnable::run);
+		this.cut = new UserTokenFlowTemplate(mockTokenService, asyncTokenService, TOKEN_ENDPOINT_URI,
+				CLIENT_CREDENTIALS, null);
+	}
+
+	@Test
+	public void constructor_throwsOnNullValues() {
+		assertThatThrownBy(() -> {
+			new UserTokenFlowTemplate(null, asyncTokenService, TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("OAuth2TokenService");
+
+		assertThatThrownBy(() -> {
+			new UserTokenFlowTemplate(mockTokenService, null, TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("AsyncOAuth2TokenService");
+
+		assertThatThrownBy(() -> {
+			new UserTokenFlowTemplate(mockTokenService, asyncTokenService, null, CLIENT_CREDENTIALS, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Token endpoint");
+
+		assertThatThrownBy(() -> {
+			new UserTokenFlowTemplate(mockTokenService, asyncTokenService, TOKEN_ENDPOINT_URI, null, null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("ClientCredentials");
+	}
+
+	@Test
+	public void execute_throwsOnInvalidToken() {
+		assertThatThrownBy(() -> {
+			cut.execute(null);
+		}).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("Token");
+
+		String tokenWithoutUaaUserScope = new JwtGenerator().getToken().getTokenValue();
+		assertThatThrownBy(() -> {
+			cut.execute(tokenWithoutUaaUserScope);
+		}).isInstanceOf(IllegalStateException.class).hasMessageContaining("uaa.user");
+	}
+
+	@Test
+	public void execute_exchangesAndRefreshesToken() throws TokenFlowException, OAuth2ServiceException {
+		OAuth2TokenResponse exchangedToken = new OAuth2TokenResponse(ACCESS_TOKEN, EXPIRED_IN, null);
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(CLIENT_CREDENTIALS),
+				eq(userToken), eq("tenant"), eq(Collections.singletonMap("authorities",
+						"{\"az_attr\":{\"cost-center\":\"0815\"}}"))))
+								.thenReturn(new OAuth2TokenResponse(null, EXPIRED_IN, REFRESH_TOKEN));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS,
+				REFRESH_TOKEN, "tenant")).thenReturn(exchangedToken);
+
+		UserTokenFlowTemplate tenantTemplate = cut.subdomain("tenant")
+				.attributes(Collections.singletonMap("cost-center", "0815"));
+
+		assertThat(tenantTemplate).isNotSameAs(cut);
+		assertThat(tenantTemplate.execute(userToken)).isSameAs(exchangedToken);
+	}
+
+	@Test
+	public void execute_throwsIfResponseDoesNotProvideRefreshToken() throws OAuth2ServiceException {
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(CLIENT_CREDENTIALS),
+				eq(userToken), isNull(), isNull())).thenReturn(new OAuth2TokenResponse(ACCESS_TOKEN, EXPIRED_IN, null));
+
+		assertThatThrownBy(() -> {
+			cut.execute(userToken);
+		}).isInstanceOf(TokenFlowException.class).hasMessageContaining("does not provide 'refresh_token'");
+	}
+
+	@Test
+	public void executeAsync_completesExceptionallyWithTokenFlowException() throws OAuth2ServiceException {
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(CLIENT_CREDENTIALS),
+				eq(userToken), isNull(), isNull())).thenReturn(new OAuth2TokenResponse(null, EXPIRED_IN, REFRESH_TOKEN));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS,
+				REFRESH_TOKEN, null)).thenThrow(new OAuth2ServiceException("exception executed REST call"));
+
+		assertThatThrownBy(() -> {
+			cut.executeAsync(userToken).get();
+		}).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TokenFlowException.class)
+				.hasMessageContaining("grant_type 'refresh_token': exception executed REST call");
+	}
+
+	@Test
+	public void execute_concurrentlyWithCache() throws Exception {
+		cut = new UserTokenFlowTemplate(mockTokenService, asyncTokenService, TOKEN_ENDPOINT_URI, CLIENT_CREDENTIALS,
+				new UserTokenCache());
+		OAuth2TokenResponse exchangedToken = new OAuth2TokenResponse(ACCESS_TOKEN, EXPIRED_IN, null);
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(CLIENT_CREDENTIALS),
+				anyString(), isNull(), isNull())).thenReturn(new OAuth2TokenResponse(null, EXPIRED_IN, REFRESH_TOKEN));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(eq(TOKEN_ENDPOINT_URI), eq(CLIENT_CREDENTIALS),
+				eq(REFRESH_TOKEN), any())).thenReturn(exchangedToken);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<OAuth2TokenResponse>> results = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				results.add(executor.submit(() -> cut.execute(userToken)));
+			}
+			for (Future<OAuth2TokenResponse> result : results) {
+				assertThat(result.get()).isSameAs(exchangedToken);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		verify(mockTokenService, times(1)).retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI),
+				eq(CLIENT_CREDENTIALS), eq(userToken), isNull(), isNull());
+	}
+}
@@ -3,13 +3,21 @@ package com.sap.cloud.security.xsuaa.tokenflows;
 import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +27,8 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.sap.cloud.security.xsuaa.client.ClientCredentials;
+import com.sap.cloud.security.xsuaa.client.DefaultAsyncOAuth2TokenService;
+import com.sap.cloud.security.xsuaa.client.MutableClock;
 import com.sap.cloud.security.xsuaa.client.OAuth2TokenResponse;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceEndpointsProvider;
 import com.sap.cloud.security.xsuaa.client.OAuth2ServiceException;
@@ -160,6 +170,40 @@ public class UserTokenFlowTest {
 				.retrieveAccessTokenViaRefreshToken(any(), any(), any(), eq(subdomain));
 	}
 
+	@Test
+	public void executeAsync() throws Exception {
+		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN);
+		RefreshTokenFlow refreshTokenFlow = new RefreshTokenFlow(mockTokenService, endpointsProvider,
+				clientCredentials);
+		cut = new UserTokenFlow(mockTokenService, refreshTokenFlow, endpointsProvider, clientCredentials);
+
+		when(mockTokenService
+				.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+						eq(mockJwt), isNull(), isNull()))
+								.thenReturn(accessToken);
+		when(mockTokenService
+				.retrieveAccessTokenViaRefreshToken(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+						eq(REFRESH_TOKEN), isNull()))
+								.thenReturn(new OAuth2TokenResponse(mockJwt, 4711, null));
+
+		OAuth2TokenResponse jwt = cut.token(mockJwt).executeAsync().get();
+
+		assertThat(jwt.getAccessToken(), is(mockJwt));
+	}
+
+	@Test
+	public void executeAsync_completesExceptionallyIfRefreshTokenIsMissing() throws OAuth2ServiceException {
+		when(mockTokenService
+				.retrieveAccessTokenViaUserTokenGrant(eq(TOKEN_ENDPOINT_URI), eq(clientCredentials),
+						eq(mockJwt), isNull(), isNull()))
+								.thenReturn(new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, null));
+
+		assertThatThrownBy(() -> {
+			cut.token(mockJwt).executeAsync().get();
+		}).hasCauseInstanceOf(TokenFlowException.class)
+				.hasMessageContaining("response does not provide 'refresh_token'");
+	}
+
 	@Test
 	public void execute_withAdditionalAuthorities() throws TokenFlowException, OAuth2ServiceException {
 		OAuth2TokenResponse accessToken = new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN);
@@ -183,4 +227,130 @@ public class UserTokenFlowTest {
 		assertThat(jwt.getAccessToken(), is(mockJwt));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void execute_withUserTokenCache_exchangesTokenOnce() throws Exception {
+		mockUserTokenExchange();
+		XsuaaTokenFlows tokenFlows = createTokenFlows(new UserTokenCache());
+
+		OAuth2TokenResponse jwt = tokenFlows.userTokenFlow().token(mockJwt).execute();
+
+		assertThat(tokenFlows.userTokenFlow().token(mockJwt).execute(), sameInstance(jwt));
+		assertThat(tokenFlows.userTokenFlow().token(mockJwt).executeAsync().get(), sameInstance(jwt));
+		Mockito.verify(mockTokenService, times(1))
+				.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any());
+		Mockito.verify(mockTokenService, times(1))
+				.retrieveAccessTokenViaRefreshToken(any(), any(), any(), any());
+	}
+
+	@Test
+	public void executeAsync_withUserTokenCache_returnsIndependentFutures() throws Exception {
+		mockUserTokenExchange();
+		XsuaaTokenFlows tokenFlows = createTokenFlows(new UserTokenCache());
+		OAuth2TokenResponse jwt = tokenFlows.userTokenFlow().token(mockJwt).execute();
+
+		tokenFlows.userTokenFlow().token(mockJwt).executeAsync().obtrudeValue(null);
+		tokenFlows.userTokenFlow().token(mockJwt).executeAsync().cancel(false);
+
+		assertThat(tokenFlows.userTokenFlow().token(mockJwt).executeAsync().get(), sameInstance(jwt));
+		Mockito.verify(mockTokenService, times(1))
+				.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void execute_withUserTokenCache_exchangesTokenPerSubdomainAndAttributes() throws Exception {
+		mockUserTokenExchange();
+		XsuaaTokenFlows tokenFlows = createTokenFlows(new UserTokenCache());
+		Map<String, String> additionalAuthorities = new HashMap<>();
+		additionalAuthorities.put("DummyAttribute", "DummyAttributeValue");
+
+		tokenFlows.userTokenFlow().token(mockJwt).execute();
+		tokenFlows.userTokenFlow().token(mockJwt).subdomain("subdomain").execute();
+		tokenFlows.userTokenFlow().token(mockJwt).attributes(additionalAuthorities).execute();
+		tokenFlows.userTokenFlow().token(new JwtGenerator().addScopes("uaa.user", "openid").getToken()
+				.getTokenValue()).execute();
+
+		Mockito.verify(mockTokenService, times(4))
+				.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void execute_withUserTokenCache_exchangesExpiredToken() throws Exception {
+		mockUserTokenExchange();
+		MutableClock clock = new MutableClock();
+		XsuaaTokenFlows tokenFlows = createTokenFlows(new UserTokenCache(Duration.ofSeconds(30), 10, clock));
+
+		tokenFlows.userTokenFlow().token(mockJwt).execute();
+		clock.advance(Duration.ofSeconds(4711 - 29));
+		tokenFlows.userTokenFlow().token(mockJwt).execute();
+
+		Mockito.verify(mockTokenService, times(2))
+				.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void execute_withUserTokenCache_doesNotCacheFailedExchange() throws Exception {
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any()))
+				.thenThrow(new OAuth2ServiceException("exception executed REST call"))
+				.thenReturn(new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(any(), any(), any(), any()))
+				.thenReturn(new OAuth2TokenResponse(mockJwt, 4711, null));
+		UserTokenCache userTokenCache = new UserTokenCache();
+		XsuaaTokenFlows tokenFlows = createTokenFlows(userTokenCache);
+
+		assertThatThrownBy(() -> tokenFlows.userTokenFlow().token(mockJwt).execute())
+				.isInstanceOf(TokenFlowException.class)
+				.hasMessageContaining("exception executed REST call");
+		assertThat(userTokenCache.getCachedTokenCount(), is(0));
+
+		assertThat(tokenFlows.userTokenFlow().token(mockJwt).execute().getAccessToken(), is(mockJwt));
+		assertThat(userTokenCache.getMissCount(), is(2L));
+		assertThat(userTokenCache.getCachedTokenCount(), is(1));
+
+		userTokenCache.clear(null);
+		assertThat(userTokenCache.getCachedTokenCount(), is(0));
+	}
+
+	@Test
+	public void execute_withUserTokenCache_coalescesConcurrentExchanges() throws Exception {
+		CountDownLatch exchangeStarted = new CountDownLatch(1);
+		CountDownLatch releaseExchange = new CountDownLatch(1);
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					exchangeStarted.countDown();
+					releaseExchange.await(5, TimeUnit.SECONDS);
+					return new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN);
+				});
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(any(), any(), any(), any()))
+				.thenReturn(new OAuth2TokenResponse(mockJwt, 4711, null));
+		XsuaaTokenFlows tokenFlows = createTokenFlows(new UserTokenCache());
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<OAuth2TokenResponse> firstExchange = executor
+					.submit(() -> tokenFlows.userTokenFlow().token(mockJwt).execute());
+			assertThat(exchangeStarted.await(5, TimeUnit.SECONDS), is(true));
+
+			CompletableFuture<OAuth2TokenResponse> secondExchange = tokenFlows.userTokenFlow().token(mockJwt)
+					.executeAsync();
+			releaseExchange.countDown();
+
+			assertThat(secondExchange.get(5, TimeUnit.SECONDS), sameInstance(firstExchange.get(5, TimeUnit.SECONDS)));
+			Mockito.verify(mockTokenService, times(1))
+					.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void mockUserTokenExchange() throws OAuth2ServiceException {
+		when(mockTokenService.retrieveAccessTokenViaUserTokenGrant(any(), any(), any(), any(), any()))
+				.thenReturn(new OAuth2TokenResponse(JWT_ACCESS_TOKEN, 441231, REFRESH_TOKEN));
+		when(mockTokenService.retrieveAccessTokenViaRefreshToken(any(), any(), any(), any()))
+				.thenAnswer(invocation -> new OAuth2TokenResponse(mockJwt, 4711, null));
+	}
+
+	private XsuaaTokenFlows createTokenFlows(UserTokenCache userTokenCache) {
+		return new XsuaaTokenFlows(mockTokenService, new DefaultAsyncOAuth2TokenService(mockTokenService),
+				endpointsProvider, clientCredentials, userTokenCache);
+	}
+}
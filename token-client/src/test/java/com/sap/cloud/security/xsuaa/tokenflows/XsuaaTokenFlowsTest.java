@@ -3,6 +3,7 @@ package com.sap.cloud.security.xsuaa.tokenflows;
 import static com.sap.cloud.security.xsuaa.tokenflows.TestConstants.*;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import com.sap.cloud.security.xsuaa.client.*;
 import org.junit.Before;
@@ -41,6 +42,13 @@ public class XsuaaTokenFlowsTest {
 
 	}
 
+	@Test
+	public void constructor_doesNotCacheUserTokensByDefault() {
+		assertNull(cut.getUserTokenCache());
+		assertNull(new XsuaaTokenFlows(oAuth2TokenService, new DefaultAsyncOAuth2TokenService(oAuth2TokenService),
+				endpointsProvider, CLIENT_CREDENTIALS).getUserTokenCache());
+	}
+
 	@Test
 	public void startRefreshTokenFlow() {
 		RefreshTokenFlow flow = cut.refreshTokenFlow();
@@ -1,6 +1,8 @@
 package com.sap.cloud.security.xsuaa.util;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.net.URI;
@@ -34,4 +36,22 @@ public class UriUtilTest {
 		URI replacedURI = UriUtil.replaceSubdomain(URI.create("http://localhost"), "newsubdomain");
 		assertThat(replacedURI.toString(), is("http://localhost"));
 	}
+
+	@Test
+	public void replaceSubdomain_returnsCachedUri() {
+		URI replacedURI = UriUtil.replaceSubdomain(tokenEndpointUri, "cachedsubdomain");
+
+		assertThat(UriUtil.replaceSubdomain(tokenEndpointUri, "cachedsubdomain"), sameInstance(replacedURI));
+		assertThat(UriUtil.replaceSubdomain(tokenEndpointUri, "othersubdomain").toString(),
+				is("https://othersubdomain.myauth.com/mypath"));
+	}
+
+	@Test
+	public void replaceSubdomain_cacheIsBounded() {
+		for (int i = 0; i <= UriUtil.MAX_CACHED_URIS; i++) {
+			UriUtil.replaceSubdomain(tokenEndpointUri, "subdomain" + i);
+		}
+
+		assertThat(UriUtil.getCachedUriCount(), lessThanOrEqualTo(UriUtil.MAX_CACHED_URIS));
+	}
 }